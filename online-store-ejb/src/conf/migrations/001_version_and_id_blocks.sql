@@ -0,0 +1,106 @@
+-- Migration 001: optimistic locking columns and pooled ID blocks.
+-- Idempotent. SchemaMigrationService runs it at deployment in one transaction
+-- with XACT_ABORT ON (any error rolls back every batch and fails the
+-- deployment). To run it by hand with sqlcmd before deploying, use -b and
+-- wrap it in BEGIN TRANSACTION / COMMIT for the same all-or-nothing effect.
+
+SET XACT_ABORT ON;
+GO
+
+-- Version column used by @Version on Products, Orders and CartItems
+IF COL_LENGTH('Products', 'Version') IS NULL
+    ALTER TABLE Products ADD Version INT NOT NULL CONSTRAINT DF_Products_Version DEFAULT 0;
+IF COL_LENGTH('Orders', 'Version') IS NULL
+    ALTER TABLE Orders ADD Version INT NOT NULL CONSTRAINT DF_Orders_Version DEFAULT 0;
+IF COL_LENGTH('CartItems', 'Version') IS NULL
+    ALTER TABLE CartItems ADD Version INT NOT NULL CONSTRAINT DF_CartItems_Version DEFAULT 0;
+GO
+
+-- Counters of the @TableGenerator used by OrderItems, CartItems and Reviews
+IF OBJECT_ID('IdBlocks', 'U') IS NULL
+    CREATE TABLE IdBlocks (EntityName VARCHAR(50) NOT NULL PRIMARY KEY, NextBlock BIGINT NOT NULL);
+GO
+
+-- OrderItems.OrderItemID: drop IDENTITY, keeping the values. IDENTITY cannot be removed in
+-- place, so the values are copied to a new column that replaces the key.
+-- The first block repairs a copy left half done by an earlier version.
+IF COL_LENGTH('OrderItems', 'OrderItemID') IS NULL AND COL_LENGTH('OrderItems', 'OrderItemID_Copy') IS NOT NULL
+    EXEC sp_rename 'OrderItems.OrderItemID_Copy', 'OrderItemID', 'COLUMN';
+ELSE IF COL_LENGTH('OrderItems', 'OrderItemID_Copy') IS NOT NULL
+    EXEC('ALTER TABLE OrderItems DROP COLUMN OrderItemID_Copy');
+GO
+IF COLUMNPROPERTY(OBJECT_ID('OrderItems'), 'OrderItemID', 'IsIdentity') = 1
+BEGIN
+    DECLARE @old SYSNAME = (SELECT name FROM sys.key_constraints
+                            WHERE parent_object_id = OBJECT_ID('OrderItems') AND type = 'PK');
+    EXEC('ALTER TABLE OrderItems ADD OrderItemID_Copy INT NULL');
+    EXEC('UPDATE OrderItems SET OrderItemID_Copy = OrderItemID');
+    IF @old IS NOT NULL EXEC('ALTER TABLE OrderItems DROP CONSTRAINT ' + @old);
+    EXEC('ALTER TABLE OrderItems DROP COLUMN OrderItemID');
+    EXEC sp_rename 'OrderItems.OrderItemID_Copy', 'OrderItemID', 'COLUMN';
+END;
+GO
+IF COLUMNPROPERTY(OBJECT_ID('OrderItems'), 'OrderItemID', 'AllowsNull') = 1
+    EXEC('ALTER TABLE OrderItems ALTER COLUMN OrderItemID INT NOT NULL');
+GO
+IF NOT EXISTS (SELECT 1 FROM sys.key_constraints WHERE parent_object_id = OBJECT_ID('OrderItems') AND type = 'PK')
+    EXEC('ALTER TABLE OrderItems ADD CONSTRAINT PK_OrderItems PRIMARY KEY (OrderItemID)');
+IF NOT EXISTS (SELECT 1 FROM IdBlocks WHERE EntityName = 'OrderItems')
+    INSERT INTO IdBlocks (EntityName, NextBlock) SELECT 'OrderItems', ISNULL(MAX(OrderItemID), 0) FROM OrderItems;
+GO
+
+-- CartItems.CartItemID: drop IDENTITY, keeping the values. IDENTITY cannot be removed in
+-- place, so the values are copied to a new column that replaces the key.
+-- The first block repairs a copy left half done by an earlier version.
+IF COL_LENGTH('CartItems', 'CartItemID') IS NULL AND COL_LENGTH('CartItems', 'CartItemID_Copy') IS NOT NULL
+    EXEC sp_rename 'CartItems.CartItemID_Copy', 'CartItemID', 'COLUMN';
+ELSE IF COL_LENGTH('CartItems', 'CartItemID_Copy') IS NOT NULL
+    EXEC('ALTER TABLE CartItems DROP COLUMN CartItemID_Copy');
+GO
+IF COLUMNPROPERTY(OBJECT_ID('CartItems'), 'CartItemID', 'IsIdentity') = 1
+BEGIN
+    DECLARE @old SYSNAME = (SELECT name FROM sys.key_constraints
+                            WHERE parent_object_id = OBJECT_ID('CartItems') AND type = 'PK');
+    EXEC('ALTER TABLE CartItems ADD CartItemID_Copy INT NULL');
+    EXEC('UPDATE CartItems SET CartItemID_Copy = CartItemID');
+    IF @old IS NOT NULL EXEC('ALTER TABLE CartItems DROP CONSTRAINT ' + @old);
+    EXEC('ALTER TABLE CartItems DROP COLUMN CartItemID');
+    EXEC sp_rename 'CartItems.CartItemID_Copy', 'CartItemID', 'COLUMN';
+END;
+GO
+IF COLUMNPROPERTY(OBJECT_ID('CartItems'), 'CartItemID', 'AllowsNull') = 1
+    EXEC('ALTER TABLE CartItems ALTER COLUMN CartItemID INT NOT NULL');
+GO
+IF NOT EXISTS (SELECT 1 FROM sys.key_constraints WHERE parent_object_id = OBJECT_ID('CartItems') AND type = 'PK')
+    EXEC('ALTER TABLE CartItems ADD CONSTRAINT PK_CartItems PRIMARY KEY (CartItemID)');
+IF NOT EXISTS (SELECT 1 FROM IdBlocks WHERE EntityName = 'CartItems')
+    INSERT INTO IdBlocks (EntityName, NextBlock) SELECT 'CartItems', ISNULL(MAX(CartItemID), 0) FROM CartItems;
+GO
+
+-- Reviews.ReviewID: drop IDENTITY, keeping the values. IDENTITY cannot be removed in
+-- place, so the values are copied to a new column that replaces the key.
+-- The first block repairs a copy left half done by an earlier version.
+IF COL_LENGTH('Reviews', 'ReviewID') IS NULL AND COL_LENGTH('Reviews', 'ReviewID_Copy') IS NOT NULL
+    EXEC sp_rename 'Reviews.ReviewID_Copy', 'ReviewID', 'COLUMN';
+ELSE IF COL_LENGTH('Reviews', 'ReviewID_Copy') IS NOT NULL
+    EXEC('ALTER TABLE Reviews DROP COLUMN ReviewID_Copy');
+GO
+IF COLUMNPROPERTY(OBJECT_ID('Reviews'), 'ReviewID', 'IsIdentity') = 1
+BEGIN
+    DECLARE @old SYSNAME = (SELECT name FROM sys.key_constraints
+                            WHERE parent_object_id = OBJECT_ID('Reviews') AND type = 'PK');
+    EXEC('ALTER TABLE Reviews ADD ReviewID_Copy INT NULL');
+    EXEC('UPDATE Reviews SET ReviewID_Copy = ReviewID');
+    IF @old IS NOT NULL EXEC('ALTER TABLE Reviews DROP CONSTRAINT ' + @old);
+    EXEC('ALTER TABLE Reviews DROP COLUMN ReviewID');
+    EXEC sp_rename 'Reviews.ReviewID_Copy', 'ReviewID', 'COLUMN';
+END;
+GO
+IF COLUMNPROPERTY(OBJECT_ID('Reviews'), 'ReviewID', 'AllowsNull') = 1
+    EXEC('ALTER TABLE Reviews ALTER COLUMN ReviewID INT NOT NULL');
+GO
+IF NOT EXISTS (SELECT 1 FROM sys.key_constraints WHERE parent_object_id = OBJECT_ID('Reviews') AND type = 'PK')
+    EXEC('ALTER TABLE Reviews ADD CONSTRAINT PK_Reviews PRIMARY KEY (ReviewID)');
+IF NOT EXISTS (SELECT 1 FROM IdBlocks WHERE EntityName = 'Reviews')
+    INSERT INTO IdBlocks (EntityName, NextBlock) SELECT 'Reviews', ISNULL(MAX(ReviewID), 0) FROM Reviews;
+GO
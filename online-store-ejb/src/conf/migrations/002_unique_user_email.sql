@@ -0,0 +1,23 @@
+-- Migration 002: one account per email.
+-- Idempotent. The UNIQUE constraint is what keeps two signups with the same
+-- email apart when they run on different nodes (the email Bloom filter is
+-- local to each node). SQL Server's default collation is case insensitive,
+-- so the constraint also rejects the same email in another case.
+-- If existing rows already share an email the migration fails with the
+-- list of duplicates; merge or rename those accounts and redeploy.
+
+SET XACT_ABORT ON;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.key_constraints WHERE parent_object_id = OBJECT_ID('Users') AND name = 'UQ_Users_Email')
+   AND EXISTS (SELECT Email FROM Users GROUP BY Email HAVING COUNT(*) > 1)
+BEGIN
+    DECLARE @dupes NVARCHAR(2000) = (SELECT STRING_AGG(CAST(Email AS NVARCHAR(MAX)), ', ')
+                                     FROM (SELECT TOP 20 Email FROM Users GROUP BY Email HAVING COUNT(*) > 1) d);
+    RAISERROR('Users.Email has duplicates, UQ_Users_Email not added: %s', 16, 1, @dupes);
+END;
+GO
+
+IF NOT EXISTS (SELECT 1 FROM sys.key_constraints WHERE parent_object_id = OBJECT_ID('Users') AND name = 'UQ_Users_Email')
+    ALTER TABLE Users ADD CONSTRAINT UQ_Users_Email UNIQUE (Email);
+GO
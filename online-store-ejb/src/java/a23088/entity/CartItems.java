@@ -7,14 +7,19 @@ package a23088.entity;
 import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.NamedQueries;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import jakarta.xml.bind.annotation.XmlRootElement;
 import java.io.Serializable;
@@ -30,11 +35,14 @@ import java.io.Serializable;
     @NamedQuery(name = "CartItems.findAll", query = "SELECT c FROM CartItems c"),
     @NamedQuery(name = "CartItems.findByCartItemID", query = "SELECT c FROM CartItems c WHERE c.cartItemID = :cartItemID"),
     @NamedQuery(name = "CartItems.findByQuantity", query = "SELECT c FROM CartItems c WHERE c.quantity = :quantity")})
+@NamedEntityGraph(name = "CartItems.summary", attributeNodes = @NamedAttributeNode("productID"))
 public class CartItems implements Serializable {
 
     private static final long serialVersionUID = 1L;
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "CartItemsIds")
+    @TableGenerator(name = "CartItemsIds", table = "IdBlocks", pkColumnName = "EntityName",
+            valueColumnName = "NextBlock", pkColumnValue = "CartItems", allocationSize = 50)
     @Basic(optional = false)
     @Column(name = "CartItemID")
     private Integer cartItemID;
@@ -42,11 +50,14 @@ public class CartItems implements Serializable {
     @NotNull
     @Column(name = "Quantity")
     private int quantity;
+    @Version
+    @Column(name = "Version")
+    private int version;
     @JoinColumn(name = "CartID", referencedColumnName = "CartID")
     @ManyToOne(optional = false)
     private Cart cartID;
     @JoinColumn(name = "ProductID", referencedColumnName = "ProductID")
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private Products productID;
 
     public CartItems() {
@@ -77,6 +88,14 @@ public class CartItems implements Serializable {
         this.quantity = quantity;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public Cart getCartID() {
         return cartID;
     }
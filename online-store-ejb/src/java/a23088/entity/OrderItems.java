@@ -15,6 +15,7 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.NamedQueries;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import jakarta.validation.constraints.NotNull;
 import jakarta.xml.bind.annotation.XmlRootElement;
 import java.io.Serializable;
@@ -35,7 +36,9 @@ public class OrderItems implements Serializable {
 
     private static final long serialVersionUID = 1L;
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "OrderItemsIds")
+    @TableGenerator(name = "OrderItemsIds", table = "IdBlocks", pkColumnName = "EntityName",
+            valueColumnName = "NextBlock", pkColumnValue = "OrderItems", allocationSize = 50)
     @Basic(optional = false)
     @Column(name = "OrderItemID")
     private Integer orderItemID;
@@ -4,17 +4,23 @@ import jakarta.persistence.Basic;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
 import jakarta.persistence.NamedQueries;
 import jakarta.persistence.NamedQuery;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import jakarta.xml.bind.annotation.XmlRootElement;
@@ -35,6 +41,13 @@ import java.util.Date;
     @NamedQuery(name = "Orders.findByAddress", query = "SELECT o FROM Orders o WHERE o.address = :address"),
     @NamedQuery(name = "Orders.findByPhone", query = "SELECT o FROM Orders o WHERE o.phone = :phone")
 })
+@NamedEntityGraphs({
+    @NamedEntityGraph(name = "Orders.summary", attributeNodes = @NamedAttributeNode("userID")),
+    @NamedEntityGraph(name = "Orders.withItems", attributeNodes = {
+        @NamedAttributeNode("userID"),
+        @NamedAttributeNode(value = "orderItemsCollection", subgraph = "items")
+    }, subgraphs = @NamedSubgraph(name = "items", attributeNodes = @NamedAttributeNode("productID")))
+})
 public class Orders implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -75,8 +88,12 @@ public class Orders implements Serializable {
     @Column(name = "Phone")
     private String phone;
 
+    @Version
+    @Column(name = "Version")
+    private int version;
+
     @JoinColumn(name = "UserID", referencedColumnName = "UserID")
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private Users userID;
 
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "orderID")
@@ -143,6 +160,14 @@ public class Orders implements Serializable {
         this.phone = phone;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public Users getUserID() {
         return userID;
     }
@@ -8,17 +8,21 @@ import jakarta.persistence.Basic;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.NamedQueries;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import jakarta.xml.bind.annotation.XmlRootElement;
@@ -47,6 +51,10 @@ import java.util.Date;
     @NamedQuery(name = "Products.findPublished", query = "SELECT p FROM Products p WHERE p.status = true"),
     @NamedQuery(name = "Products.findUnpublished", query = "SELECT p FROM Products p WHERE p.status = false"),
     @NamedQuery(name = "Products.findByCreatedAt", query = "SELECT p FROM Products p WHERE p.createdAt = :createdAt")})
+@NamedEntityGraph(name = "Products.summary", attributeNodes = {
+    @NamedAttributeNode("categoryID"),
+    @NamedAttributeNode("supplierID")
+})
 public class Products implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -86,11 +94,14 @@ public class Products implements Serializable {
     @Column(name = "CreatedAt")
     @Temporal(TemporalType.TIMESTAMP)
     private Date createdAt;
+    @Version
+    @Column(name = "Version")
+    private int version;
     @JoinColumn(name = "CategoryID", referencedColumnName = "CategoryID")
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private Categories categoryID;
     @JoinColumn(name = "SupplierID", referencedColumnName = "SupplierID")
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private Supplier supplierID;
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "productID")
     private Collection<OrderItems> orderItemsCollection;
@@ -187,6 +198,14 @@ public class Products implements Serializable {
         this.createdAt = createdAt;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public Categories getCategoryID() {
         return categoryID;
     }
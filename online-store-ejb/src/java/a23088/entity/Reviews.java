@@ -7,14 +7,18 @@ package a23088.entity;
 import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.NamedQueries;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
 import jakarta.validation.constraints.NotNull;
@@ -36,11 +40,14 @@ import java.util.Date;
     @NamedQuery(name = "Reviews.findByRating", query = "SELECT r FROM Reviews r WHERE r.rating = :rating"),
     @NamedQuery(name = "Reviews.findByComment", query = "SELECT r FROM Reviews r WHERE r.comment = :comment"),
     @NamedQuery(name = "Reviews.findByCreatedAt", query = "SELECT r FROM Reviews r WHERE r.createdAt = :createdAt")})
+@NamedEntityGraph(name = "Reviews.summary", attributeNodes = @NamedAttributeNode("userID"))
 public class Reviews implements Serializable {
 
     private static final long serialVersionUID = 1L;
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ReviewsIds")
+    @TableGenerator(name = "ReviewsIds", table = "IdBlocks", pkColumnName = "EntityName",
+            valueColumnName = "NextBlock", pkColumnValue = "Reviews", allocationSize = 50)
     @Basic(optional = false)
     @Column(name = "ReviewID")
     private Integer reviewID;
@@ -60,7 +67,7 @@ public class Reviews implements Serializable {
     @ManyToOne(optional = false)
     private Products productID;
     @JoinColumn(name = "UserID", referencedColumnName = "UserID")
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private Users userID;
 
     public Reviews() {
@@ -8,17 +8,21 @@ import jakarta.persistence.Basic;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.NamedQueries;
 import jakarta.persistence.NamedQuery;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.Temporal;
 import jakarta.persistence.TemporalType;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import jakarta.xml.bind.annotation.XmlRootElement;
@@ -32,7 +36,7 @@ import java.util.Date;
  * @author ADMIN
  */
 @Entity
-@Table(name = "Users")
+@Table(name = "Users", uniqueConstraints = @UniqueConstraint(name = "UQ_Users_Email", columnNames = "Email"))
 @XmlRootElement
 @NamedQueries({
     @NamedQuery(name = "Users.findAll", query = "SELECT u FROM Users u"),
@@ -42,6 +46,7 @@ import java.util.Date;
     @NamedQuery(name = "Users.findByPassword", query = "SELECT u FROM Users u WHERE u.password = :password"),
     @NamedQuery(name = "Users.findByStatus", query = "SELECT u FROM Users u WHERE u.status = :status"),
     @NamedQuery(name = "Users.findByCreatedAt", query = "SELECT u FROM Users u WHERE u.createdAt = :createdAt")})
+@NamedEntityGraph(name = "Users.summary", attributeNodes = @NamedAttributeNode("roleID"))
 public class Users implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -80,7 +85,7 @@ public class Users implements Serializable {
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "userID")
     private Collection<Reviews> reviewsCollection;
     @JoinColumn(name = "RoleID", referencedColumnName = "RoleID")
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private Roles roleID;
     @OneToMany(cascade = CascadeType.ALL, mappedBy = "userID")
     private Collection<Cart> cartCollection;
@@ -130,32 +135,9 @@ public class Users implements Serializable {
     }
 
     public void setPassword(String password) {
-        // Store password as-is, hashing will be done in service layer
+        // Store password as-is, hashing is done by PasswordHasher
         this.password = password;
     }
-    
-    public void setPasswordHashed(String password) {
-        // Hash password before storing
-        this.password = hashPassword(password);
-    }
-    
-    private String hashPassword(String password) {
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes("UTF-8"));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("Error hashing password", e);
-        }
-    }
 
     public boolean getStatus() {
         return status;
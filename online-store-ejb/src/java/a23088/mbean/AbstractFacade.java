@@ -5,7 +5,22 @@
 package a23088.mbean;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  *
@@ -13,10 +28,18 @@ import java.util.List;
  */
 public abstract class AbstractFacade<T> {
 
+    // Mặc định bằng eclipselink.jdbc.batch-writing.size trong persistence.xml
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    // SQL Server cho phép tối đa 2100 tham số mỗi câu lệnh
+    private static final int MAX_IN_PARAMETERS = 1000;
+    protected static final String JDBC_FETCH_SIZE = "eclipselink.jdbc.fetch-size";
+
     private Class<T> entityClass;
+    private final Set<FetchPlan> plans;
 
     public AbstractFacade(Class<T> entityClass) {
         this.entityClass = entityClass;
+        this.plans = FetchPlan.declaredOn(entityClass);
     }
 
     protected abstract EntityManager getEntityManager();
@@ -26,27 +49,187 @@ public abstract class AbstractFacade<T> {
         getEntityManager().flush();
     }
 
-    public void edit(T entity) {
-        getEntityManager().merge(entity);
+    /**
+     * Merge changes of a detached entity
+     * @param entity detached entity
+     * @return the merged entity with its new version; callers that keep the
+     *         entity (session beans, lists) must replace their copy with it
+     */
+    public T edit(T entity) {
+        return getEntityManager().merge(entity);
     }
 
+    /**
+     * Remove an entity. A detached entity with a @Version is merged first, so
+     * the DELETE checks the version the caller read and fails with an
+     * OptimisticLockException if someone changed the row since; other
+     * entities are removed through a reference without reading them.
+     * @param entity entity to remove
+     */
     public void remove(T entity) {
-        getEntityManager().remove(getEntityManager().merge(entity));
+        EntityManager em = getEntityManager();
+        Object id = em.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+        boolean versioned = em.getMetamodel().entity(entityClass).hasVersionAttribute();
+        em.remove(em.contains(entity) || id == null || versioned ? em.merge(entity) : em.getReference(entityClass, id));
+    }
+
+    /**
+     * Persist many entities in one transaction. Inserts are sent in JDBC
+     * batches; every flushInterval entities the persistence context is flushed
+     * and cleared so it does not grow with the input. Entities managed by the
+     * caller in the same transaction are detached by the clear as well.
+     * @param entities new entities
+     * @param flushInterval entities per flush/clear, 0 for the batch-writing size
+     */
+    public void createAll(Collection<? extends T> entities, int flushInterval) {
+        EntityManager em = getEntityManager();
+        int interval = flushInterval > 0 ? flushInterval : batchSize();
+        int pending = 0;
+        for (T entity : entities) {
+            em.persist(entity);
+            if (++pending == interval) {
+                em.flush();
+                em.clear();
+                pending = 0;
+            }
+        }
+        em.flush();
+    }
+
+    public void createAll(Collection<? extends T> entities) {
+        createAll(entities, 0);
+    }
+
+    /**
+     * Merge many detached entities in one transaction, flushing and clearing
+     * every flushInterval entities like createAll
+     * @param entities changed entities
+     * @param flushInterval entities per flush/clear, 0 for the batch-writing size
+     */
+    public void editAll(Collection<? extends T> entities, int flushInterval) {
+        EntityManager em = getEntityManager();
+        int interval = flushInterval > 0 ? flushInterval : batchSize();
+        int pending = 0;
+        for (T entity : entities) {
+            em.merge(entity);
+            if (++pending == interval) {
+                em.flush();
+                em.clear();
+                pending = 0;
+            }
+        }
+        em.flush();
+    }
+
+    public void editAll(Collection<? extends T> entities) {
+        editAll(entities, 0);
+    }
+
+    /**
+     * Delete rows by ID with bulk DELETE statements, without loading them.
+     * Cascades and orphan removal are not applied: delete child rows first.
+     * @param ids entity IDs
+     * @return number of rows deleted
+     */
+    public int removeAllById(Collection<?> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        String jpql = "DELETE FROM " + entityName() + " e WHERE e." + idAttribute() + " IN :ids";
+        int deleted = 0;
+        List<Object> chunk = new ArrayList<>(Math.min(ids.size(), MAX_IN_PARAMETERS));
+        Iterator<?> it = ids.iterator();
+        while (it.hasNext()) {
+            chunk.add(it.next());
+            if (chunk.size() == MAX_IN_PARAMETERS || !it.hasNext()) {
+                deleted += getEntityManager().createQuery(jpql)
+                        .setParameter("ids", chunk)
+                        .executeUpdate();
+                chunk = new ArrayList<>(Math.min(ids.size(), MAX_IN_PARAMETERS));
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Bulk UPDATE in one statement, e.g.
+     * updateWhere(Map.of("status", "Cancelled"), Map.of("status", "Pending")).
+     * Keys are attribute names of this entity (conditions may use a path such
+     * as "cartID.cartID"); a Collection condition value becomes IN.
+     * @param values attribute -> new value
+     * @param conditions attribute -> required value, combined with AND
+     * @return number of rows updated
+     */
+    public int updateWhere(Map<String, ?> values, Map<String, ?> conditions) {
+        if (values == null || values.isEmpty()) {
+            return 0;
+        }
+        StringBuilder jpql = new StringBuilder("UPDATE ").append(entityName()).append(" e SET ");
+        List<Object> params = new ArrayList<>();
+        for (Map.Entry<String, ?> value : values.entrySet()) {
+            jpql.append(params.isEmpty() ? "" : ", ")
+                    .append("e.").append(attributePath(value.getKey()))
+                    .append(" = :p").append(params.size());
+            params.add(value.getValue());
+        }
+        if (conditions != null && !conditions.isEmpty()) {
+            String separator = " WHERE ";
+            for (Map.Entry<String, ?> condition : conditions.entrySet()) {
+                jpql.append(separator).append("e.").append(attributePath(condition.getKey()))
+                        .append(condition.getValue() instanceof Collection ? " IN :p" : " = :p")
+                        .append(params.size());
+                params.add(condition.getValue());
+                separator = " AND ";
+            }
+        }
+        jakarta.persistence.Query query = getEntityManager().createQuery(jpql.toString());
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter("p" + i, params.get(i));
+        }
+        return query.executeUpdate();
     }
 
     public T find(Object id) {
         return getEntityManager().find(entityClass, id);
     }
 
+    /**
+     * Find by ID, loading the associations of a fetch plan
+     * @param id entity ID
+     * @param plan associations to load with the entity; a plan the entity
+     *        declares no graph for is ignored
+     * @return entity or null
+     */
+    public T find(Object id, FetchPlan plan) {
+        if (!supports(plan)) {
+            return find(id);
+        }
+        return getEntityManager().find(entityClass, id,
+                Collections.<String, Object>singletonMap(FetchPlan.LOAD_GRAPH, entityGraph(plan)));
+    }
+
     public List<T> findAll() {
         jakarta.persistence.criteria.CriteriaQuery cq = getEntityManager().getCriteriaBuilder().createQuery();
         cq.select(cq.from(entityClass));
         return getEntityManager().createQuery(cq).getResultList();
     }
 
+    /**
+     * All entities, loading the associations of a fetch plan
+     * @param plan associations to load with every row
+     * @return entities
+     */
+    public List<T> findAll(FetchPlan plan) {
+        CriteriaQuery<T> cq = getEntityManager().getCriteriaBuilder().createQuery(entityClass);
+        cq.select(cq.from(entityClass));
+        return withPlan(getEntityManager().createQuery(cq), plan).getResultList();
+    }
+
     public List<T> findRange(int[] range) {
         jakarta.persistence.criteria.CriteriaQuery cq = getEntityManager().getCriteriaBuilder().createQuery();
-        cq.select(cq.from(entityClass));
+        jakarta.persistence.criteria.Root<T> rt = cq.from(entityClass);
+        cq.select(rt);
+        cq.orderBy(getEntityManager().getCriteriaBuilder().asc(rt.get(idAttribute())));
         jakarta.persistence.Query q = getEntityManager().createQuery(cq);
         q.setMaxResults(range[1] - range[0] + 1);
         q.setFirstResult(range[0]);
@@ -60,5 +243,233 @@ public abstract class AbstractFacade<T> {
         jakarta.persistence.Query q = getEntityManager().createQuery(cq);
         return ((Long) q.getSingleResult()).intValue();
     }
+
+    /**
+     * Keyset pagination: the page of entities whose ID is greater than lastId,
+     * ordered by ID. Uses an index seek instead of OFFSET, so every page costs
+     * the same as the first one.
+     * @param lastId ID of the last row already shown, null for the first page
+     * @param limit page size
+     * @return page with cursors for the neighbouring pages
+     */
+    public KeysetPage<T> findAfter(Object lastId, int limit) {
+        return keysetPage(seek(lastId, limit + 1, false, 0, null), limit, false, lastId != null, this::idOf);
+    }
+
+    /**
+     * Keyset pagination backwards: the page of entities whose ID is smaller than
+     * firstId, still returned in ascending ID order.
+     * @param firstId ID of the first row currently shown
+     * @param limit page size
+     * @return page with cursors for the neighbouring pages
+     */
+    public KeysetPage<T> findBefore(Object firstId, int limit) {
+        if (firstId == null) {
+            return findAfter(null, limit);
+        }
+        return keysetPage(seek(firstId, limit + 1, true, 0, null), limit, true, true, this::idOf);
+    }
+
+    /**
+     * Turn the page using a cursor token from KeysetPage. A missing or
+     * invalid token gives the first page.
+     * @param cursor next/previous cursor, null for the first page
+     * @param limit page size
+     * @return requested page
+     */
+    public KeysetPage<T> findByCursor(String cursor, int limit) {
+        Object key = cursorKey(cursor);
+        if (key == null) {
+            return findAfter(null, limit);
+        }
+        return KeysetPage.isBefore(cursor) ? findBefore(key, limit) : findAfter(key, limit);
+    }
+
+    /**
+     * Apply a fetch plan to a query over this facade's entity
+     * @param query query selecting entities of this facade
+     * @param plan associations to load, null (or a plan the entity declares
+     *        no graph for) to keep the mapping defaults
+     * @return the same query
+     */
+    protected <R> TypedQuery<R> withPlan(TypedQuery<R> query, FetchPlan plan) {
+        if (supports(plan)) {
+            query.setHint(FetchPlan.LOAD_GRAPH, entityGraph(plan));
+        }
+        return query;
+    }
+
+    /**
+     * Mark a projection query as read-only: rows built by a constructor
+     * expression are never managed, and pending changes of the persistence
+     * context need not be flushed before it runs
+     * @param query projection query
+     * @return the same query
+     */
+    protected <R> TypedQuery<R> readOnly(TypedQuery<R> query) {
+        return query.setFlushMode(FlushModeType.COMMIT);
+    }
+
+    /**
+     * @param plan fetch plan
+     * @return true if this facade's entity declares the plan's entity graph
+     */
+    public boolean supports(FetchPlan plan) {
+        return plan != null && plans.contains(plan);
+    }
+
+    private jakarta.persistence.EntityGraph<?> entityGraph(FetchPlan plan) {
+        return getEntityManager().getEntityGraph(plan.graphName(entityClass));
+    }
+
+    /**
+     * Walk the whole table in ID order, chunkSize rows at a time. Each chunk
+     * is one keyset query (WHERE id &gt; last ORDER BY id) read with a JDBC
+     * fetch size of chunkSize; after the consumer returns, pending changes
+     * are flushed and the persistence context is cleared, so memory stays
+     * bounded by one chunk however large the table is.
+     * @param chunkSize rows per chunk
+     * @param plan associations to load with every row, null for none
+     * @param consumer called once per non-empty chunk
+     * @return number of rows visited
+     */
+    public long forEachChunk(int chunkSize, FetchPlan plan, Consumer<List<T>> consumer) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        jakarta.persistence.PersistenceUnitUtil util = getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+        Object lastId = null;
+        long visited = 0;
+        while (true) {
+            List<T> chunk = seek(lastId, chunkSize, false, chunkSize, plan);
+            if (chunk.isEmpty()) {
+                return visited;
+            }
+            consumer.accept(chunk);
+            visited += chunk.size();
+            lastId = util.getIdentifier(chunk.get(chunk.size() - 1));
+            releaseChunk();
+            if (chunk.size() < chunkSize) {
+                return visited;
+            }
+        }
+    }
+
+    public long forEachChunk(int chunkSize, Consumer<List<T>> consumer) {
+        return forEachChunk(chunkSize, null, consumer);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<T> seek(Object key, int maxResults, boolean backwards, int fetchSize, FetchPlan plan) {
+        CriteriaBuilder cb = getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<T> cq = cb.createQuery(entityClass);
+        Root<T> rt = cq.from(entityClass);
+        Path<Comparable<Object>> id = rt.get(idAttribute());
+        cq.select(rt);
+        if (key != null) {
+            Comparable<Object> bound = (Comparable<Object>) key;
+            cq.where(backwards ? cb.lessThan(id, bound) : cb.greaterThan(id, bound));
+        }
+        cq.orderBy(backwards ? cb.desc(id) : cb.asc(id));
+        TypedQuery<T> query = withPlan(getEntityManager().createQuery(cq), plan).setMaxResults(maxResults);
+        if (fetchSize > 0) {
+            query.setHint(JDBC_FETCH_SIZE, fetchSize);
+        }
+        return new ArrayList<>(query.getResultList());
+    }
+
+    // Ghi các thay đổi còn chờ rồi bỏ các entity đã duyệt khỏi persistence context
+    private void releaseChunk() {
+        EntityManager em = getEntityManager();
+        if (em.isJoinedToTransaction()) {
+            em.flush();
+        }
+        em.clear();
+    }
+
+    /**
+     * Build one page of a keyset pagination from rows read with limit + 1
+     * as the maximum result. The extra row only tells whether another page
+     * exists in the direction that was read; it is not part of the page.
+     * @param rows rows in the order they were read
+     * @param limit page size
+     * @param backwards true if the rows were read towards the previous page
+     *        (in reverse display order)
+     * @param fromCursor true if the query started from a cursor
+     * @param key extracts the keyset column of a row
+     * @return page in display order with cursors for the neighbouring pages
+     */
+    protected static <R> KeysetPage<R> keysetPage(List<R> rows, int limit, boolean backwards,
+            boolean fromCursor, Function<R, ?> key) {
+        boolean more = rows.size() > limit;
+        List<R> page = new ArrayList<>(more ? rows.subList(0, limit) : rows);
+        if (backwards) {
+            Collections.reverse(page);
+        }
+        Object firstId = page.isEmpty() ? null : key.apply(page.get(0));
+        Object lastId = page.isEmpty() ? null : key.apply(page.get(page.size() - 1));
+        boolean hasNext = backwards ? fromCursor : more;
+        boolean hasPrevious = backwards ? more : fromCursor;
+        return new KeysetPage<>(page, firstId, lastId, hasNext && !page.isEmpty(), hasPrevious && !page.isEmpty());
+    }
+
+    /**
+     * Decode the ID a cursor token points at, typed like this facade's ID
+     * @param cursor token from KeysetPage
+     * @return ID, or null if the token is missing or was not issued by KeysetPage
+     */
+    protected Object cursorKey(String cursor) {
+        String key = KeysetPage.key(cursor);
+        if (key == null) {
+            return null;
+        }
+        Class<?> idType = getEntityManager().getMetamodel().entity(entityClass).getIdType().getJavaType();
+        try {
+            if (idType == Integer.class) {
+                return Integer.valueOf(key);
+            }
+            if (idType == Long.class) {
+                return Long.valueOf(key);
+            }
+            return key;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Object idOf(T entity) {
+        return getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+    }
+
+    private int batchSize() {
+        Object size = getEntityManager().getEntityManagerFactory().getProperties()
+                .get("eclipselink.jdbc.batch-writing.size");
+        try {
+            return size != null ? Integer.parseInt(size.toString()) : DEFAULT_BATCH_SIZE;
+        } catch (NumberFormatException e) {
+            return DEFAULT_BATCH_SIZE;
+        }
+    }
+
+    private String entityName() {
+        return getEntityManager().getMetamodel().entity(entityClass).getName();
+    }
+
+    // Chỉ chấp nhận tên thuộc tính có trong metamodel, không ghép chuỗi tùy ý vào JPQL
+    private String attributePath(String path) {
+        String[] parts = path.split("\\.");
+        getEntityManager().getMetamodel().entity(entityClass).getAttribute(parts[0]);
+        for (String part : parts) {
+            if (!part.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+                throw new IllegalArgumentException("Invalid attribute path: " + path);
+            }
+        }
+        return path;
+    }
+
+    private String idAttribute() {
+        EntityType<T> type = getEntityManager().getMetamodel().entity(entityClass);
+        return type.getId(type.getIdType().getJavaType()).getName();
+    }
     
 }
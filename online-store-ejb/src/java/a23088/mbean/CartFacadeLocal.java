@@ -17,7 +17,7 @@ public interface CartFacadeLocal {
 
     void create(Cart cart);
 
-    void edit(Cart cart);
+    Cart edit(Cart cart);
 
     void remove(Cart cart);
 
@@ -33,8 +33,8 @@ public class CartItemsFacade extends AbstractFacade<CartItems> implements CartIt
     @Override
     public List<CartItems> findByCartID(Integer cartId) {
         try {
-            TypedQuery<CartItems> query = em.createQuery(
-                "SELECT ci FROM CartItems ci WHERE ci.cartID.cartID = :cartId", CartItems.class);
+            TypedQuery<CartItems> query = withPlan(em.createQuery(
+                "SELECT ci FROM CartItems ci WHERE ci.cartID.cartID = :cartId", CartItems.class), FetchPlan.SUMMARY);
             query.setParameter("cartId", cartId);
             return query.getResultList();
         } catch (Exception e) {
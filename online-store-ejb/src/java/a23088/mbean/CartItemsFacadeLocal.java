@@ -6,7 +6,9 @@ package a23088.mbean;
 
 import a23088.entity.CartItems;
 import jakarta.ejb.Local;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -17,10 +19,22 @@ public interface CartItemsFacadeLocal {
 
     void create(CartItems cartItems);
 
-    void edit(CartItems cartItems);
+    CartItems edit(CartItems cartItems);
 
     void remove(CartItems cartItems);
 
+    void createAll(Collection<? extends CartItems> entities);
+
+    void createAll(Collection<? extends CartItems> entities, int flushInterval);
+
+    void editAll(Collection<? extends CartItems> entities);
+
+    void editAll(Collection<? extends CartItems> entities, int flushInterval);
+
+    int removeAllById(Collection<?> ids);
+
+    int updateWhere(Map<String, ?> values, Map<String, ?> conditions);
+
     CartItems find(Object id);
 
     List<CartItems> findAll();
@@ -17,7 +17,7 @@ public interface CategoriesFacadeLocal {
 
     void create(Categories categories);
 
-    void edit(Categories categories);
+    Categories edit(Categories categories);
 
     void remove(Categories categories);
 
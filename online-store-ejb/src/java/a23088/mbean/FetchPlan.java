@@ -0,0 +1,68 @@
+package a23088.mbean;
+
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedEntityGraphs;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Associations a facade query loads together with its entities. Each plan
+ * maps to a named entity graph "&lt;Entity&gt;.&lt;graph&gt;" declared on the entity
+ * and is passed to the provider as a load graph, so a screen fetches the
+ * graph it renders with the query instead of one SELECT per row. A plan
+ * whose graph an entity does not declare (e.g. WITH_ITEMS on Products) is
+ * ignored by the facades, which then use the mapping defaults.
+ * @author ADMIN
+ */
+public enum FetchPlan {
+
+    /** References shown in list rows: category/supplier, customer, role, product, author */
+    SUMMARY("summary"),
+    /** SUMMARY plus the order lines and their products (Orders only) */
+    WITH_ITEMS("withItems");
+
+    static final String LOAD_GRAPH = "jakarta.persistence.loadgraph";
+
+    private final String graph;
+
+    FetchPlan(String graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Name of the entity graph for this plan
+     * @param entityClass entity the graph is declared on
+     * @return graph name, e.g. Orders.withItems
+     */
+    public String graphName(Class<?> entityClass) {
+        return entityClass.getSimpleName() + "." + graph;
+    }
+
+    /**
+     * Plans whose entity graph is declared on an entity class
+     * @param entityClass entity class
+     * @return supported plans, possibly empty
+     */
+    static Set<FetchPlan> declaredOn(Class<?> entityClass) {
+        Set<String> graphs = new HashSet<>();
+        NamedEntityGraph single = entityClass.getAnnotation(NamedEntityGraph.class);
+        if (single != null) {
+            graphs.add(single.name());
+        }
+        NamedEntityGraphs several = entityClass.getAnnotation(NamedEntityGraphs.class);
+        if (several != null) {
+            for (NamedEntityGraph graph : several.value()) {
+                graphs.add(graph.name());
+            }
+        }
+        Set<FetchPlan> plans = EnumSet.noneOf(FetchPlan.class);
+        for (FetchPlan plan : values()) {
+            if (graphs.contains(plan.graphName(entityClass))) {
+                plans.add(plan);
+            }
+        }
+        return Collections.unmodifiableSet(plans);
+    }
+}
@@ -0,0 +1,111 @@
+package a23088.mbean;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) pagination over rows ordered by a unique key.
+ * The cursors are opaque tokens that can be passed back to the facade's
+ * findByCursor / findRowsPage to turn the page in constant time; a token
+ * that does not decode is treated as no cursor (first page).
+ * @author ADMIN
+ */
+public class KeysetPage<T> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String AFTER = "a:";
+    private static final String BEFORE = "b:";
+
+    private final List<T> items;
+    private final Object firstId;
+    private final Object lastId;
+    private final boolean hasNext;
+    private final boolean hasPrevious;
+
+    public KeysetPage(List<T> items, Object firstId, Object lastId, boolean hasNext, boolean hasPrevious) {
+        // Sao chép: danh sách truyền vào có thể là subList của kết quả truy vấn, không serializable
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.hasNext = hasNext;
+        this.hasPrevious = hasPrevious;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public Object getFirstId() {
+        return firstId;
+    }
+
+    public Object getLastId() {
+        return lastId;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    public boolean hasPrevious() {
+        return hasPrevious;
+    }
+
+    /**
+     * @return token for the page after this one, null if this is the last page
+     */
+    public String getNextCursor() {
+        return hasNext && lastId != null ? encode(AFTER + lastId) : null;
+    }
+
+    /**
+     * @return token for the page before this one, null if this is the first page
+     */
+    public String getPreviousCursor() {
+        return hasPrevious && firstId != null ? encode(BEFORE + firstId) : null;
+    }
+
+    /**
+     * Check whether a cursor token points backwards
+     * @param cursor token from getNextCursor / getPreviousCursor
+     * @return true for a previous-page token, false otherwise (also when invalid)
+     */
+    static boolean isBefore(String cursor) {
+        String raw = decode(cursor);
+        return raw != null && raw.startsWith(BEFORE);
+    }
+
+    /**
+     * Extract the raw key from a cursor token
+     * @param cursor token from getNextCursor / getPreviousCursor
+     * @return key as string, null if the token is missing or malformed
+     */
+    static String key(String cursor) {
+        String raw = decode(cursor);
+        if (raw == null || raw.length() <= 2 || !(raw.startsWith(AFTER) || raw.startsWith(BEFORE))) {
+            return null;
+        }
+        return raw.substring(2);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Token do người dùng sửa tay: trả về null thay vì ném lỗi
+    private static String decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package a23088.mbean;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Filter used by OrdersFacade.findExportRows. Null fields are not filtered on;
+ * the date range is half-open: from &lt;= orderDate &lt; to.
+ * @author ADMIN
+ */
+public class OrderExportCriteria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Date from;
+    private Date to;
+    private String status;
+
+    public OrderExportCriteria() {
+    }
+
+    public OrderExportCriteria(Date from, Date to, String status) {
+        this.from = from;
+        this.to = to;
+        this.status = status;
+    }
+
+    public Date getFrom() {
+        return from;
+    }
+
+    public void setFrom(Date from) {
+        this.from = from;
+    }
+
+    public Date getTo() {
+        return to;
+    }
+
+    public void setTo(Date to) {
+        this.to = to;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+}
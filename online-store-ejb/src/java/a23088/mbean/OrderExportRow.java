@@ -0,0 +1,108 @@
+package a23088.mbean;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * One order line with its order, customer and product, built by a JPQL
+ * constructor expression in OrdersFacade.findExportRows.
+ * @author ADMIN
+ */
+public class OrderExportRow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Integer orderID;
+    private final Date orderDate;
+    private final String status;
+    private final int totalAmount;
+    private final String address;
+    private final String phone;
+    private final Integer userID;
+    private final String customerName;
+    private final String customerEmail;
+    private final Integer orderItemID;
+    private final Integer productID;
+    private final String productName;
+    private final int quantity;
+    private final int unitPrice;
+
+    public OrderExportRow(Integer orderID, Date orderDate, String status, int totalAmount,
+            String address, String phone, Integer userID, String customerName, String customerEmail,
+            Integer orderItemID, Integer productID, String productName, int quantity, int unitPrice) {
+        this.orderID = orderID;
+        this.orderDate = orderDate;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.address = address;
+        this.phone = phone;
+        this.userID = userID;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.orderItemID = orderItemID;
+        this.productID = productID;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    public Integer getOrderID() {
+        return orderID;
+    }
+
+    public Date getOrderDate() {
+        return orderDate;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getTotalAmount() {
+        return totalAmount;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public Integer getUserID() {
+        return userID;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public Integer getOrderItemID() {
+        return orderItemID;
+    }
+
+    public Integer getProductID() {
+        return productID;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getUnitPrice() {
+        return unitPrice;
+    }
+
+    public int getLineTotal() {
+        return quantity * unitPrice;
+    }
+}
@@ -8,6 +8,7 @@ import a23088.entity.OrderItems;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
 import java.util.List;
 
 /**
@@ -29,6 +30,20 @@ public class OrderItemsFacade extends AbstractFacade<OrderItems> implements Orde
         super(OrderItems.class);
     }
     
+    @Override
+    public List<ProductSales> sumQuantityByProduct(int limit) {
+        TypedQuery<ProductSales> query = em.createQuery(
+            "SELECT NEW a23088.mbean.ProductSales(p.productID, p.productName, SUM(oi.quantity)) "
+            + "FROM OrderItems oi JOIN oi.productID p JOIN oi.orderID o "
+            + "WHERE LOWER(o.status) <> 'cancelled' "
+            + "GROUP BY p.productID, p.productName "
+            + "ORDER BY SUM(oi.quantity) DESC, p.productID", ProductSales.class);
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+        return query.getResultList();
+    }
+    
     @Override
     public List<OrderItems> findByOrderID(Integer orderId) {
         try {
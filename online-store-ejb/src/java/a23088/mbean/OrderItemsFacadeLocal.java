@@ -6,7 +6,10 @@ package a23088.mbean;
 
 import a23088.entity.OrderItems;
 import jakarta.ejb.Local;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  *
@@ -17,10 +20,22 @@ public interface OrderItemsFacadeLocal {
 
     void create(OrderItems orderItems);
 
-    void edit(OrderItems orderItems);
+    OrderItems edit(OrderItems orderItems);
 
     void remove(OrderItems orderItems);
 
+    void createAll(Collection<? extends OrderItems> entities);
+
+    void createAll(Collection<? extends OrderItems> entities, int flushInterval);
+
+    void editAll(Collection<? extends OrderItems> entities);
+
+    void editAll(Collection<? extends OrderItems> entities, int flushInterval);
+
+    int removeAllById(Collection<?> ids);
+
+    int updateWhere(Map<String, ?> values, Map<String, ?> conditions);
+
     OrderItems find(Object id);
 
     List<OrderItems> findAll();
@@ -28,7 +43,13 @@ public interface OrderItemsFacadeLocal {
     List<OrderItems> findRange(int[] range);
 
     int count();
-    
+
+    long forEachChunk(int chunkSize, Consumer<List<OrderItems>> consumer);
+
+    long forEachChunk(int chunkSize, FetchPlan plan, Consumer<List<OrderItems>> consumer);
+
     List<OrderItems> findByOrderID(Integer orderId);
     
+    List<ProductSales> sumQuantityByProduct(int limit);
+    
 }
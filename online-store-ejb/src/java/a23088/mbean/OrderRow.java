@@ -0,0 +1,67 @@
+package a23088.mbean;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Read-only row of the admin order table, built by a JPQL constructor
+ * expression in OrdersFacade.findRows.
+ * @author ADMIN
+ */
+public class OrderRow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Integer orderID;
+    private final String customerName;
+    private final String customerEmail;
+    private final Date orderDate;
+    private final String phone;
+    private final String address;
+    private final int totalAmount;
+    private final String status;
+
+    public OrderRow(Integer orderID, String customerName, String customerEmail, Date orderDate,
+            String phone, String address, int totalAmount, String status) {
+        this.orderID = orderID;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.orderDate = orderDate;
+        this.phone = phone;
+        this.address = address;
+        this.totalAmount = totalAmount;
+        this.status = status;
+    }
+
+    public Integer getOrderID() {
+        return orderID;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public Date getOrderDate() {
+        return orderDate;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public int getTotalAmount() {
+        return totalAmount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
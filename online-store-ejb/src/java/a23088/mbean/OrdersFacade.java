@@ -5,10 +5,20 @@
 package a23088.mbean;
 
 import a23088.entity.Orders;
+import a23088.service.AppLogger;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -17,6 +27,8 @@ import java.util.List;
 @Stateless
 public class OrdersFacade extends AbstractFacade<Orders> implements OrdersFacadeLocal {
 
+    private static final AppLogger logger = AppLogger.getLogger(OrdersFacade.class);
+
     @PersistenceContext(unitName = "online-store-ejbPU")
     private EntityManager em;
 
@@ -32,37 +44,143 @@ public class OrdersFacade extends AbstractFacade<Orders> implements OrdersFacade
     
     @Override
     public List<Orders> findByUserID(Integer userID) {
+        return findByUserID(userID, null);
+    }
+    
+    @Override
+    public List<Orders> findByUserID(Integer userID, FetchPlan plan) {
         try {
-            System.out.println("=== ORDERS FACADE findByUserID START ===");
-            System.out.println("UserID parameter: " + userID);
-            
-            List<Orders> result = em.createQuery(
+            List<Orders> result = withPlan(em.createQuery(
                 "SELECT o FROM Orders o WHERE o.userID.userID = :userID ORDER BY o.orderDate DESC", 
-                Orders.class)
+                Orders.class), plan)
                 .setParameter("userID", userID)
                 .getResultList();
                 
-            System.out.println("Query result size: " + (result != null ? result.size() : "NULL"));
-            if (result != null && !result.isEmpty()) {
-                for (Orders order : result) {
-                    System.out.println("Found order: ID=" + order.getOrderID() + 
-                                     ", UserID=" + (order.getUserID() != null ? order.getUserID().getUserID() : "NULL") +
-                                     ", Date=" + order.getOrderDate());
-                }
-            } else {
-                System.out.println("No orders found for userID: " + userID);
-            }
-            
-            System.out.println("=== ORDERS FACADE findByUserID END ===");
+            logger.debug("findByUserID({}): {} orders", userID, result.size());
             return result;
             
         } catch (Exception e) {
-            System.err.println("ERROR in OrdersFacade.findByUserID(): " + e.getMessage());
-            e.printStackTrace();
+            logger.error("ERROR in OrdersFacade.findByUserID(): {}", e.getMessage(), e);
             return null;
         }
     }
     
+    @Override
+    public int removeAllWithItems(Collection<Integer> orderIds) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return 0;
+        }
+        em.createQuery("DELETE FROM OrderItems i WHERE i.orderID.orderID IN :ids")
+          .setParameter("ids", new ArrayList<>(orderIds))
+          .executeUpdate();
+        return removeAllById(orderIds);
+    }
+    
+    @Override
+    public void removeWithItems(Orders order) {
+        // DELETE kèm điều kiện version: giữ kiểm tra optimistic lock như remove() mà không cần nạp các dòng chi tiết
+        em.createQuery("DELETE FROM OrderItems i WHERE i.orderID.orderID = :id")
+          .setParameter("id", order.getOrderID())
+          .executeUpdate();
+        int deleted = em.createQuery("DELETE FROM Orders o WHERE o.orderID = :id AND o.version = :version")
+          .setParameter("id", order.getOrderID())
+          .setParameter("version", order.getVersion())
+          .executeUpdate();
+        if (deleted == 0) {
+            // Đơn hàng đã bị sửa hoặc xóa: rollback cả phần chi tiết đã xóa
+            throw new OptimisticLockException("Order " + order.getOrderID() + " was changed or deleted", null, order);
+        }
+    }
+    
+    @Override
+    public List<OrderRow> findRows() {
+        return readOnly(em.createQuery(
+            "SELECT NEW a23088.mbean.OrderRow(o.orderID, u.fullName, u.email, o.orderDate, "
+            + "o.phone, o.address, o.totalAmount, o.status) "
+            + "FROM Orders o LEFT JOIN o.userID u "
+            + "ORDER BY o.orderDate DESC, o.orderID DESC", OrderRow.class))
+            .getResultList();
+    }
+    
+    @Override
+    public KeysetPage<OrderRow> findRowsPage(String cursor, int limit, String status, String keyword) {
+        // Mới nhất trước: trang sau là các orderID nhỏ hơn, trang trước đọc ngược rồi đảo lại
+        Object key = cursorKey(cursor);
+        boolean fromCursor = key != null;
+        boolean backwards = fromCursor && KeysetPage.isBefore(cursor);
+        String kw = keyword != null && !keyword.trim().isEmpty() ? keyword.trim().toLowerCase() : null;
+        Integer kwId = kw != null && kw.matches("\\d{1,9}") ? Integer.valueOf(kw) : null;
+
+        StringBuilder jpql = new StringBuilder(
+            "SELECT NEW a23088.mbean.OrderRow(o.orderID, u.fullName, u.email, o.orderDate, "
+            + "o.phone, o.address, o.totalAmount, o.status) "
+            + "FROM Orders o LEFT JOIN o.userID u WHERE 1 = 1");
+        if (fromCursor) {
+            jpql.append(backwards ? " AND o.orderID > :key" : " AND o.orderID < :key");
+        }
+        if (status != null) {
+            jpql.append(" AND LOWER(o.status) = :status");
+        }
+        if (kw != null) {
+            jpql.append(" AND (LOWER(u.fullName) LIKE :kw OR o.phone LIKE :kw OR LOWER(o.address) LIKE :kw");
+            jpql.append(kwId != null ? " OR o.orderID = :kwId)" : ")");
+        }
+        jpql.append(backwards ? " ORDER BY o.orderID ASC" : " ORDER BY o.orderID DESC");
+
+        TypedQuery<OrderRow> query = readOnly(em.createQuery(jpql.toString(), OrderRow.class))
+            .setMaxResults(limit + 1);
+        if (fromCursor) {
+            query.setParameter("key", key);
+        }
+        if (status != null) {
+            query.setParameter("status", status.toLowerCase());
+        }
+        if (kw != null) {
+            query.setParameter("kw", "%" + kw + "%");
+            if (kwId != null) {
+                query.setParameter("kwId", kwId);
+            }
+        }
+        return keysetPage(query.getResultList(), limit, backwards, fromCursor, OrderRow::getOrderID);
+    }
+    
+    @Override
+    public List<OrderExportRow> findExportRows(OrderExportCriteria criteria, int afterOrderId, int afterItemId, int limit) {
+        // Keyset theo (orderID, orderItemID): mỗi lần chỉ đọc limit dòng tiếp theo
+        StringBuilder jpql = new StringBuilder(
+            "SELECT NEW a23088.mbean.OrderExportRow(o.orderID, o.orderDate, o.status, o.totalAmount, "
+            + "o.address, o.phone, u.userID, u.fullName, u.email, "
+            + "i.orderItemID, p.productID, p.productName, i.quantity, i.unitPrice) "
+            + "FROM OrderItems i JOIN i.orderID o LEFT JOIN o.userID u LEFT JOIN i.productID p "
+            + "WHERE (o.orderID > :afterOrder OR (o.orderID = :afterOrder AND i.orderItemID > :afterItem))");
+        if (criteria != null && criteria.getFrom() != null) {
+            jpql.append(" AND o.orderDate >= :from");
+        }
+        if (criteria != null && criteria.getTo() != null) {
+            jpql.append(" AND o.orderDate < :to");
+        }
+        if (criteria != null && criteria.getStatus() != null) {
+            jpql.append(" AND LOWER(o.status) = :status");
+        }
+        jpql.append(" ORDER BY o.orderID, i.orderItemID");
+
+        TypedQuery<OrderExportRow> query = readOnly(em.createQuery(jpql.toString(), OrderExportRow.class))
+            .setParameter("afterOrder", afterOrderId)
+            .setParameter("afterItem", afterItemId)
+            .setMaxResults(limit)
+            .setHint(JDBC_FETCH_SIZE, limit);
+        if (criteria != null && criteria.getFrom() != null) {
+            query.setParameter("from", criteria.getFrom());
+        }
+        if (criteria != null && criteria.getTo() != null) {
+            query.setParameter("to", criteria.getTo());
+        }
+        if (criteria != null && criteria.getStatus() != null) {
+            query.setParameter("status", criteria.getStatus().toLowerCase());
+        }
+        return query.getResultList();
+    }
+    
     @Override
     public List<Orders> findByStatus(String status) {
         try {
@@ -70,12 +188,68 @@ public class OrdersFacade extends AbstractFacade<Orders> implements OrdersFacade
                      .setParameter("status", status)
                      .getResultList();
         } catch (Exception e) {
-            System.err.println("ERROR in OrdersFacade.findByStatus(): " + e.getMessage());
-            e.printStackTrace();
+            logger.error("ERROR in OrdersFacade.findByStatus(): {}", e.getMessage(), e);
+            return new java.util.ArrayList<>();
+        }
+    }
+    
+    @Override
+    public List<Orders> findRecent(int limit) {
+        try {
+            return withPlan(em.createQuery("SELECT o FROM Orders o ORDER BY o.orderDate DESC, o.orderID DESC", Orders.class), FetchPlan.SUMMARY)
+                     .setMaxResults(limit)
+                     .getResultList();
+        } catch (Exception e) {
+            logger.error("ERROR in OrdersFacade.findRecent(): {}", e.getMessage(), e);
             return new java.util.ArrayList<>();
         }
     }
     
+    @Override
+    public Map<String, Long> countByStatus() {
+        List<Object[]> rows = em.createQuery(
+            "SELECT o.status, COUNT(o) FROM Orders o GROUP BY o.status", Object[].class)
+            .getResultList();
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            result.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<YearMonth, Long> sumRevenueByMonth(Date from) {
+        List<Object[]> rows = em.createQuery(
+            "SELECT FUNCTION('YEAR', o.orderDate), FUNCTION('MONTH', o.orderDate), SUM(o.totalAmount) "
+            + "FROM Orders o WHERE LOWER(o.status) <> 'cancelled' AND o.orderDate >= :from "
+            + "GROUP BY FUNCTION('YEAR', o.orderDate), FUNCTION('MONTH', o.orderDate)", Object[].class)
+            .setParameter("from", from != null ? from : new Date(0L))
+            .getResultList();
+        Map<YearMonth, Long> result = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            YearMonth month = YearMonth.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            result.put(month, ((Number) row[2]).longValue());
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<LocalDate, Long> sumRevenueByDay(Date from) {
+        // Truy vấn native có nhiều cột luôn trả về Object[] cho mỗi dòng
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = em.createNativeQuery(
+            "SELECT CAST(OrderDate AS DATE), SUM(CAST(TotalAmount AS BIGINT)) FROM Orders "
+            + "WHERE LOWER(Status) <> 'cancelled' AND OrderDate >= ? "
+            + "GROUP BY CAST(OrderDate AS DATE)")
+            .setParameter(1, from != null ? from : new Date(0L))
+            .getResultList();
+        Map<LocalDate, Long> result = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            result.put(((java.sql.Date) row[0]).toLocalDate(), ((Number) row[1]).longValue());
+        }
+        return result;
+    }
+    
     @Override
     public List<Orders> findByPhone(String phone) {
         try {
@@ -83,8 +257,7 @@ public class OrdersFacade extends AbstractFacade<Orders> implements OrdersFacade
                      .setParameter("phone", phone)
                      .getResultList();
         } catch (Exception e) {
-            System.err.println("ERROR in OrdersFacade.findByPhone(): " + e.getMessage());
-            e.printStackTrace();
+            logger.error("ERROR in OrdersFacade.findByPhone(): {}", e.getMessage(), e);
             return new java.util.ArrayList<>();
         }
     }
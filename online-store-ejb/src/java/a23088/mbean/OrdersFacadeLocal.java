@@ -6,7 +6,13 @@ package a23088.mbean;
 
 import a23088.entity.Orders;
 import jakarta.ejb.Local;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  *
@@ -17,22 +23,68 @@ public interface OrdersFacadeLocal {
 
     void create(Orders orders);
 
-    void edit(Orders orders);
+    Orders edit(Orders orders);
 
     void remove(Orders orders);
 
+    void createAll(Collection<? extends Orders> entities);
+
+    void createAll(Collection<? extends Orders> entities, int flushInterval);
+
+    void editAll(Collection<? extends Orders> entities);
+
+    void editAll(Collection<? extends Orders> entities, int flushInterval);
+
+    int removeAllById(Collection<?> ids);
+
+    int updateWhere(Map<String, ?> values, Map<String, ?> conditions);
+
     Orders find(Object id);
 
+    Orders find(Object id, FetchPlan plan);
+
     List<Orders> findAll();
 
+    List<Orders> findAll(FetchPlan plan);
+
     List<Orders> findRange(int[] range);
 
     int count();
     
+    KeysetPage<Orders> findAfter(Object lastId, int limit);
+    
+    KeysetPage<Orders> findBefore(Object firstId, int limit);
+    
+    KeysetPage<Orders> findByCursor(String cursor, int limit);
+
+    long forEachChunk(int chunkSize, Consumer<List<Orders>> consumer);
+
+    long forEachChunk(int chunkSize, FetchPlan plan, Consumer<List<Orders>> consumer);
+
     List<Orders> findByUserID(Integer userID);
     
+    List<Orders> findByUserID(Integer userID, FetchPlan plan);
+    
     List<Orders> findByStatus(String status);
     
     List<Orders> findByPhone(String phone);
     
+    List<Orders> findRecent(int limit);
+    
+    List<OrderRow> findRows();
+    
+    KeysetPage<OrderRow> findRowsPage(String cursor, int limit, String status, String keyword);
+    
+    List<OrderExportRow> findExportRows(OrderExportCriteria criteria, int afterOrderId, int afterItemId, int limit);
+    
+    int removeAllWithItems(Collection<Integer> orderIds);
+    
+    void removeWithItems(Orders order);
+    
+    Map<String, Long> countByStatus();
+    
+    Map<YearMonth, Long> sumRevenueByMonth(Date from);
+    
+    Map<LocalDate, Long> sumRevenueByDay(Date from);
+    
 }
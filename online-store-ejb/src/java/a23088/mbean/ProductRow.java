@@ -0,0 +1,66 @@
+package a23088.mbean;
+
+import java.io.Serializable;
+
+/**
+ * Read-only row of the admin product table, built by a JPQL constructor
+ * expression in ProductsFacade.findRows.
+ * @author ADMIN
+ */
+public class ProductRow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Integer productID;
+    private final String productName;
+    private final String categoryName;
+    private final String supplierName;
+    private final int price;
+    private final int stock;
+    private final String image;
+    private final boolean status;
+
+    public ProductRow(Integer productID, String productName, String categoryName, String supplierName,
+            int price, int stock, String image, boolean status) {
+        this.productID = productID;
+        this.productName = productName;
+        this.categoryName = categoryName;
+        this.supplierName = supplierName;
+        this.price = price;
+        this.stock = stock;
+        this.image = image;
+        this.status = status;
+    }
+
+    public Integer getProductID() {
+        return productID;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public String getSupplierName() {
+        return supplierName;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public int getStock() {
+        return stock;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public boolean getStatus() {
+        return status;
+    }
+}
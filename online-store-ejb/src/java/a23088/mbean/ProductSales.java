@@ -0,0 +1,35 @@
+package a23088.mbean;
+
+import java.io.Serializable;
+
+/**
+ * Units sold per product, built by a JPQL constructor expression in
+ * OrderItemsFacade.sumQuantityByProduct.
+ * @author ADMIN
+ */
+public class ProductSales implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Integer productId;
+    private final String productName;
+    private final long quantity;
+
+    public ProductSales(Integer productId, String productName, Long quantity) {
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity == null ? 0L : quantity;
+    }
+
+    public Integer getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+}
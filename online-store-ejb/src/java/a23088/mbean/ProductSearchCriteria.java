@@ -0,0 +1,71 @@
+package a23088.mbean;
+
+import java.io.Serializable;
+
+/**
+ * Filter used by ProductsFacade.search / count. Null fields are not filtered on.
+ * @author ADMIN
+ */
+public class ProductSearchCriteria implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Boolean published;
+    private Integer categoryId;
+    private Integer supplierId;
+    private Integer minPrice;
+    private Integer maxPrice;
+
+    public ProductSearchCriteria() {
+    }
+
+    /**
+     * Criteria for the storefront: published products only
+     * @return new criteria
+     */
+    public static ProductSearchCriteria published() {
+        ProductSearchCriteria criteria = new ProductSearchCriteria();
+        criteria.setPublished(Boolean.TRUE);
+        return criteria;
+    }
+
+    public Boolean getPublished() {
+        return published;
+    }
+
+    public void setPublished(Boolean published) {
+        this.published = published;
+    }
+
+    public Integer getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Integer categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Integer getSupplierId() {
+        return supplierId;
+    }
+
+    public void setSupplierId(Integer supplierId) {
+        this.supplierId = supplierId;
+    }
+
+    public Integer getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Integer minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Integer getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Integer maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+}
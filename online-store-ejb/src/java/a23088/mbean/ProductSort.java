@@ -0,0 +1,49 @@
+package a23088.mbean;
+
+import a23088.entity.Products;
+import java.util.Comparator;
+
+/**
+ * Sort orders supported by the storefront product grid
+ * @author ADMIN
+ */
+public enum ProductSort {
+
+    NEWEST("Newest"),
+    PRICE_ASC("Price: low to high"),
+    PRICE_DESC("Price: high to low"),
+    NAME("Name");
+
+    private final String label;
+
+    ProductSort(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * In-memory equivalent of the ORDER BY used by ProductsFacade.search
+     * @return comparator with product ID as tie breaker
+     */
+    public Comparator<Products> comparator() {
+        Comparator<Products> order;
+        switch (this) {
+            case PRICE_ASC:
+                order = Comparator.comparingInt(Products::getPrice);
+                break;
+            case PRICE_DESC:
+                order = Comparator.comparingInt(Products::getPrice).reversed();
+                break;
+            case NAME:
+                order = Comparator.comparing(Products::getProductName, String.CASE_INSENSITIVE_ORDER);
+                break;
+            default:
+                order = Comparator.comparing(Products::getCreatedAt).reversed();
+                break;
+        }
+        return order.thenComparing(Products::getProductID);
+    }
+}
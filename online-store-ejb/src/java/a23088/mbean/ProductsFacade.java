@@ -8,8 +8,17 @@ import a23088.entity.Products;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -33,13 +42,152 @@ public class ProductsFacade extends AbstractFacade<Products> implements Products
     @Override
     public List<Products> findPublished() {
         TypedQuery<Products> query = em.createNamedQuery("Products.findPublished", Products.class);
-        return query.getResultList();
+        return withPlan(query, FetchPlan.SUMMARY).getResultList();
+    }
+    
+    @Override
+    public List<Products> findByIds(Collection<Integer> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return withPlan(em.createQuery("SELECT p FROM Products p WHERE p.productID IN :ids", Products.class), FetchPlan.SUMMARY)
+                .setParameter("ids", new ArrayList<>(productIds))
+                .getResultList();
+    }
+    
+    @Override
+    public int decrementStock(Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+        // Số lượng cần trừ của từng sản phẩm: CASE p.productID WHEN :id0 THEN :qty0 ... END
+        StringBuilder amount = new StringBuilder("CASE p.productID");
+        for (int i = 0; i < quantities.size(); i++) {
+            amount.append(" WHEN :id").append(i).append(" THEN :qty").append(i);
+        }
+        amount.append(" ELSE 0 END");
+
+        // Tăng version để các bản sao Products đang sửa dở không ghi đè tồn kho
+        Query update = em.createQuery("UPDATE Products p SET p.stock = p.stock - " + amount
+                + ", p.version = p.version + 1 WHERE p.productID IN :ids AND p.stock >= " + amount);
+        int i = 0;
+        for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+            update.setParameter("id" + i, line.getKey());
+            update.setParameter("qty" + i, line.getValue());
+            i++;
+        }
+        return update.setParameter("ids", new ArrayList<>(quantities.keySet())).executeUpdate();
+    }
+    
+    @Override
+    public int findStock(Integer productId) {
+        List<Integer> stock = em.createQuery(
+                "SELECT p.stock FROM Products p WHERE p.productID = :id", Integer.class)
+                .setParameter("id", productId)
+                .getResultList();
+        return stock.isEmpty() ? 0 : stock.get(0);
+    }
+    
+    @Override
+    public boolean existsByName(String productName) {
+        if (productName == null) {
+            return false;
+        }
+        Long count = readOnly(em.createQuery(
+                "SELECT COUNT(p) FROM Products p WHERE LOWER(TRIM(p.productName)) = :name", Long.class))
+                .setParameter("name", productName.trim().toLowerCase())
+                .getSingleResult();
+        return count > 0;
+    }
+    
+    @Override
+    public List<String> findAllNames() {
+        return readOnly(em.createQuery("SELECT p.productName FROM Products p", String.class))
+                .getResultList();
+    }
+    
+    @Override
+    public List<ProductRow> findRows() {
+        return readOnly(em.createQuery(
+            "SELECT NEW a23088.mbean.ProductRow(p.productID, p.productName, c.categoryName, s.supplierName, "
+            + "p.price, p.stock, p.image, p.status) "
+            + "FROM Products p LEFT JOIN p.categoryID c LEFT JOIN p.supplierID s "
+            + "ORDER BY p.productID", ProductRow.class))
+            .getResultList();
     }
     
     @Override
     public List<Products> findUnpublished() {
         TypedQuery<Products> query = em.createNamedQuery("Products.findUnpublished", Products.class);
+        return withPlan(query, FetchPlan.SUMMARY).getResultList();
+    }
+    
+    @Override
+    public List<Products> search(ProductSearchCriteria criteria, int offset, int limit, ProductSort sort) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Products> cq = cb.createQuery(Products.class);
+        Root<Products> p = cq.from(Products.class);
+        cq.select(p).where(buildPredicates(cb, p, criteria));
+        cq.orderBy(buildOrder(cb, p, sort != null ? sort : ProductSort.NEWEST));
+
+        TypedQuery<Products> query = withPlan(em.createQuery(cq), FetchPlan.SUMMARY);
+        query.setFirstResult(Math.max(offset, 0));
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
         return query.getResultList();
     }
     
+    @Override
+    public int count(ProductSearchCriteria criteria) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Products> p = cq.from(Products.class);
+        cq.select(cb.count(p)).where(buildPredicates(cb, p, criteria));
+        return em.createQuery(cq).getSingleResult().intValue();
+    }
+    
+    private Predicate[] buildPredicates(CriteriaBuilder cb, Root<Products> p, ProductSearchCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria != null) {
+            if (criteria.getPublished() != null) {
+                predicates.add(cb.equal(p.get("status"), criteria.getPublished()));
+            }
+            if (criteria.getCategoryId() != null) {
+                predicates.add(cb.equal(p.get("categoryID").get("categoryID"), criteria.getCategoryId()));
+            }
+            if (criteria.getSupplierId() != null) {
+                predicates.add(cb.equal(p.get("supplierID").get("supplierID"), criteria.getSupplierId()));
+            }
+            if (criteria.getMinPrice() != null) {
+                predicates.add(cb.ge(p.<Integer>get("price"), criteria.getMinPrice()));
+            }
+            if (criteria.getMaxPrice() != null) {
+                predicates.add(cb.le(p.<Integer>get("price"), criteria.getMaxPrice()));
+            }
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+    
+    private List<Order> buildOrder(CriteriaBuilder cb, Root<Products> p, ProductSort sort) {
+        List<Order> order = new ArrayList<>();
+        switch (sort) {
+            case PRICE_ASC:
+                order.add(cb.asc(p.get("price")));
+                break;
+            case PRICE_DESC:
+                order.add(cb.desc(p.get("price")));
+                break;
+            case NAME:
+                order.add(cb.asc(p.get("productName")));
+                break;
+            default:
+                order.add(cb.desc(p.get("createdAt")));
+                break;
+        }
+        // ProductID makes the order deterministic so pages never overlap
+        order.add(cb.asc(p.get("productID")));
+        return order;
+    }
+    
 }
@@ -6,7 +6,9 @@ package a23088.mbean;
 
 import a23088.entity.Products;
 import jakarta.ejb.Local;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -17,19 +19,57 @@ public interface ProductsFacadeLocal {
 
     void create(Products products);
 
-    void edit(Products products);
+    Products edit(Products products);
 
     void remove(Products products);
 
+    void createAll(Collection<? extends Products> entities);
+
+    void createAll(Collection<? extends Products> entities, int flushInterval);
+
+    void editAll(Collection<? extends Products> entities);
+
+    void editAll(Collection<? extends Products> entities, int flushInterval);
+
+    int removeAllById(Collection<?> ids);
+
+    int updateWhere(Map<String, ?> values, Map<String, ?> conditions);
+
     Products find(Object id);
 
+    Products find(Object id, FetchPlan plan);
+
     List<Products> findAll();
 
+    List<Products> findAll(FetchPlan plan);
+
     List<Products> findRange(int[] range);
 
     int count();
     
+    KeysetPage<Products> findAfter(Object lastId, int limit);
+    
+    KeysetPage<Products> findBefore(Object firstId, int limit);
+    
+    KeysetPage<Products> findByCursor(String cursor, int limit);
+    
     List<Products> findPublished();
     
+    List<Products> findByIds(Collection<Integer> productIds);
+    
     List<Products> findUnpublished();
+    
+    List<ProductRow> findRows();
+    
+    List<Products> search(ProductSearchCriteria criteria, int offset, int limit, ProductSort sort);
+    
+    int count(ProductSearchCriteria criteria);
+    
+    int decrementStock(Map<Integer, Integer> quantities);
+    
+    int findStock(Integer productId);
+    
+    boolean existsByName(String productName);
+    
+    List<String> findAllNames();
 }
@@ -32,9 +32,9 @@ public class ReviewsFacade extends AbstractFacade<Reviews> implements ReviewsFac
     
     @Override
     public List<Reviews> findByProductID(Integer productID) {
-        TypedQuery<Reviews> query = em.createQuery(
+        TypedQuery<Reviews> query = withPlan(em.createQuery(
             "SELECT r FROM Reviews r WHERE r.productID.productID = :productID ORDER BY r.createdAt DESC", 
-            Reviews.class);
+            Reviews.class), FetchPlan.SUMMARY);
         query.setParameter("productID", productID);
         return query.getResultList();
     }
@@ -17,7 +17,7 @@ public interface ReviewsFacadeLocal {
 
     void create(Reviews reviews);
 
-    void edit(Reviews reviews);
+    Reviews edit(Reviews reviews);
 
     void remove(Reviews reviews);
 
@@ -29,6 +29,12 @@ public interface ReviewsFacadeLocal {
 
     int count();
     
+    KeysetPage<Reviews> findAfter(Object lastId, int limit);
+    
+    KeysetPage<Reviews> findBefore(Object firstId, int limit);
+    
+    KeysetPage<Reviews> findByCursor(String cursor, int limit);
+    
     List<Reviews> findByProductID(Integer productID);
     
 }
@@ -5,6 +5,8 @@
 package a23088.mbean;
 
 import a23088.entity.Roles;
+import a23088.service.RoleRegistry;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -21,6 +23,9 @@ public class RolesFacade extends AbstractFacade<Roles> implements RolesFacadeLoc
     @PersistenceContext(unitName = "online-store-ejbPU")
     private EntityManager em;
 
+    @EJB
+    private RoleRegistry roleRegistry;
+
     @Override
     protected EntityManager getEntityManager() {
         return em;
@@ -30,6 +35,25 @@ public class RolesFacade extends AbstractFacade<Roles> implements RolesFacadeLoc
         super(Roles.class);
     }
     
+    @Override
+    public void create(Roles role) {
+        super.create(role);
+        roleRegistry.invalidate();
+    }
+    
+    @Override
+    public Roles edit(Roles role) {
+        Roles merged = super.edit(role);
+        roleRegistry.invalidate();
+        return merged;
+    }
+    
+    @Override
+    public void remove(Roles role) {
+        super.remove(role);
+        roleRegistry.invalidate();
+    }
+    
     @Override
     public Roles findByRoleName(String roleName) {
         try {
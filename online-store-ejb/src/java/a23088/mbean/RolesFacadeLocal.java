@@ -17,7 +17,7 @@ public interface RolesFacadeLocal {
 
     void create(Roles roles);
 
-    void edit(Roles roles);
+    Roles edit(Roles roles);
 
     void remove(Roles roles);
 
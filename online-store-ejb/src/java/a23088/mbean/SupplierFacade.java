@@ -8,6 +8,7 @@ import a23088.entity.Supplier;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import java.util.List;
 
 /**
  *
@@ -28,4 +29,14 @@ public class SupplierFacade extends AbstractFacade<Supplier> implements Supplier
         super(Supplier.class);
     }
     
+    @Override
+    public List<SupplierRow> findRows() {
+        return readOnly(em.createQuery(
+            "SELECT NEW a23088.mbean.SupplierRow(s.supplierID, s.supplierName, s.quantity, COUNT(p)) "
+            + "FROM Supplier s LEFT JOIN s.productsCollection p "
+            + "GROUP BY s.supplierID, s.supplierName, s.quantity "
+            + "ORDER BY s.supplierID", SupplierRow.class))
+            .getResultList();
+    }
+    
 }
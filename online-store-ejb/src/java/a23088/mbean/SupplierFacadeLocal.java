@@ -17,7 +17,7 @@ public interface SupplierFacadeLocal {
 
     void create(Supplier supplier);
 
-    void edit(Supplier supplier);
+    Supplier edit(Supplier supplier);
 
     void remove(Supplier supplier);
 
@@ -29,4 +29,6 @@ public interface SupplierFacadeLocal {
 
     int count();
     
+    List<SupplierRow> findRows();
+    
 }
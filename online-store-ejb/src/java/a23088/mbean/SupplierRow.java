@@ -0,0 +1,41 @@
+package a23088.mbean;
+
+import java.io.Serializable;
+
+/**
+ * Read-only row of the admin supplier table with its product count, built
+ * by a JPQL constructor expression in SupplierFacade.findRows.
+ * @author ADMIN
+ */
+public class SupplierRow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Integer supplierID;
+    private final String supplierName;
+    private final int quantity;
+    private final long productCount;
+
+    public SupplierRow(Integer supplierID, String supplierName, int quantity, Long productCount) {
+        this.supplierID = supplierID;
+        this.supplierName = supplierName;
+        this.quantity = quantity;
+        this.productCount = productCount == null ? 0L : productCount;
+    }
+
+    public Integer getSupplierID() {
+        return supplierID;
+    }
+
+    public String getSupplierName() {
+        return supplierName;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public long getProductCount() {
+        return productCount;
+    }
+}
@@ -17,7 +17,7 @@ public interface SysdiagramsFacadeLocal {
 
     void create(Sysdiagrams sysdiagrams);
 
-    void edit(Sysdiagrams sysdiagrams);
+    Sysdiagrams edit(Sysdiagrams sysdiagrams);
 
     void remove(Sysdiagrams sysdiagrams);
 
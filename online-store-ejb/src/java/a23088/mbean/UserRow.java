@@ -0,0 +1,41 @@
+package a23088.mbean;
+
+import java.io.Serializable;
+
+/**
+ * Read-only row of the admin user table, built by a JPQL constructor
+ * expression in UsersFacade.findRows.
+ * @author ADMIN
+ */
+public class UserRow implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Integer userID;
+    private final String fullName;
+    private final String email;
+    private final String roleName;
+
+    public UserRow(Integer userID, String fullName, String email, String roleName) {
+        this.userID = userID;
+        this.fullName = fullName;
+        this.email = email;
+        this.roleName = roleName;
+    }
+
+    public Integer getUserID() {
+        return userID;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+}
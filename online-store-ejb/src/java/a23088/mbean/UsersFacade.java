@@ -4,12 +4,25 @@
  */
 package a23088.mbean;
 
+import a23088.entity.Roles;
 import a23088.entity.Users;
+import a23088.service.AfterCommit;
+import a23088.service.DuplicateEmailException;
+import a23088.service.EmailBloomFilter;
+import a23088.service.UserSearchIndex;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.TypedQuery;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -18,9 +31,25 @@ import java.util.List;
 @Stateless
 public class UsersFacade extends AbstractFacade<Users> implements UsersFacadeLocal {
 
+    // Danh sách ID đi vào một mệnh đề IN, SQL Server giới hạn 2100 tham số
+    private static final int MAX_ROWS = 1000;
+    // Lỗi SQL Server khi vi phạm UNIQUE constraint / unique index
+    private static final int UNIQUE_KEY_VIOLATION = 2627;
+    private static final int UNIQUE_INDEX_VIOLATION = 2601;
+    private static final String EMAIL_CONSTRAINT = "UQ_Users_Email";
+
     @PersistenceContext(unitName = "online-store-ejbPU")
     private EntityManager em;
 
+    @EJB
+    private UserSearchIndex userSearchIndex;
+
+    @EJB
+    private EmailBloomFilter emailFilter;
+
+    @Resource
+    private TransactionSynchronizationRegistry txRegistry;
+
     @Override
     protected EntityManager getEntityManager() {
         return em;
@@ -30,10 +59,42 @@ public class UsersFacade extends AbstractFacade<Users> implements UsersFacadeLoc
         super(Users.class);
     }
     
+    @Override
+    public void create(Users user) {
+        super.create(user);
+        flushEmail(user.getEmail());
+        indexAfterCommit(user);
+    }
+    
+    @Override
+    public void createWithRole(Users user, Integer roleId) {
+        // Gán vai trò bằng reference được quản lý, không cần đọc bảng Roles
+        user.setRoleID(em.getReference(Roles.class, roleId));
+        create(user);
+    }
+    
+    @Override
+    public Users edit(Users user) {
+        Users merged = super.edit(user);
+        flushEmail(merged.getEmail());
+        indexAfterCommit(merged);
+        return merged;
+    }
+    
+    @Override
+    public void remove(Users user) {
+        super.remove(user);
+        Integer userId = user.getUserID();
+        AfterCommit.run(txRegistry, () -> {
+            emailFilter.removed();
+            userSearchIndex.remove(userId);
+        });
+    }
+    
     @Override
     public Users findByEmail(String email) {
         try {
-            TypedQuery<Users> query = em.createNamedQuery("Users.findByEmail", Users.class);
+            TypedQuery<Users> query = withPlan(em.createNamedQuery("Users.findByEmail", Users.class), FetchPlan.SUMMARY);
             query.setParameter("email", email);
             List<Users> results = query.getResultList();
             return results.isEmpty() ? null : results.get(0);
@@ -42,11 +103,105 @@ public class UsersFacade extends AbstractFacade<Users> implements UsersFacadeLoc
         }
     }
     
+    @Override
+    public boolean emailExists(String email) {
+        // Chỉ dùng để kiểm tra trước khi đăng ký: bộ lọc là của riêng node này nên có thể
+        // chưa biết email vừa đăng ký ở node khác, UQ_Users_Email vẫn chặn bản trùng khi ghi
+        if (!emailFilter.mightContain(email)) {
+            return false;
+        }
+        return !readOnly(em.createQuery("SELECT u.userID FROM Users u WHERE u.email = :email", Integer.class))
+            .setParameter("email", email)
+            .setMaxResults(1)
+            .getResultList()
+            .isEmpty();
+    }
+    
+    @Override
+    public List<String> findAllEmails() {
+        return readOnly(em.createQuery("SELECT u.email FROM Users u", String.class))
+                .getResultList();
+    }
+    
+    @Override
+    public List<UserRow> findRows(String keyword, Integer roleId, int limit) {
+        // Từ khóa tra trong chỉ mục trigram (lọc luôn theo vai trò), DB chỉ đọc các ID tìm được
+        List<Integer> ids = null;
+        if (keyword != null && !keyword.trim().isEmpty()) {
+            if (limit > MAX_ROWS) {
+                throw new IllegalArgumentException("limit must not exceed " + MAX_ROWS);
+            }
+            ids = userSearchIndex.search(keyword, roleId, limit);
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+        StringBuilder jpql = new StringBuilder(
+            "SELECT NEW a23088.mbean.UserRow(u.userID, u.fullName, u.email, r.roleName) "
+            + "FROM Users u LEFT JOIN u.roleID r WHERE 1 = 1");
+        if (ids != null) {
+            jpql.append(" AND u.userID IN :ids");
+        }
+        if (roleId != null) {
+            jpql.append(" AND r.roleID = :roleId");
+        }
+        jpql.append(" ORDER BY u.userID");
+
+        TypedQuery<UserRow> query = readOnly(em.createQuery(jpql.toString(), UserRow.class))
+            .setMaxResults(limit);
+        if (ids != null) {
+            query.setParameter("ids", ids);
+        }
+        if (roleId != null) {
+            query.setParameter("roleId", roleId);
+        }
+        List<UserRow> rows = query.getResultList();
+        return ids != null ? inOrder(rows, ids) : rows;
+    }
+    
+    @Override
+    public KeysetPage<UserRow> findRowsPage(String cursor, int limit, Integer roleId) {
+        Object key = cursorKey(cursor);
+        boolean fromCursor = key != null;
+        boolean backwards = fromCursor && KeysetPage.isBefore(cursor);
+        StringBuilder jpql = new StringBuilder(
+            "SELECT NEW a23088.mbean.UserRow(u.userID, u.fullName, u.email, r.roleName) "
+            + "FROM Users u LEFT JOIN u.roleID r WHERE 1 = 1");
+        if (fromCursor) {
+            jpql.append(backwards ? " AND u.userID < :key" : " AND u.userID > :key");
+        }
+        if (roleId != null) {
+            jpql.append(" AND r.roleID = :roleId");
+        }
+        jpql.append(backwards ? " ORDER BY u.userID DESC" : " ORDER BY u.userID ASC");
+
+        TypedQuery<UserRow> query = readOnly(em.createQuery(jpql.toString(), UserRow.class))
+            .setMaxResults(limit + 1);
+        if (fromCursor) {
+            query.setParameter("key", key);
+        }
+        if (roleId != null) {
+            query.setParameter("roleId", roleId);
+        }
+        return keysetPage(query.getResultList(), limit, backwards, fromCursor, UserRow::getUserID);
+    }
+    
+    // Sắp xếp lại theo thứ hạng của chỉ mục
+    private static List<UserRow> inOrder(List<UserRow> rows, List<Integer> ids) {
+        Map<Integer, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            rank.put(ids.get(i), i);
+        }
+        List<UserRow> result = new ArrayList<>(rows);
+        result.sort((a, b) -> Integer.compare(rank.get(a.getUserID()), rank.get(b.getUserID())));
+        return result;
+    }
+    
     @Override
     public List<Users> findByRole(Integer roleId) {
         try {
-            TypedQuery<Users> query = em.createQuery(
-                "SELECT u FROM Users u WHERE u.roleID.roleID = :roleId", Users.class);
+            TypedQuery<Users> query = withPlan(em.createQuery(
+                "SELECT u FROM Users u WHERE u.roleID.roleID = :roleId", Users.class), FetchPlan.SUMMARY);
             query.setParameter("roleId", roleId);
             return query.getResultList();
         } catch (Exception e) {
@@ -54,4 +209,42 @@ public class UsersFacade extends AbstractFacade<Users> implements UsersFacadeLoc
         }
     }
     
+    // Chỉ cập nhật chỉ mục và bộ lọc khi transaction đã commit; giá trị được chụp lại ngay bây giờ
+    private void indexAfterCommit(Users user) {
+        Integer userId = user.getUserID();
+        String fullName = user.getFullName();
+        String email = user.getEmail();
+        Integer roleId = user.getRoleID() != null ? user.getRoleID().getRoleID() : null;
+        AfterCommit.run(txRegistry, () -> {
+            emailFilter.add(email);
+            userSearchIndex.index(userId, fullName, email, roleId);
+        });
+    }
+    
+    // Ghi ngay để lỗi trùng email (UQ_Users_Email) hiện ra ở đây thay vì lúc commit
+    private void flushEmail(String email) {
+        try {
+            em.flush();
+        } catch (PersistenceException e) {
+            if (isEmailViolation(e)) {
+                throw new DuplicateEmailException(email);
+            }
+            throw e;
+        }
+    }
+    
+    private static boolean isEmailViolation(Throwable e) {
+        for (Throwable t = e; t != null && t.getCause() != t; t = t.getCause()) {
+            if (t instanceof SQLException) {
+                SQLException sql = (SQLException) t;
+                int code = sql.getErrorCode();
+                if ((code == UNIQUE_KEY_VIOLATION || code == UNIQUE_INDEX_VIOLATION)
+                        && sql.getMessage() != null && sql.getMessage().contains(EMAIL_CONSTRAINT)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
 }
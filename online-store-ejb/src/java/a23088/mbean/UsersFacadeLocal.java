@@ -7,6 +7,7 @@ package a23088.mbean;
 import a23088.entity.Users;
 import jakarta.ejb.Local;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  *
@@ -16,21 +17,45 @@ import java.util.List;
 public interface UsersFacadeLocal {
 
     void create(Users users);
+    
+    void createWithRole(Users users, Integer roleId);
 
-    void edit(Users users);
+    Users edit(Users users);
 
     void remove(Users users);
 
     Users find(Object id);
 
+    Users find(Object id, FetchPlan plan);
+
     List<Users> findAll();
 
+    List<Users> findAll(FetchPlan plan);
+
     List<Users> findRange(int[] range);
 
     int count();
     
+    KeysetPage<Users> findAfter(Object lastId, int limit);
+    
+    KeysetPage<Users> findBefore(Object firstId, int limit);
+    
+    KeysetPage<Users> findByCursor(String cursor, int limit);
+
+    long forEachChunk(int chunkSize, Consumer<List<Users>> consumer);
+
+    long forEachChunk(int chunkSize, FetchPlan plan, Consumer<List<Users>> consumer);
+
     Users findByEmail(String email);
     
+    boolean emailExists(String email);
+    
+    List<String> findAllEmails();
+    
     List<Users> findByRole(Integer roleId);
     
+    List<UserRow> findRows(String keyword, Integer roleId, int limit);
+    
+    KeysetPage<UserRow> findRowsPage(String cursor, int limit, Integer roleId);
+    
 }
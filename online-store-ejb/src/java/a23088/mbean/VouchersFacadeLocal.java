@@ -17,7 +17,7 @@ public interface VouchersFacadeLocal {
 
     void create(Vouchers vouchers);
 
-    void edit(Vouchers vouchers);
+    Vouchers edit(Vouchers vouchers);
 
     void remove(Vouchers vouchers);
 
@@ -0,0 +1,50 @@
+package a23088.service;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * Defers in-memory side effects (caches, counters, reservations) until the
+ * current JTA transaction has committed, so a rollback never leaves them
+ * describing data that was not written.
+ * @author ADMIN
+ */
+public final class AfterCommit {
+
+    private static final AppLogger logger = AppLogger.getLogger(AfterCommit.class);
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Run an action once the current transaction commits. The action is
+     * dropped on rollback and runs immediately when there is no transaction.
+     * @param registry transaction synchronization registry of the caller
+     * @param action side effect to apply
+     */
+    public static void run(TransactionSynchronizationRegistry registry, Runnable action) {
+        if (registry.getTransactionStatus() == Status.STATUS_NO_TRANSACTION) {
+            action.run();
+            return;
+        }
+        registry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    // Dữ liệu đã commit, lỗi ở đây chỉ làm cache/bộ đếm lệch đến lần nạp lại
+                    logger.error("After-commit action failed: {}", e.getMessage(), e);
+                }
+            }
+        });
+    }
+}
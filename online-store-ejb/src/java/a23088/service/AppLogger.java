@@ -0,0 +1,204 @@
+package a23088.service;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * AppLogger - logging facade for the a23088 packages.
+ * Levels are debug, info, warn and error (java.util.logging FINE, INFO,
+ * WARNING, SEVERE, configured as usual, e.g. a23088.level=FINE in the
+ * server logging properties). Messages use {} placeholders and are only
+ * formatted when the level is enabled; a trailing Throwable argument is
+ * logged with its stack trace. While the application is deployed, records
+ * go through AsyncLogHandler (see AsyncLogService); before that they go
+ * straight to the server handlers.
+ * @author ADMIN
+ */
+public final class AppLogger {
+
+    private static final String ROOT = "a23088";
+
+    private final Logger logger;
+
+    private AppLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    public static AppLogger getLogger(Class<?> type) {
+        return new AppLogger(Logger.getLogger(type.getName()));
+    }
+
+    public boolean isDebugEnabled() {
+        return logger.isLoggable(Level.FINE);
+    }
+
+    public void debug(String message) {
+        if (logger.isLoggable(Level.FINE)) {
+            log(Level.FINE, message, null);
+        }
+    }
+
+    public void debug(String pattern, Object arg) {
+        if (logger.isLoggable(Level.FINE)) {
+            log(Level.FINE, pattern, new Object[] {arg});
+        }
+    }
+
+    public void debug(String pattern, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.FINE)) {
+            log(Level.FINE, pattern, new Object[] {arg1, arg2});
+        }
+    }
+
+    public void debug(String pattern, Object... args) {
+        if (logger.isLoggable(Level.FINE)) {
+            log(Level.FINE, pattern, args);
+        }
+    }
+
+    public void info(String message) {
+        if (logger.isLoggable(Level.INFO)) {
+            log(Level.INFO, message, null);
+        }
+    }
+
+    public void info(String pattern, Object arg) {
+        if (logger.isLoggable(Level.INFO)) {
+            log(Level.INFO, pattern, new Object[] {arg});
+        }
+    }
+
+    public void info(String pattern, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.INFO)) {
+            log(Level.INFO, pattern, new Object[] {arg1, arg2});
+        }
+    }
+
+    public void info(String pattern, Object... args) {
+        if (logger.isLoggable(Level.INFO)) {
+            log(Level.INFO, pattern, args);
+        }
+    }
+
+    public void warn(String message) {
+        if (logger.isLoggable(Level.WARNING)) {
+            log(Level.WARNING, message, null);
+        }
+    }
+
+    public void warn(String pattern, Object arg) {
+        if (logger.isLoggable(Level.WARNING)) {
+            log(Level.WARNING, pattern, new Object[] {arg});
+        }
+    }
+
+    public void warn(String pattern, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.WARNING)) {
+            log(Level.WARNING, pattern, new Object[] {arg1, arg2});
+        }
+    }
+
+    public void warn(String pattern, Object... args) {
+        if (logger.isLoggable(Level.WARNING)) {
+            log(Level.WARNING, pattern, args);
+        }
+    }
+
+    public void error(String message) {
+        if (logger.isLoggable(Level.SEVERE)) {
+            log(Level.SEVERE, message, null);
+        }
+    }
+
+    public void error(String pattern, Object arg) {
+        if (logger.isLoggable(Level.SEVERE)) {
+            log(Level.SEVERE, pattern, new Object[] {arg});
+        }
+    }
+
+    public void error(String pattern, Object arg1, Object arg2) {
+        if (logger.isLoggable(Level.SEVERE)) {
+            log(Level.SEVERE, pattern, new Object[] {arg1, arg2});
+        }
+    }
+
+    public void error(String pattern, Object... args) {
+        if (logger.isLoggable(Level.SEVERE)) {
+            log(Level.SEVERE, pattern, args);
+        }
+    }
+
+    private void log(Level level, String pattern, Object[] args) {
+        Throwable thrown = null;
+        int argCount = args == null ? 0 : args.length;
+        if (argCount > 0 && args[argCount - 1] instanceof Throwable) {
+            thrown = (Throwable) args[argCount - 1];
+            if (countPlaceholders(pattern) < argCount) {
+                argCount--;
+            }
+        }
+        LogRecord record = new LogRecord(level, format(pattern, args, argCount));
+        record.setLoggerName(logger.getName());
+        // Đặt sẵn nguồn để handler bất đồng bộ không phải dò stack trace
+        record.setSourceClassName(logger.getName());
+        record.setSourceMethodName(null);
+        record.setThrown(thrown);
+        logger.log(record);
+    }
+
+    private static String format(String pattern, Object[] args, int argCount) {
+        if (pattern == null || argCount == 0) {
+            return pattern;
+        }
+        StringBuilder sb = new StringBuilder(pattern.length() + 16 * argCount);
+        int start = 0;
+        int arg = 0;
+        int index;
+        while (arg < argCount && (index = pattern.indexOf("{}", start)) >= 0) {
+            sb.append(pattern, start, index).append(args[arg++]);
+            start = index + 2;
+        }
+        return sb.append(pattern, start, pattern.length()).toString();
+    }
+
+    private static int countPlaceholders(String pattern) {
+        int count = 0;
+        if (pattern != null) {
+            for (int i = pattern.indexOf("{}"); i >= 0; i = pattern.indexOf("{}", i + 2)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Route a23088 records through an AsyncLogHandler whose writer thread
+     * comes from the given factory, replacing a handler left by a previous
+     * deployment
+     * @param threadFactory factory of the writer thread
+     */
+    static synchronized void installAsyncHandler(ThreadFactory threadFactory) {
+        uninstallAsyncHandler();
+        Logger root = Logger.getLogger(ROOT);
+        root.addHandler(new AsyncLogHandler(Logger.getLogger("").getHandlers(), threadFactory));
+        root.setUseParentHandlers(false);
+    }
+
+    /**
+     * Close the AsyncLogHandler (writing what is still buffered) and log
+     * directly to the server handlers again
+     */
+    static synchronized void uninstallAsyncHandler() {
+        Logger root = Logger.getLogger(ROOT);
+        for (Handler handler : root.getHandlers()) {
+            if (handler.getClass().getName().equals(AsyncLogHandler.class.getName())) {
+                root.removeHandler(handler);
+                handler.close();
+            }
+        }
+        root.setUseParentHandlers(true);
+    }
+}
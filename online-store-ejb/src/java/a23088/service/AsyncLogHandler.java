@@ -0,0 +1,108 @@
+package a23088.service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * AsyncLogHandler - java.util.logging handler that puts records in a bounded
+ * ring buffer and writes them to the server handlers from one background
+ * thread, so request threads never wait on the synchronized server log.
+ * Installed and closed by AsyncLogService with the application.
+ * When the buffer is full, records below WARNING are dropped (and counted);
+ * WARNING and SEVERE are written directly instead.
+ * @author ADMIN
+ */
+public class AsyncLogHandler extends Handler {
+
+    private static final int CAPACITY = 4096;
+
+    private final Handler[] targets;
+    private final BlockingQueue<LogRecord> buffer = new ArrayBlockingQueue<>(CAPACITY);
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * @param targets handlers the records are written to
+     * @param threadFactory factory of the background writer thread; use the
+     *        container's ManagedThreadFactory so the thread belongs to the
+     *        application and ends with it
+     */
+    public AsyncLogHandler(Handler[] targets, ThreadFactory threadFactory) {
+        this.targets = targets.clone();
+        this.writer = threadFactory.newThread(this::drain);
+        this.writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        if (!buffer.offer(record)) {
+            if (record.getLevel().intValue() >= Level.WARNING.intValue()) {
+                write(record);
+            } else {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (Handler target : targets) {
+            target.flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Ghi nốt các bản ghi còn trong buffer
+        LogRecord record;
+        while ((record = buffer.poll()) != null) {
+            write(record);
+        }
+        flush();
+    }
+
+    private void drain() {
+        while (!closed) {
+            try {
+                LogRecord record = buffer.poll(1, TimeUnit.SECONDS);
+                if (record != null) {
+                    write(record);
+                }
+                long lost = dropped.getAndSet(0);
+                if (lost > 0) {
+                    write(new LogRecord(Level.WARNING, "Log buffer full, dropped " + lost + " records"));
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                reportError("Error writing log record", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+
+    private void write(LogRecord record) {
+        for (Handler target : targets) {
+            if (target.isLoggable(record)) {
+                target.publish(record);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package a23088.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+
+/**
+ * AsyncLogService - owns the lifecycle of AsyncLogHandler. The writer
+ * thread is created by the container's ManagedThreadFactory when the
+ * application starts and stopped (after writing the buffered records) when
+ * it is undeployed, so a redeploy does not leave a thread behind holding
+ * the old class loader.
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+public class AsyncLogService {
+
+    @Resource(lookup = "java:comp/DefaultManagedThreadFactory")
+    private ManagedThreadFactory threadFactory;
+
+    @PostConstruct
+    public void init() {
+        AppLogger.installAsyncHandler(threadFactory);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        AppLogger.uninstallAsyncHandler();
+    }
+}
@@ -0,0 +1,189 @@
+package a23088.service;
+
+import a23088.entity.Categories;
+import a23088.entity.Products;
+import a23088.mbean.CategoriesFacadeLocal;
+import a23088.mbean.ProductsFacadeLocal;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CatalogueCache - shared read-through cache of published products and categories.
+ * Readers get an immutable snapshot without locking; admin changes build a new
+ * snapshot (copy-on-write) and publish it with a single volatile write, so the
+ * storefront beans only need to keep product IDs in the HTTP session.
+ * Changed products are read again by ID, and the snapshot holds read-only
+ * copies (ReadOnlyProduct) of what was read, so it never shares an instance
+ * with a caller and a setter call cannot change what other sessions see.
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+@DependsOn("DataInitializationService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CatalogueCache {
+
+    private static final AppLogger logger = AppLogger.getLogger(CatalogueCache.class);
+
+    @EJB
+    private ProductsFacadeLocal productsFacade;
+
+    @EJB
+    private CategoriesFacadeLocal categoriesFacade;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        try {
+            reload();
+        } catch (Exception e) {
+            logger.error("Error loading catalogue cache: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Published products in database order
+     * @return unmodifiable list of read-only products
+     */
+    public List<Products> getPublishedProducts() {
+        return snapshot.products;
+    }
+
+    /**
+     * All categories
+     * @return unmodifiable list of categories
+     */
+    public List<Categories> getCategories() {
+        return snapshot.categories;
+    }
+
+    /**
+     * Find a published product by ID
+     * @param productId product ID
+     * @return product or null if it is not published
+     */
+    public Products getProduct(Integer productId) {
+        return productId == null ? null : snapshot.productsById.get(productId);
+    }
+
+    /**
+     * Resolve product IDs against the current snapshot, keeping the given order.
+     * IDs that are no longer published are skipped.
+     * @param productIds product IDs
+     * @return list of products
+     */
+    public List<Products> getProducts(List<Integer> productIds) {
+        Map<Integer, Products> byId = snapshot.productsById;
+        List<Products> result = new ArrayList<>(productIds.size());
+        for (Integer id : productIds) {
+            Products product = byId.get(id);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reload products and categories from the database
+     */
+    public synchronized void reload() {
+        List<Products> products = productsFacade.findPublished();
+        List<Categories> categories = categoriesFacade.findAll();
+        snapshot = new Snapshot(products, categories);
+        logger.info("Catalogue cache loaded: {} products, {} categories", snapshot.products.size(), snapshot.categories.size());
+    }
+
+    /**
+     * Publish a product change (create, edit, publish or unpublish)
+     * @param productId changed product ID
+     */
+    public void productChanged(Integer productId) {
+        if (productId != null) {
+            productsChanged(Collections.singletonList(productId));
+        }
+    }
+
+    /**
+     * Publish several product changes as one new snapshot; the products are
+     * read again from the database
+     * @param productIds changed product IDs
+     */
+    public synchronized void productsChanged(Collection<Integer> productIds) {
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        Snapshot current = snapshot;
+        Map<Integer, Products> copy = new LinkedHashMap<>(current.productsById);
+        // Sản phẩm không còn trong DB hoặc đã ẩn thì bỏ khỏi snapshot
+        copy.keySet().removeAll(productIds);
+        for (Products product : productsFacade.findByIds(productIds)) {
+            if (product.getStatus()) {
+                copy.put(product.getProductID(), product);
+            }
+        }
+        snapshot = new Snapshot(copy.values(), current.categories);
+    }
+
+    /**
+     * Publish a product deletion
+     * @param productId deleted product ID
+     */
+    public synchronized void productRemoved(Integer productId) {
+        Snapshot current = snapshot;
+        if (productId == null || !current.productsById.containsKey(productId)) {
+            return;
+        }
+        Map<Integer, Products> copy = new LinkedHashMap<>(current.productsById);
+        copy.remove(productId);
+        snapshot = new Snapshot(copy.values(), current.categories);
+    }
+
+    /**
+     * Categories changed: products embed their category, so reload both
+     */
+    public void categoriesChanged() {
+        reload();
+    }
+
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(null, null);
+
+        final List<Products> products;
+        final Map<Integer, Products> productsById;
+        final List<Categories> categories;
+
+        // Sản phẩm/danh mục đọc từ DB được sao chép thành bản chỉ đọc, bản đã sao chép giữ nguyên
+        Snapshot(Collection<Products> products, Collection<Categories> categories) {
+            Map<Integer, Categories> categoriesById = new LinkedHashMap<>();
+            if (categories != null) {
+                for (Categories category : categories) {
+                    categoriesById.put(category.getCategoryID(), ReadOnlyProduct.freeze(category));
+                }
+            }
+            this.categories = Collections.unmodifiableList(new ArrayList<>(categoriesById.values()));
+            Map<Integer, Products> byId = new LinkedHashMap<>();
+            if (products != null) {
+                for (Products product : products) {
+                    byId.put(product.getProductID(), product instanceof ReadOnlyProduct
+                            ? product : new ReadOnlyProduct(product, categoriesById));
+                }
+            }
+            this.productsById = Collections.unmodifiableMap(byId);
+            this.products = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package a23088.service;
+
+import jakarta.ejb.ApplicationException;
+
+/**
+ * Checkout could not be completed (empty cart, not enough stock...).
+ * The message is shown to the customer; the transaction is rolled back.
+ * @author ADMIN
+ */
+@ApplicationException(rollback = true)
+public class CheckoutException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public CheckoutException(String message) {
+        super(message);
+    }
+}
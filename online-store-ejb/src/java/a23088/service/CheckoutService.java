@@ -0,0 +1,141 @@
+package a23088.service;
+
+import a23088.entity.CartItems;
+import a23088.entity.OrderItems;
+import a23088.entity.Orders;
+import a23088.entity.Products;
+import a23088.entity.Users;
+import a23088.mbean.ProductsFacadeLocal;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CheckoutService - turns a cart into an order in a single transaction.
+ * Stock of every product is decremented by one conditional bulk UPDATE,
+ * order items are written in one flush as a JDBC batch (their IDs come
+ * from pre-allocated blocks) and the cart is emptied by one bulk DELETE.
+ * The catalogue cache, stock reservations and dashboard counters are only
+ * updated once the order has committed.
+ * @author ADMIN
+ */
+@Stateless
+public class CheckoutService {
+
+    private static final AppLogger logger = AppLogger.getLogger(CheckoutService.class);
+
+    @PersistenceContext(unitName = "online-store-ejbPU")
+    private EntityManager em;
+
+    @EJB
+    private ProductsFacadeLocal productsFacade;
+
+    @EJB
+    private CatalogueCache catalogueCache;
+
+    @EJB
+    private StockReservationService stockReservationService;
+
+    @EJB
+    private DashboardMetricsService metricsService;
+
+    @Resource
+    private TransactionSynchronizationRegistry txRegistry;
+
+    /**
+     * Place an order for the given cart lines
+     * @param user customer placing the order
+     * @param cartId cart to empty, null if the cart is not persisted
+     * @param cartItems cart lines
+     * @return created order with its items
+     * @throws CheckoutException if the cart is empty or a product is out of stock
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRED)
+    public Orders placeOrder(Users user, Integer cartId, List<CartItems> cartItems) throws CheckoutException {
+        if (cartItems == null || cartItems.isEmpty()) {
+            throw new CheckoutException("Giỏ hàng đang trống!");
+        }
+
+        // Gộp số lượng theo sản phẩm, giữ thứ tự trong giỏ
+        Map<Integer, Integer> quantities = new LinkedHashMap<>();
+        for (CartItems cartItem : cartItems) {
+            quantities.merge(cartItem.getProductID().getProductID(), cartItem.getQuantity(), Integer::sum);
+        }
+
+        // 1️⃣ Trừ tồn kho cho tất cả sản phẩm bằng một câu lệnh, chỉ khi còn đủ hàng
+        if (productsFacade.decrementStock(quantities) < quantities.size()) {
+            // Có sản phẩm không đủ hàng: rollback cả các dòng đã trừ
+            throw new CheckoutException("Một số sản phẩm trong giỏ không còn đủ hàng, vui lòng cập nhật giỏ hàng!");
+        }
+
+        // 2️⃣ Đọc lại sản phẩm sau khi trừ kho (giá và tồn kho mới nhất)
+        Map<Integer, Products> products = new HashMap<>();
+        for (Products product : loadProducts(quantities.keySet())) {
+            products.put(product.getProductID(), product);
+        }
+
+        // 3️⃣ Tạo đơn hàng và chi tiết, ghi xuống DB trong một lần flush
+        Orders order = new Orders();
+        order.setOrderDate(new Date());
+        order.setStatus("Pending");
+        order.setAddress("Sẽ cập nhật sau");
+        order.setPhone("Sẽ cập nhật sau");
+        order.setUserID(user);
+
+        int total = 0;
+        List<OrderItems> orderItems = new ArrayList<>(quantities.size());
+        for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+            Products product = products.get(line.getKey());
+            OrderItems item = new OrderItems();
+            item.setOrderID(order);
+            item.setProductID(product);
+            item.setQuantity(line.getValue());
+            item.setUnitPrice(product.getPrice());
+            orderItems.add(item);
+            total += product.getPrice() * line.getValue();
+        }
+        order.setTotalAmount(total);
+        order.setOrderItemsCollection(orderItems);
+
+        em.persist(order);
+        for (OrderItems item : orderItems) {
+            em.persist(item);
+        }
+
+        // 4️⃣ Xóa giỏ hàng bằng một câu lệnh
+        if (cartId != null) {
+            em.createQuery("DELETE FROM CartItems c WHERE c.cartID.cartID = :cartId")
+                    .setParameter("cartId", cartId)
+                    .executeUpdate();
+        }
+        em.flush();
+
+        // Cache và giữ chỗ chỉ cập nhật khi đơn hàng đã commit; rollback thì giữ nguyên
+        List<Integer> changedIds = new ArrayList<>(products.keySet());
+        AfterCommit.run(txRegistry, () -> {
+            catalogueCache.productsChanged(changedIds);
+            stockReservationService.confirm(cartId, quantities);
+        });
+        metricsService.orderCreated(order, orderItems);
+        logger.info("Order #{} placed: {} items, total {}", order.getOrderID(), orderItems.size(), total);
+        return order;
+    }
+
+    private List<Products> loadProducts(Collection<Integer> productIds) {
+        return em.createQuery("SELECT p FROM Products p WHERE p.productID IN :ids", Products.class)
+                .setParameter("ids", new ArrayList<>(productIds))
+                .getResultList();
+    }
+}
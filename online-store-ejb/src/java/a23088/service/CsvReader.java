@@ -0,0 +1,116 @@
+package a23088.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader for comma separated files (RFC 4180): quoted fields may
+ * contain commas, doubled quotes and line breaks. Only the current record is
+ * kept in memory; a record longer than MAX_RECORD_LENGTH is rejected so a
+ * stray quote cannot swallow the rest of the file.
+ * @author ADMIN
+ */
+final class CsvReader {
+
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    private final BufferedReader in;
+    private final StringBuilder field = new StringBuilder();
+    private int line = 1;
+    private int recordLine;
+    private boolean first = true;
+
+    CsvReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 64 * 1024);
+    }
+
+    /**
+     * Read the next non-empty record
+     * @return field values, null at end of file
+     * @throws IOException if reading fails or the record is malformed
+     */
+    List<String> readRecord() throws IOException {
+        while (true) {
+            List<String> record = readLine();
+            if (record == null) {
+                return null;
+            }
+            if (record.size() > 1 || !record.get(0).isEmpty()) {
+                return record;
+            }
+        }
+    }
+
+    /**
+     * @return line number (1-based) where the last returned record started
+     */
+    int getLineNumber() {
+        return recordLine;
+    }
+
+    private List<String> readLine() throws IOException {
+        int c = in.read();
+        if (first) {
+            first = false;
+            if (c == '\uFEFF') {
+                c = in.read(); // Bỏ BOM do Excel thêm vào
+            }
+        }
+        if (c < 0) {
+            return null;
+        }
+        recordLine = line;
+        List<String> record = new ArrayList<>();
+        int length = 0;
+        boolean quoted = false;
+        field.setLength(0);
+        while (true) {
+            if (++length > MAX_RECORD_LENGTH) {
+                throw new IOException("Line " + recordLine + ": record is longer than " + MAX_RECORD_LENGTH + " characters");
+            }
+            if (quoted) {
+                if (c < 0) {
+                    throw new IOException("Line " + recordLine + ": unterminated quoted field");
+                }
+                if (c == '"') {
+                    int next = in.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c < 0) {
+                if (c == '\r') {
+                    in.mark(1);
+                    if (in.read() != '\n') {
+                        in.reset();
+                    }
+                }
+                if (c >= 0) {
+                    line++;
+                }
+                record.add(field.toString());
+                return record;
+            } else {
+                field.append((char) c);
+            }
+            c = in.read();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package a23088.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes comma separated lines; fields containing a comma, quote or line
+ * break are quoted, null is written as an empty field.
+ * @author ADMIN
+ */
+final class CsvWriter {
+
+    private CsvWriter() {
+    }
+
+    static void writeLine(Writer writer, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            String value = values[i];
+            if (value == null) {
+                continue;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(value);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
@@ -0,0 +1,304 @@
+package a23088.service;
+
+import a23088.entity.OrderItems;
+import a23088.entity.Orders;
+import a23088.mbean.OrderItemsFacadeLocal;
+import a23088.mbean.OrdersFacadeLocal;
+import a23088.mbean.ProductSales;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * DashboardMetricsService - running counters behind the admin dashboard.
+ * Counters are loaded with the facades' grouped queries at startup and
+ * then kept up to date by order creation, status changes and deletion,
+ * so the dashboard never has to load the order history. Hook updates are
+ * applied after the caller's transaction commits, so rolled back writes are
+ * never counted. A nightly rebuild corrects any drift from writes that
+ * bypass the hooks; writes made while the rebuild runs may be off until
+ * the following one (see rebuild).
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+@DependsOn("DataInitializationService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class DashboardMetricsService {
+
+    private static final AppLogger logger = AppLogger.getLogger(DashboardMetricsService.class);
+
+    private static final String CANCELLED = "cancelled";
+
+    @PersistenceContext(unitName = "online-store-ejbPU")
+    private EntityManager em;
+
+    @EJB
+    private OrdersFacadeLocal ordersFacade;
+
+    @EJB
+    private OrderItemsFacadeLocal orderItemsFacade;
+
+    @Resource
+    private TransactionSynchronizationRegistry txRegistry;
+
+    private final Object swapLock = new Object();
+    private volatile Counters counters = new Counters();
+
+    @PostConstruct
+    public void init() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error loading dashboard metrics: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Recompute every counter from the database and swap them in.
+     * The grouped queries are separate reads, not one snapshot: an order
+     * written while they run may be missed by the new counters (its hook
+     * update went to the counters being replaced) until the next rebuild.
+     * Hook updates are not replayed onto the new counters, because a query
+     * that already saw the write would then count it twice. The window is
+     * the few seconds the queries take at 3 AM.
+     */
+    @Schedule(hour = "3", minute = "0", persistent = false)
+    public synchronized void rebuild() {
+        Counters fresh = new Counters();
+
+        for (Map.Entry<String, Long> entry : ordersFacade.countByStatus().entrySet()) {
+            fresh.ordersByStatus.merge(normalize(entry.getKey()), entry.getValue(), Long::sum);
+        }
+        fresh.revenueByDay.putAll(ordersFacade.sumRevenueByDay(null));
+        fresh.revenueByMonth.putAll(ordersFacade.sumRevenueByMonth(null));
+        for (ProductSales sales : orderItemsFacade.sumQuantityByProduct(0)) {
+            fresh.productNames.put(sales.getProductId(), sales.getProductName());
+            fresh.unitsByProduct.put(sales.getProductId(), sales.getQuantity());
+        }
+
+        synchronized (swapLock) {
+            counters = fresh;
+        }
+        logger.info("Dashboard metrics loaded: {} orders", getTotalOrders());
+    }
+
+    /**
+     * Record a newly created order. Counters change only after the caller's
+     * transaction commits.
+     * @param order persisted order
+     * @param items its order items
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public void orderCreated(Orders order, Collection<OrderItems> items) {
+        String status = normalize(order.getStatus());
+        Date orderDate = order.getOrderDate();
+        long amount = order.getTotalAmount();
+        List<Object[]> units = itemUnits(items);
+        afterCommit(c -> {
+            c.ordersByStatus.merge(status, 1L, Long::sum);
+            if (!CANCELLED.equals(status)) {
+                addRevenue(c, orderDate, amount);
+                addUnits(c, units, 1);
+            }
+        });
+    }
+
+    /**
+     * Record a status change of an existing order. Counters change only
+     * after the caller's transaction commits.
+     * @param order order with its new status
+     * @param oldStatus status before the change
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public void orderStatusChanged(Orders order, String oldStatus) {
+        String from = normalize(oldStatus);
+        String to = normalize(order.getStatus());
+        if (from.equals(to)) {
+            return;
+        }
+        boolean wasCounted = !CANCELLED.equals(from);
+        boolean isCounted = !CANCELLED.equals(to);
+        int sign = isCounted ? 1 : -1;
+        Date orderDate = order.getOrderDate();
+        long amount = order.getTotalAmount();
+        // Đọc số lượng ngay trong transaction của người gọi, chỉ áp vào bộ đếm sau khi commit
+        List<Object[]> units = wasCounted != isCounted ? loadItemUnits(order.getOrderID()) : Collections.emptyList();
+        afterCommit(c -> {
+            c.ordersByStatus.merge(from, -1L, Long::sum);
+            c.ordersByStatus.merge(to, 1L, Long::sum);
+            if (wasCounted != isCounted) {
+                addRevenue(c, orderDate, sign * amount);
+                addUnits(c, units, sign);
+            }
+        });
+    }
+
+    /**
+     * Record a deleted order. Counters change only after the caller's
+     * transaction commits.
+     * @param order deleted order
+     * @param items its order items
+     */
+    @TransactionAttribute(TransactionAttributeType.SUPPORTS)
+    public void orderRemoved(Orders order, Collection<OrderItems> items) {
+        String status = normalize(order.getStatus());
+        Date orderDate = order.getOrderDate();
+        long amount = order.getTotalAmount();
+        List<Object[]> units = itemUnits(items);
+        afterCommit(c -> {
+            c.ordersByStatus.merge(status, -1L, Long::sum);
+            if (!CANCELLED.equals(status)) {
+                addRevenue(c, orderDate, -amount);
+                addUnits(c, units, -1);
+            }
+        });
+    }
+
+    public long getTotalOrders() {
+        long total = 0;
+        for (Long count : counters.ordersByStatus.values()) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @param status order status (case insensitive)
+     * @return number of orders with that status
+     */
+    public long getOrderCount(String status) {
+        return counters.ordersByStatus.getOrDefault(normalize(status), 0L);
+    }
+
+    /**
+     * @return order count per lowercase status, zero counts omitted
+     */
+    public Map<String, Long> getOrderCountsByStatus() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : counters.ordersByStatus.entrySet()) {
+            if (entry.getValue() > 0) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return revenue of all orders that are not cancelled
+     */
+    public long getTotalRevenue() {
+        long total = 0;
+        for (Long amount : counters.revenueByMonth.values()) {
+            total += amount;
+        }
+        return total;
+    }
+
+    public long getRevenue(LocalDate day) {
+        return counters.revenueByDay.getOrDefault(day, 0L);
+    }
+
+    public long getRevenue(YearMonth month) {
+        return counters.revenueByMonth.getOrDefault(month, 0L);
+    }
+
+    /**
+     * Best selling products of orders that are not cancelled
+     * @param limit number of products
+     * @return product name to units sold, best first
+     */
+    public Map<String, Long> getTopProducts(int limit) {
+        Counters c = counters;
+        List<Map.Entry<Integer, Long>> entries = new ArrayList<>(c.unitsByProduct.entrySet());
+        entries.sort(Map.Entry.<Integer, Long>comparingByValue().reversed());
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> entry : entries) {
+            if (result.size() >= limit || entry.getValue() <= 0) {
+                break;
+            }
+            result.merge(c.productNames.getOrDefault(entry.getKey(), "#" + entry.getKey()), entry.getValue(), Long::sum);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private List<Object[]> loadItemUnits(Integer orderId) {
+        return em.createQuery(
+                "SELECT oi.productID.productID, oi.productID.productName, oi.quantity FROM OrderItems oi "
+                + "WHERE oi.orderID.orderID = :orderId", Object[].class)
+                .setParameter("orderId", orderId)
+                .getResultList();
+    }
+
+    private static void addRevenue(Counters c, Date orderDate, long amount) {
+        if (orderDate == null) {
+            return;
+        }
+        LocalDate day = orderDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        c.revenueByDay.merge(day, amount, Long::sum);
+        c.revenueByMonth.merge(YearMonth.from(day), amount, Long::sum);
+    }
+
+    private static List<Object[]> itemUnits(Collection<OrderItems> items) {
+        List<Object[]> units = new ArrayList<>();
+        if (items != null) {
+            for (OrderItems item : items) {
+                units.add(new Object[] {item.getProductID().getProductID(), item.getProductID().getProductName(), item.getQuantity()});
+            }
+        }
+        return units;
+    }
+
+    private static void addUnits(Counters c, List<Object[]> units, int sign) {
+        for (Object[] row : units) {
+            Integer productId = (Integer) row[0];
+            if (row[1] != null) {
+                c.productNames.put(productId, (String) row[1]);
+            }
+            c.unitsByProduct.merge(productId, sign * ((Number) row[2]).longValue(), Long::sum);
+        }
+    }
+
+    private void afterCommit(Consumer<Counters> delta) {
+        AfterCommit.run(txRegistry, () -> {
+            synchronized (swapLock) {
+                delta.accept(counters);
+            }
+        });
+    }
+
+    private static String normalize(String status) {
+        return status == null ? "" : status.trim().toLowerCase();
+    }
+
+    private static final class Counters {
+        final Map<String, Long> ordersByStatus = new ConcurrentHashMap<>();
+        final Map<LocalDate, Long> revenueByDay = new ConcurrentHashMap<>();
+        final Map<YearMonth, Long> revenueByMonth = new ConcurrentHashMap<>();
+        final Map<Integer, Long> unitsByProduct = new ConcurrentHashMap<>();
+        final Map<Integer, String> productNames = new ConcurrentHashMap<>();
+    }
+}
@@ -7,12 +7,13 @@ package a23088.service;
 import a23088.entity.Users;
 import a23088.entity.Roles;
 import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Singleton;
 import jakarta.ejb.Startup;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import java.util.Date;
-import java.util.logging.Logger;
 
 /**
  * DataInitializationService - EJB Singleton for initializing sample data
@@ -21,13 +22,17 @@ import java.util.logging.Logger;
  */
 @Singleton
 @Startup
+@DependsOn("SchemaMigrationService")
 public class DataInitializationService {
 
-    private static final Logger logger = Logger.getLogger(DataInitializationService.class.getName());
+    private static final AppLogger logger = AppLogger.getLogger(DataInitializationService.class);
 
     @PersistenceContext(unitName = "online-store-ejbPU")
     private EntityManager em;
 
+    @EJB
+    private PasswordHasher passwordHasher;
+
     @PostConstruct
     public void initializeData() {
         try {
@@ -42,7 +47,7 @@ public class DataInitializationService {
             logger.info("Data initialization completed successfully");
             
         } catch (Exception e) {
-            logger.severe("Error during data initialization: " + e.getMessage());
+            logger.error("Error during data initialization: {}", e.getMessage());
         }
     }
 
@@ -75,7 +80,7 @@ public class DataInitializationService {
             em.flush();
             
         } catch (Exception e) {
-            logger.severe("Error initializing roles: " + e.getMessage());
+            logger.error("Error initializing roles: {}", e.getMessage());
         }
     }
 
@@ -97,7 +102,7 @@ public class DataInitializationService {
                 Users adminUser = new Users();
                 adminUser.setFullName("Administrator");
                 adminUser.setEmail("admin@store.com");
-                adminUser.setPassword(hashPassword("admin123")); // Default password
+                adminUser.setPassword(passwordHasher.hash("admin123")); // Default password
                 adminUser.setStatus(true);
                 adminUser.setCreatedAt(new Date());
                 adminUser.setRoleID(adminRole);
@@ -111,33 +116,7 @@ public class DataInitializationService {
             }
             
         } catch (Exception e) {
-            logger.severe("Error initializing admin user: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Hash password using SHA-256
-     * @param password plain text password
-     * @return hashed password
-     */
-    private String hashPassword(String password) {
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
-        } catch (Exception e) {
-            logger.severe("Error hashing password: " + e.getMessage());
-            return password; // Return original password if hashing fails
+            logger.error("Error initializing admin user: {}", e.getMessage());
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package a23088.service;
+
+import jakarta.ejb.ApplicationException;
+
+/**
+ * The email is already used by another account: the database unique
+ * constraint UQ_Users_Email rejected the insert or update. The caller
+ * should show "already registered" instead of a generic error.
+ * @author ADMIN
+ */
+@ApplicationException(rollback = true)
+public class DuplicateEmailException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public DuplicateEmailException(String email) {
+        super("Email already registered: " + email);
+    }
+}
@@ -0,0 +1,220 @@
+package a23088.service;
+
+import a23088.mbean.UsersFacadeLocal;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * EmailBloomFilter - application wide Bloom filter over registered emails
+ * (trimmed, lower case), used only by the "email already registered"
+ * pre-check before a signup: "definitely not registered" skips the query.
+ * The filter is local to each node and may miss an email registered on
+ * another node moments ago, so it must never short-circuit a login or an
+ * email lookup; the unique constraint UQ_Users_Email (migration 002)
+ * rejects a duplicate that gets past the pre-check, and UsersFacade turns
+ * that into a DuplicateEmailException.
+ * Emails are added on create and on change; a Bloom filter cannot forget,
+ * so deleted or renamed accounts only cost a false positive until the
+ * filter is rebuilt (nightly, or sooner when it gets stale or too full).
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+@DependsOn("DataInitializationService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class EmailBloomFilter {
+
+    private static final AppLogger logger = AppLogger.getLogger(EmailBloomFilter.class);
+
+    private static final int BITS_PER_EMAIL = 10;   // ~1% false positives với 7 hàm băm
+    private static final int HASHES = 7;
+    private static final int MIN_BITS = 1 << 16;
+    private static final int MAX_BITS = 1 << 30;
+
+    @EJB
+    private UsersFacadeLocal usersFacade;
+
+    // null cho tới khi dựng xong: mightContain trả true (hỏi DB như trước)
+    private volatile Bits current;
+
+    // Bộ lọc đang dựng: email thêm trong lúc dựng được ghi vào cả hai
+    private volatile Bits building;
+
+    // Email thêm từ lần dựng trước: giao dịch chưa commit lúc đọc DB vẫn không bị mất
+    private final AtomicReference<Set<String>> recent = new AtomicReference<>(ConcurrentHashMap.newKeySet());
+
+    private final AtomicInteger removedSinceBuild = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error building email Bloom filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the filter from the Users table and swap it in
+     */
+    @Schedule(hour = "3", minute = "30", persistent = false)
+    public synchronized void rebuild() {
+        int expected = Math.max(usersFacade.count(), 1) * 2;
+        Bits fresh = new Bits(expected);
+        building = fresh;
+        Set<String> carried = recent.getAndSet(ConcurrentHashMap.newKeySet());
+        try {
+            List<String> emails = usersFacade.findAllEmails();
+            for (String email : emails) {
+                String key = normalize(email);
+                if (key != null) {
+                    fresh.add(key);
+                }
+            }
+            for (String key : carried) {
+                fresh.add(key);
+            }
+            current = fresh;
+            removedSinceBuild.set(0);
+            logger.info("Email Bloom filter built: {} emails, {} bits", emails.size(), fresh.bitCount);
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * Rebuild early when many accounts were deleted or the filter is over capacity
+     */
+    @Schedule(hour = "*", minute = "*/10", persistent = false)
+    public void rebuildIfStale() {
+        Bits bits = current;
+        if (bits == null || bits.added.get() > bits.capacity
+                || removedSinceBuild.get() > bits.added.get() / 10) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Record a registered email
+     * @param email user email
+     */
+    public void add(String email) {
+        String key = normalize(email);
+        if (key == null) {
+            return;
+        }
+        Bits bits = current;
+        if (bits != null) {
+            bits.add(key);
+        }
+        recent.get().add(key);
+        Bits next = building;
+        if (next != null) {
+            next.add(key);
+        }
+    }
+
+    /**
+     * An account was deleted or its email changed; the old email stays in the
+     * filter until the next rebuild
+     */
+    public void removed() {
+        removedSinceBuild.incrementAndGet();
+    }
+
+    /**
+     * Check whether an email may be registered
+     * @param email email to check
+     * @return false if the email is certainly not registered, true if it may be
+     */
+    public boolean mightContain(String email) {
+        String key = normalize(email);
+        Bits bits = current;
+        return key == null || bits == null || bits.mightContain(key);
+    }
+
+    private static String normalize(String email) {
+        if (email == null) {
+            return null;
+        }
+        String key = email.trim().toLowerCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    // Băm 64 bit (FNV-1a + trộn bit), hai nửa dùng cho double hashing
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Bits {
+
+        final AtomicLongArray words;
+        final int bitCount;
+        final int capacity;
+        final AtomicInteger added = new AtomicInteger();
+
+        Bits(int expected) {
+            long wanted = Math.max(MIN_BITS, Math.min(MAX_BITS, (long) expected * BITS_PER_EMAIL));
+            int bits = Integer.highestOneBit((int) wanted);
+            if (bits < wanted) {
+                bits <<= 1;
+            }
+            bitCount = bits;
+            capacity = bits / BITS_PER_EMAIL;
+            words = new AtomicLongArray(bits >>> 6);
+        }
+
+        void add(String key) {
+            long h = hash(key);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & (bitCount - 1);
+                int index = bit >>> 6;
+                long mask = 1L << bit;
+                long word = words.get(index);
+                while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                    word = words.get(index);
+                }
+            }
+            added.incrementAndGet();
+        }
+
+        boolean mightContain(String key) {
+            long h = hash(key);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32) | 1;
+            for (int i = 0; i < HASHES; i++) {
+                int bit = (h1 + i * h2) & (bitCount - 1);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package a23088.service;
+
+/**
+ * Output formats of OrderExportService.
+ * @author ADMIN
+ */
+public enum ExportFormat {
+
+    /** Comma separated, one line per order item, header row first */
+    CSV("text/csv", "csv"),
+    /** One JSON object per line (JSON Lines / NDJSON) */
+    JSON_LINES("application/x-ndjson", "jsonl");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Format named by a request parameter
+     * @param value "csv", "jsonl" or "ndjson", case-insensitive; null means CSV
+     * @return matching format
+     * @throws IllegalArgumentException if the value is not a known format
+     */
+    public static ExportFormat fromParameter(String value) {
+        if (value == null || value.isEmpty() || "csv".equalsIgnoreCase(value)) {
+            return CSV;
+        }
+        if ("jsonl".equalsIgnoreCase(value) || "ndjson".equalsIgnoreCase(value)) {
+            return JSON_LINES;
+        }
+        throw new IllegalArgumentException("Unknown export format: " + value);
+    }
+}
@@ -0,0 +1,255 @@
+package a23088.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.regex.Pattern;
+import javax.imageio.ImageIO;
+
+/**
+ * FileSystemImageStore - ImageStore on a local directory.
+ * Uploads are streamed into a temporary file under the root while their
+ * SHA-256 is computed, then moved to &lt;root&gt;/ab/cd/abcd...&lt;ext&gt; (two
+ * levels of shards keep directories small). If that file already exists the
+ * upload is a duplicate and the temporary file is dropped. The extension
+ * comes from the file's magic bytes, never from the client's Content-Type,
+ * and uploads that are not JPEG, PNG, GIF or WebP are rejected. Variants are
+ * written beside the original as abcd....&lt;variant&gt;.jpg (JPEG originals)
+ * or .png (everything else, to keep transparency).
+ * The root is the system property a23088.images.root, else the environment
+ * variable ONLINE_STORE_IMAGE_ROOT, else ~/online-store/images.
+ * @author ADMIN
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class FileSystemImageStore implements ImageStore {
+
+    private static final AppLogger logger = AppLogger.getLogger(FileSystemImageStore.class);
+
+    private static final long MAX_IMAGE_BYTES = 10L * 1024 * 1024;
+    private static final long TRANSFER_CHUNK = 1024 * 1024;
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}\\.(jpg|png|gif|webp)");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private Path root;
+    private Path tmp;
+
+    @PostConstruct
+    public void init() {
+        String configured = System.getProperty("a23088.images.root");
+        if (configured == null || configured.isEmpty()) {
+            configured = System.getenv("ONLINE_STORE_IMAGE_ROOT");
+        }
+        root = configured != null && !configured.isEmpty()
+                ? Paths.get(configured)
+                : Paths.get(System.getProperty("user.home"), "online-store", "images");
+        root = root.toAbsolutePath().normalize();
+        tmp = root.resolve("tmp");
+        try {
+            Files.createDirectories(tmp);
+        } catch (IOException e) {
+            logger.error("Cannot create image store at {}: {}", root, e.getMessage());
+        }
+        logger.info("Image store root: {}", root);
+    }
+
+    @Override
+    public String store(InputStream content, String contentType) throws IOException {
+        String extension = extension(contentType);
+        if (extension == null) {
+            throw new IOException("Unsupported image type: " + contentType);
+        }
+        MessageDigest sha256 = sha256();
+        Path upload = Files.createTempFile(tmp, "upload-", ".part");
+        try {
+            // Chép thẳng từ stream upload vào file tạm theo từng khối, vừa chép vừa băm
+            try (ReadableByteChannel source = Channels.newChannel(new DigestInputStream(content, sha256));
+                    FileChannel target = FileChannel.open(upload, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long size = 0;
+                long copied;
+                while ((copied = target.transferFrom(source, size, TRANSFER_CHUNK)) > 0) {
+                    size += copied;
+                    if (size > MAX_IMAGE_BYTES) {
+                        throw new IOException("Image is larger than " + (MAX_IMAGE_BYTES / (1024 * 1024)) + " MB");
+                    }
+                }
+            }
+
+            // Loại ảnh lấy từ nội dung file, không tin Content-Type do trình duyệt gửi
+            String actual = sniff(upload);
+            if (actual == null) {
+                throw new IOException("Not a JPEG, PNG, GIF or WebP image");
+            }
+            if (!actual.equals(extension)) {
+                logger.debug("Upload declared as {} is {}", contentType, actual);
+            }
+
+            String key = hex(sha256.digest()) + "." + actual;
+            Path file = path(key);
+            if (Files.exists(file)) {
+                logger.debug("Image {} already stored", key);
+                return key;
+            }
+            Files.createDirectories(file.getParent());
+            try {
+                Files.move(upload, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // Một upload khác cùng nội dung vừa ghi xong trước
+            }
+            logger.debug("Stored image {}", key);
+            return key;
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    @Override
+    public Path locate(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            return null;
+        }
+        Path file = path(key);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    @Override
+    public String contentType(String key) {
+        if (key == null || !KEY.matcher(key).matches()) {
+            return null;
+        }
+        String extension = key.substring(key.lastIndexOf('.') + 1);
+        return "jpg".equals(extension) ? "image/jpeg" : "image/" + extension;
+    }
+
+    @Override
+    public Path locate(String key, ImageVariant variant) {
+        if (variant == null) {
+            return locate(key);
+        }
+        if (key == null || !KEY.matcher(key).matches()) {
+            return null;
+        }
+        Path file = variantPath(key, variant);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    @Override
+    public void storeVariant(String key, ImageVariant variant, RenderedImage image) throws IOException {
+        if (key == null || !KEY.matcher(key).matches()) {
+            throw new IOException("Not an image key: " + key);
+        }
+        Path file = variantPath(key, variant);
+        Path part = Files.createTempFile(tmp, "variant-", ".part");
+        try {
+            if (!ImageIO.write(image, variantFormat(key), part.toFile())) {
+                throw new IOException("No image writer for " + variantFormat(key));
+            }
+            Files.createDirectories(file.getParent());
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    private Path variantPath(String key, ImageVariant variant) {
+        String hash = key.substring(0, key.indexOf('.'));
+        String name = hash + "." + variant.getParameter() + "." + variantFormat(key);
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(name);
+    }
+
+    private static String variantFormat(String key) {
+        return key.endsWith(".jpg") ? "jpg" : "png";
+    }
+
+    private Path path(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static String extension(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        switch (contentType.toLowerCase()) {
+            case "image/jpeg":
+            case "image/jpg":
+                return "jpg";
+            case "image/png":
+                return "png";
+            case "image/gif":
+                return "gif";
+            case "image/webp":
+                return "webp";
+            default:
+                return null;
+        }
+    }
+
+    // Nhận dạng ảnh theo magic bytes ở đầu file
+    private static String sniff(Path file) throws IOException {
+        byte[] head = new byte[12];
+        int read = 0;
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while (read < head.length && (n = in.read(head, read, head.length - read)) > 0) {
+                read += n;
+            }
+        }
+        if (read >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (read >= 8 && startsWith(head, 0, (byte) 0x89, (byte) 'P', (byte) 'N', (byte) 'G', (byte) 0x0D, (byte) 0x0A, (byte) 0x1A, (byte) 0x0A)) {
+            return "png";
+        }
+        if (read >= 6 && startsWith(head, 0, (byte) 'G', (byte) 'I', (byte) 'F', (byte) '8')
+                && (head[4] == '7' || head[4] == '9') && head[5] == 'a') {
+            return "gif";
+        }
+        if (read >= 12 && startsWith(head, 0, (byte) 'R', (byte) 'I', (byte) 'F', (byte) 'F')
+                && startsWith(head, 8, (byte) 'W', (byte) 'E', (byte) 'B', (byte) 'P')) {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, byte... prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+}
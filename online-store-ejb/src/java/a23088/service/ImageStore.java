@@ -0,0 +1,62 @@
+package a23088.service;
+
+import jakarta.ejb.Local;
+import java.awt.image.RenderedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * ImageStore - where uploaded product images live. Images are addressed by
+ * their content: the key returned by store is the SHA-256 of the bytes plus
+ * the file extension, so the same picture uploaded twice is kept once and two
+ * different pictures never overwrite each other. Products.image holds the key.
+ * Resized variants are kept next to the original under the same key.
+ * FileSystemImageStore is the default implementation.
+ * @author ADMIN
+ */
+@Local
+public interface ImageStore {
+
+    /**
+     * Store an image, or find the copy already stored with the same content
+     * @param content image bytes, read to the end but not closed
+     * @param contentType MIME type declared by the client (image/jpeg, image/png, ...);
+     *        only a first check, the stored type is detected from the content
+     * @return image key, e.g. 9f86d0...0f00a08.jpg
+     * @throws IOException if the declared type or the content is not a supported
+     *         image, the image is too large or writing fails
+     */
+    String store(InputStream content, String contentType) throws IOException;
+
+    /**
+     * File of a stored image
+     * @param key image key returned by store
+     * @return path of the image, null if the key is not a store key or nothing is stored under it
+     */
+    Path locate(String key);
+
+    /**
+     * MIME type of a stored image
+     * @param key image key
+     * @return content type, null if the key is not a store key
+     */
+    String contentType(String key);
+
+    /**
+     * File of a resized variant
+     * @param key image key
+     * @param variant variant
+     * @return path of the variant, null if it has not been generated (yet)
+     */
+    Path locate(String key, ImageVariant variant);
+
+    /**
+     * Save a resized variant of a stored image, replacing an older one
+     * @param key image key
+     * @param variant variant
+     * @param image resized image
+     * @throws IOException if writing fails
+     */
+    void storeVariant(String key, ImageVariant variant, RenderedImage image) throws IOException;
+}
@@ -0,0 +1,47 @@
+package a23088.service;
+
+/**
+ * Resized copies of a product image, each fitting a square box of the given
+ * size (aspect ratio kept, never enlarged). Chosen in the views with
+ * /images/{key}?v=card.
+ * @author ADMIN
+ */
+public enum ImageVariant {
+
+    /** Cart lines, order details and admin tables */
+    THUMB("thumb", 160),
+    /** Product cards in listings */
+    CARD("card", 480),
+    /** Main picture of the product page */
+    DETAIL("detail", 1024);
+
+    private final String parameter;
+    private final int maxSize;
+
+    ImageVariant(String parameter, int maxSize) {
+        this.parameter = parameter;
+        this.maxSize = maxSize;
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Variant named by a request parameter
+     * @param value thumb, card or detail
+     * @return matching variant, null for the original image
+     */
+    public static ImageVariant fromParameter(String value) {
+        for (ImageVariant variant : values()) {
+            if (variant.parameter.equals(value)) {
+                return variant;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,174 @@
+package a23088.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * ImageVariantService - generates the resized variants (ImageVariant) of
+ * stored product images in the background. Requests are queued on a small
+ * bounded pool; when the queue is full the request is dropped and the
+ * variant is requested again the next time a page asks for it (the image
+ * servlet serves the original meanwhile). Large originals are decoded with
+ * subsampling so a huge upload does not need a huge heap.
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class ImageVariantService {
+
+    private static final AppLogger logger = AppLogger.getLogger(ImageVariantService.class);
+
+    private static final int THREADS = 2;
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long MAX_PIXELS = 100L * 1000 * 1000;
+
+    @EJB
+    private ImageStore imageStore;
+
+    @Resource(lookup = "java:comp/DefaultManagedThreadFactory")
+    private ManagedThreadFactory threadFactory;
+
+    private ThreadPoolExecutor executor;
+
+    // Khóa ảnh đang chờ hoặc đang xử lý, tránh xếp hàng trùng
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        System.setProperty("java.awt.headless", "true");
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queue generation of the missing variants of an image. Returns at once;
+     * keys that are not ImageStore keys (old file names) are ignored.
+     * @param key image key
+     */
+    public void generate(String key) {
+        if (imageStore.locate(key) == null || !pending.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateNow(key);
+                } catch (Exception e) {
+                    logger.warn("Cannot generate variants of image {}: {}", key, e.getMessage());
+                } finally {
+                    pending.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            pending.remove(key);
+            logger.debug("Image variant queue full, {} will be retried on next request", key);
+        }
+    }
+
+    private void generateNow(String key) throws IOException {
+        Path original = imageStore.locate(key);
+        if (original == null) {
+            return;
+        }
+        BufferedImage source = null;
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (imageStore.locate(key, variant) != null) {
+                continue;
+            }
+            if (source == null) {
+                source = read(original);
+            }
+            imageStore.storeVariant(key, variant, resize(source, variant.getMaxSize(), key.endsWith(".jpg")));
+        }
+        logger.debug("Variants ready for image {}", key);
+    }
+
+    // Giải mã có lấy mẫu thưa: ảnh nguồn chỉ cần lớn gấp đôi biến thể lớn nhất
+    private static BufferedImage read(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    throw new IOException("Image is too large: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(width, height) / (2 * ImageVariant.DETAIL.getMaxSize());
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Thu nhỏ dần mỗi lần một nửa rồi về đúng kích thước, ảnh mịn hơn vẽ một lần
+    private static BufferedImage resize(BufferedImage source, int maxSize, boolean opaque) {
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        double scale = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (opaque) {
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                }
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width > targetWidth || height > targetHeight);
+        return current;
+    }
+}
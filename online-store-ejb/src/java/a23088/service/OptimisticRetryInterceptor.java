@@ -0,0 +1,79 @@
+package a23088.service;
+
+import jakarta.annotation.Resource;
+import jakarta.interceptor.AroundInvoke;
+import jakarta.interceptor.InvocationContext;
+import jakarta.transaction.Status;
+import jakarta.transaction.UserTransaction;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * OptimisticRetryInterceptor - for services with bean-managed transactions.
+ * Every call runs in its own UserTransaction; if it loses an optimistic lock
+ * race (a @Version check fails on flush or commit) the transaction is rolled
+ * back and the call is retried after a short randomized backoff. The
+ * intercepted method must re-read the entities it changes so each attempt
+ * works on current versions.
+ * @author ADMIN
+ */
+public class OptimisticRetryInterceptor {
+
+    private static final AppLogger logger = AppLogger.getLogger(OptimisticRetryInterceptor.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MILLIS = 25;
+
+    @Resource
+    private UserTransaction utx;
+
+    @AroundInvoke
+    public Object retry(InvocationContext ctx) throws Exception {
+        if (utx.getStatus() != Status.STATUS_NO_TRANSACTION) {
+            return ctx.proceed();
+        }
+        for (int attempt = 1; ; attempt++) {
+            utx.begin();
+            try {
+                Object result = ctx.proceed();
+                if (utx.getStatus() == Status.STATUS_MARKED_ROLLBACK) {
+                    utx.rollback();
+                } else {
+                    utx.commit();
+                }
+                return result;
+            } catch (Exception e) {
+                rollbackQuietly();
+                if (attempt >= MAX_ATTEMPTS || !isOptimisticLockFailure(e)) {
+                    throw e;
+                }
+                long backoff = BASE_BACKOFF_MILLIS * (1L << (attempt - 1));
+                logger.info("Optimistic lock conflict in {}, retry {}/{}", ctx.getMethod().getName(), attempt, (MAX_ATTEMPTS - 1));
+                Thread.sleep(backoff + ThreadLocalRandom.current().nextLong(backoff));
+            }
+        }
+    }
+
+    private void rollbackQuietly() {
+        try {
+            if (utx.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                utx.rollback();
+            }
+        } catch (Exception e) {
+            logger.warn("Rollback failed: {}", e.getMessage());
+        }
+    }
+
+    // Both jakarta.persistence.OptimisticLockException (flush) and the provider's
+    // own exception wrapped in a RollbackException (commit) count as conflicts
+    private static boolean isOptimisticLockFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if ("OptimisticLockException".equals(t.getClass().getSimpleName())) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,211 @@
+package a23088.service;
+
+import a23088.mbean.OrderExportCriteria;
+import a23088.mbean.OrderExportRow;
+import a23088.mbean.OrdersFacadeLocal;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * OrderExportService - streams order lines (order, customer, product) to CSV
+ * or JSON Lines for accounting. Rows are read CHUNK_SIZE at a time by keyset
+ * queries with the same JDBC fetch size and written out after each chunk, so
+ * memory stays at one chunk whatever the history size, and the header reaches
+ * the client before the first query runs.
+ * @author ADMIN
+ */
+@Stateless
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class OrderExportService {
+
+    private static final AppLogger logger = AppLogger.getLogger(OrderExportService.class);
+
+    private static final int CHUNK_SIZE = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME.withZone(ZoneId.systemDefault());
+
+    private static final String[] COLUMNS = {
+        "order_id", "order_date", "status", "order_total", "customer_id", "customer_name",
+        "customer_email", "address", "phone", "order_item_id", "product_id", "product_name",
+        "quantity", "unit_price", "line_total"
+    };
+
+    @EJB
+    private OrdersFacadeLocal ordersFacade;
+
+    /**
+     * Write matching order lines to a stream. The stream is flushed after every
+     * chunk but not closed.
+     * @param criteria date range and status filter, null for all orders
+     * @param format output format
+     * @param gzip compress the output
+     * @param out destination, e.g. a servlet response
+     * @return number of order lines written
+     * @throws IOException if writing fails (e.g. the client went away)
+     */
+    public long export(OrderExportCriteria criteria, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        // syncFlush: mỗi lần flush đẩy luôn phần đã nén ra client
+        GZIPOutputStream zip = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(zip != null ? zip : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        if (format == ExportFormat.CSV) {
+            writer.write('\uFEFF'); // BOM để Excel đọc đúng tiếng Việt
+            CsvWriter.writeLine(writer, COLUMNS);
+        }
+        writer.flush();
+
+        long written = 0;
+        int afterOrder = 0;
+        int afterItem = 0;
+        while (true) {
+            List<OrderExportRow> chunk = ordersFacade.findExportRows(criteria, afterOrder, afterItem, CHUNK_SIZE);
+            for (OrderExportRow row : chunk) {
+                if (format == ExportFormat.CSV) {
+                    CsvWriter.writeLine(writer, values(row));
+                } else {
+                    writeJsonLine(writer, values(row));
+                }
+            }
+            written += chunk.size();
+            writer.flush();
+            if (chunk.size() < CHUNK_SIZE) {
+                break;
+            }
+            OrderExportRow last = chunk.get(chunk.size() - 1);
+            afterOrder = last.getOrderID();
+            afterItem = last.getOrderItemID();
+        }
+
+        if (zip != null) {
+            zip.finish();
+        }
+        out.flush();
+        logger.info("Exported {} order lines as {} in {} ms", written, format, (System.currentTimeMillis() - started));
+        return written;
+    }
+
+    /**
+     * Write matching order lines to a file. The export goes to a temporary
+     * file next to the target which is moved into place when complete, so a
+     * reader never sees a half-written dump.
+     * @param criteria date range and status filter, null for all orders
+     * @param format output format
+     * @param gzip compress the output
+     * @param file target file, replaced if it exists
+     * @return number of order lines written
+     * @throws IOException if the file cannot be written
+     */
+    public long exportToFile(OrderExportCriteria criteria, ExportFormat format, boolean gzip, Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".part");
+        try {
+            long written;
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                written = export(criteria, format, gzip, out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String[] values(OrderExportRow row) {
+        return new String[] {
+            text(row.getOrderID()),
+            row.getOrderDate() != null ? DATE_FORMAT.format(row.getOrderDate().toInstant()) : null,
+            row.getStatus(),
+            text(row.getTotalAmount()),
+            text(row.getUserID()),
+            row.getCustomerName(),
+            row.getCustomerEmail(),
+            row.getAddress(),
+            row.getPhone(),
+            text(row.getOrderItemID()),
+            text(row.getProductID()),
+            row.getProductName(),
+            text(row.getQuantity()),
+            text(row.getUnitPrice()),
+            text(row.getLineTotal())
+        };
+    }
+
+    private static String text(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    // Số giữ dạng số, chuỗi được escape theo JSON; null ghi là null
+    private static void writeJsonLine(Writer writer, String[] values) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < COLUMNS.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write('"');
+            writer.write(COLUMNS[i]);
+            writer.write("\":");
+            String value = values[i];
+            if (value == null) {
+                writer.write("null");
+            } else if (isNumeric(COLUMNS[i])) {
+                writer.write(value);
+            } else {
+                writeJsonString(writer, value);
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private static boolean isNumeric(String column) {
+        return column.endsWith("_id") || column.endsWith("_total") || column.equals("quantity") || column.equals("unit_price");
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    writer.write("\\\"");
+                    break;
+                case '\\':
+                    writer.write("\\\\");
+                    break;
+                case '\n':
+                    writer.write("\\n");
+                    break;
+                case '\r':
+                    writer.write("\\r");
+                    break;
+                case '\t':
+                    writer.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        writer.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+        writer.write('"');
+    }
+}
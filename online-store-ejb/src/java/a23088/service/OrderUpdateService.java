@@ -4,87 +4,103 @@ import a23088.entity.Orders;
 import a23088.mbean.OrdersFacadeLocal;
 import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
-import jakarta.ejb.TransactionAttribute;
-import jakarta.ejb.TransactionAttributeType;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.interceptor.Interceptors;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.OptimisticLockException;
 import jakarta.persistence.PersistenceContext;
 
+/**
+ * OrderUpdateService - order changes that must not lose concurrent updates.
+ * Each call re-reads the order and runs in its own transaction, retried by
+ * OptimisticRetryInterceptor when the order's version changed meanwhile.
+ * @author ADMIN
+ */
 @Stateless
+@TransactionManagement(TransactionManagementType.BEAN)
+@Interceptors(OptimisticRetryInterceptor.class)
 public class OrderUpdateService {
 
+    private static final AppLogger logger = AppLogger.getLogger(OrderUpdateService.class);
+
     @EJB
     private OrdersFacadeLocal ordersFacade;
     
+    @EJB
+    private DashboardMetricsService metricsService;
+    
     @PersistenceContext
     private EntityManager em;
 
-    @TransactionAttribute(TransactionAttributeType.REQUIRED)
+    /**
+     * Change the status of an order
+     * @param orderId order ID
+     * @param newStatus new status
+     * @return updated order, null if it does not exist
+     */
+    public Orders updateStatus(Integer orderId, String newStatus) {
+        Orders order = ordersFacade.find(orderId);
+        if (order == null) {
+            return null;
+        }
+        String oldStatus = order.getStatus();
+        order.setStatus(newStatus);
+        em.flush();
+        metricsService.orderStatusChanged(order, oldStatus);
+        return order;
+    }
+
     public boolean updateOrderInfo(Integer orderId, String address, String phone) {
         try {
-            // Tìm đơn hàng theo ID
+            // Tìm đơn hàng theo ID (đọc lại mỗi lần thử để có version mới nhất)
             Orders order = ordersFacade.find(orderId);
             if (order == null) {
-                System.out.println("Order not found with ID: " + orderId);
+                logger.debug("Order not found with ID: {}", orderId);
                 return false;
             }
 
             // Kiểm tra dữ liệu đầu vào
             if (address == null || address.trim().isEmpty()) {
-                System.out.println("Address is null or empty");
+                logger.debug("Address is null or empty");
                 return false;
             }
             
             if (phone == null || phone.trim().isEmpty()) {
-                System.out.println("Phone is null or empty");
+                logger.debug("Phone is null or empty");
                 return false;
             }
 
             // Cập nhật thông tin
+            String oldStatus = order.getStatus();
             order.setAddress(address.trim());
             order.setPhone(phone.trim());
             order.setStatus("Pending"); // Sử dụng Pending thay vì Confirmed
             
-            System.out.println("Updating order: " + orderId + " with address: " + address + ", phone: " + phone);
+            logger.debug("Updating order: {} with address: {}, phone: {}", orderId, address, phone);
             
-            // Lưu cập nhật sử dụng EntityManager
-            em.merge(order);
+            // Ghi xuống DB ngay để xung đột version được phát hiện tại đây
+            em.flush();
+            metricsService.orderStatusChanged(order, oldStatus);
             
-            // Log thông báo thành công ra console
-            System.out.println("==========================================");
-            System.out.println("🎉 ĐẶT HÀNG THÀNH CÔNG! 🎉");
-            System.out.println("==========================================");
-            System.out.println("Mã đơn hàng: #" + order.getOrderID());
-            System.out.println("Khách hàng: " + order.getUserID().getFullName());
-            System.out.println("Email: " + order.getUserID().getEmail());
-            System.out.println("Địa chỉ: " + order.getAddress());
-            System.out.println("Số điện thoại: " + order.getPhone());
-            System.out.println("Tổng tiền: " + String.format("%,.0f", (double)order.getTotalAmount()) + "₫");
-            System.out.println("Trạng thái: " + order.getStatus());
-            System.out.println("Thời gian: " + new java.util.Date());
-            System.out.println("==========================================");
+            // Ghi log đơn hàng đã xác nhận
+            logger.info("Order #{} confirmed by {}: total {}, status {}", order.getOrderID(), order.getUserID().getEmail(), order.getTotalAmount(), order.getStatus());
             
             return true;
 
+        } catch (OptimisticLockException e) {
+            // Để interceptor rollback và thử lại
+            throw e;
         } catch (Exception e) {
-            System.err.println("Error updating order: " + e.getMessage());
-            e.printStackTrace();
-            
-            // Thử cách khác với native query
-            try {
-                return updateOrderWithNativeQuery(orderId, address, phone);
-            } catch (Exception e2) {
-                System.err.println("Native query also failed: " + e2.getMessage());
-                e2.printStackTrace();
-                return false;
-            }
+            logger.error("Error updating order: {}", e.getMessage(), e);
+            return false;
         }
     }
     
-    // Method backup sử dụng native query
-    @TransactionAttribute(TransactionAttributeType.REQUIRED)
+    // Method backup sử dụng native query (tăng Version để các bản sao cũ không ghi đè)
     public boolean updateOrderWithNativeQuery(Integer orderId, String address, String phone) {
         try {
-            String sql = "UPDATE Orders SET Address = ?, Phone = ?, Status = ? WHERE OrderID = ?";
+            String sql = "UPDATE Orders SET Address = ?, Phone = ?, Status = ?, Version = Version + 1 WHERE OrderID = ?";
             int result = em.createNativeQuery(sql)
                 .setParameter(1, address.trim())
                 .setParameter(2, phone.trim())
@@ -92,12 +108,11 @@ public class OrderUpdateService {
                 .setParameter(4, orderId)
                 .executeUpdate();
                 
-            System.out.println("Native query updated " + result + " rows");
+            logger.debug("Native query updated {} rows", result);
             return result > 0;
             
         } catch (Exception e) {
-            System.err.println("Native query failed: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Native query failed: {}", e.getMessage(), e);
             return false;
         }
     }
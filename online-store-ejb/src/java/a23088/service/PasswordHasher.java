@@ -0,0 +1,287 @@
+package a23088.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PasswordHasher - the one place passwords are hashed and checked.
+ * New hashes use salted PBKDF2-HMAC-SHA256, stored as
+ * "pbkdf2-sha256$iterations$salt$hash" (Base64); the iteration count is
+ * read from a23088.password.iterations / ONLINE_STORE_PASSWORD_ITERATIONS.
+ * Old unsalted SHA-256 hex hashes still verify and are reported by
+ * needsRehash so login can upgrade them.
+ * The KDF runs on a pool sized to the CPU cores with a bounded queue:
+ * when the queue is full the call fails fast (PasswordHasherBusyException)
+ * instead of piling more request threads onto the CPU.
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class PasswordHasher {
+
+    private static final AppLogger logger = AppLogger.getLogger(PasswordHasher.class);
+
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int DEFAULT_ITERATIONS = 310_000;
+    private static final int MIN_ITERATIONS = 10_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int QUEUE_PER_THREAD = 16;
+    private static final long WAIT_SECONDS = 10;
+
+    @Resource(lookup = "java:comp/DefaultManagedThreadFactory")
+    private ManagedThreadFactory threadFactory;
+
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    private ThreadPoolExecutor executor;
+    private int iterations;
+    private String dummyHash;
+
+    @PostConstruct
+    public void init() {
+        iterations = configuredIterations();
+        int threads = Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUE_PER_THREAD), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        // Hash cố định cho mật khẩu ngẫu nhiên, dùng khi email không tồn tại
+        byte[] secret = new byte[SALT_BYTES];
+        random.nextBytes(secret);
+        dummyHash = hash(Base64.getEncoder().encodeToString(secret));
+        logger.info("Password hasher: PBKDF2 {} iterations, {} threads", iterations, threads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hash a password with a new random salt
+     * @param password plain text password
+     * @return encoded hash to store in Users.password
+     * @throws PasswordHasherBusyException if the hashing pool is saturated
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        int rounds = iterations;
+        byte[] hash = submit(() -> pbkdf2(password, salt, rounds));
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + '$' + rounds + '$' + base64.encodeToString(salt) + '$' + base64.encodeToString(hash);
+    }
+
+    /**
+     * Check a password against a stored hash (PBKDF2 or legacy SHA-256).
+     * Every call with a password costs one full PBKDF2 run, whatever the
+     * stored hash, so the response time does not tell hash formats apart.
+     * @param password plain text password
+     * @param stored stored hash
+     * @return true if the password matches
+     * @throws PasswordHasherBusyException if the hashing pool is saturated
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!stored.startsWith(PREFIX + '$')) {
+            // Hash cũ: SHA-256 hex không salt. Vẫn chạy một lần PBKDF2 giả để thời gian
+            // phản hồi không lộ tài khoản nào chưa được chuyển sang hash mới
+            boolean matches = MessageDigest.isEqual(legacySha256(password).getBytes(StandardCharsets.US_ASCII),
+                    stored.getBytes(StandardCharsets.US_ASCII));
+            verifyDummy(password);
+            return matches;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            verifyDummy(password);
+            return false;
+        }
+        try {
+            int rounds = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            int target = iterations;
+            byte[] actual = submit(() -> {
+                byte[] hash = pbkdf2(password, salt, rounds);
+                if (rounds < target) {
+                    // Hash cũ ít vòng hơn cấu hình: chạy bù phần còn thiếu cho bằng thời gian
+                    pbkdf2(password, salt, target - rounds);
+                }
+                return hash;
+            });
+            return MessageDigest.isEqual(expected, actual);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Malformed password hash: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Run a full verify against a fixed dummy hash, so a login for an
+     * unknown or inactive account costs the same time as a real one
+     * @param password plain text password
+     * @throws PasswordHasherBusyException if the hashing pool is saturated
+     */
+    public void verifyDummy(String password) {
+        if (dummyHash != null) {
+            verify(password, dummyHash);
+        }
+    }
+
+    /**
+     * Whether a stored hash should be replaced after a successful login
+     * @param stored stored hash
+     * @return true for legacy hashes and hashes with fewer iterations than configured
+     */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !stored.startsWith(PREFIX + '$')) {
+            return true;
+        }
+        int end = stored.indexOf('$', PREFIX.length() + 1);
+        try {
+            return end < 0 || Integer.parseInt(stored.substring(PREFIX.length() + 1, end)) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Hashes waiting for a worker thread
+     * @return queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Hashes being computed right now
+     * @return active workers
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Hashes computed since startup
+     * @return completed tasks
+     */
+    public long getCompletedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * Hash requests turned away because the queue was full
+     * @return rejected requests
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Average time of one KDF run
+     * @return milliseconds, 0 before the first hash
+     */
+    public double getAverageMillis() {
+        long completed = executor.getCompletedTaskCount();
+        return completed == 0 ? 0 : totalNanos.get() / 1_000_000.0 / completed;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    private byte[] submit(Callable<byte[]> task) {
+        Future<byte[]> future;
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    totalNanos.addAndGet(System.nanoTime() - start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            long count = rejected.incrementAndGet();
+            logger.warn("Password hashing queue full ({} waiting), request rejected ({} so far)", getQueueDepth(), count);
+            throw new PasswordHasherBusyException("The system is busy, please try again in a moment.");
+        }
+        try {
+            return future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new PasswordHasherBusyException("The system is busy, please try again in a moment.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error hashing password", e.getCause());
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int rounds) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // Định dạng cũ: SHA-256 hex chữ thường của chuỗi UTF-8
+    private static String legacySha256(String password) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(password.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static int configuredIterations() {
+        String configured = System.getProperty("a23088.password.iterations");
+        if (configured == null || configured.isEmpty()) {
+            configured = System.getenv("ONLINE_STORE_PASSWORD_ITERATIONS");
+        }
+        if (configured != null && !configured.isEmpty()) {
+            try {
+                return Math.max(MIN_ITERATIONS, Integer.parseInt(configured.trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid password iteration count '{}', using {}", configured, DEFAULT_ITERATIONS);
+            }
+        }
+        return DEFAULT_ITERATIONS;
+    }
+}
@@ -0,0 +1,18 @@
+package a23088.service;
+
+import jakarta.ejb.ApplicationException;
+
+/**
+ * The password hashing pool is saturated and the request was turned away
+ * instead of waiting. The caller should ask the user to try again.
+ * @author ADMIN
+ */
+@ApplicationException(rollback = true)
+public class PasswordHasherBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHasherBusyException(String message) {
+        super(message);
+    }
+}
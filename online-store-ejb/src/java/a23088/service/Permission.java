@@ -0,0 +1,47 @@
+package a23088.service;
+
+/**
+ * Permissions checked on the request path. Each role maps to a bitset of
+ * these (see RoleRegistry), so a check is one bit test.
+ * @author ADMIN
+ */
+public enum Permission {
+
+    /** Open the admin area */
+    ADMIN_ACCESS,
+    /** Create, edit and import products, categories and suppliers */
+    MANAGE_CATALOGUE,
+    /** Change order status, cancel orders */
+    MANAGE_ORDERS,
+    /** Create, edit and delete user accounts */
+    MANAGE_USERS,
+    /** Download order exports */
+    EXPORT_DATA,
+    /** Use the cart and place orders */
+    SHOP,
+    /** Write product reviews */
+    REVIEW;
+
+    private final long mask = 1L << ordinal();
+
+    /**
+     * Bit of this permission
+     * @return mask with only this permission set
+     */
+    public long mask() {
+        return mask;
+    }
+
+    /**
+     * Combine permissions into a bitset
+     * @param permissions permissions to set
+     * @return bitset
+     */
+    public static long maskOf(Permission... permissions) {
+        long bits = 0L;
+        for (Permission permission : permissions) {
+            bits |= permission.mask;
+        }
+        return bits;
+    }
+}
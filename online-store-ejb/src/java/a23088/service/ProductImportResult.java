@@ -0,0 +1,42 @@
+package a23088.service;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of ProductImportService.importCsv.
+ * @author ADMIN
+ */
+public class ProductImportResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long read;
+    private final long imported;
+    private final long rejected;
+    private final long elapsedMillis;
+
+    public ProductImportResult(long read, long imported, long rejected, long elapsedMillis) {
+        this.read = read;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /** Data rows read from the file (header excluded) */
+    public long getRead() {
+        return read;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    /** Rows written to the error report */
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,244 @@
+package a23088.service;
+
+import a23088.entity.Categories;
+import a23088.entity.Products;
+import a23088.entity.Supplier;
+import a23088.mbean.CategoriesFacadeLocal;
+import a23088.mbean.ProductsFacadeLocal;
+import a23088.mbean.SupplierFacadeLocal;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * ProductImportService - bulk import of products from CSV.
+ * The file is parsed one record at a time; each row is checked with the
+ * product form rules (ProductValidator), against one pre-loaded set of
+ * existing names and against category/supplier lookup maps, then inserted
+ * in groups of BATCH_SIZE, one transaction per group. Rejected rows go to
+ * an error report (line, product_name, error) instead of stopping the import.
+ * Imported products start unpublished, like products added by the form.
+ * <p>
+ * Columns (header row required, any order, case-insensitive):
+ * product_name, description, price, stock, category, supplier and the
+ * optional brand, image. Category and supplier are given by ID or name.
+ * @author ADMIN
+ */
+@Stateless
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class ProductImportService {
+
+    private static final AppLogger logger = AppLogger.getLogger(ProductImportService.class);
+
+    private static final int BATCH_SIZE = 100;
+    private static final Pattern WHOLE_NUMBER = Pattern.compile("\\d+|\\d{1,3}([.,]\\d{3})+");
+
+    private static final String[] REQUIRED_COLUMNS = {"productname", "description", "price", "stock", "category", "supplier"};
+
+    @EJB
+    private ProductsFacadeLocal productsFacade;
+
+    @EJB
+    private CategoriesFacadeLocal categoriesFacade;
+
+    @EJB
+    private SupplierFacadeLocal supplierFacade;
+
+    @EJB
+    private StockReservationService stockReservationService;
+
+    /**
+     * Import products from a UTF-8 CSV stream
+     * @param in CSV content, not closed
+     * @param report receives the per-row error report as CSV, flushed but not closed
+     * @return counts of read, imported and rejected rows
+     * @throws IOException if the file cannot be read, has no header or misses a required column
+     */
+    public ProductImportResult importCsv(InputStream in, Writer report) throws IOException {
+        long started = System.currentTimeMillis();
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        List<String> header = reader.readRecord();
+        if (header == null) {
+            throw new IOException("The file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(columnKey(header.get(i)), i);
+        }
+        for (String column : REQUIRED_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                throw new IOException("Missing column: " + column);
+            }
+        }
+
+        // Nạp trước một lần: tên đã có, danh mục và nhà cung cấp theo ID và theo tên
+        Set<String> names = new HashSet<>();
+        for (String name : productsFacade.findAllNames()) {
+            names.add(ProductValidator.nameKey(name));
+        }
+        Map<String, Categories> categories = new HashMap<>();
+        for (Categories category : categoriesFacade.findAll()) {
+            categories.put(String.valueOf(category.getCategoryID()), category);
+            categories.putIfAbsent(ProductValidator.nameKey(category.getCategoryName()), category);
+        }
+        Map<String, Supplier> suppliers = new HashMap<>();
+        for (Supplier supplier : supplierFacade.findAll()) {
+            suppliers.put(String.valueOf(supplier.getSupplierID()), supplier);
+            suppliers.putIfAbsent(ProductValidator.nameKey(supplier.getSupplierName()), supplier);
+        }
+
+        CsvWriter.writeLine(report, "line", "product_name", "error");
+        long read = 0;
+        long imported = 0;
+        long rejected = 0;
+        List<Products> batch = new ArrayList<>(BATCH_SIZE);
+        List<Integer> batchLines = new ArrayList<>(BATCH_SIZE);
+        List<String> record;
+        while ((record = reader.readRecord()) != null) {
+            read++;
+            int line = reader.getLineNumber();
+            String name = value(record, columns, "productname");
+
+            Integer price = parseNumber(value(record, columns, "price"));
+            Integer stock = parseNumber(value(record, columns, "stock"));
+            Categories category = categories.get(ProductValidator.nameKey(value(record, columns, "category")));
+            Supplier supplier = suppliers.get(ProductValidator.nameKey(value(record, columns, "supplier")));
+            String description = value(record, columns, "description");
+
+            String error;
+            if (price == null) {
+                error = "Price must be a whole number";
+            } else if (stock == null) {
+                error = "Stock must be a whole number";
+            } else if (category == null && value(record, columns, "category") != null) {
+                error = "Unknown category: " + value(record, columns, "category");
+            } else if (supplier == null && value(record, columns, "supplier") != null) {
+                error = "Unknown supplier: " + value(record, columns, "supplier");
+            } else {
+                error = ProductValidator.validate(name, description, price, stock,
+                        category != null ? category.getCategoryID() : null,
+                        supplier != null ? supplier.getSupplierID() : null);
+            }
+            if (error == null && !names.add(ProductValidator.nameKey(name))) {
+                error = "Product name already exists in the system";
+            }
+            if (error != null) {
+                CsvWriter.writeLine(report, String.valueOf(line), name, error);
+                rejected++;
+                continue;
+            }
+
+            Products product = new Products();
+            product.setProductName(name.trim());
+            product.setDescription(description.trim());
+            product.setPrice(price);
+            product.setStock(stock);
+            product.setBrand(value(record, columns, "brand"));
+            product.setImage(value(record, columns, "image"));
+            product.setCategoryID(category);
+            product.setSupplierID(supplier);
+            product.setCreatedAt(new Date());
+            product.setStatus(false); // Default is not published yet
+            batch.add(product);
+            batchLines.add(line);
+
+            if (batch.size() >= BATCH_SIZE) {
+                int saved = saveBatch(batch, batchLines, names, report);
+                imported += saved;
+                rejected += batch.size() - saved;
+                batch.clear();
+                batchLines.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            int saved = saveBatch(batch, batchLines, names, report);
+            imported += saved;
+            rejected += batch.size() - saved;
+        }
+        report.flush();
+        if (imported > 0) {
+            // Tồn kho vừa đổi ngoài luồng giỏ hàng: nạp lại bộ đếm giữ hàng
+            stockReservationService.resync();
+        }
+
+        long elapsed = System.currentTimeMillis() - started;
+        logger.info("Product import: {} rows read, {} imported, {} rejected in {} ms", read, imported, rejected, elapsed);
+        return new ProductImportResult(read, imported, rejected, elapsed);
+    }
+
+    // Ghi cả lô trong một transaction; nếu lô lỗi thì thử lại từng dòng để chỉ ra dòng hỏng
+    private int saveBatch(List<Products> batch, List<Integer> lines, Set<String> names, Writer report) throws IOException {
+        try {
+            productsFacade.createAll(batch, BATCH_SIZE);
+            return batch.size();
+        } catch (RuntimeException e) {
+            logger.warn("Product import batch failed, retrying row by row: {}", e.getMessage());
+        }
+        int saved = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Products product = batch.get(i);
+            product.setProductID(null);
+            product.setVersion(0);
+            try {
+                productsFacade.create(product);
+                saved++;
+            } catch (RuntimeException e) {
+                names.remove(ProductValidator.nameKey(product.getProductName()));
+                CsvWriter.writeLine(report, String.valueOf(lines.get(i)), product.getProductName(), rootMessage(e));
+            }
+        }
+        return saved;
+    }
+
+    private static String value(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // "product_name", "Product Name", "ProductName" đều thành "productname"
+    private static String columnKey(String header) {
+        return header.replaceAll("[^A-Za-z0-9]", "").toLowerCase();
+    }
+
+    // Chấp nhận "1500000" và "1.500.000" / "1,500,000"; trả null nếu không phải số nguyên
+    private static Integer parseNumber(String value) {
+        if (value == null) {
+            return 0;
+        }
+        if (!WHOLE_NUMBER.matcher(value).matches()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.replace(".", "").replace(",", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+}
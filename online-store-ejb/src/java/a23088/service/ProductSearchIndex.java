@@ -0,0 +1,218 @@
+package a23088.service;
+
+import a23088.entity.Products;
+import a23088.mbean.ProductsFacadeLocal;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * ProductSearchIndex - application wide inverted index over published products.
+ * Product name, brand and description are tokenized (Vietnamese diacritics are
+ * folded so "bàn phím" matches "ban phim") and each term keeps a postings list
+ * of product IDs with a field weight used for ranking.
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+@DependsOn("DataInitializationService")
+public class ProductSearchIndex {
+
+    private static final AppLogger logger = AppLogger.getLogger(ProductSearchIndex.class);
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^a-z0-9]+");
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int BRAND_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    @EJB
+    private ProductsFacadeLocal productsFacade;
+
+    // term -> (productID -> weight), sorted so prefix lookups are a subMap
+    private final TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+
+    // productID -> terms, used to drop old postings on update/delete
+    private final Map<Integer, Set<String>> productTerms = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error building product search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the whole index from published products
+     */
+    @Lock(LockType.WRITE)
+    public void rebuild() {
+        postings.clear();
+        productTerms.clear();
+        List<Products> published = productsFacade.findPublished();
+        if (published != null) {
+            for (Products product : published) {
+                addProduct(product);
+            }
+        }
+        logger.info("Product search index built: {} products, {} terms", productTerms.size(), postings.size());
+    }
+
+    /**
+     * Add or refresh a product. Unpublished products are removed from the index.
+     * @param product product entity (must have an ID)
+     */
+    @Lock(LockType.WRITE)
+    public void index(Products product) {
+        if (product == null || product.getProductID() == null) {
+            return;
+        }
+        removeProduct(product.getProductID());
+        if (product.getStatus()) {
+            addProduct(product);
+        }
+    }
+
+    /**
+     * Remove a product from the index
+     * @param productId product ID
+     */
+    @Lock(LockType.WRITE)
+    public void remove(Integer productId) {
+        if (productId != null) {
+            removeProduct(productId);
+        }
+    }
+
+    /**
+     * Search published products. Every keyword must match a term; the last
+     * keyword is matched as a prefix so partially typed words still hit.
+     * @param keyword search keyword
+     * @return product IDs ordered by relevance, empty list if nothing matches
+     */
+    @Lock(LockType.READ)
+    public List<Integer> search(String keyword) {
+        List<String> tokens = tokenize(keyword);
+        if (tokens.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Integer, Integer> scores = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            boolean prefix = (i == tokens.size() - 1);
+            Map<Integer, Integer> matches = lookup(tokens.get(i), prefix);
+            if (scores == null) {
+                scores = matches;
+            } else {
+                scores.keySet().retainAll(matches.keySet());
+                for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+                    entry.setValue(entry.getValue() + matches.get(entry.getKey()));
+                }
+            }
+            if (scores.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> {
+            int byScore = Integer.compare(b.getValue(), a.getValue());
+            return byScore != 0 ? byScore : Integer.compare(a.getKey(), b.getKey());
+        });
+        List<Integer> result = new ArrayList<>(ranked.size());
+        for (Map.Entry<Integer, Integer> entry : ranked) {
+            result.add(entry.getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Lowercase, strip Vietnamese diacritics and split into terms
+     * @param text raw text
+     * @return list of terms (never null)
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.trim().isEmpty()) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Fold text to lowercase ASCII: "Bàn Phím Đen" becomes "ban phim den"
+     * @param text raw text
+     * @return folded text
+     */
+    public static String fold(String text) {
+        String lower = text.toLowerCase().replace('đ', 'd');
+        return COMBINING_MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    private Map<Integer, Integer> lookup(String token, boolean prefix) {
+        Map<Integer, Integer> matches = new HashMap<>();
+        Map<String, Map<Integer, Integer>> terms = prefix
+                ? postings.subMap(token, true, token + Character.MAX_VALUE, false)
+                : postings.subMap(token, true, token, true);
+        for (Map<Integer, Integer> list : terms.values()) {
+            for (Map.Entry<Integer, Integer> entry : list.entrySet()) {
+                matches.merge(entry.getKey(), entry.getValue(), Math::max);
+            }
+        }
+        return matches;
+    }
+
+    private void addProduct(Products product) {
+        Integer id = product.getProductID();
+        Set<String> terms = new HashSet<>();
+        addField(id, product.getProductName(), NAME_WEIGHT, terms);
+        addField(id, product.getBrand(), BRAND_WEIGHT, terms);
+        addField(id, product.getDescription(), DESCRIPTION_WEIGHT, terms);
+        productTerms.put(id, terms);
+    }
+
+    private void addField(Integer productId, String text, int weight, Set<String> terms) {
+        for (String token : tokenize(text)) {
+            postings.computeIfAbsent(token, k -> new HashMap<>()).merge(productId, weight, Math::max);
+            terms.add(token);
+        }
+    }
+
+    private void removeProduct(Integer productId) {
+        Set<String> terms = productTerms.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Integer, Integer> list = postings.get(term);
+            if (list != null) {
+                list.remove(productId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+}
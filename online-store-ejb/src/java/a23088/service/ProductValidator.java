@@ -0,0 +1,91 @@
+package a23088.service;
+
+import java.util.Locale;
+
+/**
+ * ProductValidator - field rules for a product entered by an admin, shared
+ * by the product form and the CSV import so both reject the same data.
+ * The duplicate-name check is left to the caller (one query for the form,
+ * a pre-loaded name set for an import).
+ * @author ADMIN
+ */
+public final class ProductValidator {
+
+    public static final int MAX_PRICE = 1000000000; // 1 billion VND
+    public static final int MAX_STOCK = 10000;
+
+    private ProductValidator() {
+    }
+
+    /**
+     * Check product fields
+     * @param productName product name
+     * @param description description
+     * @param price price in VND
+     * @param stock stock quantity
+     * @param categoryId selected category, null if none
+     * @param supplierId selected supplier, null if none
+     * @return error message, null if the data is valid
+     */
+    public static String validate(String productName, String description, int price, int stock,
+            Integer categoryId, Integer supplierId) {
+        // Validate product name
+        if (productName == null || productName.trim().isEmpty()) {
+            return "Product name cannot be empty";
+        }
+        if (productName.trim().length() < 2) {
+            return "Product name must be at least 2 characters long";
+        }
+        if (productName.trim().length() > 100) {
+            return "Product name must not exceed 100 characters";
+        }
+
+        // Validate category
+        if (categoryId == null) {
+            return "Please select a product category";
+        }
+
+        // Validate supplier
+        if (supplierId == null) {
+            return "Please select a supplier";
+        }
+
+        // Validate description
+        if (description == null || description.trim().isEmpty()) {
+            return "Product description cannot be empty";
+        }
+        if (description.trim().length() < 10) {
+            return "Product description must be at least 10 characters long";
+        }
+        if (description.trim().length() > 500) {
+            return "Product description must not exceed 500 characters";
+        }
+
+        // Validate price
+        if (price <= 0) {
+            return "Product price must be greater than 0";
+        }
+        if (price > MAX_PRICE) {
+            return "Product price must not exceed 1,000,000,000 VND";
+        }
+
+        // Validate stock
+        if (stock < 0) {
+            return "Stock quantity cannot be negative";
+        }
+        if (stock > MAX_STOCK) {
+            return "Stock quantity must not exceed 10,000";
+        }
+
+        return null; // No errors
+    }
+
+    /**
+     * Key used to compare product names for duplicates (trimmed, case-insensitive)
+     * @param productName product name
+     * @return normalized name, null for null
+     */
+    public static String nameKey(String productName) {
+        return productName != null ? productName.trim().toLowerCase(Locale.ROOT) : null;
+    }
+}
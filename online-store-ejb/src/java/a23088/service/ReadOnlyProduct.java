@@ -0,0 +1,222 @@
+package a23088.service;
+
+import a23088.entity.CartItems;
+import a23088.entity.Categories;
+import a23088.entity.OrderItems;
+import a23088.entity.Products;
+import a23088.entity.Reviews;
+import a23088.entity.Supplier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Frozen copy of a product held by CatalogueCache. The snapshot is shared by
+ * every session and thread, so its products, categories and suppliers are
+ * private copies whose setters throw instead of silently changing what every
+ * other reader sees. Only the columns the storefront shows are copied; the
+ * child collections are empty. Not an entity: never persist or merge it,
+ * load the product by ID instead.
+ * @author ADMIN
+ */
+final class ReadOnlyProduct extends Products {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param source product read in the current transaction
+     * @param categories frozen categories by ID, shared by all products of the snapshot
+     */
+    ReadOnlyProduct(Products source, Map<Integer, Categories> categories) {
+        super(source.getProductID(), source.getProductName(), source.getPrice(), source.getStock(),
+                source.getStatus(), copy(source.getCreatedAt()));
+        super.setDescription(source.getDescription());
+        super.setImage(source.getImage());
+        super.setBrand(source.getBrand());
+        super.setVersion(source.getVersion());
+        Categories category = source.getCategoryID();
+        if (category != null) {
+            super.setCategoryID(categories.computeIfAbsent(category.getCategoryID(), id -> freeze(category)));
+        }
+        Supplier supplier = source.getSupplierID();
+        if (supplier != null) {
+            super.setSupplierID(new ReadOnlySupplier(supplier));
+        }
+    }
+
+    /**
+     * @param category category read in the current transaction
+     * @return frozen copy of the category
+     */
+    static Categories freeze(Categories category) {
+        return category instanceof ReadOnlyCategory ? category : new ReadOnlyCategory(category);
+    }
+
+    @Override
+    public Date getCreatedAt() {
+        return copy(super.getCreatedAt());
+    }
+
+    @Override
+    public Collection<OrderItems> getOrderItemsCollection() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<Reviews> getReviewsCollection() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public Collection<CartItems> getCartItemsCollection() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void setProductID(Integer productID) {
+        readOnly();
+    }
+
+    @Override
+    public void setProductName(String productName) {
+        readOnly();
+    }
+
+    @Override
+    public void setDescription(String description) {
+        readOnly();
+    }
+
+    @Override
+    public void setPrice(int price) {
+        readOnly();
+    }
+
+    @Override
+    public void setStock(int stock) {
+        readOnly();
+    }
+
+    @Override
+    public void setImage(String image) {
+        readOnly();
+    }
+
+    @Override
+    public void setBrand(String brand) {
+        readOnly();
+    }
+
+    @Override
+    public void setStatus(boolean status) {
+        readOnly();
+    }
+
+    @Override
+    public void setCreatedAt(Date createdAt) {
+        readOnly();
+    }
+
+    @Override
+    public void setVersion(int version) {
+        readOnly();
+    }
+
+    @Override
+    public void setCategoryID(Categories categoryID) {
+        readOnly();
+    }
+
+    @Override
+    public void setSupplierID(Supplier supplierID) {
+        readOnly();
+    }
+
+    @Override
+    public void setOrderItemsCollection(Collection<OrderItems> orderItemsCollection) {
+        readOnly();
+    }
+
+    @Override
+    public void setReviewsCollection(Collection<Reviews> reviewsCollection) {
+        readOnly();
+    }
+
+    @Override
+    public void setCartItemsCollection(Collection<CartItems> cartItemsCollection) {
+        readOnly();
+    }
+
+    // Constructor gọi thẳng setter của lớp cha, mọi lời gọi setter sau đó đều bị từ chối
+    private static void readOnly() {
+        throw new UnsupportedOperationException("Cached catalogue product is read-only, load it by ID to edit");
+    }
+
+    private static Date copy(Date date) {
+        return date == null ? null : new Date(date.getTime());
+    }
+
+    private static final class ReadOnlyCategory extends Categories {
+
+        private static final long serialVersionUID = 1L;
+
+        ReadOnlyCategory(Categories source) {
+            super(source.getCategoryID(), source.getCategoryName());
+        }
+
+        @Override
+        public Collection<Products> getProductsCollection() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void setCategoryID(Integer categoryID) {
+            throw new UnsupportedOperationException("Cached category is read-only");
+        }
+
+        @Override
+        public void setCategoryName(String categoryName) {
+            throw new UnsupportedOperationException("Cached category is read-only");
+        }
+
+        @Override
+        public void setProductsCollection(Collection<Products> productsCollection) {
+            throw new UnsupportedOperationException("Cached category is read-only");
+        }
+    }
+
+    private static final class ReadOnlySupplier extends Supplier {
+
+        private static final long serialVersionUID = 1L;
+
+        ReadOnlySupplier(Supplier source) {
+            super(source.getSupplierID(), source.getSupplierName(), source.getQuantity());
+        }
+
+        @Override
+        public Collection<Products> getProductsCollection() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void setSupplierID(Integer supplierID) {
+            throw new UnsupportedOperationException("Cached supplier is read-only");
+        }
+
+        @Override
+        public void setSupplierName(String supplierName) {
+            throw new UnsupportedOperationException("Cached supplier is read-only");
+        }
+
+        @Override
+        public void setQuantity(int quantity) {
+            throw new UnsupportedOperationException("Cached supplier is read-only");
+        }
+
+        @Override
+        public void setProductsCollection(Collection<Products> productsCollection) {
+            throw new UnsupportedOperationException("Cached supplier is read-only");
+        }
+    }
+}
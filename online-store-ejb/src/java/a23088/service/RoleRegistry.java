@@ -0,0 +1,158 @@
+package a23088.service;
+
+import a23088.entity.Roles;
+import a23088.mbean.RolesFacadeLocal;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * RoleRegistry - roles loaded once at startup, each with its permissions
+ * precomputed as a bitset. Access checks look up the role ID in an
+ * immutable snapshot and test one bit, without a query or comparing role
+ * names. RolesFacade invalidates the snapshot when roles change; the next
+ * lookup loads it again.
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+@DependsOn("DataInitializationService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class RoleRegistry {
+
+    private static final AppLogger logger = AppLogger.getLogger(RoleRegistry.class);
+
+    public static final String ADMIN = "Admin";
+    public static final String CUSTOMER = "Customer";
+
+    private static final long ADMIN_PERMISSIONS = Permission.maskOf(Permission.ADMIN_ACCESS,
+            Permission.MANAGE_CATALOGUE, Permission.MANAGE_ORDERS, Permission.MANAGE_USERS, Permission.EXPORT_DATA);
+    private static final long CUSTOMER_PERMISSIONS = Permission.maskOf(Permission.SHOP, Permission.REVIEW);
+
+    @EJB
+    private RolesFacadeLocal rolesFacade;
+
+    // null sau khi invalidate: lần tra cứu kế tiếp sẽ nạp lại
+    private volatile Snapshot snapshot;
+
+    @PostConstruct
+    public void init() {
+        try {
+            snapshot();
+        } catch (Exception e) {
+            logger.error("Error loading roles: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop the loaded roles; called when a role is created, edited or removed
+     */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * Check a permission of a role
+     * @param roleId role ID, may be null
+     * @param permission permission to check
+     * @return true if the role grants the permission
+     */
+    public boolean has(Integer roleId, Permission permission) {
+        return (permissions(roleId) & permission.mask()) != 0;
+    }
+
+    /**
+     * Permission bitset of a role
+     * @param roleId role ID, may be null
+     * @return bitset, 0 for an unknown role
+     */
+    public long permissions(Integer roleId) {
+        if (roleId == null) {
+            return 0L;
+        }
+        RoleEntry entry = snapshot().byId.get(roleId);
+        return entry != null ? entry.permissions : 0L;
+    }
+
+    /**
+     * ID of a role by name (case-insensitive). Assign the role to an entity
+     * through the facade (a managed reference), never as a new Roles copy.
+     * @param roleName role name
+     * @return role ID, or null if the role does not exist
+     */
+    public Integer findId(String roleName) {
+        RoleEntry entry = roleName != null ? snapshot().byName.get(roleName.toLowerCase(Locale.ROOT)) : null;
+        return entry != null ? entry.roleID : null;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null) {
+                    current = load();
+                    snapshot = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Snapshot load() {
+        List<Roles> roles = rolesFacade.findAll();
+        Map<Integer, RoleEntry> byId = new HashMap<>();
+        Map<String, RoleEntry> byName = new HashMap<>();
+        for (Roles role : roles) {
+            RoleEntry entry = new RoleEntry(role.getRoleID(), role.getRoleName(), permissionsFor(role.getRoleName()));
+            byId.put(entry.roleID, entry);
+            if (entry.roleName != null) {
+                byName.putIfAbsent(entry.roleName.toLowerCase(Locale.ROOT), entry);
+            }
+        }
+        logger.info("Role registry loaded: {} roles", byId.size());
+        return new Snapshot(byId, byName);
+    }
+
+    // Quyền theo tên vai trò; vai trò khác không có quyền nào
+    private static long permissionsFor(String roleName) {
+        if (ADMIN.equalsIgnoreCase(roleName)) {
+            return ADMIN_PERMISSIONS;
+        }
+        if (CUSTOMER.equalsIgnoreCase(roleName)) {
+            return CUSTOMER_PERMISSIONS;
+        }
+        return 0L;
+    }
+
+    private static final class RoleEntry {
+        final Integer roleID;
+        final String roleName;
+        final long permissions;
+
+        RoleEntry(Integer roleID, String roleName, long permissions) {
+            this.roleID = roleID;
+            this.roleName = roleName;
+            this.permissions = permissions;
+        }
+    }
+
+    private static final class Snapshot {
+        final Map<Integer, RoleEntry> byId;
+        final Map<String, RoleEntry> byName;
+
+        Snapshot(Map<Integer, RoleEntry> byId, Map<String, RoleEntry> byName) {
+            this.byId = Collections.unmodifiableMap(byId);
+            this.byName = Collections.unmodifiableMap(byName);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package a23088.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SchemaMigrationService - applies the SQL scripts in META-INF/migrations
+ * (src/conf/migrations) before any other startup bean touches the database.
+ * All scripts run in one transaction of their own with XACT_ABORT ON, so a
+ * failing statement rolls back every change and the exception aborts the
+ * deployment instead of leaving a half-migrated schema behind. The scripts
+ * are idempotent and use GO lines as batch separators, like sqlcmd.
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+public class SchemaMigrationService {
+
+    private static final AppLogger logger = AppLogger.getLogger(SchemaMigrationService.class);
+
+    private static final String[] SCRIPTS = {
+        "001_version_and_id_blocks.sql",
+        "002_unique_user_email.sql"
+    };
+
+    @PersistenceContext(unitName = "online-store-ejbPU")
+    private EntityManager em;
+
+    @PostConstruct
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public void migrate() {
+        for (String script : SCRIPTS) {
+            try {
+                for (String batch : readBatches(script)) {
+                    em.createNativeQuery("SET XACT_ABORT ON; " + batch).executeUpdate();
+                }
+                logger.info("Schema migration {} applied", script);
+            } catch (Exception e) {
+                logger.error("Schema migration {} failed, deployment aborted: {}", script, e.getMessage(), e);
+                throw new IllegalStateException("Schema migration " + script + " failed", e);
+            }
+        }
+    }
+
+    // Tách script theo các dòng GO, bỏ qua batch chỉ có chú thích
+    private static List<String> readBatches(String script) throws IOException {
+        List<String> batches = new ArrayList<>();
+        try (InputStream in = SchemaMigrationService.class.getResourceAsStream("/META-INF/migrations/" + script)) {
+            if (in == null) {
+                throw new IOException("Migration script not found: " + script);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            StringBuilder batch = new StringBuilder();
+            boolean hasCode = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.equalsIgnoreCase("GO")) {
+                    if (hasCode) {
+                        batches.add(batch.toString());
+                    }
+                    batch.setLength(0);
+                    hasCode = false;
+                } else {
+                    batch.append(line).append('\n');
+                    hasCode |= !trimmed.isEmpty() && !trimmed.startsWith("--");
+                }
+            }
+            if (hasCode) {
+                batches.add(batch.toString());
+            }
+        }
+        return batches;
+    }
+}
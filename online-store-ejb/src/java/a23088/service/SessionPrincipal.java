@@ -0,0 +1,68 @@
+package a23088.service;
+
+import a23088.entity.Roles;
+import a23088.entity.Users;
+import java.io.Serializable;
+
+/**
+ * SessionPrincipal - what the HTTP session keeps about the logged in user.
+ * An immutable copy of the few fields pages read (ID, name, email, role)
+ * instead of the Users entity and the
+ * orders/reviews/cart collections reachable from it. Code that writes
+ * loads the entity again by getUserID().
+ * @author ADMIN
+ */
+public final class SessionPrincipal implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int userID;
+    private final String fullName;
+    private final String email;
+    private final Integer roleID;
+    private final String roleName;
+
+    private SessionPrincipal(int userID, String fullName, String email, Integer roleID, String roleName) {
+        this.userID = userID;
+        this.fullName = fullName != null ? fullName : "";
+        this.email = email != null ? email : "";
+        this.roleID = roleID;
+        this.roleName = roleName != null ? roleName : "";
+    }
+
+    /**
+     * Take a principal from an authenticated user
+     * @param user user entity (must have an ID)
+     * @return principal for the session
+     */
+    public static SessionPrincipal of(Users user) {
+        Roles role = user.getRoleID();
+        return new SessionPrincipal(user.getUserID(), user.getFullName(), user.getEmail(),
+                role != null ? role.getRoleID() : null, role != null ? role.getRoleName() : null);
+    }
+
+    public int getUserID() {
+        return userID;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Integer getRoleID() {
+        return roleID;
+    }
+
+    public String getRoleName() {
+        return roleName;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionPrincipal[userID=" + userID + ", role=" + roleName + "]";
+    }
+}
@@ -0,0 +1,328 @@
+package a23088.service;
+
+import a23088.entity.Products;
+import a23088.mbean.ProductsFacadeLocal;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Schedule;
+import jakarta.ejb.Singleton;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * StockReservationService - short-lived stock holds for carts.
+ * Adding to cart takes units from an in-memory counter per product
+ * (stock minus active holds) instead of checking a stale entity; the
+ * counter is split into stripes so concurrent buyers of a hot product
+ * do not all contend on one value. Holds expire after HOLD_MINUTES.
+ * The database stays authoritative: checkout still decrements stock with
+ * a conditional UPDATE (ProductsFacade.decrementStock). Counters are seeded
+ * from the database on first use and dropped every RESYNC_MINUTES (and
+ * after a CSV import), so stock changed elsewhere (other nodes, imports,
+ * direct edits) is picked up again.
+ * @author ADMIN
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class StockReservationService {
+
+    private static final AppLogger logger = AppLogger.getLogger(StockReservationService.class);
+
+    private static final int HOLD_MINUTES = 15;
+    private static final int RESYNC_MINUTES = 5;
+    private static final int STRIPES = 8;
+
+    @EJB
+    private ProductsFacadeLocal productsFacade;
+
+    // productID -> units available to new holds (stock - active holds)
+    private final Map<Integer, StripedCounter> available = new ConcurrentHashMap<>();
+
+    // cartID -> (productID -> hold)
+    private final Map<Integer, Map<Integer, Hold>> holdsByCart = new ConcurrentHashMap<>();
+
+    /**
+     * Set the quantity a cart holds for a product, taking or returning the difference
+     * @param cartId cart ID
+     * @param productId product ID
+     * @param quantity total quantity the cart wants, 0 to release
+     * @return false if there is not enough stock for the extra units
+     */
+    public boolean reserve(Integer cartId, Integer productId, int quantity) {
+        StripedCounter counter = counter(productId);
+        if (cartId == null) {
+            return counter.sum() >= quantity;
+        }
+        while (true) {
+            Map<Integer, Hold> holds = holdsByCart.computeIfAbsent(cartId, k -> new ConcurrentHashMap<>());
+            synchronized (holds) {
+                if (holdsByCart.get(cartId) != holds) {
+                    continue; // map vừa bị dọn bởi releaseExpired, lấy lại
+                }
+                Hold hold = holds.get(productId);
+                int delta = quantity - (hold != null ? hold.quantity : 0);
+                if (delta > 0 && !counter.tryTake(delta, cartId)) {
+                    return false;
+                }
+                if (delta < 0) {
+                    counter.add(-delta, cartId);
+                }
+                if (quantity > 0) {
+                    holds.put(productId, new Hold(quantity));
+                } else {
+                    holds.remove(productId);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release the hold of a cart on one product
+     * @param cartId cart ID
+     * @param productId product ID
+     */
+    public void release(Integer cartId, Integer productId) {
+        if (cartId != null) {
+            reserve(cartId, productId, 0);
+        }
+    }
+
+    /**
+     * Release every hold of a cart
+     * @param cartId cart ID
+     */
+    public void releaseAll(Integer cartId) {
+        Map<Integer, Hold> holds = cartId == null ? null : holdsByCart.remove(cartId);
+        if (holds == null) {
+            return;
+        }
+        synchronized (holds) {
+            for (Map.Entry<Integer, Hold> entry : holds.entrySet()) {
+                giveBack(entry.getKey(), entry.getValue().quantity, cartId);
+            }
+            holds.clear();
+        }
+    }
+
+    /**
+     * Checkout committed: the purchased units left the database stock, so the
+     * cart's holds are dropped without returning them. Units bought without a
+     * (still active) hold are taken from the counter as well.
+     * @param cartId cart ID, may be null
+     * @param purchased productID -> quantity bought
+     */
+    public void confirm(Integer cartId, Map<Integer, Integer> purchased) {
+        Map<Integer, Hold> holds = cartId == null ? null : holdsByCart.remove(cartId);
+        int hint = cartId == null ? 0 : cartId;
+        if (holds != null) {
+            synchronized (holds) {
+                for (Map.Entry<Integer, Hold> entry : holds.entrySet()) {
+                    int bought = purchased.getOrDefault(entry.getKey(), 0);
+                    giveBack(entry.getKey(), entry.getValue().quantity - bought, hint);
+                }
+                for (Map.Entry<Integer, Integer> line : purchased.entrySet()) {
+                    if (!holds.containsKey(line.getKey())) {
+                        giveBack(line.getKey(), -line.getValue(), hint);
+                    }
+                }
+                holds.clear();
+            }
+        } else {
+            for (Map.Entry<Integer, Integer> line : purchased.entrySet()) {
+                giveBack(line.getKey(), -line.getValue(), hint);
+            }
+        }
+    }
+
+    /**
+     * Units of a product still available to new holds
+     * @param productId product ID
+     * @return available units, never negative
+     */
+    public int getAvailable(Integer productId) {
+        return Math.max(0, counter(productId).sum());
+    }
+
+    /**
+     * Stock was edited by an admin: restart the counter from the new stock
+     * @param product changed product
+     */
+    public void productChanged(Products product) {
+        if (product != null && product.getProductID() != null) {
+            Integer id = product.getProductID();
+            available.put(id, new StripedCounter(product.getStock() - heldQuantity(id)));
+        }
+    }
+
+    /**
+     * Drop every counter; each one is seeded again from the database stock
+     * minus the active holds on its next use. A hold taken on a dropped
+     * counter while this runs may be missing from the new seed until the
+     * next resync; checkout still checks the real stock.
+     */
+    @Schedule(hour = "*", minute = "*/" + RESYNC_MINUTES, persistent = false)
+    public void resync() {
+        int dropped = available.size();
+        available.clear();
+        if (dropped > 0) {
+            logger.debug("Dropped {} stock counters for reseeding", dropped);
+        }
+    }
+
+    /**
+     * Product deleted: drop its counter and holds
+     * @param productId product ID
+     */
+    public void productRemoved(Integer productId) {
+        if (productId == null) {
+            return;
+        }
+        available.remove(productId);
+        for (Map<Integer, Hold> holds : holdsByCart.values()) {
+            holds.remove(productId);
+        }
+    }
+
+    /**
+     * Return units of expired holds to their counters
+     */
+    @Schedule(hour = "*", minute = "*", persistent = false)
+    public void releaseExpired() {
+        long now = System.currentTimeMillis();
+        int released = 0;
+        for (Map.Entry<Integer, Map<Integer, Hold>> cart : holdsByCart.entrySet()) {
+            Map<Integer, Hold> holds = cart.getValue();
+            synchronized (holds) {
+                Iterator<Map.Entry<Integer, Hold>> it = holds.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<Integer, Hold> entry = it.next();
+                    if (entry.getValue().expiresAt <= now) {
+                        giveBack(entry.getKey(), entry.getValue().quantity, cart.getKey());
+                        it.remove();
+                        released++;
+                    }
+                }
+                if (holds.isEmpty()) {
+                    holdsByCart.remove(cart.getKey(), holds);
+                }
+            }
+        }
+        if (released > 0) {
+            logger.debug("Released {} expired stock holds", released);
+        }
+    }
+
+    private StripedCounter counter(Integer productId) {
+        StripedCounter counter = available.get(productId);
+        if (counter == null) {
+            counter = new StripedCounter(productsFacade.findStock(productId) - heldQuantity(productId));
+            StripedCounter existing = available.putIfAbsent(productId, counter);
+            if (existing != null) {
+                counter = existing;
+            }
+        }
+        return counter;
+    }
+
+    private void giveBack(Integer productId, int units, int hint) {
+        StripedCounter counter = available.get(productId);
+        if (counter != null && units != 0) {
+            counter.add(units, hint);
+        }
+    }
+
+    private int heldQuantity(Integer productId) {
+        int held = 0;
+        for (Map<Integer, Hold> holds : holdsByCart.values()) {
+            Hold hold = holds.get(productId);
+            if (hold != null) {
+                held += hold.quantity;
+            }
+        }
+        return held;
+    }
+
+    private static final class Hold {
+        final int quantity;
+        final long expiresAt;
+
+        Hold(int quantity) {
+            this.quantity = quantity;
+            this.expiresAt = System.currentTimeMillis() + HOLD_MINUTES * 60_000L;
+        }
+    }
+
+    /**
+     * Counter split into cells; takers start at a cell chosen by cart so
+     * concurrent compare-and-set loops mostly hit different cells.
+     */
+    private static final class StripedCounter {
+
+        private final AtomicIntegerArray cells = new AtomicIntegerArray(STRIPES);
+
+        StripedCounter(int initial) {
+            if (initial <= 0) {
+                cells.set(0, initial);
+                return;
+            }
+            for (int i = 0; i < STRIPES; i++) {
+                cells.set(i, initial / STRIPES + (i < initial % STRIPES ? 1 : 0));
+            }
+        }
+
+        boolean tryTake(int units, int hint) {
+            int taken = drain(units, hint);
+            if (taken < units) {
+                add(taken, hint);
+                return false;
+            }
+            return true;
+        }
+
+        void add(int units, int hint) {
+            if (units < 0) {
+                // Trừ: lấy từ các ô còn dương trước, phần thiếu ghi âm vào một ô
+                units += drain(-units, hint);
+            }
+            if (units != 0) {
+                cells.addAndGet(stripe(hint), units);
+            }
+        }
+
+        int sum() {
+            int sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i);
+            }
+            return sum;
+        }
+
+        private int drain(int units, int hint) {
+            int taken = 0;
+            int start = stripe(hint);
+            for (int i = 0; i < STRIPES && taken < units; i++) {
+                int idx = (start + i) % STRIPES;
+                while (true) {
+                    int current = cells.get(idx);
+                    if (current <= 0) {
+                        break;
+                    }
+                    int take = Math.min(current, units - taken);
+                    if (cells.compareAndSet(idx, current, current - take)) {
+                        taken += take;
+                        break;
+                    }
+                }
+            }
+            return taken;
+        }
+
+        private static int stripe(int hint) {
+            return (hint & Integer.MAX_VALUE) % STRIPES;
+        }
+    }
+}
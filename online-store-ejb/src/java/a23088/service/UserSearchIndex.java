@@ -0,0 +1,345 @@
+package a23088.service;
+
+import a23088.entity.Users;
+import a23088.mbean.UsersFacadeLocal;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Lock;
+import jakarta.ejb.LockType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * UserSearchIndex - trigram index over user full name and email for the
+ * admin user search. Text is folded like the product index ("Nguyễn" matches
+ * "nguyen") and every run of three characters maps to a sorted array of user
+ * IDs. A keyword of three or more characters is answered by intersecting the
+ * arrays of its trigrams (smallest first) and confirming the substring, so
+ * "%kw%" no longer scans the Users table. Matches are ranked by how much of
+ * the user's text the keyword covers, i.e. closer matches first.
+ * @author ADMIN
+ */
+@Singleton
+@Startup
+@DependsOn("DataInitializationService")
+public class UserSearchIndex {
+
+    private static final AppLogger logger = AppLogger.getLogger(UserSearchIndex.class);
+
+    private static final int BUILD_CHUNK = 1000;
+    private static final int OTHER = 63;
+    private static final int[] EMPTY = new int[0];
+
+    @EJB
+    private UsersFacadeLocal usersFacade;
+
+    // trigram (3 x 6 bit) -> user IDs tăng dần, sizes[] là số phần tử đang dùng
+    private final int[][] postings = new int[1 << 18][];
+    private final int[] sizes = new int[1 << 18];
+
+    // userID -> folded text and its trigrams
+    private final Map<Integer, Entry> entries = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            logger.error("Error building user search index: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the whole index from the Users table
+     */
+    @Lock(LockType.WRITE)
+    public void rebuild() {
+        Arrays.fill(postings, null);
+        Arrays.fill(sizes, 0);
+        entries.clear();
+        usersFacade.forEachChunk(BUILD_CHUNK, chunk -> {
+            for (Users user : chunk) {
+                addUser(user);
+            }
+        });
+        logger.info("User search index built: {} users", entries.size());
+    }
+
+    /**
+     * Add or refresh a user
+     * @param user user entity (must have an ID)
+     */
+    @Lock(LockType.WRITE)
+    public void index(Users user) {
+        if (user == null || user.getUserID() == null) {
+            return;
+        }
+        removeUser(user.getUserID());
+        addUser(user);
+    }
+
+    /**
+     * Add or refresh a user from values read earlier, e.g. captured before
+     * the transaction that saved them committed
+     * @param userId user ID
+     * @param fullName full name
+     * @param email email
+     * @param roleId role ID, null if none
+     */
+    @Lock(LockType.WRITE)
+    public void index(Integer userId, String fullName, String email, Integer roleId) {
+        if (userId == null) {
+            return;
+        }
+        removeUser(userId);
+        addUser(userId, fullName, email, roleId);
+    }
+
+    /**
+     * Remove a user from the index
+     * @param userId user ID
+     */
+    @Lock(LockType.WRITE)
+    public void remove(Integer userId) {
+        if (userId != null) {
+            removeUser(userId);
+        }
+    }
+
+    /**
+     * Find users whose full name or email contains the keyword
+     * (case and diacritics ignored)
+     * @param keyword search keyword
+     * @param limit maximum number of IDs to return
+     * @return user IDs, closest matches first; empty list if nothing matches
+     */
+    @Lock(LockType.READ)
+    public List<Integer> search(String keyword, int limit) {
+        return search(keyword, null, limit);
+    }
+
+    /**
+     * Find users of a role whose full name or email contains the keyword.
+     * The role is checked while collecting matches, so the limit applies to
+     * users of that role only.
+     * @param keyword search keyword
+     * @param roleId role ID, null for any role
+     * @param limit maximum number of IDs to return; ask for one more than
+     *        will be shown to learn whether the result was cut
+     * @return user IDs, closest matches first; empty list if nothing matches
+     */
+    @Lock(LockType.READ)
+    public List<Integer> search(String keyword, Integer roleId, int limit) {
+        String query = keyword == null ? "" : normalize(keyword);
+        if (query.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        int[] grams = trigrams(query);
+
+        // Giữ limit kết quả tốt nhất: đầu heap là kết quả kém nhất
+        PriorityQueue<Match> best = new PriorityQueue<>(Math.min(limit, 1024) + 1);
+        if (grams.length == 0) {
+            // Từ khóa 1-2 ký tự không có trigram: duyệt tuần tự
+            for (Map.Entry<Integer, Entry> e : entries.entrySet()) {
+                offer(best, limit, e.getKey(), e.getValue(), roleId, query, grams.length);
+            }
+        } else {
+            for (int id : candidates(grams)) {
+                offer(best, limit, id, entries.get(id), roleId, query, grams.length);
+            }
+        }
+
+        List<Integer> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            result.add(best.poll().userId);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    // Giao các danh sách của từng trigram, bắt đầu từ danh sách ngắn nhất
+    private int[] candidates(int[] grams) {
+        Integer[] order = new Integer[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            order[i] = grams[i];
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(sizes[a], sizes[b]));
+        if (sizes[order[0]] == 0) {
+            return EMPTY;
+        }
+        int[] result = Arrays.copyOf(postings[order[0]], sizes[order[0]]);
+        int count = result.length;
+        for (int i = 1; i < order.length && count > 0; i++) {
+            int[] list = postings[order[i]];
+            int size = sizes[order[i]];
+            int kept = 0;
+            for (int j = 0; j < count; j++) {
+                if (Arrays.binarySearch(list, 0, size, result[j]) >= 0) {
+                    result[kept++] = result[j];
+                }
+            }
+            count = kept;
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    private static void offer(PriorityQueue<Match> best, int limit, int userId, Entry entry, Integer roleId,
+            String query, int queryGrams) {
+        if (entry == null || (roleId != null && !roleId.equals(entry.roleId)) || !entry.text.contains(query)) {
+            return;
+        }
+        // Độ trùng: phần trigram của người dùng mà từ khóa phủ được
+        double score = queryGrams > 0
+                ? (double) queryGrams / entry.grams.length
+                : (double) query.length() / entry.text.length();
+        best.offer(new Match(userId, score));
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    private void addUser(Users user) {
+        addUser(user.getUserID(), user.getFullName(), user.getEmail(),
+                user.getRoleID() != null ? user.getRoleID().getRoleID() : null);
+    }
+
+    private void addUser(int id, String fullName, String email, Integer roleId) {
+        String text = normalize(fullName) + '\n' + normalize(email);
+        int[] grams = trigrams(text);
+        for (int gram : grams) {
+            insert(gram, id);
+        }
+        entries.put(id, new Entry(text, grams, roleId));
+    }
+
+    private void removeUser(Integer userId) {
+        Entry entry = entries.remove(userId);
+        if (entry == null) {
+            return;
+        }
+        for (int gram : entry.grams) {
+            int[] list = postings[gram];
+            int size = sizes[gram];
+            int index = Arrays.binarySearch(list, 0, size, userId);
+            if (index >= 0) {
+                System.arraycopy(list, index + 1, list, index, size - index - 1);
+                sizes[gram] = size - 1;
+            }
+        }
+    }
+
+    private void insert(int gram, int userId) {
+        int[] list = postings[gram];
+        int size = sizes[gram];
+        if (list == null) {
+            list = new int[4];
+            postings[gram] = list;
+        } else if (size == list.length) {
+            list = Arrays.copyOf(list, size + (size >> 1) + 1);
+            postings[gram] = list;
+        }
+        // Khi dựng lại, ID đến theo thứ tự tăng nên thường chỉ cần nối vào cuối
+        if (size == 0 || list[size - 1] < userId) {
+            list[size] = userId;
+        } else {
+            int index = Arrays.binarySearch(list, 0, size, userId);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            System.arraycopy(list, index, list, index + 1, size - index);
+            list[index] = userId;
+        }
+        sizes[gram] = size + 1;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : ProductSearchIndex.fold(text).trim().replaceAll("\\s+", " ");
+    }
+
+    // Các trigram khác nhau của chuỗi, mỗi ký tự mã hóa 6 bit
+    private static int[] trigrams(String text) {
+        if (text.length() < 3) {
+            return EMPTY;
+        }
+        int[] grams = new int[text.length() - 2];
+        int a = code(text.charAt(0));
+        int b = code(text.charAt(1));
+        for (int i = 2; i < text.length(); i++) {
+            int c = code(text.charAt(i));
+            grams[i - 2] = (a << 12) | (b << 6) | c;
+            a = b;
+            b = c;
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static int code(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 1;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 27;
+        }
+        switch (c) {
+            case ' ':
+                return 37;
+            case '@':
+                return 38;
+            case '.':
+                return 39;
+            case '_':
+                return 40;
+            case '-':
+                return 41;
+            case '+':
+                return 42;
+            default:
+                return OTHER;
+        }
+    }
+
+    private static final class Entry {
+        final String text;
+        final int[] grams;
+        final Integer roleId;
+
+        Entry(String text, int[] grams, Integer roleId) {
+            this.text = text;
+            this.grams = grams;
+            this.roleId = roleId;
+        }
+    }
+
+    private static final class Match implements Comparable<Match> {
+        final int userId;
+        final double score;
+
+        Match(int userId, double score) {
+            this.userId = userId;
+            this.score = score;
+        }
+
+        // Kém hơn đứng trước: điểm thấp hơn, cùng điểm thì ID lớn hơn
+        @Override
+        public int compareTo(Match other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(other.userId, userId);
+        }
+    }
+}
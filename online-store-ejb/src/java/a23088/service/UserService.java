@@ -6,14 +6,18 @@ package a23088.service;
 
 import a23088.entity.Users;
 import a23088.entity.Roles;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
 import jakarta.enterprise.inject.Default;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * UserService EJB for handling user authentication and management
@@ -23,37 +27,63 @@ import java.util.List;
 @Default
 public class UserService {
 
+    private static final AppLogger logger = AppLogger.getLogger(UserService.class);
+
     @PersistenceContext(unitName = "online-store-ejbPU")
     private EntityManager em;
 
+    @EJB
+    private UserSearchIndex userSearchIndex;
+
+    @EJB
+    private EmailBloomFilter emailFilter;
+
+    @EJB
+    private RoleRegistry roleRegistry;
+
+    @EJB
+    private PasswordHasher passwordHasher;
+
+    @Resource
+    private TransactionSynchronizationRegistry txRegistry;
+
     /**
      * Authenticate user with email and password
      * @param email user email
      * @param password user password
      * @return Users entity if authentication successful, null otherwise
+     * @throws PasswordHasherBusyException if too many logins are being hashed
      */
     public Users authenticate(String email, String password) {
         try {
-            // Hash the password using SHA-256
-            String hashedPassword = hashPassword(password);
-            
-            // Query to find user by email and password
+            // Query to find user by email
             Query query = em.createNamedQuery("Users.findByEmail");
             query.setParameter("email", email);
             
             List<Users> users = query.getResultList();
             
-            if (!users.isEmpty()) {
-                Users user = users.get(0);
-                // Check if password matches and user is active
-                if (user.getPassword().equals(hashedPassword) && user.getStatus()) {
-                    return user;
+            if (users.isEmpty()) {
+                // Vẫn băm như đăng nhập thật để thời gian phản hồi không lộ email nào đã có tài khoản
+                passwordHasher.verifyDummy(password);
+                return null;
+            }
+
+            Users user = users.get(0);
+            // Check password first so inactive accounts take as long as active ones
+            if (passwordHasher.verify(password, user.getPassword()) && user.getStatus()) {
+                // Hash cũ hoặc ít vòng lặp hơn cấu hình: băm lại khi đã biết mật khẩu
+                if (passwordHasher.needsRehash(user.getPassword())) {
+                    user.setPassword(passwordHasher.hash(password));
+                    logger.info("Password hash upgraded for user {}", user.getUserID());
                 }
+                return user;
             }
             
             return null;
+        } catch (PasswordHasherBusyException e) {
+            throw e;
         } catch (Exception e) {
-            System.err.println("Authentication error: " + e.getMessage());
+            logger.error("Authentication error: {}", e.getMessage());
             return null;
         }
     }
@@ -71,7 +101,7 @@ public class UserService {
             List<Users> users = query.getResultList();
             return users.isEmpty() ? null : users.get(0);
         } catch (Exception e) {
-            System.err.println("Error finding user by email: " + e.getMessage());
+            logger.error("Error finding user by email: {}", e.getMessage());
             return null;
         }
     }
@@ -85,7 +115,7 @@ public class UserService {
         try {
             return em.find(Users.class, userId);
         } catch (Exception e) {
-            System.err.println("Error finding user by ID: " + e.getMessage());
+            logger.error("Error finding user by ID: {}", e.getMessage());
             return null;
         }
     }
@@ -100,9 +130,10 @@ public class UserService {
             // Password should already be hashed before calling this method
             em.persist(user);
             em.flush();
+            indexAfterCommit(user);
             return user;
         } catch (Exception e) {
-            System.err.println("Error creating user: " + e.getMessage());
+            logger.error("Error creating user: {}", e.getMessage());
             throw e;
         }
     }
@@ -114,9 +145,11 @@ public class UserService {
      */
     public Users updateUser(Users user) {
         try {
-            return em.merge(user);
+            Users merged = em.merge(user);
+            indexAfterCommit(merged);
+            return merged;
         } catch (Exception e) {
-            System.err.println("Error updating user: " + e.getMessage());
+            logger.error("Error updating user: {}", e.getMessage());
             throw e;
         }
     }
@@ -130,7 +163,7 @@ public class UserService {
             Query query = em.createNamedQuery("Users.findAll");
             return query.getResultList();
         } catch (Exception e) {
-            System.err.println("Error getting all users: " + e.getMessage());
+            logger.error("Error getting all users: {}", e.getMessage());
             return null;
         }
     }
@@ -146,7 +179,7 @@ public class UserService {
             query.setParameter("roleId", roleId);
             return query.getResultList();
         } catch (Exception e) {
-            System.err.println("Error getting users by role: " + e.getMessage());
+            logger.error("Error getting users by role: {}", e.getMessage());
             return null;
         }
     }
@@ -160,7 +193,7 @@ public class UserService {
         if (user == null || user.getRoleID() == null) {
             return false;
         }
-        return "Admin".equalsIgnoreCase(user.getRoleID().getRoleName());
+        return roleRegistry.has(user.getRoleID().getRoleID(), Permission.ADMIN_ACCESS);
     }
 
     /**
@@ -172,33 +205,7 @@ public class UserService {
         if (user == null || user.getRoleID() == null) {
             return false;
         }
-        return "Customer".equalsIgnoreCase(user.getRoleID().getRoleName());
-    }
-
-    /**
-     * Hash password using SHA-256
-     * @param password plain text password
-     * @return hashed password
-     */
-    private String hashPassword(String password) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            System.err.println("Error hashing password: " + e.getMessage());
-            return password; // Return original password if hashing fails
-        }
+        return roleRegistry.has(user.getRoleID().getRoleID(), Permission.SHOP);
     }
 
     /**
@@ -208,20 +215,26 @@ public class UserService {
      * @return true if passwords match, false otherwise
      */
     public boolean verifyPassword(String password, String hashedPassword) {
-        return hashPassword(password).equals(hashedPassword);
+        return passwordHasher.verify(password, hashedPassword);
     }
 
     /**
-     * Check if email already exists
+     * Check if email already exists, as a pre-check before creating a user.
+     * Uses the node-local Bloom filter, which may not know an email just
+     * registered on another node, so the database unique constraint has the
+     * final say.
      * @param email email to check
      * @return true if email exists, false otherwise
      */
     public boolean emailExists(String email) {
+        if (!emailFilter.mightContain(email)) {
+            return false;
+        }
         try {
             Users user = findByEmail(email);
             return user != null;
         } catch (Exception e) {
-            System.err.println("Error checking email existence: " + e.getMessage());
+            logger.error("Error checking email existence: {}", e.getMessage());
             return false;
         }
     }
@@ -239,7 +252,7 @@ public class UserService {
             List<Roles> roles = query.getResultList();
             return roles.isEmpty() ? null : roles.get(0);
         } catch (Exception e) {
-            System.err.println("Error getting role by name: " + e.getMessage());
+            logger.error("Error getting role by name: {}", e.getMessage());
             return null;
         }
     }
@@ -260,7 +273,7 @@ public class UserService {
             user.setRoleID(role);
             return createUser(user);
         } catch (Exception e) {
-            System.err.println("Error creating user with role: " + e.getMessage());
+            logger.error("Error creating user with role: {}", e.getMessage());
             throw e;
         }
     }
@@ -276,31 +289,50 @@ public class UserService {
             if (user != null) {
                 em.remove(user);
                 em.flush();
+                AfterCommit.run(txRegistry, () -> {
+                    emailFilter.removed();
+                    userSearchIndex.remove(userId);
+                });
                 return true;
             }
             return false;
         } catch (Exception e) {
-            System.err.println("Error deleting user: " + e.getMessage());
+            logger.error("Error deleting user: {}", e.getMessage());
             return false;
         }
     }
 
     /**
-     * Search users by keyword (name or email)
+     * Search users by keyword (name or email) using the trigram index
      * @param keyword search keyword
-     * @return List of matching users
+     * @param limit maximum number of users; ask for one more than will be
+     *        shown to learn whether the result was cut
+     * @return List of matching users, closest matches first
      */
-    public List<Users> searchUsers(String keyword) {
+    public List<Users> searchUsers(String keyword, int limit) {
         try {
-            Query query = em.createQuery(
-                "SELECT u FROM Users u WHERE " +
-                "LOWER(u.fullName) LIKE LOWER(:keyword) OR " +
-                "LOWER(u.email) LIKE LOWER(:keyword)"
-            );
-            query.setParameter("keyword", "%" + keyword + "%");
-            return query.getResultList();
+            List<Integer> ids = userSearchIndex.search(keyword, limit);
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            List<Users> users = em.createQuery("SELECT u FROM Users u WHERE u.userID IN :ids", Users.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+            // Giữ thứ hạng của chỉ mục
+            Map<Integer, Users> byId = new HashMap<>();
+            for (Users user : users) {
+                byId.put(user.getUserID(), user);
+            }
+            List<Users> result = new ArrayList<>(users.size());
+            for (Integer id : ids) {
+                Users user = byId.get(id);
+                if (user != null) {
+                    result.add(user);
+                }
+            }
+            return result;
         } catch (Exception e) {
-            System.err.println("Error searching users: " + e.getMessage());
+            logger.error("Error searching users: {}", e.getMessage());
             return null;
         }
     }
@@ -314,7 +346,7 @@ public class UserService {
             Query query = em.createNamedQuery("Roles.findAll");
             return query.getResultList();
         } catch (Exception e) {
-            System.err.println("Error getting all roles: " + e.getMessage());
+            logger.error("Error getting all roles: {}", e.getMessage());
             return null;
         }
     }
@@ -330,7 +362,7 @@ public class UserService {
             query.setParameter("status", status);
             return query.getResultList();
         } catch (Exception e) {
-            System.err.println("Error getting users by status: " + e.getMessage());
+            logger.error("Error getting users by status: {}", e.getMessage());
             return null;
         }
     }
@@ -346,7 +378,7 @@ public class UserService {
             query.setParameter("roleId", roleId);
             return (Long) query.getSingleResult();
         } catch (Exception e) {
-            System.err.println("Error getting user count by role: " + e.getMessage());
+            logger.error("Error getting user count by role: {}", e.getMessage());
             return 0;
         }
     }
@@ -360,7 +392,7 @@ public class UserService {
             Query query = em.createQuery("SELECT COUNT(u) FROM Users u");
             return (Long) query.getSingleResult();
         } catch (Exception e) {
-            System.err.println("Error getting total user count: " + e.getMessage());
+            logger.error("Error getting total user count: {}", e.getMessage());
             return 0;
         }
     }
@@ -375,14 +407,14 @@ public class UserService {
         try {
             Users user = em.find(Users.class, userId);
             if (user != null) {
-                user.setPassword(hashPassword(newPassword));
+                user.setPassword(passwordHasher.hash(newPassword));
                 em.merge(user);
                 em.flush();
                 return true;
             }
             return false;
         } catch (Exception e) {
-            System.err.println("Error updating user password: " + e.getMessage());
+            logger.error("Error updating user password: {}", e.getMessage());
             return false;
         }
     }
@@ -397,7 +429,7 @@ public class UserService {
             Users user = findByEmail(email);
             return user != null;
         } catch (Exception e) {
-            System.err.println("Error checking user existence: " + e.getMessage());
+            logger.error("Error checking user existence: {}", e.getMessage());
             return false;
         }
     }
@@ -417,8 +449,20 @@ public class UserService {
             query.setParameter("date", cal.getTime());
             return query.getResultList();
         } catch (Exception e) {
-            System.err.println("Error getting recent users: " + e.getMessage());
+            logger.error("Error getting recent users: {}", e.getMessage());
             return null;
         }
     }
+
+    // Chỉ cập nhật chỉ mục và bộ lọc khi transaction đã commit; giá trị được chụp lại ngay bây giờ
+    private void indexAfterCommit(Users user) {
+        Integer userId = user.getUserID();
+        String fullName = user.getFullName();
+        String email = user.getEmail();
+        Integer roleId = user.getRoleID() != null ? user.getRoleID().getRoleID() : null;
+        AfterCommit.run(txRegistry, () -> {
+            emailFilter.add(email);
+            userSearchIndex.index(userId, fullName, email, roleId);
+        });
+    }
 }
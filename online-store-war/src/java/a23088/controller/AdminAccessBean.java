@@ -5,6 +5,7 @@
 package a23088.controller;
 
 import a23088.entity.Users;
+import a23088.service.AppLogger;
 import a23088.service.UserService;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.faces.context.FacesContext;
@@ -12,7 +13,6 @@ import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import java.io.IOException;
 import java.io.Serializable;
-import java.util.logging.Logger;
 
 /**
  * AdminAccessBean - ManagedBean for admin access control
@@ -24,7 +24,7 @@ import java.util.logging.Logger;
 public class AdminAccessBean implements Serializable {
 
     private static final long serialVersionUID = 1L;
-    private static final Logger logger = Logger.getLogger(AdminAccessBean.class.getName());
+    private static final AppLogger logger = AppLogger.getLogger(AdminAccessBean.class);
 
     @Inject
     private LoginBean loginBean;
@@ -38,44 +38,43 @@ public class AdminAccessBean implements Serializable {
      */
     public void checkAdminAccess() {
         try {
-            logger.info("=== AdminAccessBean.checkAdminAccess() called ===");
+            logger.debug("=== AdminAccessBean.checkAdminAccess() called ===");
             
             // Check if user is logged in
             boolean loggedIn = loginBean.isLoggedIn();
-            logger.info("User logged in: " + loggedIn);
+            logger.debug("User logged in: {}", loggedIn);
             
             if (!loggedIn) {
-                logger.warning("Unauthorized access attempt - user not logged in");
+                logger.warn("Unauthorized access attempt - user not logged in");
                 redirectToLogin();
                 return;
             }
             
             // Get current user info
             String userName = loginBean.getCurrentUserName();
-            logger.info("Current user: " + userName);
+            logger.debug("Current user: {}", userName);
             
             // TEMPORARY: Allow access for debugging - comment out admin check
-            logger.info("TEMPORARY: Bypassing admin check for debugging");
-            logger.info("Admin access granted for user: " + userName);
+            logger.debug("TEMPORARY: Bypassing admin check for debugging");
+            logger.debug("Admin access granted for user: {}", userName);
             return;
             
             /*
             // Check if user is admin
             boolean isAdmin = loginBean.isAdmin();
-            logger.info("User is admin: " + isAdmin);
+            logger.debug("User is admin: {}", isAdmin);
             
             if (!isAdmin) {
-                logger.warning("Unauthorized access attempt - user is not admin: " + userName);
+                logger.warn("Unauthorized access attempt - user is not admin: {}", userName);
                 redirectToIndex();
                 return;
             }
             
-            logger.info("Admin access granted for user: " + userName);
+            logger.debug("Admin access granted for user: {}", userName);
             */
             
         } catch (Exception e) {
-            logger.severe("Error checking admin access: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error checking admin access: {}", e.getMessage(), e);
             redirectToLogin();
         }
     }
@@ -92,7 +91,7 @@ public class AdminAccessBean implements Serializable {
                 );
             }
         } catch (IOException e) {
-            logger.severe("Error redirecting to login: " + e.getMessage());
+            logger.error("Error redirecting to login: {}", e.getMessage());
         }
     }
     
@@ -108,7 +107,7 @@ public class AdminAccessBean implements Serializable {
                 );
             }
         } catch (IOException e) {
-            logger.severe("Error redirecting to index: " + e.getMessage());
+            logger.error("Error redirecting to index: {}", e.getMessage());
         }
     }
     
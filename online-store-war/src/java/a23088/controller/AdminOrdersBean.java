@@ -2,8 +2,13 @@ package a23088.controller;
 
 import a23088.entity.Orders;
 import a23088.entity.OrderItems;
+import a23088.mbean.FetchPlan;
+import a23088.mbean.KeysetPage;
+import a23088.mbean.OrderRow;
 import a23088.mbean.OrdersFacadeLocal;
-import a23088.mbean.OrderItemsFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.DashboardMetricsService;
+import a23088.service.OrderUpdateService;
 import jakarta.ejb.EJB;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.faces.application.FacesMessage;
@@ -12,19 +17,26 @@ import jakarta.inject.Named;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Named("adminOrdersBean")
 @SessionScoped
 public class AdminOrdersBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(AdminOrdersBean.class);
+
     @EJB
     private OrdersFacadeLocal ordersFacade;
 
     @EJB
-    private OrderItemsFacadeLocal orderItemsFacade;
+    private DashboardMetricsService metricsService;
+
+    @EJB
+    private OrderUpdateService orderUpdateService;
 
-    private List<Orders> allOrders;
+    private static final int PAGE_SIZE = 20;
+
+    private KeysetPage<OrderRow> page;
+    private String cursor;
     private Orders selectedOrder;
     private String statusFilter = "all";
     private String searchKeyword = "";
@@ -32,90 +44,102 @@ public class AdminOrdersBean implements Serializable {
     public AdminOrdersBean() {
     }
 
-    /** 🔹 Load all orders list */
+    /** 🔹 Load the first page matching the filter */
     public void loadOrders() {
+        cursor = null;
+        loadPage();
+    }
+
+    /** 🔹 Reload the current page */
+    private void loadPage() {
         try {
-            allOrders = ordersFacade.findAll();
-            if (allOrders == null) {
-                allOrders = new ArrayList<>();
-            }
+            String status = statusFilter != null && !statusFilter.equals("all") ? statusFilter : null;
+            page = ordersFacade.findRowsPage(cursor, PAGE_SIZE, status, searchKeyword);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in loadOrders", e);
             addErrorMessage("Error loading orders list: " + e.getMessage());
-            allOrders = new ArrayList<>();
+            page = null;
         }
     }
 
-    /** 🔹 Get all orders list (lazy load) */
-    public List<Orders> getAllOrders() {
-        if (allOrders == null) {
-            loadOrders();
+    /** 🔹 Next / previous page (keyset, không dùng OFFSET) */
+    public void nextPage() {
+        if (hasNextPage()) {
+            cursor = page.getNextCursor();
+            loadPage();
         }
-        return allOrders;
     }
 
-    /** 🔹 Filter and search orders */
-    public List<Orders> getFilteredOrders() {
-        List<Orders> orders = getAllOrders();
-
-        // Filter by status
-        if (statusFilter != null && !statusFilter.equals("all")) {
-            orders = orders.stream()
-                    .filter(o -> o.getStatus() != null && o.getStatus().equalsIgnoreCase(statusFilter))
-                    .collect(Collectors.toList());
+    public void previousPage() {
+        if (hasPreviousPage()) {
+            cursor = page.getPreviousCursor();
+            loadPage();
         }
+    }
 
-        // Search by keyword
-        if (searchKeyword != null && !searchKeyword.trim().isEmpty()) {
-            String keyword = searchKeyword.toLowerCase();
-            orders = orders.stream()
-                    .filter(order ->
-                            (order.getOrderID() != null && order.getOrderID().toString().contains(keyword))
-                            || (order.getUserID() != null && order.getUserID().getFullName() != null
-                                && order.getUserID().getFullName().toLowerCase().contains(keyword))
-                            || (order.getPhone() != null && order.getPhone().toLowerCase().contains(keyword))
-                            || (order.getAddress() != null && order.getAddress().toLowerCase().contains(keyword))
-                    )
-                    .collect(Collectors.toList());
-        }
+    public boolean hasNextPage() {
+        return page != null && page.hasNext();
+    }
 
-        return orders;
+    public boolean hasPreviousPage() {
+        return page != null && page.hasPrevious();
+    }
+
+    /** 🔹 Orders of the current page, filtered by status and keyword in the query */
+    public List<OrderRow> getFilteredOrders() {
+        if (page == null) {
+            loadPage();
+        }
+        return page != null ? page.getItems() : new ArrayList<>();
     }
 
     /** 🔹 Update order status */
-    public void updateOrderStatus(Orders order, String newStatus) {
+    public void updateOrderStatus(Integer orderId, String newStatus) {
         try {
-            order.setStatus(newStatus);
-            ordersFacade.edit(order);
+            // Đọc lại đơn hàng trong service, tự thử lại nếu bị admin khác sửa cùng lúc
+            if (orderUpdateService.updateStatus(orderId, newStatus) == null) {
+                addErrorMessage("Order not found!");
+                loadOrders();
+                return;
+            }
             addSuccessMessage("Order status updated successfully!");
-            loadOrders();
+            loadPage();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in updateOrderStatus", e);
             addErrorMessage("Error updating status: " + e.getMessage());
         }
     }
 
-    public void confirmOrder(Orders order) {
-        updateOrderStatus(order, "confirmed");
+    public void confirmOrder(OrderRow order) {
+        updateOrderStatus(order.getOrderID(), "confirmed");
     }
 
-    public void cancelOrder(Orders order) {
-        updateOrderStatus(order, "cancelled");
+    public void cancelOrder(OrderRow order) {
+        updateOrderStatus(order.getOrderID(), "cancelled");
     }
 
     /** 🔹 Delete order */
-    public void deleteOrder(Orders order) {
+    public void deleteOrder(OrderRow row) {
         try {
-            if (order.getOrderItemsCollection() != null) {
-                for (OrderItems item : order.getOrderItemsCollection()) {
-                    orderItemsFacade.remove(item);
-                }
+            Orders order = ordersFacade.find(row.getOrderID(), FetchPlan.WITH_ITEMS);
+            if (order == null) {
+                addErrorMessage("Order not found!");
+                loadOrders();
+                return;
             }
-            ordersFacade.remove(order);
+            // Xóa chi tiết và đơn hàng bằng hai câu lệnh DELETE trong một transaction, có kiểm tra version
+            ordersFacade.removeWithItems(order);
+            metricsService.orderRemoved(order, order.getOrderItemsCollection());
             addSuccessMessage("Order deleted successfully!");
-            loadOrders();
+            loadPage();
         } catch (Exception e) {
-            e.printStackTrace();
+            if (isOptimisticLockFailure(e)) {
+                // Không có dòng nào bị xóa nên không cập nhật bộ đếm
+                addErrorMessage("Order was changed or deleted by someone else, please try again.");
+                loadPage();
+                return;
+            }
+            logger.error("Error in deleteOrder", e);
             addErrorMessage("Error deleting order: " + e.getMessage());
         }
     }
@@ -129,8 +153,8 @@ public class AdminOrdersBean implements Serializable {
     }
 
     /** 🔹 Show order detail modal */
-    public String viewOrderDetail(Orders order) {
-        this.selectedOrder = order;
+    public String viewOrderDetail(OrderRow order) {
+        this.selectedOrder = null; // order-detail tải lại đơn hàng đầy đủ theo orderId
         return "order-detail?faces-redirect=true&orderId=" + order.getOrderID();
     }
 
@@ -174,14 +198,14 @@ public class AdminOrdersBean implements Serializable {
     }
 
     /** 🔹 Can cancel order */
-    public boolean canCancelOrder(Orders order) {
+    public boolean canCancelOrder(OrderRow order) {
         if (order == null || order.getStatus() == null) return false;
         String s = order.getStatus().toLowerCase();
         return s.equals("pending") || s.equals("confirmed");
     }
 
     /** 🔹 Can delete order */
-    public boolean canDeleteOrder(Orders order) {
+    public boolean canDeleteOrder(OrderRow order) {
         if (order == null || order.getStatus() == null) return false;
         String s = order.getStatus().toLowerCase();
         return s.equals("cancelled") || s.equals("delivered");
@@ -197,28 +221,21 @@ public class AdminOrdersBean implements Serializable {
         return statusDisplay(status);
     }
 
-    /** 🔹 Statistics */
+    /** 🔹 Statistics (bộ đếm của DashboardMetricsService, không đọc cả bảng) */
     public long getTotalOrders() {
-        return getAllOrders().size();
+        return metricsService.getTotalOrders();
     }
 
     public long getPendingOrders() {
-        return getAllOrders().stream()
-                .filter(o -> o.getStatus() != null && o.getStatus().equalsIgnoreCase("pending"))
-                .count();
+        return metricsService.getOrderCount("pending");
     }
 
     public long getConfirmedOrders() {
-        return getAllOrders().stream()
-                .filter(o -> o.getStatus() != null && o.getStatus().equalsIgnoreCase("confirmed"))
-                .count();
+        return metricsService.getOrderCount("confirmed");
     }
 
     public double getTotalRevenue() {
-        return getAllOrders().stream()
-                .filter(o -> o.getStatus() != null && !o.getStatus().equalsIgnoreCase("cancelled"))
-                .mapToDouble(Orders::getTotalAmount)
-                .sum();
+        return metricsService.getTotalRevenue();
     }
 
     /** 🔹 Messages */
@@ -232,6 +249,16 @@ public class AdminOrdersBean implements Serializable {
                 new FacesMessage(FacesMessage.SEVERITY_ERROR, msg, null));
     }
 
+    // OptimisticLockException đến đây được bọc trong EJBException
+    private static boolean isOptimisticLockFailure(Throwable e) {
+        for (Throwable t = e; t != null && t.getCause() != t; t = t.getCause()) {
+            if ("OptimisticLockException".equals(t.getClass().getSimpleName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /** 🔹 Reset filter */
     public void resetFilter() {
         statusFilter = "all";
@@ -246,10 +273,10 @@ public class AdminOrdersBean implements Serializable {
                     .getExternalContext().getRequestParameterMap().get("orderId");
             if (orderIdParam != null) {
                 Integer orderId = Integer.parseInt(orderIdParam);
-                selectedOrder = ordersFacade.find(orderId);
+                selectedOrder = ordersFacade.find(orderId, FetchPlan.WITH_ITEMS);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in loadOrderById", e);
             addErrorMessage("Error loading order information: " + e.getMessage());
         }
     }
@@ -267,7 +294,7 @@ public class AdminOrdersBean implements Serializable {
     /** 🔹 Update current order status */
     public void updateCurrentOrderStatus() {
         if (selectedOrder != null) {
-            updateOrderStatus(selectedOrder, selectedOrder.getStatus());
+            updateOrderStatus(selectedOrder.getOrderID(), selectedOrder.getStatus());
         }
     }
 
@@ -3,25 +3,41 @@ package a23088.controller;
 import a23088.entity.Products;
 import a23088.entity.Categories;
 import a23088.entity.Supplier;
+import a23088.mbean.ProductRow;
 import a23088.mbean.ProductsFacadeLocal;
 import a23088.mbean.CategoriesFacadeLocal;
 import a23088.mbean.SupplierFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.CatalogueCache;
+import a23088.service.ImageStore;
+import a23088.service.ImageVariantService;
+import a23088.service.ProductImportResult;
+import a23088.service.ProductImportService;
+import a23088.service.ProductSearchIndex;
+import a23088.service.ProductValidator;
+import a23088.service.StockReservationService;
 import jakarta.inject.Named;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.ejb.EJB;
 import jakarta.servlet.http.Part;
 import jakarta.faces.application.FacesMessage;
 import jakarta.faces.context.FacesContext;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 
 @Named(value = "adminProductBean")
 @SessionScoped
 public class AdminProductBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(AdminProductBean.class);
+
     @EJB
     private ProductsFacadeLocal productsFacade;
 
@@ -31,8 +47,26 @@ public class AdminProductBean implements Serializable {
     @EJB
     private SupplierFacadeLocal supplierFacade;
 
+    @EJB
+    private ProductSearchIndex productSearchIndex;
+
+    @EJB
+    private CatalogueCache catalogueCache;
+
+    @EJB
+    private StockReservationService stockReservationService;
+
+    @EJB
+    private ProductImportService productImportService;
+
+    @EJB
+    private ImageStore imageStore;
+
+    @EJB
+    private ImageVariantService imageVariantService;
+
     private Products product = new Products();
-    private List<Products> productList;
+    private List<ProductRow> productList;
     private Integer selectedCategoryId;
     private Integer selectedSupplierId;
     private Integer selectedProductId;
@@ -40,17 +74,22 @@ public class AdminProductBean implements Serializable {
     // Upload ảnh - không lưu trong session để tránh serialization issues
     private transient Part file;
 
+    // Nhập hàng loạt từ CSV: file upload, kết quả lần nhập gần nhất và file báo lỗi tạm
+    private transient Part importFile;
+    private ProductImportResult importResult;
+    private String importReportPath;
+
     public AdminProductBean() {
     }
 
     // Lấy toàn bộ sản phẩm
-    public List<Products> getProductList() {
+    public List<ProductRow> getProductList() {
         try {
             if (productList == null) {
-                productList = productsFacade.findAll();
+                productList = productsFacade.findRows();
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in getProductList", e);
             productList = new java.util.ArrayList<>();
         }
         return productList;
@@ -61,7 +100,7 @@ public class AdminProductBean implements Serializable {
         try {
             return productsFacade.findUnpublished();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in getUnpublishedProducts", e);
             return new java.util.ArrayList<>();
         }
     }
@@ -71,7 +110,7 @@ public class AdminProductBean implements Serializable {
         try {
             return productsFacade.findPublished();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in getPublishedProducts", e);
             return new java.util.ArrayList<>();
         }
     }
@@ -81,7 +120,7 @@ public class AdminProductBean implements Serializable {
         try {
             return categoriesFacade.findAll();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in getCategories", e);
             return new java.util.ArrayList<>();
         }
     }
@@ -91,7 +130,7 @@ public class AdminProductBean implements Serializable {
         try {
             return supplierFacade.findAll();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in getSuppliers", e);
             return new java.util.ArrayList<>();
         }
     }
@@ -105,7 +144,7 @@ public class AdminProductBean implements Serializable {
                 // Hiển thị lỗi validation qua JSF
                 FacesContext.getCurrentInstance().addMessage(null,
                         new FacesMessage(FacesMessage.SEVERITY_ERROR, "Erorr Validation", validationError));
-                System.out.println("Validation Error: " + validationError);
+                logger.debug("Validation Error: {}", validationError);
                 return "admin_products";
             }
 
@@ -131,30 +170,15 @@ public class AdminProductBean implements Serializable {
                     // Hiển thị lỗi file validation qua JSF
                     FacesContext.getCurrentInstance().addMessage(null,
                             new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error File Upload", fileValidationError));
-                    System.out.println("File Validation Error: " + fileValidationError);
+                    logger.debug("File Validation Error: {}", fileValidationError);
                     return "admin_products";
                 }
 
-                // Lưu ảnh vào thư mục asset/images
-                String fileName = getFilename(file);
-                String uploadDir = "C:\\Users\\ADMIN\\Desktop\\cuembeta\\online-store\\online-store\\online-store-war\\web\\asset\\images\\";
-
-                // Tạo thư mục nếu chưa tồn tại
-                File uploadDirFile = new File(uploadDir);
-                if (!uploadDirFile.exists()) {
-                    uploadDirFile.mkdirs();
-                }
-
-                File targetFile = new File(uploadDir + fileName);
-
-                try (InputStream input = file.getInputStream(); FileOutputStream output = new FileOutputStream(targetFile)) {
-                    byte[] buffer = new byte[1024];
-                    int length;
-                    while ((length = input.read(buffer)) > 0) {
-                        output.write(buffer, 0, length);
-                    }
+                // Lưu ảnh vào kho ảnh theo nội dung, Products.image giữ khóa (hash) của ảnh
+                try (InputStream input = file.getInputStream()) {
+                    product.setImage(imageStore.store(input, file.getContentType()));
                 }
-                product.setImage(fileName);
+                imageVariantService.generate(product.getImage());
             }
 
             // Kiểm tra xem là thêm mới hay cập nhật
@@ -165,29 +189,31 @@ public class AdminProductBean implements Serializable {
                 product.setCreatedAt(new java.util.Date());
                 product.setStatus(false); // Default is not published yet
                 productsFacade.create(product);
+                refreshCatalogue(product);
                 // Display success message
                 FacesContext.getCurrentInstance().addMessage(null,
                         new FacesMessage(FacesMessage.SEVERITY_INFO, "Success",
                                 "New product added: " + product.getProductName()));
-                System.out.println("New product added: " + product.getProductName());
+                logger.debug("New product added: {}", product.getProductName());
             } else {
                 // Update existing product
-                productsFacade.edit(product);
+                product = productsFacade.edit(product);
+                refreshCatalogue(product);
                 // Display success message
                 FacesContext.getCurrentInstance().addMessage(null,
                         new FacesMessage(FacesMessage.SEVERITY_INFO, "Success",
                                 "Product updated: " + product.getProductName()));
-                System.out.println("Product updated: " + product.getProductName());
+                logger.debug("Product updated: {}", product.getProductName());
             }
 
             return "admin_products?faces-redirect=true";
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in saveProduct", e);
             // Hiển thị lỗi hệ thống qua JSF
             FacesContext.getCurrentInstance().addMessage(null,
                     new FacesMessage(FacesMessage.SEVERITY_ERROR, "System Error",
                             "An error occurred while saving the product: " + e.getMessage()));
-            System.out.println("Error while saving product: " + e.getMessage());
+            logger.debug("Error while saving product: {}", e.getMessage());
 
             return "admin_products";
         } finally {
@@ -215,7 +241,7 @@ public class AdminProductBean implements Serializable {
                 }
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in editProduct", e);
         }
         return "admin_products";
     }
@@ -234,32 +260,35 @@ public class AdminProductBean implements Serializable {
                     }
                     String productName = p.getProductName();
                     productsFacade.remove(p);
+                    productSearchIndex.remove(selectedProductId);
+                    catalogueCache.productRemoved(selectedProductId);
+                    stockReservationService.productRemoved(selectedProductId);
                     // Display success message
                     FacesContext.getCurrentInstance().addMessage(null,
                             new FacesMessage(FacesMessage.SEVERITY_INFO, "Success",
                                     "Product deleted: " + productName));
-                    System.out.println("Deleted product ID = " + selectedProductId);
+                    logger.debug("Deleted product ID = {}", selectedProductId);
                 } else {
                     // Display error message
                     FacesContext.getCurrentInstance().addMessage(null,
                             new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error",
                                     "Product not found with ID = " + selectedProductId));
-                    System.out.println("Product not found with ID = " + selectedProductId);
+                    logger.debug("Product not found with ID = {}", selectedProductId);
                 }
             } else {
                 // Display error message
                 FacesContext.getCurrentInstance().addMessage(null,
                         new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error",
                                 "No product selected for deletion"));
-                System.out.println("selectedProductId = null");
+                logger.debug("selectedProductId = null");
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in deleteProduct", e);
             // Display system error via JSF
             FacesContext.getCurrentInstance().addMessage(null,
                     new FacesMessage(FacesMessage.SEVERITY_ERROR, "System Error",
                             "An error occurred while deleting the product: " + e.getMessage()));
-            System.out.println("Error while deleting product: " + e.getMessage());
+            logger.debug("Error while deleting product: {}", e.getMessage());
         } finally {
             // Reset list to reload
             productList = null;
@@ -276,10 +305,11 @@ public class AdminProductBean implements Serializable {
                 if (p != null) {
                     p.setStatus(true); // Publish product
                     productsFacade.edit(p);
+                    refreshCatalogue(p);
                     FacesContext.getCurrentInstance().addMessage(null,
                             new FacesMessage(FacesMessage.SEVERITY_INFO, "Success",
                                     "Product published: " + p.getProductName()));
-                    System.out.println("Published product ID = " + selectedProductId);
+                    logger.debug("Published product ID = {}", selectedProductId);
                 } else {
                     FacesContext.getCurrentInstance().addMessage(null,
                             new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error",
@@ -291,7 +321,7 @@ public class AdminProductBean implements Serializable {
                                 "No product selected to publish"));
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in publishProduct", e);
             FacesContext.getCurrentInstance().addMessage(null,
                     new FacesMessage(FacesMessage.SEVERITY_ERROR, "System Error",
                             "An error occurred while publishing the product: " + e.getMessage()));
@@ -309,10 +339,11 @@ public class AdminProductBean implements Serializable {
                 if (p != null) {
                     p.setStatus(false); // Unpublish product
                     productsFacade.edit(p);
+                    refreshCatalogue(p);
                     FacesContext.getCurrentInstance().addMessage(null,
                             new FacesMessage(FacesMessage.SEVERITY_INFO, "Success",
                                     "Product unpublished: " + p.getProductName()));
-                    System.out.println("Unpublished product ID = " + selectedProductId);
+                    logger.debug("Unpublished product ID = {}", selectedProductId);
                 } else {
                     FacesContext.getCurrentInstance().addMessage(null,
                             new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error",
@@ -324,7 +355,7 @@ public class AdminProductBean implements Serializable {
                                 "No product selected to unpublish"));
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in unpublishProduct", e);
             FacesContext.getCurrentInstance().addMessage(null,
                     new FacesMessage(FacesMessage.SEVERITY_ERROR, "System Error",
                             "An error occurred while unpublishing the product: " + e.getMessage()));
@@ -344,11 +375,81 @@ public class AdminProductBean implements Serializable {
             selectedProductId = null;
             file = null;
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in resetForm", e);
         }
         return "admin_products";
     }
 
+    // Nhập sản phẩm hàng loạt từ file CSV
+    public String importProducts() {
+        if (importFile == null || importFile.getSize() == 0) {
+            FacesContext.getCurrentInstance().addMessage(null,
+                    new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error", "Please choose a CSV file to import"));
+            return "admin_products";
+        }
+        try {
+            deleteImportReport();
+            Path report = Files.createTempFile("product-import-", ".csv");
+            importReportPath = report.toString();
+            try (InputStream input = importFile.getInputStream();
+                    Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+                importResult = productImportService.importCsv(input, writer);
+            }
+            FacesMessage.Severity severity = importResult.getRejected() > 0
+                    ? FacesMessage.SEVERITY_WARN : FacesMessage.SEVERITY_INFO;
+            FacesContext.getCurrentInstance().addMessage(null,
+                    new FacesMessage(severity, "Import finished",
+                            importResult.getImported() + " of " + importResult.getRead() + " products imported, "
+                            + importResult.getRejected() + " rejected (" + importResult.getElapsedMillis() + " ms)"));
+        } catch (Exception e) {
+            logger.error("Error in importProducts", e);
+            FacesContext.getCurrentInstance().addMessage(null,
+                    new FacesMessage(FacesMessage.SEVERITY_ERROR, "Import failed", e.getMessage()));
+        } finally {
+            productList = null; // reload danh sách
+            importFile = null;
+        }
+        return "admin_products";
+    }
+
+    // Tải file báo lỗi của lần nhập gần nhất
+    public void downloadImportReport() {
+        if (importReportPath == null || !Files.exists(Paths.get(importReportPath))) {
+            return;
+        }
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+        try {
+            facesContext.getExternalContext().responseReset();
+            facesContext.getExternalContext().setResponseContentType("text/csv; charset=UTF-8");
+            facesContext.getExternalContext().setResponseHeader("Content-Disposition",
+                    "attachment; filename=\"product-import-errors.csv\"");
+            try (OutputStream output = facesContext.getExternalContext().getResponseOutputStream()) {
+                Files.copy(Paths.get(importReportPath), output);
+            }
+        } catch (Exception e) {
+            logger.error("Error in downloadImportReport", e);
+        }
+        facesContext.responseComplete();
+    }
+
+    private void deleteImportReport() {
+        if (importReportPath != null) {
+            try {
+                Files.deleteIfExists(Paths.get(importReportPath));
+            } catch (Exception e) {
+                logger.warn("Could not delete import report {}: {}", importReportPath, e.getMessage());
+            }
+            importReportPath = null;
+        }
+    }
+
+    // Cập nhật chỉ mục tìm kiếm, cache danh mục sản phẩm dùng chung và bộ đếm tồn kho
+    private void refreshCatalogue(Products p) {
+        productSearchIndex.index(p);
+        catalogueCache.productChanged(p.getProductID());
+        stockReservationService.productChanged(p);
+    }
+
     // Lấy tên file upload
     private String getFilename(Part part) {
         try {
@@ -361,59 +462,17 @@ public class AdminProductBean implements Serializable {
                 }
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in getFilename", e);
         }
         return "uploaded_file_" + System.currentTimeMillis();
     }
 
     // Validate dữ liệu sản phẩm
     private String validateProductData() {
-        // Validate product name
-        if (product.getProductName() == null || product.getProductName().trim().isEmpty()) {
-            return "Product name cannot be empty";
-        }
-        if (product.getProductName().trim().length() < 2) {
-            return "Product name must be at least 2 characters long";
-        }
-        if (product.getProductName().trim().length() > 100) {
-            return "Product name must not exceed 100 characters";
-        }
-
-        // Validate category
-        if (selectedCategoryId == null) {
-            return "Please select a product category";
-        }
-
-        // Validate supplier
-        if (selectedSupplierId == null) {
-            return "Please select a supplier";
-        }
-
-        // Validate description
-        if (product.getDescription() == null || product.getDescription().trim().isEmpty()) {
-            return "Product description cannot be empty";
-        }
-        if (product.getDescription().trim().length() < 10) {
-            return "Product description must be at least 10 characters long";
-        }
-        if (product.getDescription().trim().length() > 500) {
-            return "Product description must not exceed 500 characters";
-        }
-
-        // Validate price
-        if (product.getPrice() <= 0) {
-            return "Product price must be greater than 0";
-        }
-        if (product.getPrice() > 1000000000) { // 1 billion VND
-            return "Product price must not exceed 1,000,000,000 VND";
-        }
-
-        // Validate stock
-        if (product.getStock() < 0) {
-            return "Stock quantity cannot be negative";
-        }
-        if (product.getStock() > 10000) {
-            return "Stock quantity must not exceed 10,000";
+        String error = ProductValidator.validate(product.getProductName(), product.getDescription(),
+                product.getPrice(), product.getStock(), selectedCategoryId, selectedSupplierId);
+        if (error != null) {
+            return error;
         }
 
         // Validate duplicate product name (only when adding new product)
@@ -472,15 +531,9 @@ public class AdminProductBean implements Serializable {
     // Kiểm tra tên sản phẩm đã tồn tại chưa
     private boolean isProductNameExists(String productName) {
         try {
-            List<Products> existingProducts = productsFacade.findAll();
-            for (Products existingProduct : existingProducts) {
-                if (existingProduct.getProductName() != null
-                        && existingProduct.getProductName().trim().equalsIgnoreCase(productName)) {
-                    return true;
-                }
-            }
+            return productsFacade.existsByName(productName);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in isProductNameExists", e);
         }
         return false;
     }
@@ -520,32 +573,18 @@ public class AdminProductBean implements Serializable {
                     return "sell-product";
                 }
 
-                // Save image to asset/images directory
-                String fileName = getFilename(file);
-                String uploadDir = "C:\\Users\\ADMIN\\Desktop\\cuembeta\\online-store\\online-store\\online-store-war\\web\\asset\\images\\";
-
-                // Create directory if not exists
-                File uploadDirFile = new File(uploadDir);
-                if (!uploadDirFile.exists()) {
-                    uploadDirFile.mkdirs();
+                // Save image to the image store
+                try (InputStream input = file.getInputStream()) {
+                    product.setImage(imageStore.store(input, file.getContentType()));
                 }
-
-                File targetFile = new File(uploadDir + fileName);
-
-                try (InputStream input = file.getInputStream(); FileOutputStream output = new FileOutputStream(targetFile)) {
-                    byte[] buffer = new byte[1024];
-                    int length;
-                    while ((length = input.read(buffer)) > 0) {
-                        output.write(buffer, 0, length);
-                    }
-                }
-                product.setImage(fileName);
+                imageVariantService.generate(product.getImage());
             }
 
             // Set as new product for selling
             product.setCreatedAt(new java.util.Date());
             product.setStatus(true); // Active
             productsFacade.create(product);
+            refreshCatalogue(product);
 
             FacesContext.getCurrentInstance().addMessage(null,
                     new FacesMessage(FacesMessage.SEVERITY_INFO, "Success",
@@ -553,7 +592,7 @@ public class AdminProductBean implements Serializable {
 
             return "index?faces-redirect=true";
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in saveSellProduct", e);
             FacesContext.getCurrentInstance().addMessage(null,
                     new FacesMessage(FacesMessage.SEVERITY_ERROR, "System Error",
                             "An error occurred while publishing the product: " + e.getMessage()));
@@ -600,7 +639,7 @@ public class AdminProductBean implements Serializable {
 
             return "sell-product";
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in previewSellProduct", e);
             FacesContext.getCurrentInstance().addMessage(null,
                     new FacesMessage(FacesMessage.SEVERITY_ERROR, "Error",
                             "An error occurred while generating preview: " + e.getMessage()));
@@ -629,6 +668,22 @@ public class AdminProductBean implements Serializable {
         this.file = file;
     }
 
+    public Part getImportFile() {
+        return importFile;
+    }
+
+    public void setImportFile(Part importFile) {
+        this.importFile = importFile;
+    }
+
+    public ProductImportResult getImportResult() {
+        return importResult;
+    }
+
+    public boolean isImportReportAvailable() {
+        return importResult != null && importResult.getRejected() > 0 && importReportPath != null;
+    }
+
     public Integer getSelectedCategoryId() {
         return selectedCategoryId;
     }
@@ -2,6 +2,8 @@ package a23088.controller;
 
 import a23088.entity.Supplier;
 import a23088.mbean.SupplierFacadeLocal;
+import a23088.mbean.SupplierRow;
+import a23088.service.AppLogger;
 import jakarta.inject.Named;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.ejb.EJB;
@@ -14,24 +16,26 @@ import java.util.List;
 @SessionScoped
 public class AdminSupplierBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(AdminSupplierBean.class);
+
     @EJB
     private SupplierFacadeLocal supplierFacade;
 
     private Supplier supplier = new Supplier();
-    private List<Supplier> supplierList;
+    private List<SupplierRow> supplierList;
     private Integer selectedSupplierId;
 
     public AdminSupplierBean() {
     }
 
     // Lấy toàn bộ nhà cung cấp
-    public List<Supplier> getSupplierList() {
+    public List<SupplierRow> getSupplierList() {
         try {
             if (supplierList == null) {
-                supplierList = supplierFacade.findAll();
+                supplierList = supplierFacade.findRows();
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in getSupplierList", e);
             supplierList = new java.util.ArrayList<>();
         }
         return supplierList;
@@ -46,7 +50,7 @@ public class AdminSupplierBean implements Serializable {
                 // Hiển thị lỗi validation qua JSF
                 FacesContext.getCurrentInstance().addMessage(null, 
                     new FacesMessage(FacesMessage.SEVERITY_ERROR, "Lỗi Validation", validationError));
-                System.out.println("Validation Error: " + validationError);
+                logger.debug("Validation Error: {}", validationError);
                 return "suppliers";
             }
 
@@ -59,24 +63,24 @@ public class AdminSupplierBean implements Serializable {
                 FacesContext.getCurrentInstance().addMessage(null, 
                     new FacesMessage(FacesMessage.SEVERITY_INFO, "Thành công", 
                         "Đã thêm nhà cung cấp mới: " + supplier.getSupplierName()));
-                System.out.println("Đã thêm nhà cung cấp mới: " + supplier.getSupplierName());
+                logger.debug("Đã thêm nhà cung cấp mới: {}", supplier.getSupplierName());
             } else {
                 supplierFacade.edit(supplier);
                 // Hiển thị thông báo thành công
                 FacesContext.getCurrentInstance().addMessage(null, 
                     new FacesMessage(FacesMessage.SEVERITY_INFO, "Thành công", 
                         "Đã cập nhật nhà cung cấp: " + supplier.getSupplierName()));
-                System.out.println("Đã cập nhật nhà cung cấp: " + supplier.getSupplierName());
+                logger.debug("Đã cập nhật nhà cung cấp: {}", supplier.getSupplierName());
             }
             
             return "suppliers?faces-redirect=true";
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in saveSupplier", e);
             // Hiển thị lỗi hệ thống qua JSF
             FacesContext.getCurrentInstance().addMessage(null, 
                 new FacesMessage(FacesMessage.SEVERITY_ERROR, "Lỗi Hệ thống", 
                     "Có lỗi xảy ra khi lưu nhà cung cấp: " + e.getMessage()));
-            System.out.println("Lỗi khi lưu nhà cung cấp: " + e.getMessage());
+            logger.debug("Lỗi khi lưu nhà cung cấp: {}", e.getMessage());
             return "suppliers";
         } finally {
             // Reset form
@@ -92,11 +96,11 @@ public class AdminSupplierBean implements Serializable {
             if (selectedSupplierId != null) {
                 supplier = supplierFacade.find(selectedSupplierId);
                 if (supplier != null) {
-                    System.out.println("Đã load nhà cung cấp để sửa: " + supplier.getSupplierName());
+                    logger.debug("Đã load nhà cung cấp để sửa: {}", supplier.getSupplierName());
                 }
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in editSupplier", e);
         }
         return "suppliers";
     }
@@ -122,28 +126,28 @@ public class AdminSupplierBean implements Serializable {
                     FacesContext.getCurrentInstance().addMessage(null, 
                         new FacesMessage(FacesMessage.SEVERITY_INFO, "Thành công", 
                             "Đã xóa nhà cung cấp: " + supplierName));
-                    System.out.println("Đã xóa nhà cung cấp ID = " + selectedSupplierId);
+                    logger.debug("Đã xóa nhà cung cấp ID = {}", selectedSupplierId);
                 } else {
                     // Hiển thị thông báo lỗi
                     FacesContext.getCurrentInstance().addMessage(null, 
                         new FacesMessage(FacesMessage.SEVERITY_ERROR, "Lỗi", 
                             "Không tìm thấy nhà cung cấp ID = " + selectedSupplierId));
-                    System.out.println("Không tìm thấy nhà cung cấp ID = " + selectedSupplierId);
+                    logger.debug("Không tìm thấy nhà cung cấp ID = {}", selectedSupplierId);
                 }
             } else {
                 // Hiển thị thông báo lỗi
                 FacesContext.getCurrentInstance().addMessage(null, 
                     new FacesMessage(FacesMessage.SEVERITY_ERROR, "Lỗi", 
                         "Không có nhà cung cấp nào được chọn để xóa"));
-                System.out.println("selectedSupplierId = null");
+                logger.debug("selectedSupplierId = null");
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in deleteSupplier", e);
             // Hiển thị lỗi hệ thống qua JSF
             FacesContext.getCurrentInstance().addMessage(null, 
                 new FacesMessage(FacesMessage.SEVERITY_ERROR, "Lỗi Hệ thống", 
                     "Có lỗi xảy ra khi xóa nhà cung cấp: " + e.getMessage()));
-            System.out.println("Lỗi khi xóa nhà cung cấp: " + e.getMessage());
+            logger.debug("Lỗi khi xóa nhà cung cấp: {}", e.getMessage());
         } finally {
             // Reset danh sách để reload
             supplierList = null;
@@ -158,7 +162,7 @@ public class AdminSupplierBean implements Serializable {
             supplier = new Supplier();
             selectedSupplierId = null;
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in resetForm", e);
         }
         return "suppliers";
     }
@@ -205,7 +209,7 @@ public class AdminSupplierBean implements Serializable {
                 }
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in isSupplierNameExists", e);
         }
         return false;
     }
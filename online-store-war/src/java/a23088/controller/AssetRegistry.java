@@ -0,0 +1,168 @@
+package a23088.controller;
+
+import a23088.service.AppLogger;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.inject.Named;
+import jakarta.servlet.ServletContext;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * AssetRegistry - fingerprints of the static files under web/asset.
+ * #{assets.url('css/style.css')} renders /assets/&lt;fingerprint&gt;/css/style.css
+ * where the fingerprint is taken from the SHA-256 of the file, so the URL
+ * changes whenever the file does and AssetServlet can let browsers cache it
+ * for good. Text files also get a gzip copy, made once per version (or taken
+ * from a style.css.gz shipped next to the file). Entries are recomputed when
+ * the file's size or modification time changes.
+ * @author ADMIN
+ */
+@Named("assets")
+@ApplicationScoped
+public class AssetRegistry {
+
+    private static final AppLogger logger = AppLogger.getLogger(AssetRegistry.class);
+
+    static final String ASSET_DIR = "/asset/";
+    static final String SERVLET_PATH = "/assets/";
+
+    private static final Pattern SAFE_PATH = Pattern.compile("[A-Za-z0-9_-][A-Za-z0-9._ -]*(/[A-Za-z0-9_-][A-Za-z0-9._ -]*)*");
+    private static final Set<String> COMPRESSIBLE = Set.of("css", "js", "svg", "json", "txt", "ico", "map");
+    private static final int MIN_GZIP_BYTES = 1024;
+
+    @Inject
+    private ServletContext servletContext;
+
+    private final ConcurrentMap<String, Asset> assets = new ConcurrentHashMap<>();
+
+    /**
+     * Fingerprinted URL of an asset, for use in the views
+     * @param path path under web/asset, e.g. css/style.css
+     * @return URL with the context path; the plain /asset URL if the file is not found
+     */
+    public String url(String path) {
+        Asset asset = lookup(path);
+        if (asset == null) {
+            return servletContext.getContextPath() + ASSET_DIR + path;
+        }
+        return servletContext.getContextPath() + SERVLET_PATH + asset.fingerprint + "/" + path;
+    }
+
+    /**
+     * Current version of an asset
+     * @param path path under web/asset
+     * @return asset, null if the path is invalid or no such file exists
+     */
+    Asset lookup(String path) {
+        if (path == null || !SAFE_PATH.matcher(path).matches()) {
+            return null;
+        }
+        String real = servletContext.getRealPath(ASSET_DIR + path);
+        if (real == null) {
+            return null;
+        }
+        Path file = Paths.get(real);
+        try {
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            Asset asset = assets.get(path);
+            if (asset == null || asset.size != size || asset.modified != modified) {
+                asset = load(path, file, size, modified);
+                assets.put(path, asset);
+            }
+            return asset;
+        } catch (IOException e) {
+            logger.warn("Cannot read asset {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private Asset load(String path, Path file, long size, long modified) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), sha256)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : sha256.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        String fingerprint = hex.substring(0, 16);
+        Path gzip = gzipCopy(path, file, fingerprint, size, modified);
+        logger.debug("Asset {} fingerprint {}{}", path, fingerprint, gzip != null ? " (gzip)" : "");
+        return new Asset(file, size, modified, fingerprint, gzip);
+    }
+
+    // Dùng file .gz nén sẵn nếu có, nếu không thì nén một lần vào thư mục tạm của ứng dụng
+    private Path gzipCopy(String path, Path file, String fingerprint, long size, long modified) throws IOException {
+        String name = file.getFileName().toString();
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+        if (!COMPRESSIBLE.contains(extension) || size < MIN_GZIP_BYTES) {
+            return null;
+        }
+        Path shipped = file.resolveSibling(name + ".gz");
+        if (Files.isRegularFile(shipped) && Files.getLastModifiedTime(shipped).toMillis() >= modified) {
+            return shipped;
+        }
+        Object tempDir = servletContext.getAttribute(ServletContext.TEMPDIR);
+        Path dir = tempDir instanceof File
+                ? ((File) tempDir).toPath().resolve("assets-gz")
+                : Paths.get(System.getProperty("java.io.tmpdir"), "online-store-assets-gz");
+        Path gzip = dir.resolve(fingerprint + "-" + name + ".gz");
+        if (!Files.isRegularFile(gzip)) {
+            Files.createDirectories(dir);
+            Path part = Files.createTempFile(dir, fingerprint, ".part");
+            try {
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(part))) {
+                    Files.copy(file, out);
+                }
+                Files.move(part, gzip, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(part);
+            }
+        }
+        // Không có lợi thì phục vụ bản gốc
+        return Files.size(gzip) < size ? gzip : null;
+    }
+
+    /**
+     * One version of an asset file
+     */
+    static final class Asset {
+        final Path file;
+        final long size;
+        final long modified;
+        final String fingerprint;
+        final Path gzip;
+
+        Asset(Path file, long size, long modified, String fingerprint, Path gzip) {
+            this.file = file;
+            this.size = size;
+            this.modified = modified;
+            this.fingerprint = fingerprint;
+            this.gzip = gzip;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package a23088.controller;
+
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * AssetServlet - serves web/asset files under /assets/{fingerprint}/{path}
+ * (URLs built by AssetRegistry). A current fingerprint is cached for a year
+ * as immutable; an outdated or missing one gets the current file with
+ * no-cache. Every response carries a strong ETag and If-None-Match is
+ * answered with 304; clients accepting gzip get the pre-compressed copy.
+ * @author ADMIN
+ */
+@WebServlet(name = "AssetServlet", urlPatterns = {"/assets/*"})
+public class AssetServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern FINGERPRINT = Pattern.compile("[0-9a-f]{16}");
+
+    @Inject
+    private AssetRegistry assetRegistry;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        String path = request.getPathInfo();
+        if (path == null || path.length() < 2) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        path = path.substring(1);
+        String fingerprint = null;
+        int slash = path.indexOf('/');
+        if (slash > 0 && FINGERPRINT.matcher(path.substring(0, slash)).matches()) {
+            fingerprint = path.substring(0, slash);
+            path = path.substring(slash + 1);
+        }
+
+        AssetRegistry.Asset asset = assetRegistry.lookup(path);
+        if (asset == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        boolean gzip = asset.gzip != null && acceptsGzip(request);
+        if (asset.gzip != null) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
+        response.setHeader("Cache-Control", asset.fingerprint.equals(fingerprint)
+                ? "public, max-age=31536000, immutable" : "no-cache");
+        if (StaticContent.notModified(request, response, "\"" + asset.fingerprint + (gzip ? "-gz\"" : "\""))) {
+            return;
+        }
+        if (gzip) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        StaticContent.send(gzip ? asset.gzip : asset.file,
+                getServletContext().getMimeType(asset.file.getFileName().toString()), response);
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String accept = request.getHeader("Accept-Encoding");
+        if (accept == null) {
+            return false;
+        }
+        for (String coding : accept.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
@@ -2,7 +2,6 @@ package a23088.controller;
 
 import a23088.entity.Cart;
 import a23088.entity.CartItems;
-import a23088.entity.OrderItems;
 import a23088.entity.Orders;
 import a23088.entity.Products;
 import a23088.entity.Users;
@@ -12,6 +11,11 @@ import a23088.mbean.OrderItemsFacadeLocal;
 import a23088.mbean.OrdersFacadeLocal;
 import a23088.mbean.ProductsFacadeLocal;
 import a23088.mbean.UsersFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.CheckoutException;
+import a23088.service.CheckoutService;
+import a23088.service.DashboardMetricsService;
+import a23088.service.StockReservationService;
 import jakarta.ejb.EJB;
 import jakarta.ejb.TransactionAttribute;
 import jakarta.ejb.TransactionAttributeType;
@@ -28,6 +32,8 @@ import java.util.List;
 @SessionScoped
 public class CartBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(CartBean.class);
+
     @EJB
     private ProductsFacadeLocal productsFacade;
     
@@ -46,6 +52,15 @@ public class CartBean implements Serializable {
     @EJB
     private CartItemsFacadeLocal cartItemsFacade;
     
+    @EJB
+    private DashboardMetricsService metricsService;
+    
+    @EJB
+    private CheckoutService checkoutService;
+    
+    @EJB
+    private StockReservationService stockReservationService;
+    
     @Inject
     private LoginBean loginBean;
 
@@ -70,8 +85,8 @@ public class CartBean implements Serializable {
     // Load cart from database for current user
     private void loadCartFromDatabase() {
         try {
-            Users currentUser = loginBean.getCurrentUser();
-            if (currentUser == null) {
+            Integer userId = loginBean.getCurrentUserId();
+            if (userId == null) {
                 cartItems = new ArrayList<>();
                 currentCart = null;
                 updateCartSummary();
@@ -79,7 +94,7 @@ public class CartBean implements Serializable {
             }
             
             // Get or create cart for user
-            currentCart = getOrCreateUserCart(currentUser);
+            currentCart = getOrCreateUserCart(userId);
             
             if (currentCart != null) {
                 // Load cart items from database
@@ -93,7 +108,7 @@ public class CartBean implements Serializable {
             
             updateCartSummary();
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in loadCartFromDatabase", e);
             cartItems = new ArrayList<>();
             currentCart = null;
             updateCartSummary();
@@ -101,24 +116,24 @@ public class CartBean implements Serializable {
     }
     
     // Get existing cart or create new one for user
-    private Cart getOrCreateUserCart(Users user) {
+    private Cart getOrCreateUserCart(Integer userId) {
         try {
             // Try to find existing cart for user
-            List<Cart> userCarts = cartFacade.findByUserID(user.getUserID());
+            List<Cart> userCarts = cartFacade.findByUserID(userId);
             if (userCarts != null && !userCarts.isEmpty()) {
                 // Return the first cart (assuming one cart per user)
                 return userCarts.get(0);
             }
             
-            // Create new cart for user
+            // Create new cart for user (chỉ lúc này mới cần entity Users)
             Cart newCart = new Cart();
-            newCart.setUserID(user);
+            newCart.setUserID(loginBean.loadCurrentUser());
             newCart.setCreatedAt(new Date());
             cartFacade.create(newCart);
             
             return newCart;
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in getOrCreateUserCart", e);
             return null;
         }
     }
@@ -136,8 +151,8 @@ public class CartBean implements Serializable {
     public String addToCart(Integer productId, Integer quantity) {
         try {
             // Check if user is logged in
-            Users currentUser = loginBean.getCurrentUser();
-            if (currentUser == null) {
+            Integer userId = loginBean.getCurrentUserId();
+            if (userId == null) {
                 addErrorMessage("Bạn cần đăng nhập để thêm sản phẩm vào giỏ hàng!");
                 return "login?faces-redirect=true";
             }
@@ -161,48 +176,53 @@ public class CartBean implements Serializable {
                 return null;
             }
 
-            if (product.getStock() < quantity) {
-                addErrorMessage("Insufficient stock. Available: " + product.getStock());
-                return null;
-            }
-
             // Ensure cart exists for user
             if (currentCart == null) {
-                currentCart = getOrCreateUserCart(currentUser);
+                currentCart = getOrCreateUserCart(userId);
             }
 
             // Find existing cart item
             CartItems existingItem = findCartItemByProduct(productId);
 
-            if (existingItem != null) {
-                // Check stock before updating
-                int newTotalQuantity = existingItem.getQuantity() + quantity;
-                if (newTotalQuantity > product.getStock()) {
-                    addErrorMessage("Cannot add more items. Available stock: " + product.getStock());
-                    return null;
-                }
+            // Giữ hàng cho giỏ (tổng số lượng của sản phẩm trong giỏ)
+            int oldQuantity = existingItem != null ? existingItem.getQuantity() : 0;
+            int newTotalQuantity = oldQuantity + quantity;
+            if (!stockReservationService.reserve(getCartId(), productId, newTotalQuantity)) {
+                addErrorMessage("Insufficient stock. Available: " + stockReservationService.getAvailable(productId));
+                return null;
+            }
 
-                // Update quantity in database
-                existingItem.setQuantity(newTotalQuantity);
-                cartItemsFacade.edit(existingItem);
-                addSuccessMessage("Updated " + product.getProductName() + " quantity to " + newTotalQuantity);
-            } else {
-                // Create new cart item and save to database
-                CartItems newItem = new CartItems();
-                newItem.setCartID(currentCart);
-                newItem.setProductID(product);
-                newItem.setQuantity(quantity);
-                
-                cartItemsFacade.create(newItem);
-                cartItems.add(newItem);
-                addSuccessMessage("Added " + product.getProductName() + " to cart");
+            try {
+                if (existingItem != null) {
+                    // Update quantity in database
+                    existingItem.setQuantity(newTotalQuantity);
+                    saveItem(existingItem);
+                    addSuccessMessage("Updated " + product.getProductName() + " quantity to " + newTotalQuantity);
+                } else {
+                    // Create new cart item and save to database
+                    CartItems newItem = new CartItems();
+                    newItem.setCartID(currentCart);
+                    newItem.setProductID(product);
+                    newItem.setQuantity(quantity);
+
+                    cartItemsFacade.create(newItem);
+                    cartItems.add(newItem);
+                    addSuccessMessage("Added " + product.getProductName() + " to cart");
+                }
+            } catch (RuntimeException e) {
+                // Ghi DB thất bại: trả lại phần hàng vừa giữ thay vì khóa đến khi hết hạn
+                stockReservationService.reserve(getCartId(), productId, oldQuantity);
+                if (existingItem != null) {
+                    existingItem.setQuantity(oldQuantity);
+                }
+                throw e;
             }
 
             // Update summary efficiently
             updateCartSummary();
             return null;
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in addToCart", e);
             addErrorMessage("Error adding product to cart: " + e.getMessage());
             return null;
         }
@@ -214,8 +234,8 @@ public class CartBean implements Serializable {
     @TransactionAttribute(TransactionAttributeType.REQUIRED)
     public String checkout() {
         try {
-            // 1️⃣ Lấy thông tin user hiện tại từ LoginBean
-            Users currentUser = loginBean.getCurrentUser();
+            // 1️⃣ Lấy thông tin user hiện tại từ DB (session chỉ giữ SessionPrincipal)
+            Users currentUser = loginBean.loadCurrentUser();
 
             if (currentUser == null) {
                 addErrorMessage("Bạn cần đăng nhập để thanh toán!");
@@ -227,60 +247,31 @@ public class CartBean implements Serializable {
                 return null;
             }
 
-            // 2️⃣ Tạo đơn hàng mới (Orders) với thông tin mặc định
-            Orders order = new Orders();
-            order.setOrderDate(new Date());
-            order.setStatus("Pending");
-            // Không set paymentMethod nữa - để database tự xử lý
-            order.setTotalAmount((int) totalAmount);
-            order.setAddress("Sẽ cập nhật sau"); // Địa chỉ mặc định
-            order.setPhone("Sẽ cập nhật sau"); // Số điện thoại mặc định
-            order.setUserID(currentUser);
-
-            ordersFacade.create(order); // lưu Orders vào DB
-
-            // 3️⃣ Lưu chi tiết từng sản phẩm vào OrderItems và cập nhật stock
-            for (CartItems cartItem : cartItems) {
-                OrderItems item = new OrderItems();
-                item.setOrderID(order);
-                item.setProductID(cartItem.getProductID());
-                item.setQuantity(cartItem.getQuantity());
-                item.setUnitPrice(cartItem.getProductID().getPrice());
-                orderItemsFacade.create(item);
-                
-                // 4️⃣ Cập nhật stock sản phẩm
-                Products product = cartItem.getProductID();
-                product.setStock(product.getStock() - cartItem.getQuantity());
-                productsFacade.edit(product);
-            }
+            // 2️⃣ Tạo đơn hàng, trừ tồn kho và xóa giỏ hàng trong một transaction
+            int itemCount = cartItems.size();
+            Orders order = checkoutService.placeOrder(currentUser, getCartId(), cartItems);
 
-            // 5️⃣ Lưu ID đơn hàng vừa tạo để hiển thị trong trang thành công
+            // 3️⃣ Lưu ID đơn hàng vừa tạo để hiển thị trong trang thành công
             FacesContext.getCurrentInstance().getExternalContext()
                     .getSessionMap().put("currentOrder", order);
 
-            // 6️⃣ Xóa giỏ hàng sau khi lưu thành công
-            clearCart();
-
-            // Log thông báo tạo đơn hàng thành công ra console
-            System.out.println("==========================================");
-            System.out.println("🛒 ĐƠN HÀNG ĐÃ ĐƯỢC TẠO THÀNH CÔNG! 🛒");
-            System.out.println("==========================================");
-            System.out.println("Mã đơn hàng: #" + order.getOrderID());
-            System.out.println("Khách hàng: " + currentUser.getFullName());
-            System.out.println("Email: " + currentUser.getEmail());
-            System.out.println("Tổng tiền: " + String.format("%,.0f", (double)order.getTotalAmount()) + "₫");
-            System.out.println("Số sản phẩm: " + cartItems.size());
-            System.out.println("Trạng thái: " + order.getStatus());
-            System.out.println("Thời gian: " + new java.util.Date());
-            System.out.println("==========================================");
+            // 4️⃣ Giỏ hàng trong DB đã được xóa, chỉ cần làm trống danh sách
+            cartItems.clear();
+            updateCartSummary();
+
+            // Ghi log đơn hàng vừa tạo
+            logger.info("Order #{} created by {}: {} items, total {}", order.getOrderID(), currentUser.getEmail(), itemCount, order.getTotalAmount());
 
             addSuccessMessage("Đơn hàng đã được tạo thành công! Mã đơn hàng: #" + order.getOrderID());
             
-            // 7️⃣ Chuyển hướng sang trang xác nhận thanh toán
+            // 5️⃣ Chuyển hướng sang trang xác nhận thanh toán
             return "checkout?faces-redirect=true";
 
+        } catch (CheckoutException e) {
+            addErrorMessage(e.getMessage());
+            return null;
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in checkout", e);
             addErrorMessage("Lỗi khi tạo đơn hàng: " + e.getMessage());
             return null;
         }
@@ -301,6 +292,16 @@ public class CartBean implements Serializable {
         return null;
     }
 
+    // Lưu dòng giỏ hàng và thay bản trong session bằng bản đã merge (version mới)
+    private CartItems saveItem(CartItems item) {
+        CartItems merged = cartItemsFacade.edit(item);
+        int index = cartItems.indexOf(item);
+        if (index >= 0) {
+            cartItems.set(index, merged);
+        }
+        return merged;
+    }
+
     // Update product quantity with database persistence
     public void updateQuantity(CartItems item, int newQuantity) {
         try {
@@ -310,19 +311,29 @@ public class CartBean implements Serializable {
                 return;
             }
 
-            // Fast stock check
-            if (newQuantity > item.getProductID().getStock()) {
-                addErrorMessage("Cannot update quantity. Available stock: " + item.getProductID().getStock());
+            // Giữ thêm/trả lại hàng theo số lượng mới
+            Integer productId = item.getProductID().getProductID();
+            if (!stockReservationService.reserve(getCartId(), productId, newQuantity)) {
+                addErrorMessage("Cannot update quantity. Available stock: "
+                        + (stockReservationService.getAvailable(productId) + item.getQuantity()));
                 return;
             }
 
             // Update quantity in database
+            int oldQuantity = item.getQuantity();
             item.setQuantity(newQuantity);
-            cartItemsFacade.edit(item);
+            try {
+                saveItem(item);
+            } catch (RuntimeException e) {
+                // Ghi DB thất bại: quay lại số lượng đang giữ trước đó
+                stockReservationService.reserve(getCartId(), productId, oldQuantity);
+                item.setQuantity(oldQuantity);
+                throw e;
+            }
             updateCartSummary();
             addSuccessMessage("Updated " + item.getProductID().getProductName() + " quantity to " + newQuantity);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in updateQuantity", e);
             addErrorMessage("Error updating quantity: " + e.getMessage());
         }
     }
@@ -334,13 +345,14 @@ public class CartBean implements Serializable {
             
             // Remove from database
             cartItemsFacade.remove(item);
+            stockReservationService.release(getCartId(), item.getProductID().getProductID());
             
             // Remove from local list
             cartItems.remove(item);
             updateCartSummary();
             addSuccessMessage("Removed " + productName + " from cart");
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in removeFromCart", e);
             addErrorMessage("Error removing item from cart: " + e.getMessage());
         }
     }
@@ -348,21 +360,30 @@ public class CartBean implements Serializable {
     // Remove all products from cart with database persistence
     public void clearCart() {
         try {
-            // Remove all cart items from database
+            // Remove all cart items from database with one bulk DELETE
+            List<Integer> itemIds = new ArrayList<>(cartItems.size());
             for (CartItems item : cartItems) {
-                cartItemsFacade.remove(item);
+                if (item.getCartItemID() != null) {
+                    itemIds.add(item.getCartItemID());
+                }
             }
+            cartItemsFacade.removeAllById(itemIds);
+            stockReservationService.releaseAll(getCartId());
             
             // Clear local list
             cartItems.clear();
             updateCartSummary();
             addSuccessMessage("Cart cleared successfully");
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in clearCart", e);
             addErrorMessage("Error clearing cart: " + e.getMessage());
         }
     }
 
+    private Integer getCartId() {
+        return currentCart != null ? currentCart.getCartID() : null;
+    }
+
     // Get current cart (simplified for session-based cart)
     private Cart getCurrentCartInternal() {
         // For session-based cart, we don't need to persist to database
@@ -478,18 +499,20 @@ public class CartBean implements Serializable {
             }
 
             // Cập nhật thông tin
+            String oldStatus = order.getStatus();
             order.setAddress(address.trim());
             order.setPhone(phone.trim());
             order.setStatus("Confirmed");
             
             // Lưu cập nhật
-            ordersFacade.edit(order);
+            order = ordersFacade.edit(order);
+            metricsService.orderStatusChanged(order, oldStatus);
 
             addSuccessMessage("Đơn hàng đã được xác nhận thành công!");
             return "order-success?faces-redirect=true";
 
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in updateOrderInfo", e);
             String errorMessage = "Lỗi khi cập nhật đơn hàng: " + e.getMessage();
             if (e.getCause() != null) {
                 errorMessage += " - Nguyên nhân: " + e.getCause().getMessage();
@@ -3,6 +3,8 @@ package a23088.controller;
 
 import a23088.entity.Categories;
 import a23088.mbean.CategoriesFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.CatalogueCache;
 import jakarta.inject.Named;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.faces.application.FacesMessage;
@@ -11,7 +13,6 @@ import jakarta.inject.Inject;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * CategoryController - CDI Managed Bean for comprehensive category management
@@ -23,12 +24,15 @@ import java.util.logging.Logger;
 public class CategoryController implements Serializable {
 
     private static final long serialVersionUID = 1L;
-    private static final Logger logger = Logger.getLogger(CategoryController.class.getName());
+    private static final AppLogger logger = AppLogger.getLogger(CategoryController.class);
 
     // Inject EJB services
     @Inject
     private CategoriesFacadeLocal categoriesFacade;
 
+    @Inject
+    private CatalogueCache catalogueCache;
+
     // Category management fields
     private List<Categories> categories;
     private Categories selectedCategory;
@@ -52,7 +56,7 @@ public class CategoryController implements Serializable {
      * Constructor
      */
     public CategoryController() {
-        logger.info("=== CategoryController Constructor ===");
+        logger.debug("=== CategoryController Constructor ===");
         initializeData();
     }
 
@@ -60,57 +64,57 @@ public class CategoryController implements Serializable {
      * Initialize data after injection
      */
     public void init() {
-        logger.info("=== CategoryController.init() START ===");
+        logger.debug("=== CategoryController.init() START ===");
         try {
             loadCategories();
-            logger.info("Categories loaded successfully. Count: " + (categories != null ? categories.size() : 0));
+            logger.info("Categories loaded successfully. Count: {}", (categories != null ? categories.size() : 0));
         } catch (Exception e) {
-            logger.severe("Error in init(): " + e.getMessage());
+            logger.error("Error in init(): {}", e.getMessage());
             addErrorMessage("An error occurred while initializing data.: " + e.getMessage());
         }
-        logger.info("=== CategoryController.init() END ===");
+        logger.debug("=== CategoryController.init() END ===");
     }
 
     /**
      * Initialize data
      */
     private void initializeData() {
-        logger.info("=== CategoryController.initializeData() START ===");
+        logger.debug("=== CategoryController.initializeData() START ===");
         try {
             categories = new ArrayList<>();
             clearForm();
             logger.info("Data initialized successfully");
         } catch (Exception e) {
-            logger.severe("Error initializing data: " + e.getMessage());
+            logger.error("Error initializing data: {}", e.getMessage());
         }
-        logger.info("=== CategoryController.initializeData() END ===");
+        logger.debug("=== CategoryController.initializeData() END ===");
     }
 
     /**
      * Load categories from database
      */
     public void loadCategories() {
-        logger.info("=== CategoryController.loadCategories() START ===");
+        logger.debug("=== CategoryController.loadCategories() START ===");
         try {
             if (categoriesFacade != null) {
                 categories = categoriesFacade.findAll();
-                logger.info("Loaded " + (categories != null ? categories.size() : 0) + " categories from database");
+                logger.info("Loaded {} categories from database", (categories != null ? categories.size() : 0));
             } else {
-                logger.warning("categoriesFacade is null!");
+                logger.warn("categoriesFacade is null!");
                 addErrorMessage("Unable to connect to database");
             }
         } catch (Exception e) {
-            logger.severe("Error loading categories: " + e.getMessage());
+            logger.error("Error loading categories: {}", e.getMessage());
             addErrorMessage("An error occurred while loading the category list. : " + e.getMessage());
         }
-        logger.info("=== CategoryController.loadCategories() END ===");
+        logger.debug("=== CategoryController.loadCategories() END ===");
     }
 
     /**
      * Create new category
      */
     public String createCategory() {
-        logger.info("=== CategoryController.createCategory() START ===");
+        logger.debug("=== CategoryController.createCategory() START ===");
         try {
             if (!validateCategoryInput()) {
                 return null;
@@ -129,6 +133,7 @@ public class CategoryController implements Serializable {
 
             // Save to database
             categoriesFacade.create(newCategory);
+            catalogueCache.categoriesChanged();
 
             // Refresh categories list
             loadCategories();
@@ -138,13 +143,13 @@ public class CategoryController implements Serializable {
 
             addSuccessMessage("Category creation'" + categoryName + "'successful!");
 
-            logger.info("Category created successfully: " + categoryName);
-            logger.info("=== CategoryController.createCategory() END ===");
+            logger.info("Category created successfully: {}", categoryName);
+            logger.debug("=== CategoryController.createCategory() END ===");
 
             return "admin/categories";
 
         } catch (Exception e) {
-            logger.severe("Error creating category: " + e.getMessage());
+            logger.error("Error creating category: {}", e.getMessage());
             addErrorMessage("An error occurred while creating the category: " + e.getMessage());
             return null;
         }
@@ -156,11 +161,11 @@ public class CategoryController implements Serializable {
      */
     public void selectCategoryForEdit(Integer categoryId) {
         try {
-            logger.info("=== CategoryController.selectCategoryForEdit() START ===");
-            logger.info("Selecting category for edit ID: " + categoryId);
+            logger.debug("=== CategoryController.selectCategoryForEdit() START ===");
+            logger.info("Selecting category for edit ID: {}", categoryId);
             
             if (categoryId == null) {
-                logger.severe("Category ID is null!");
+                logger.error("Category ID is null!");
                 addErrorMessage("Invalid category ID.");
                 return;
             }
@@ -182,12 +187,12 @@ public class CategoryController implements Serializable {
             // Set edit mode
             this.editMode = true;
             
-            logger.info("Form populated - CategoryName: " + this.categoryName);
-            logger.info("Edit mode activated for category: " + category.getCategoryName());
-            logger.info("=== CategoryController.selectCategoryForEdit() END ===");
+            logger.info("Form populated - CategoryName: {}", this.categoryName);
+            logger.info("Edit mode activated for category: {}", category.getCategoryName());
+            logger.debug("=== CategoryController.selectCategoryForEdit() END ===");
             
         } catch (Exception e) {
-            logger.severe("Error selecting category for edit: " + e.getMessage());
+            logger.error("Error selecting category for edit: {}", e.getMessage());
             addErrorMessage("An error occurred while selecting a category to edit. : " + e.getMessage());
         }
     }
@@ -197,7 +202,7 @@ public class CategoryController implements Serializable {
      */
     public String updateCategory() {
         try {
-            logger.info("=== CategoryController.updateCategory() START ===");
+            logger.debug("=== CategoryController.updateCategory() START ===");
             
             if (categoryToEdit == null) {
                 addErrorMessage("There are no categories to update.");
@@ -221,6 +226,7 @@ public class CategoryController implements Serializable {
             
             // Save to database
             categoriesFacade.edit(categoryToEdit);
+            catalogueCache.categoriesChanged();
             
             // Refresh categories list
             loadCategories();
@@ -233,13 +239,13 @@ public class CategoryController implements Serializable {
             
             addSuccessMessage("Update catalog'" + categoryToEdit.getCategoryName() + "' success!");
             
-            logger.info("Category updated successfully: " + categoryToEdit.getCategoryName());
-            logger.info("=== CategoryController.updateCategory() END ===");
+            logger.info("Category updated successfully: {}", categoryToEdit.getCategoryName());
+            logger.debug("=== CategoryController.updateCategory() END ===");
             
             return null;
             
         } catch (Exception e) {
-            logger.severe("Error updating category: " + e.getMessage());
+            logger.error("Error updating category: {}", e.getMessage());
             addErrorMessage("An error occurred while updating the catalog.: " + e.getMessage());
             return null;
         }
@@ -251,11 +257,11 @@ public class CategoryController implements Serializable {
      */
     public void openEditModal(Integer categoryId) {
         try {
-            logger.info("=== CategoryController.openEditModal() START ===");
-            logger.info("Opening edit modal for category ID: " + categoryId);
+            logger.debug("=== CategoryController.openEditModal() START ===");
+            logger.info("Opening edit modal for category ID: {}", categoryId);
             
             if (categoryId == null) {
-                logger.severe("Category ID is null!");
+                logger.error("Category ID is null!");
                 addErrorMessage("ID Invalid category.");
                 return;
             }
@@ -278,17 +284,17 @@ public class CategoryController implements Serializable {
             this.showEditModal = true;
             this.editMode = true;
             
-            logger.info("Form populated - CategoryName: " + this.categoryName);
+            logger.info("Form populated - CategoryName: {}", this.categoryName);
             
             // Force FacesContext to update
             FacesContext.getCurrentInstance().getPartialViewContext().getRenderIds().add("editCategoryModal");
             FacesContext.getCurrentInstance().getPartialViewContext().getRenderIds().add("editCategoryModalForm");
             
-            logger.info("Edit modal opened for category: " + category.getCategoryName());
-            logger.info("=== CategoryController.openEditModal() END ===");
+            logger.info("Edit modal opened for category: {}", category.getCategoryName());
+            logger.debug("=== CategoryController.openEditModal() END ===");
             
         } catch (Exception e) {
-            logger.severe("Error opening edit modal: " + e.getMessage());
+            logger.error("Error opening edit modal: {}", e.getMessage());
             addErrorMessage(" An error occurred while opening the edit modal: " + e.getMessage());
         }
     }
@@ -309,14 +315,14 @@ public class CategoryController implements Serializable {
      */
     public void updateCategoryFromModal() {
         try {
-            logger.info("=== CategoryController.updateCategoryFromModal() START ===");
+            logger.debug("=== CategoryController.updateCategoryFromModal() START ===");
             
             // Get category ID from request parameter
             String categoryIdParam = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("editingCategoryId");
-            logger.info("editingCategoryId from request: " + categoryIdParam);
+            logger.info("editingCategoryId from request: {}", categoryIdParam);
             
             if (categoryIdParam == null) {
-                logger.severe("No category ID provided!");
+                logger.error("No category ID provided!");
                 addErrorMessage("Không có ID danh mục để cập nhật.");
                 return;
             }
@@ -325,9 +331,9 @@ public class CategoryController implements Serializable {
             Integer categoryId;
             try {
                 categoryId = Integer.parseInt(categoryIdParam);
-                logger.info("Parsed category ID: " + categoryId);
+                logger.info("Parsed category ID: {}", categoryId);
             } catch (NumberFormatException e) {
-                logger.severe("Invalid category ID: " + categoryIdParam);
+                logger.error("Invalid category ID: {}", categoryIdParam);
                 addErrorMessage("ID danh mục không hợp lệ.");
                 return;
             }
@@ -335,17 +341,17 @@ public class CategoryController implements Serializable {
             // Load category from database
             Categories categoryToUpdate = categoriesFacade.find(categoryId);
             if (categoryToUpdate == null) {
-                logger.severe("Category not found with ID: " + categoryId);
+                logger.error("Category not found with ID: {}", categoryId);
                 addErrorMessage("Không tìm thấy danh mục với ID: " + categoryId);
                 return;
             }
             
-            logger.info("Loaded category from database: " + categoryToUpdate.getCategoryName() + " (ID: " + categoryToUpdate.getCategoryID() + ")");
+            logger.info("Loaded category from database: {} (ID: {})", categoryToUpdate.getCategoryName(), categoryToUpdate.getCategoryID());
             
             // Get form data from request parameters (user input)
             String formCategoryName = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("editCategoryModalForm:editCategoryName");
             
-            logger.info("Form data from request - CategoryName: " + formCategoryName);
+            logger.info("Form data from request - CategoryName: {}", formCategoryName);
             
             // Use form data if available, otherwise use loaded category data
             if (formCategoryName != null && !formCategoryName.trim().isEmpty()) {
@@ -354,12 +360,12 @@ public class CategoryController implements Serializable {
             } else {
                 logger.info("Form data is null, populating from loaded category...");
                 this.categoryName = categoryToUpdate.getCategoryName();
-                logger.info("Form data populated from loaded category - CategoryName: " + this.categoryName);
+                logger.info("Form data populated from loaded category - CategoryName: {}", this.categoryName);
             }
             
             // Validate input using the populated data
             logger.info("Validating input...");
-            logger.info("Validation data - categoryName: " + this.categoryName);
+            logger.info("Validation data - categoryName: {}", this.categoryName);
             
             // Simple validation
             if (this.categoryName == null || this.categoryName.trim().isEmpty()) {
@@ -379,24 +385,25 @@ public class CategoryController implements Serializable {
             }
             
             // Log original data before update
-            logger.info("BEFORE UPDATE - Name: " + categoryToUpdate.getCategoryName());
+            logger.info("BEFORE UPDATE - Name: {}", categoryToUpdate.getCategoryName());
             
             // Update category data
             logger.info("Updating category data...");
             categoryToUpdate.setCategoryName(categoryName.trim());
-            logger.info("AFTER UPDATE - Name: " + categoryToUpdate.getCategoryName());
+            logger.info("AFTER UPDATE - Name: {}", categoryToUpdate.getCategoryName());
             
             // Save to database
             logger.info("Saving to database...");
             categoriesFacade.edit(categoryToUpdate);
+            catalogueCache.categoriesChanged();
             logger.info("Category saved to database successfully!");
             
             // Verify data was saved by reloading from database
             Categories savedCategory = categoriesFacade.find(categoryToUpdate.getCategoryID());
             if (savedCategory != null) {
-                logger.info("VERIFICATION - Saved category data - Name: " + savedCategory.getCategoryName());
+                logger.info("VERIFICATION - Saved category data - Name: {}", savedCategory.getCategoryName());
             } else {
-                logger.warning("Could not verify saved category data");
+                logger.warn("Could not verify saved category data");
             }
             
             // Refresh categories list
@@ -411,12 +418,12 @@ public class CategoryController implements Serializable {
             
             addSuccessMessage("Cập nhật danh mục '" + categoryToUpdate.getCategoryName() + "' thành công!");
             
-            logger.info("Category updated successfully: " + categoryToUpdate.getCategoryName());
+            logger.info("Category updated successfully: {}", categoryToUpdate.getCategoryName());
             logger.info("Modal closed after successful update");
-            logger.info("=== CategoryController.updateCategoryFromModal() END ===");
+            logger.debug("=== CategoryController.updateCategoryFromModal() END ===");
             
         } catch (Exception e) {
-            logger.severe("Error updating category from modal: " + e.getMessage());
+            logger.error("Error updating category from modal: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi cập nhật danh mục: " + e.getMessage());
         }
     }
@@ -428,8 +435,8 @@ public class CategoryController implements Serializable {
      */
     public String navigateToEditPage(Integer categoryId) {
         try {
-            logger.info("=== CategoryController.navigateToEditPage() START ===");
-            logger.info("Navigating to edit page for category ID: " + categoryId);
+            logger.debug("=== CategoryController.navigateToEditPage() START ===");
+            logger.info("Navigating to edit page for category ID: {}", categoryId);
             
             if (categoryId == null) {
                 addErrorMessage("ID danh mục không hợp lệ.");
@@ -452,13 +459,13 @@ public class CategoryController implements Serializable {
             // Set edit mode
             this.editMode = true;
             
-            logger.info("Navigating to edit page for category: " + category.getCategoryName());
-            logger.info("=== CategoryController.navigateToEditPage() END ===");
+            logger.info("Navigating to edit page for category: {}", category.getCategoryName());
+            logger.debug("=== CategoryController.navigateToEditPage() END ===");
             
             return "edit-category";
             
         } catch (Exception e) {
-            logger.severe("Error navigating to edit page: " + e.getMessage());
+            logger.error("Error navigating to edit page: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi mở trang chỉnh sửa: " + e.getMessage());
             return null;
         }
@@ -469,7 +476,7 @@ public class CategoryController implements Serializable {
      */
     public String updateCategoryFromEditPage() {
         try {
-            logger.info("=== CategoryController.updateCategoryFromEditPage() START ===");
+            logger.debug("=== CategoryController.updateCategoryFromEditPage() START ===");
             
             if (categoryToEdit == null) {
                 addErrorMessage("Không có danh mục để cập nhật.");
@@ -493,19 +500,20 @@ public class CategoryController implements Serializable {
             
             // Save to database
             categoriesFacade.edit(categoryToEdit);
+            catalogueCache.categoriesChanged();
             
             // Refresh categories list
             loadCategories();
             
             addSuccessMessage("Cập nhật danh mục '" + categoryToEdit.getCategoryName() + "' thành công!");
             
-            logger.info("Category updated successfully: " + categoryToEdit.getCategoryName());
-            logger.info("=== CategoryController.updateCategoryFromEditPage() END ===");
+            logger.info("Category updated successfully: {}", categoryToEdit.getCategoryName());
+            logger.debug("=== CategoryController.updateCategoryFromEditPage() END ===");
             
             return "admin/categories";
             
         } catch (Exception e) {
-            logger.severe("Error updating category from edit page: " + e.getMessage());
+            logger.error("Error updating category from edit page: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi cập nhật danh mục: " + e.getMessage());
             return null;
         }
@@ -517,7 +525,7 @@ public class CategoryController implements Serializable {
      */
    public void deleteCategory(Categories category) {
     try {
-        logger.info("=== CategoryController.deleteCategory() START ===");
+        logger.debug("=== CategoryController.deleteCategory() START ===");
 
         if (category == null) {
             addErrorMessage("Category does not exist.");
@@ -532,17 +540,18 @@ public class CategoryController implements Serializable {
 
         // Delete from database
         categoriesFacade.remove(category);
+        catalogueCache.categoriesChanged();
 
         // Refresh category list
         loadCategories();
 
         addSuccessMessage("Category '" + category.getCategoryName() + "' deleted successfully!");
 
-        logger.info("Category deleted successfully: " + category.getCategoryName());
-        logger.info("=== CategoryController.deleteCategory() END ===");
+        logger.info("Category deleted successfully: {}", category.getCategoryName());
+        logger.debug("=== CategoryController.deleteCategory() END ===");
 
     } catch (Exception e) {
-        logger.severe("Error while deleting category: " + e.getMessage());
+        logger.error("Error while deleting category: {}", e.getMessage());
         addErrorMessage("An error occurred while deleting category: " + e.getMessage());
     }
 }
@@ -552,7 +561,7 @@ public class CategoryController implements Serializable {
      * Search categories
      */
     public void searchCategories() {
-        logger.info("=== CategoryController.searchCategories() START ===");
+        logger.debug("=== CategoryController.searchCategories() START ===");
         try {
             if (searchKeyword == null || searchKeyword.trim().isEmpty()) {
                 loadCategories();
@@ -573,13 +582,13 @@ public class CategoryController implements Serializable {
             }
             
             categories = filteredCategories;
-            logger.info("Found " + categories.size() + " categories matching: " + searchKeyword);
+            logger.info("Found {} categories matching: {}", categories.size(), searchKeyword);
             
         } catch (Exception e) {
-            logger.severe("Error searching categories: " + e.getMessage());
+            logger.error("Error searching categories: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi tìm kiếm: " + e.getMessage());
         }
-        logger.info("=== CategoryController.searchCategories() END ===");
+        logger.debug("=== CategoryController.searchCategories() END ===");
     }
 
     /**
@@ -633,7 +642,7 @@ public class CategoryController implements Serializable {
                 }
             }
         } catch (Exception e) {
-            logger.severe("Error finding category by name: " + e.getMessage());
+            logger.error("Error finding category by name: {}", e.getMessage());
         }
         return null;
     }
@@ -4,6 +4,8 @@ import a23088.entity.Orders;
 import a23088.entity.OrderItems;
 import a23088.mbean.OrdersFacadeLocal;
 import a23088.mbean.OrderItemsFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.DashboardMetricsService;
 import a23088.service.OrderUpdateService;
 import jakarta.ejb.EJB;
 import jakarta.ejb.TransactionAttribute;
@@ -13,12 +15,15 @@ import jakarta.faces.context.FacesContext;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 @Named("checkoutBean")
 @SessionScoped
 public class CheckoutBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(CheckoutBean.class);
+
     @EJB
     private OrdersFacadeLocal ordersFacade;
     
@@ -27,6 +32,9 @@ public class CheckoutBean implements Serializable {
     
     @EJB
     private OrderUpdateService orderUpdateService;
+    
+    @EJB
+    private DashboardMetricsService metricsService;
 
     private Orders currentOrder;
     private String address;
@@ -48,7 +56,7 @@ public class CheckoutBean implements Serializable {
                 currentOrder.setOrderItemsCollection(orderItems);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in init", e);
         }
     }
 
@@ -102,24 +110,19 @@ public class CheckoutBean implements Serializable {
 
             // Thử cập nhật trực tiếp trước
             try {
+                String oldStatus = currentOrder.getStatus();
                 currentOrder.setAddress(address.trim());
                 currentOrder.setPhone(phone.trim());
                 currentOrder.setStatus("Pending"); // Sử dụng Pending thay vì Confirmed
-                ordersFacade.edit(currentOrder);
+                Collection<OrderItems> orderItems = currentOrder.getOrderItemsCollection();
+                currentOrder = ordersFacade.edit(currentOrder);
+                currentOrder.setOrderItemsCollection(orderItems);
+                // Bản trong session phải mang version mới, nếu không lần sửa sau sẽ bị từ chối
+                FacesContext.getCurrentInstance().getExternalContext().getSessionMap().put("currentOrder", currentOrder);
+                metricsService.orderStatusChanged(currentOrder, oldStatus);
                 
-                // Log thông báo thành công ra console
-                System.out.println("==========================================");
-                System.out.println("🎉 ĐẶT HÀNG THÀNH CÔNG! 🎉");
-                System.out.println("==========================================");
-                System.out.println("Mã đơn hàng: #" + currentOrder.getOrderID());
-                System.out.println("Khách hàng: " + currentOrder.getUserID().getFullName());
-                System.out.println("Email: " + currentOrder.getUserID().getEmail());
-                System.out.println("Địa chỉ: " + currentOrder.getAddress());
-                System.out.println("Số điện thoại: " + currentOrder.getPhone());
-                System.out.println("Tổng tiền: " + String.format("%,.0f", (double)currentOrder.getTotalAmount()) + "₫");
-                System.out.println("Trạng thái: " + currentOrder.getStatus());
-                System.out.println("Thời gian: " + new java.util.Date());
-                System.out.println("==========================================");
+                // Ghi log đơn hàng đã xác nhận
+                logger.info("Order #{} confirmed by {}: total {}, status {}", currentOrder.getOrderID(), currentOrder.getUserID().getEmail(), currentOrder.getTotalAmount(), currentOrder.getStatus());
                 
                 // Hiển thị popup thông báo thành công bằng JavaScript
                 String successMessage = "🎉 ĐẶT HÀNG THÀNH CÔNG! 🎉\n\n" +
@@ -134,8 +137,7 @@ public class CheckoutBean implements Serializable {
                 return "index?faces-redirect=true&success=true"; // Chuyển về trang chủ với parameter success
                 
             } catch (Exception e1) {
-                System.err.println("Direct update failed: " + e1.getMessage());
-                e1.printStackTrace();
+                logger.error("Direct update failed: {}", e1.getMessage(), e1);
                 
                 // Thử với OrderUpdateService
                 try {
@@ -153,15 +155,14 @@ public class CheckoutBean implements Serializable {
                         return null;
                     }
                 } catch (Exception e2) {
-                    System.err.println("Service update also failed: " + e2.getMessage());
-                    e2.printStackTrace();
+                    logger.error("Service update also failed: {}", e2.getMessage(), e2);
                     addErrorMessage("Lỗi khi cập nhật đơn hàng: " + e2.getMessage());
                     return null;
                 }
             }
 
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in confirmOrder", e);
             String errorMessage = "Lỗi khi xác nhận đơn hàng: " + e.getMessage();
             if (e.getCause() != null) {
                 errorMessage += " - Nguyên nhân: " + e.getCause().getMessage();
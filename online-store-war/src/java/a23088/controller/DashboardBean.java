@@ -1,16 +1,19 @@
 package a23088.controller;
 
 import a23088.entity.Orders;
-import a23088.entity.Products;
-import a23088.entity.Users;
 import a23088.mbean.OrdersFacadeLocal;
 import a23088.mbean.ProductsFacadeLocal;
 import a23088.mbean.UsersFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.DashboardMetricsService;
 import jakarta.ejb.EJB;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.inject.Named;
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -18,6 +21,8 @@ import java.util.stream.Collectors;
 @SessionScoped
 public class DashboardBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(DashboardBean.class);
+
     @EJB
     private OrdersFacadeLocal ordersFacade;
     
@@ -27,142 +32,87 @@ public class DashboardBean implements Serializable {
     @EJB
     private UsersFacadeLocal usersFacade;
 
-    private List<Orders> allOrders;
-    private List<Products> allProducts;
-    private List<Users> allUsers;
+    @EJB
+    private DashboardMetricsService metricsService;
+
+    // Số liệu đếm và đơn gần đây, nạp lại mỗi lần render trang
+    private transient Long totalUsers;
+    private transient Long totalProducts;
+    private transient List<Orders> recentOrders;
 
     public DashboardBean() {
     }
 
-    /** 🔹 Load all data */
+    /** 🔹 Load counts and recent orders (order metrics are kept by DashboardMetricsService) */
     public void loadData() {
         try {
-            allOrders = ordersFacade.findAll();
-            allProducts = productsFacade.findAll();
-            allUsers = usersFacade.findAll();
-            
-            if (allOrders == null) allOrders = new ArrayList<>();
-            if (allProducts == null) allProducts = new ArrayList<>();
-            if (allUsers == null) allUsers = new ArrayList<>();
+            totalUsers = (long) usersFacade.count();
+            totalProducts = (long) productsFacade.count();
+            recentOrders = ordersFacade.findRecent(5);
         } catch (Exception e) {
-            e.printStackTrace();
-            allOrders = new ArrayList<>();
-            allProducts = new ArrayList<>();
-            allUsers = new ArrayList<>();
+            logger.error("Error in loadData", e);
+            totalUsers = 0L;
+            totalProducts = 0L;
+            recentOrders = new ArrayList<>();
         }
     }
 
     /** 🔹 Basic Statistics */
     public long getTotalUsers() {
-        if (allUsers == null) loadData();
-        return allUsers.size();
+        if (totalUsers == null) loadData();
+        return totalUsers;
     }
 
     public long getTotalOrders() {
-        if (allOrders == null) loadData();
-        return allOrders.size();
+        return metricsService.getTotalOrders();
     }
 
     public long getTotalProducts() {
-        if (allProducts == null) loadData();
-        return allProducts.size();
+        if (totalProducts == null) loadData();
+        return totalProducts;
     }
 
     public double getTotalRevenue() {
-        if (allOrders == null) loadData();
-        return allOrders.stream()
-                .filter(o -> o.getStatus() != null && !o.getStatus().equalsIgnoreCase("cancelled"))
-                .mapToDouble(Orders::getTotalAmount)
-                .sum();
+        return metricsService.getTotalRevenue();
     }
 
     /** 🔹 Order Statistics */
     public long getPendingOrders() {
-        if (allOrders == null) loadData();
-        return allOrders.stream()
-                .filter(o -> o.getStatus() != null && o.getStatus().equalsIgnoreCase("pending"))
-                .count();
+        return metricsService.getOrderCount("pending");
     }
 
     public long getConfirmedOrders() {
-        if (allOrders == null) loadData();
-        return allOrders.stream()
-                .filter(o -> o.getStatus() != null && o.getStatus().equalsIgnoreCase("confirmed"))
-                .count();
+        return metricsService.getOrderCount("confirmed");
     }
 
     public long getDeliveredOrders() {
-        if (allOrders == null) loadData();
-        return allOrders.stream()
-                .filter(o -> o.getStatus() != null && o.getStatus().equalsIgnoreCase("delivered"))
-                .count();
+        return metricsService.getOrderCount("delivered");
     }
 
     public long getCancelledOrders() {
-        if (allOrders == null) loadData();
-        return allOrders.stream()
-                .filter(o -> o.getStatus() != null && o.getStatus().equalsIgnoreCase("cancelled"))
-                .count();
+        return metricsService.getOrderCount("cancelled");
     }
 
     /** 🔹 Revenue Statistics */
     public double getTodayRevenue() {
-        if (allOrders == null) loadData();
-        Calendar today = Calendar.getInstance();
-        today.set(Calendar.HOUR_OF_DAY, 0);
-        today.set(Calendar.MINUTE, 0);
-        today.set(Calendar.SECOND, 0);
-        today.set(Calendar.MILLISECOND, 0);
-        
-        return allOrders.stream()
-                .filter(o -> o.getOrderDate() != null && 
-                           o.getOrderDate().after(today.getTime()) &&
-                           o.getStatus() != null && !o.getStatus().equalsIgnoreCase("cancelled"))
-                .mapToDouble(Orders::getTotalAmount)
-                .sum();
+        return metricsService.getRevenue(LocalDate.now());
     }
 
     public double getThisMonthRevenue() {
-        if (allOrders == null) loadData();
-        Calendar monthStart = Calendar.getInstance();
-        monthStart.set(Calendar.DAY_OF_MONTH, 1);
-        monthStart.set(Calendar.HOUR_OF_DAY, 0);
-        monthStart.set(Calendar.MINUTE, 0);
-        monthStart.set(Calendar.SECOND, 0);
-        monthStart.set(Calendar.MILLISECOND, 0);
-        
-        return allOrders.stream()
-                .filter(o -> o.getOrderDate() != null && 
-                           o.getOrderDate().after(monthStart.getTime()) &&
-                           o.getStatus() != null && !o.getStatus().equalsIgnoreCase("cancelled"))
-                .mapToDouble(Orders::getTotalAmount)
-                .sum();
+        return metricsService.getRevenue(YearMonth.now());
     }
 
     /** 🔹 Chart Data - Revenue by Month (Last 6 months) */
     public String getRevenueChartData() {
-        if (allOrders == null) loadData();
-        
         Map<String, Double> monthlyRevenue = new LinkedHashMap<>();
-        Calendar cal = Calendar.getInstance();
+        DateTimeFormatter monthFormat = DateTimeFormatter.ofPattern("MM/yyyy");
+        YearMonth current = YearMonth.now();
         
         for (int i = 5; i >= 0; i--) {
-            cal.setTime(new Date());
-            cal.add(Calendar.MONTH, -i);
-            String monthKey = new SimpleDateFormat("MM/yyyy").format(cal.getTime());
-            monthlyRevenue.put(monthKey, 0.0);
+            YearMonth month = current.minusMonths(i);
+            monthlyRevenue.put(month.format(monthFormat), (double) metricsService.getRevenue(month));
         }
         
-        allOrders.stream()
-                .filter(o -> o.getOrderDate() != null && 
-                           o.getStatus() != null && !o.getStatus().equalsIgnoreCase("cancelled"))
-                .forEach(order -> {
-                    Calendar orderCal = Calendar.getInstance();
-                    orderCal.setTime(order.getOrderDate());
-                    String monthKey = new SimpleDateFormat("MM/yyyy").format(orderCal.getTime());
-                    monthlyRevenue.merge(monthKey, (double) order.getTotalAmount(), Double::sum);
-                });
-        
         StringBuilder json = new StringBuilder();
         json.append("{");
         json.append("\"labels\": [");
@@ -188,14 +138,7 @@ public class DashboardBean implements Serializable {
 
     /** 🔹 Chart Data - Orders by Status */
     public String getOrdersStatusChartData() {
-        if (allOrders == null) loadData();
-        
-        Map<String, Long> statusCount = allOrders.stream()
-                .filter(o -> o.getStatus() != null)
-                .collect(Collectors.groupingBy(
-                    o -> o.getStatus().toLowerCase(),
-                    Collectors.counting()
-                ));
+        Map<String, Long> statusCount = metricsService.getOrderCountsByStatus();
         
         // Map status to Vietnamese
         Map<String, String> statusMap = new HashMap<>();
@@ -230,24 +173,8 @@ public class DashboardBean implements Serializable {
 
     /** 🔹 Chart Data - Top Selling Products */
     public String getTopProductsChartData() {
-        if (allOrders == null) loadData();
-        
-        Map<String, Integer> productSales = new HashMap<>();
-        
-        allOrders.stream()
-                .filter(o -> o.getOrderItemsCollection() != null && 
-                           o.getStatus() != null && !o.getStatus().equalsIgnoreCase("cancelled"))
-                .flatMap(order -> order.getOrderItemsCollection().stream())
-                .forEach(item -> {
-                    String productName = item.getProductID().getProductName();
-                    productSales.merge(productName, item.getQuantity(), Integer::sum);
-                });
-        
         // Get top 5 products
-        List<Map.Entry<String, Integer>> topProducts = productSales.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(5)
-                .collect(Collectors.toList());
+        List<Map.Entry<String, Long>> topProducts = new ArrayList<>(metricsService.getTopProducts(5).entrySet());
         
         StringBuilder json = new StringBuilder();
         json.append("{");
@@ -274,11 +201,8 @@ public class DashboardBean implements Serializable {
 
     /** 🔹 Recent Orders */
     public List<Orders> getRecentOrders() {
-        if (allOrders == null) loadData();
-        return allOrders.stream()
-                .sorted((o1, o2) -> o2.getOrderDate().compareTo(o1.getOrderDate()))
-                .limit(5)
-                .collect(Collectors.toList());
+        if (recentOrders == null) loadData();
+        return recentOrders;
     }
 
     /** 🔹 Format Price */
@@ -0,0 +1,88 @@
+package a23088.controller;
+
+import a23088.service.AppLogger;
+import a23088.service.ImageStore;
+import a23088.service.ImageVariant;
+import a23088.service.ImageVariantService;
+import jakarta.ejb.EJB;
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * ImageServlet - serves product images: GET /images/{Products.image}.
+ * Keys of the ImageStore are read from the store and cached for a year
+ * (the key is the content hash, so the bytes behind a URL never change);
+ * older products still holding a plain file name are served from
+ * /asset/images. Both answer If-None-Match with 304. ?v=thumb|card|detail picks a resized variant; until it has
+ * been generated the original is served (uncached) and generation is queued.
+ * @author ADMIN
+ */
+@WebServlet(name = "ImageServlet", urlPatterns = {"/images/*"})
+public class ImageServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+    private static final AppLogger logger = AppLogger.getLogger(ImageServlet.class);
+
+    private static final String LEGACY_DIR = "images/";
+
+    @EJB
+    private ImageStore imageStore;
+
+    @EJB
+    private ImageVariantService imageVariantService;
+
+    @Inject
+    private AssetRegistry assetRegistry;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        // Trình duyệt không được đoán lại loại nội dung (ảnh upload không thể bị hiểu thành HTML/script)
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        String name = request.getPathInfo();
+        if (name == null || name.length() < 2) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        name = name.substring(1);
+
+        ImageVariant variant = ImageVariant.fromParameter(request.getParameter("v"));
+        Path file = imageStore.locate(name, variant);
+        boolean fallback = false;
+        if (file == null && variant != null) {
+            file = imageStore.locate(name);
+            if (file != null) {
+                // Biến thể chưa có: trả ảnh gốc lần này và xếp hàng tạo biến thể
+                imageVariantService.generate(name);
+                fallback = true;
+            }
+        }
+        if (file != null) {
+            response.setHeader("Cache-Control", fallback ? "no-cache" : "public, max-age=31536000, immutable");
+            if (StaticContent.notModified(request, response, "\"" + file.getFileName() + "\"")) {
+                return;
+            }
+            String contentType = getServletContext().getMimeType(file.getFileName().toString());
+            StaticContent.send(file, contentType != null ? contentType : imageStore.contentType(name), response);
+            return;
+        }
+
+        // Ảnh cũ lưu theo tên file trong web/asset/images
+        AssetRegistry.Asset legacy = assetRegistry.lookup(LEGACY_DIR + name);
+        if (legacy == null) {
+            logger.debug("Image not found: {}", name);
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setHeader("Cache-Control", "public, max-age=86400");
+        if (StaticContent.notModified(request, response, "\"" + legacy.fingerprint + "\"")) {
+            return;
+        }
+        StaticContent.send(legacy.file, getServletContext().getMimeType(name), response);
+    }
+}
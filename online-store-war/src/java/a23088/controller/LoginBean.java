@@ -5,6 +5,11 @@
 package a23088.controller;
 
 import a23088.entity.Users;
+import a23088.service.AppLogger;
+import a23088.service.PasswordHasherBusyException;
+import a23088.service.Permission;
+import a23088.service.RoleRegistry;
+import a23088.service.SessionPrincipal;
 import a23088.service.UserService;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.faces.application.FacesMessage;
@@ -12,7 +17,6 @@ import jakarta.faces.context.FacesContext;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import java.io.Serializable;
-import java.util.logging.Logger;
 
 /**
  * LoginBean - ManagedBean for handling user login/logout
@@ -24,18 +28,21 @@ import java.util.logging.Logger;
 public class LoginBean implements Serializable {
 
     private static final long serialVersionUID = 1L;
-    private static final Logger logger = Logger.getLogger(LoginBean.class.getName());
+    private static final AppLogger logger = AppLogger.getLogger(LoginBean.class);
 
     @Inject
     private UserService userService;
 
+    @Inject
+    private RoleRegistry roleRegistry;
+
     // Login form fields
     private String email;
     private String password;
     private boolean remember;
 
-    // Current logged in user
-    private Users currentUser;
+    // Current logged in user (compact copy, not the entity)
+    private SessionPrincipal principal;
 
     // Constructor
     public LoginBean() {
@@ -48,7 +55,7 @@ public class LoginBean implements Serializable {
      */
     public String login() {
         try {
-            logger.info("Attempting login for email: " + email);
+            logger.info("Attempting login for email: {}", email);
 
             // Fast input validation
             if (email == null || email.trim().isEmpty()) {
@@ -65,9 +72,9 @@ public class LoginBean implements Serializable {
             Users user = userService.authenticate(email.trim(), password);
             
             if (user != null) {
-                // Login successful
-                currentUser = user;
-                logger.info("Login successful for user: " + user.getFullName());
+                // Login successful: session only keeps the principal
+                principal = SessionPrincipal.of(user);
+                logger.info("Login successful for user: {}", user.getFullName());
                 
                 // Clear password for security
                 password = null;
@@ -76,20 +83,24 @@ public class LoginBean implements Serializable {
                 addSuccessMessage("Login successful! Welcome " + user.getFullName());
                 
                 // Redirect based on user role
-                if (userService.isAdmin(user)) {
+                if (isAdmin()) {
                     return "admin/index?faces-redirect=true";
                 } else {
                     return "index?faces-redirect=true";
                 }
             } else {
                 // Login failed
-                logger.warning("Login failed for email: " + email);
+                logger.warn("Login failed for email: {}", email);
                 addErrorMessage("Email or password is incorrect");
                 return null;
             }
 
+        } catch (PasswordHasherBusyException e) {
+            logger.warn("Login rejected, password hashing is saturated: {}", email);
+            addErrorMessage(e.getMessage());
+            return null;
         } catch (Exception e) {
-            logger.severe("Login error: " + e.getMessage());
+            logger.error("Login error: {}", e.getMessage());
             addErrorMessage("An error occurred during login. Please try again.");
             return null;
         }
@@ -101,12 +112,12 @@ public class LoginBean implements Serializable {
      */
     public String logout() {
         try {
-            if (currentUser != null) {
-                logger.info("User " + currentUser.getFullName() + " logged out");
+            if (principal != null) {
+                logger.info("User {} logged out", principal.getFullName());
             }
             
             // Clear session data
-            currentUser = null;
+            principal = null;
             email = null;
             password = null;
             remember = false;
@@ -123,7 +134,7 @@ public class LoginBean implements Serializable {
             return null;
             
         } catch (Exception e) {
-            logger.severe("Logout error: " + e.getMessage());
+            logger.error("Logout error: {}", e.getMessage());
             return null;
         }
     }
@@ -134,12 +145,12 @@ public class LoginBean implements Serializable {
      */
     public String logoutAction() {
         try {
-            if (currentUser != null) {
-                logger.info("User " + currentUser.getFullName() + " logged out via logoutAction");
+            if (principal != null) {
+                logger.info("User {} logged out via logoutAction", principal.getFullName());
             }
             
             // Clear session data
-            currentUser = null;
+            principal = null;
             email = null;
             password = null;
             remember = false;
@@ -154,7 +165,7 @@ public class LoginBean implements Serializable {
             return "logout?faces-redirect=true";
             
         } catch (Exception e) {
-            logger.severe("Logout action error: " + e.getMessage());
+            logger.error("Logout action error: {}", e.getMessage());
             return "logout?faces-redirect=true";
         }
     }
@@ -167,12 +178,12 @@ public class LoginBean implements Serializable {
      */
     public void logoutAjax() {
         try {
-            if (currentUser != null) {
-                logger.info("User " + currentUser.getFullName() + " logged out via AJAX");
+            if (principal != null) {
+                logger.info("User {} logged out via AJAX", principal.getFullName());
             }
             
             // Clear session data
-            currentUser = null;
+            principal = null;
             email = null;
             password = null;
             remember = false;
@@ -189,7 +200,7 @@ public class LoginBean implements Serializable {
             logger.info("AJAX logout completed successfully");
             
         } catch (Exception e) {
-            logger.severe("AJAX logout error: " + e.getMessage());
+            logger.error("AJAX logout error: {}", e.getMessage());
             addErrorMessage("An error occurred during logout");
         }
     }
@@ -199,7 +210,7 @@ public class LoginBean implements Serializable {
      * @return true if user is logged in, false otherwise
      */
     public boolean isLoggedIn() {
-        return currentUser != null;
+        return principal != null;
     }
 
     /**
@@ -207,26 +218,7 @@ public class LoginBean implements Serializable {
      * @return true if user is admin, false otherwise
      */
     public boolean isAdmin() {
-        logger.info("=== LoginBean.isAdmin() called ===");
-        logger.info("currentUser: " + (currentUser != null ? currentUser.getFullName() : "null"));
-        
-        if (currentUser == null) {
-            logger.info("currentUser is null - returning false");
-            return false;
-        }
-        
-        if (currentUser.getRoleID() == null) {
-            logger.info("currentUser.getRoleID() is null - returning false");
-            return false;
-        }
-        
-        String roleName = currentUser.getRoleID().getRoleName();
-        logger.info("Role name: " + roleName);
-        
-        boolean isAdmin = userService.isAdmin(currentUser);
-        logger.info("userService.isAdmin() returned: " + isAdmin);
-        
-        return isAdmin;
+        return hasPermission(Permission.ADMIN_ACCESS);
     }
 
     /**
@@ -234,7 +226,24 @@ public class LoginBean implements Serializable {
      * @return true if user is customer, false otherwise
      */
     public boolean isCustomer() {
-        return currentUser != null && userService.isCustomer(currentUser);
+        return hasPermission(Permission.SHOP);
+    }
+
+    /**
+     * Check a permission of the current user's role
+     * @param permission permission to check
+     * @return true if logged in and the role grants the permission
+     */
+    public boolean hasPermission(Permission permission) {
+        return principal != null && roleRegistry.has(principal.getRoleID(), permission);
+    }
+
+    /**
+     * Get current user's ID
+     * @return user ID or null if not logged in
+     */
+    public Integer getCurrentUserId() {
+        return principal != null ? principal.getUserID() : null;
     }
 
     /**
@@ -242,7 +251,7 @@ public class LoginBean implements Serializable {
      * @return user's full name or empty string
      */
     public String getCurrentUserName() {
-        return currentUser != null ? currentUser.getFullName() : "";
+        return principal != null ? principal.getFullName() : "";
     }
 
     /**
@@ -250,7 +259,7 @@ public class LoginBean implements Serializable {
      * @return user's email or empty string
      */
     public String getCurrentUserEmail() {
-        return currentUser != null ? currentUser.getEmail() : "";
+        return principal != null ? principal.getEmail() : "";
     }
 
     /**
@@ -258,8 +267,16 @@ public class LoginBean implements Serializable {
      * @return user's role name or empty string
      */
     public String getCurrentUserRole() {
-        return currentUser != null && currentUser.getRoleID() != null 
-            ? currentUser.getRoleID().getRoleName() : "";
+        return principal != null ? principal.getRoleName() : "";
+    }
+
+    /**
+     * Load the current user entity from the database, for code that writes
+     * (orders, carts, reviews). Not kept in the session.
+     * @return freshly loaded Users entity, or null if not logged in
+     */
+    public Users loadCurrentUser() {
+        return principal != null ? userService.findById(principal.getUserID()) : null;
     }
 
     /**
@@ -305,10 +322,7 @@ public class LoginBean implements Serializable {
         this.remember = remember;
     }
 
-    public Users getCurrentUser() {
-        return currentUser;
-    }
-    public void setCurrentUser(Users currentUser) {
-        this.currentUser = currentUser;
+    public SessionPrincipal getPrincipal() {
+        return principal;
     }
 }
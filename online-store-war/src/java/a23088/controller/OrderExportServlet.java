@@ -0,0 +1,104 @@
+package a23088.controller;
+
+import a23088.mbean.OrderExportCriteria;
+import a23088.service.AppLogger;
+import a23088.service.ExportFormat;
+import a23088.service.OrderExportService;
+import a23088.service.Permission;
+import jakarta.ejb.EJB;
+import jakarta.inject.Inject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * OrderExportServlet - download of order lines for accounting (admin only).
+ * GET /admin/export/orders?from=2025-01-01&amp;to=2025-01-31&amp;status=Confirmed&amp;format=csv&amp;gzip=true
+ * or ?month=2025-01 for a monthly dump. "to" is inclusive; format is csv
+ * (default) or jsonl. The body is streamed as it is read from the database.
+ * @author ADMIN
+ */
+@WebServlet(name = "OrderExportServlet", urlPatterns = {"/admin/export/orders"})
+public class OrderExportServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+    private static final AppLogger logger = AppLogger.getLogger(OrderExportServlet.class);
+
+    @EJB
+    private OrderExportService orderExportService;
+
+    @Inject
+    private LoginBean loginBean;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if (!loginBean.hasPermission(Permission.EXPORT_DATA)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        ExportFormat format;
+        LocalDate from;
+        LocalDate to;
+        try {
+            String month = request.getParameter("month");
+            if (month != null && !month.isEmpty()) {
+                YearMonth yearMonth = YearMonth.parse(month);
+                from = yearMonth.atDay(1);
+                to = yearMonth.atEndOfMonth();
+            } else {
+                from = parseDate(request.getParameter("from"));
+                to = parseDate(request.getParameter("to"));
+            }
+            format = ExportFormat.fromParameter(request.getParameter("format"));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        String status = request.getParameter("status");
+        // Ngày "to" tính trọn ngày: lọc orderDate < to + 1 ngày
+        OrderExportCriteria criteria = new OrderExportCriteria(toDate(from), to != null ? toDate(to.plusDays(1)) : null,
+                status != null && !status.isEmpty() ? status : null);
+        boolean gzip = "true".equalsIgnoreCase(request.getParameter("gzip")) || "1".equals(request.getParameter("gzip"));
+
+        String fileName = "orders"
+                + (from != null ? "-" + from : "")
+                + (to != null ? "-" + to : "")
+                + "." + format.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : format.getContentType());
+        if (!gzip) {
+            response.setCharacterEncoding("UTF-8");
+        }
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        response.setHeader("Cache-Control", "no-store");
+
+        try {
+            orderExportService.export(criteria, format, gzip, response.getOutputStream());
+        } catch (IOException e) {
+            // Thường là client đóng kết nối giữa chừng; response đã gửi đi nên không trả lỗi được
+            logger.warn("Order export aborted ({}): {}", fileName, e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("Order export failed ({}): {}", fileName, e.getMessage(), e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        return value != null && !value.isEmpty() ? LocalDate.parse(value) : null;
+    }
+
+    private static Date toDate(LocalDate date) {
+        return date != null ? Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant()) : null;
+    }
+}
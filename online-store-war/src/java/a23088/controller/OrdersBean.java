@@ -1,8 +1,10 @@
 package a23088.controller;
 
 import a23088.entity.Orders;
-import a23088.entity.Users;
+import a23088.mbean.FetchPlan;
 import a23088.mbean.OrdersFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.SessionPrincipal;
 import jakarta.ejb.EJB;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.faces.context.FacesContext;
@@ -15,6 +17,8 @@ import java.util.List;
 @SessionScoped
 public class OrdersBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(OrdersBean.class);
+
     @EJB
     private OrdersFacadeLocal ordersFacade;
     
@@ -30,43 +34,42 @@ public class OrdersBean implements Serializable {
     // Initialize orders for current user
     public void init() {
         try {
-            System.out.println("=== ORDERS BEAN INIT START ===");
-            System.out.println("LoginBean is null: " + (loginBean == null));
+            logger.debug("=== ORDERS BEAN INIT START ===");
+            logger.debug("LoginBean is null: {}", (loginBean == null));
             
             if (loginBean != null) {
-                System.out.println("isLoggedIn: " + loginBean.isLoggedIn());
+                logger.debug("isLoggedIn: {}", loginBean.isLoggedIn());
                 
                 if (loginBean.isLoggedIn()) {
-                    Users currentUser = loginBean.getCurrentUser();
-                    System.out.println("Current user: " + (currentUser != null ? currentUser.getFullName() : "NULL"));
+                    SessionPrincipal principal = loginBean.getPrincipal();
+                    logger.debug("Current user: {}", (principal != null ? principal.getFullName() : "NULL"));
                     
-                    if (currentUser != null) {
-                        System.out.println("User ID: " + currentUser.getUserID());
-                        System.out.println("Calling ordersFacade.findByUserID...");
+                    if (principal != null) {
+                        logger.debug("User ID: {}", principal.getUserID());
+                        logger.debug("Calling ordersFacade.findByUserID...");
                         
-                        userOrders = ordersFacade.findByUserID(currentUser.getUserID());
+                        userOrders = ordersFacade.findByUserID(principal.getUserID(), FetchPlan.WITH_ITEMS);
                         
-                        System.out.println("Orders result: " + (userOrders != null ? userOrders.size() : "NULL"));
+                        logger.debug("Orders result: {}", (userOrders != null ? userOrders.size() : "NULL"));
                         if (userOrders != null) {
                             for (Orders order : userOrders) {
-                                System.out.println("Order ID: " + order.getOrderID() + ", Date: " + order.getOrderDate());
+                                logger.debug("Order ID: {}, Date: {}", order.getOrderID(), order.getOrderDate());
                             }
                         }
                     } else {
-                        System.out.println("Current user is NULL!");
+                        logger.debug("Current user is NULL!");
                     }
                 } else {
-                    System.out.println("User is not logged in!");
+                    logger.debug("User is not logged in!");
                 }
             } else {
-                System.out.println("LoginBean is NULL!");
+                logger.debug("LoginBean is NULL!");
             }
             
-            System.out.println("=== ORDERS BEAN INIT END ===");
+            logger.debug("=== ORDERS BEAN INIT END ===");
             
         } catch (Exception e) {
-            System.err.println("ERROR in OrdersBean.init(): " + e.getMessage());
-            e.printStackTrace();
+            logger.error("ERROR in OrdersBean.init(): {}", e.getMessage(), e);
             addErrorMessage("Lỗi khi tải danh sách đơn hàng: " + e.getMessage());
         }
     }
@@ -175,10 +178,10 @@ public class OrdersBean implements Serializable {
                     .getExternalContext().getRequestParameterMap().get("orderId");
             if (orderIdParam != null) {
                 Integer orderId = Integer.parseInt(orderIdParam);
-                selectedOrder = ordersFacade.find(orderId);
+                selectedOrder = ordersFacade.find(orderId, FetchPlan.WITH_ITEMS);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in loadOrderById", e);
             addErrorMessage("Lỗi khi tải thông tin đơn hàng: " + e.getMessage());
         }
     }
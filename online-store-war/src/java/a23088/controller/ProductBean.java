@@ -2,8 +2,12 @@ package a23088.controller;
 
 import a23088.entity.Products;
 import a23088.entity.Categories;
+import a23088.mbean.ProductSearchCriteria;
+import a23088.mbean.ProductSort;
 import a23088.mbean.ProductsFacadeLocal;
-import a23088.mbean.CategoriesFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.CatalogueCache;
+import a23088.service.ProductSearchIndex;
 import jakarta.ejb.EJB;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.faces.annotation.ManagedProperty;
@@ -18,11 +22,16 @@ import java.util.stream.Collectors;
 @SessionScoped
 public class ProductBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(ProductBean.class);
+
     @EJB
     private ProductsFacadeLocal productsFacade;
 
     @EJB
-    private CategoriesFacadeLocal categoriesFacade;
+    private CatalogueCache catalogueCache;
+
+    @EJB
+    private ProductSearchIndex productSearchIndex;
 
     @Inject
     private CartBean cartBean;
@@ -35,30 +44,28 @@ public class ProductBean implements Serializable {
     private int currentPage = 1;
     private int itemsPerPage = 8;
 
-    private List<Products> products;
-    private List<Products> filteredProducts;
-    private List<Categories> categories;
+    // Sắp xếp do người dùng chọn, null = mặc định (liên quan nhất khi tìm kiếm, mới nhất khi duyệt)
+    private ProductSort sort;
+
+    // Kết quả tìm kiếm từ khóa: ID sản phẩm đã xếp hạng, null = đang duyệt theo bộ lọc.
+    // Khi duyệt, danh mục/giá được lọc và phân trang trực tiếp trong database.
+    private List<Integer> filteredProductIds;
+
+    // Trang hiện tại và tổng số kết quả, chỉ dùng lại trong một lần render
+    private transient List<Products> pageProducts;
+    private transient Integer resultCount;
 
     public ProductBean() {
         // default constructor
     }
 
-    // Load initial data with optimized performance
+    // Gọi ở preRenderView: bỏ kết quả trang của lần render trước
     public void init() {
-        if (products == null) {
-            // Load data efficiently
-            products = productsFacade.findPublished();
-            categories = categoriesFacade.findAll();
-            // Initialize with all products - no filtering applied initially
-            filteredProducts = new ArrayList<>(products);
-        }
+        invalidatePage();
     }
 
     public List<Products> getProducts() {
-        if (products == null) {
-            products = productsFacade.findPublished();
-        }
-        return products;
+        return catalogueCache.getPublishedProducts();
     }
 
     // Alias method để tương thích với code cũ
@@ -67,76 +74,31 @@ public class ProductBean implements Serializable {
     }
 
     public List<Categories> getCategories() {
-        if (categories == null) {
-            categories = categoriesFacade.findAll();
-        }
-        return categories;
+        return catalogueCache.getCategories();
     }
 
     // Phương thức tìm kiếm từ khóa - chỉ hiển thị sản phẩm chứa từ khóa
     public void SearchKeyword() {
         try {
-            System.out.println("=== SearchKeyword called ===");
-            System.out.println("searchKeyword value: '" + searchKeyword + "'");
-            
             if (searchKeyword != null && !searchKeyword.trim().isEmpty()) {
-                String keyword = searchKeyword.trim().toLowerCase();
-                System.out.println("Searching for keyword: '" + keyword + "'");
-                
-                // Lấy tất cả sản phẩm
-                List<Products> allProducts = getProducts();
-                System.out.println("Total products available: " + allProducts.size());
-                
-                // Tìm kiếm sản phẩm chứa từ khóa
-                List<Products> searchResults = new ArrayList<>();
-                for (Products product : allProducts) {
-                    boolean containsKeyword = false;
-                    
-                    // Kiểm tra tên sản phẩm
-                    if (product.getProductName() != null && 
-                        product.getProductName().toLowerCase().contains(keyword)) {
-                        containsKeyword = true;
-                        System.out.println("✓ Found in name: " + product.getProductName());
-                    }
-                    
-                    // Kiểm tra mô tả
-                    if (!containsKeyword && product.getDescription() != null && 
-                        product.getDescription().toLowerCase().contains(keyword)) {
-                        containsKeyword = true;
-                        System.out.println("✓ Found in description: " + product.getProductName());
-                    }
-                    
-                    // Kiểm tra thương hiệu
-                    if (!containsKeyword && product.getBrand() != null && 
-                        product.getBrand().toLowerCase().contains(keyword)) {
-                        containsKeyword = true;
-                        System.out.println("✓ Found in brand: " + product.getProductName());
-                    }
-                    
-                    if (containsKeyword) {
-                        searchResults.add(product);
-                    }
+                // Tra cứu chỉ mục tìm kiếm, kết quả là ID sản phẩm đã xếp hạng
+                filteredProductIds = new ArrayList<>(productSearchIndex.search(searchKeyword));
+                if (sort != null) {
+                    filteredProductIds = toIds(sortProducts(catalogueCache.getProducts(filteredProductIds)));
                 }
-                
-                filteredProducts = searchResults;
-                System.out.println("Search completed. Found " + filteredProducts.size() + " products containing '" + keyword + "'");
-                
             } else {
-                // Không có từ khóa, hiển thị tất cả sản phẩm
-                filteredProducts = getProducts();
-                System.out.println("No keyword provided, showing all products");
+                // Không có từ khóa, duyệt sản phẩm theo bộ lọc
+                filteredProductIds = null;
             }
-            
-            currentPage = 1;
-            System.out.println("=== SearchKeyword completed ===");
-            
+
         } catch (Exception e) {
-            System.out.println("Error in SearchKeyword: " + e.getMessage());
-            e.printStackTrace();
+            logger.debug("Error in SearchKeyword: {}", e.getMessage());
+            logger.error("Error in SearchKeyword", e);
             // Fallback: hiển thị tất cả sản phẩm
-            filteredProducts = getProducts();
-            currentPage = 1;
+            filteredProductIds = null;
         }
+        currentPage = 1;
+        invalidatePage();
     }
     
 
@@ -144,63 +106,108 @@ public class ProductBean implements Serializable {
     public void applyFilters() {
         // Sử dụng phương thức SearchKeyword() để tìm kiếm
         SearchKeyword();
-        
-        // Sau đó áp dụng các bộ lọc khác
-        if (filteredProducts != null) {
-            filteredProducts = filteredProducts.stream()
-                .filter(product -> {
-                    // Fast category filter - only filter if a category is actually selected
-                    if (selectedCategoryId != null && selectedCategoryId > 0) {
-                        if (product.getCategoryID() == null || !product.getCategoryID().getCategoryID().equals(selectedCategoryId)) {
-                            return false;
-                        }
-                    }
 
-                    // Fast price filter
-                    double price = product.getPrice();
-                    if (minPrice != null && minPrice > 0 && price < minPrice) {
-                        return false;
-                    }
-                    if (maxPrice != null && maxPrice > 0 && price > maxPrice) {
+        // Không có từ khóa: bộ lọc được áp dụng trong truy vấn database
+        if (filteredProductIds == null) {
+            return;
+        }
+
+        ProductSearchCriteria criteria = buildCriteria();
+        if (criteria.getCategoryId() == null && criteria.getMinPrice() == null && criteria.getMaxPrice() == null) {
+            return;
+        }
+
+        // Có từ khóa: lọc tiếp trên kết quả tìm kiếm
+        filteredProductIds = catalogueCache.getProducts(filteredProductIds).stream()
+            .filter(product -> {
+                if (criteria.getCategoryId() != null) {
+                    if (product.getCategoryID() == null || !product.getCategoryID().getCategoryID().equals(criteria.getCategoryId())) {
                         return false;
                     }
+                }
+                if (criteria.getMinPrice() != null && product.getPrice() < criteria.getMinPrice()) {
+                    return false;
+                }
+                if (criteria.getMaxPrice() != null && product.getPrice() > criteria.getMaxPrice()) {
+                    return false;
+                }
+                return true;
+            })
+            .map(Products::getProductID)
+            .collect(Collectors.toList());
+    }
 
-                    return true;
-                })
-                .collect(Collectors.toList());
+    // Bộ lọc hiện tại dưới dạng tiêu chí truy vấn
+    private ProductSearchCriteria buildCriteria() {
+        ProductSearchCriteria criteria = ProductSearchCriteria.published();
+        if (selectedCategoryId != null && selectedCategoryId > 0) {
+            criteria.setCategoryId(selectedCategoryId);
+        }
+        if (minPrice != null && minPrice > 0) {
+            criteria.setMinPrice(minPrice);
+        }
+        if (maxPrice != null && maxPrice > 0) {
+            criteria.setMaxPrice(maxPrice);
         }
+        return criteria;
+    }
+
+    private List<Products> sortProducts(List<Products> list) {
+        List<Products> sorted = new ArrayList<>(list);
+        sorted.sort(sort.comparator());
+        return sorted;
+    }
+
+    private List<Integer> toIds(List<Products> list) {
+        return list.stream().map(Products::getProductID).collect(Collectors.toList());
+    }
+
+    private void invalidatePage() {
+        pageProducts = null;
+        resultCount = null;
     }
 
-    // Optimized pagination
-    public List<Products> getFilteredProducts() {
-        if (filteredProducts == null) {
-            // If no filters have been applied, show all products
-            filteredProducts = new ArrayList<>(getProducts());
+    public int getFilteredCount() {
+        if (filteredProductIds != null) {
+            return filteredProductIds.size();
         }
-        return filteredProducts;
+        if (resultCount == null) {
+            resultCount = productsFacade.count(buildCriteria());
+        }
+        return resultCount;
     }
 
+    // Chỉ lấy các sản phẩm của trang hiện tại
     public List<Products> getPagedProducts() {
-        List<Products> filtered = getFilteredProducts();
-        int size = filtered.size();
+        if (pageProducts != null) {
+            return pageProducts;
+        }
         int start = (currentPage - 1) * itemsPerPage;
-        
-        // Fast bounds checking
-        if (start >= size) return new ArrayList<>();
-        
-        int end = Math.min(start + itemsPerPage, size);
-        return filtered.subList(start, end);
+        if (filteredProductIds != null) {
+            int size = filteredProductIds.size();
+            if (start >= size) {
+                pageProducts = new ArrayList<>();
+            } else {
+                int end = Math.min(start + itemsPerPage, size);
+                pageProducts = catalogueCache.getProducts(filteredProductIds.subList(start, end));
+            }
+        } else {
+            pageProducts = productsFacade.search(buildCriteria(), start, itemsPerPage, sort);
+        }
+        return pageProducts;
     }
 
     public void nextPage() {
-        if (currentPage * itemsPerPage < getFilteredProducts().size()) {
+        if (currentPage * itemsPerPage < getFilteredCount()) {
             currentPage++;
+            invalidatePage();
         }
     }
 
     public void previousPage() {
         if (currentPage > 1) {
             currentPage--;
+            invalidatePage();
         }
     }
 
@@ -211,9 +218,11 @@ public class ProductBean implements Serializable {
         selectedCategoryId = null;
         minPrice = null;
         maxPrice = null;
+        sort = null;
         currentPage = 1;
         // Reset to show all products
-        filteredProducts = new ArrayList<>(getProducts());
+        filteredProductIds = null;
+        invalidatePage();
     }
     
     
@@ -221,7 +230,8 @@ public class ProductBean implements Serializable {
     // Các thuộc tính và phương thức cho trang chi tiết sản phẩm
     private Products currentProduct;
     private int quantity = 1;
-    private List<Products> relatedProducts;
+    // Chỉ giữ ID trong session, sản phẩm lấy từ snapshot dùng chung khi render
+    private List<Integer> relatedProductIds;
     private List<Object> reviews;
     private double averageRating = 0.0;
     private int reviewCount = 0;
@@ -250,14 +260,15 @@ public class ProductBean implements Serializable {
     // Load sản phẩm liên quan
     private void loadRelatedProducts() {
         if (currentProduct != null && currentProduct.getCategoryID() != null) {
-            relatedProducts = productsFacade.findPublished().stream()
+            relatedProductIds = getProducts().stream()
                 .filter(p -> !p.getProductID().equals(currentProduct.getProductID()) 
                         && p.getCategoryID() != null 
                         && p.getCategoryID().getCategoryID().equals(currentProduct.getCategoryID().getCategoryID()))
                 .limit(4)
+                .map(Products::getProductID)
                 .collect(Collectors.toList());
         } else {
-            relatedProducts = new ArrayList<>();
+            relatedProductIds = new ArrayList<>();
         }
     }
 
@@ -290,8 +301,9 @@ public class ProductBean implements Serializable {
     public int getQuantity() { return quantity; }
     public void setQuantity(int quantity) { this.quantity = quantity; }
 
-    public List<Products> getRelatedProducts() { return relatedProducts; }
-    public void setRelatedProducts(List<Products> relatedProducts) { this.relatedProducts = relatedProducts; }
+    public List<Products> getRelatedProducts() {
+        return relatedProductIds != null ? catalogueCache.getProducts(relatedProductIds) : null;
+    }
 
     public List<Object> getReviews() { return reviews; }
     public void setReviews(List<Object> reviews) { this.reviews = reviews; }
@@ -315,6 +327,11 @@ public class ProductBean implements Serializable {
     public Integer getMaxPrice() { return maxPrice; }
     public void setMaxPrice(Integer maxPrice) { this.maxPrice = maxPrice; }
 
+    public ProductSort getSort() { return sort; }
+    public void setSort(ProductSort sort) { this.sort = sort; }
+
+    public ProductSort[] getSortOptions() { return ProductSort.values(); }
+
     public int getCurrentPage() { return currentPage; }
     public int getItemsPerPage() { return itemsPerPage; }
 
@@ -324,6 +341,7 @@ public class ProductBean implements Serializable {
     
     // Get recommended products for cart page
     public List<Products> getRecommendedProducts() {
+        List<Products> relatedProducts = getRelatedProducts();
         if (relatedProducts != null && !relatedProducts.isEmpty()) {
             return relatedProducts;
         }
@@ -1,9 +1,12 @@
 package a23088.controller;
 
 import a23088.entity.Users;
-import a23088.entity.Roles;
-import a23088.mbean.RolesFacadeLocal;
 import a23088.mbean.UsersFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.DuplicateEmailException;
+import a23088.service.PasswordHasher;
+import a23088.service.PasswordHasherBusyException;
+import a23088.service.RoleRegistry;
 import jakarta.inject.Named;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.faces.application.FacesMessage;
@@ -16,13 +19,18 @@ import java.util.Date;
 @RequestScoped
 public class RegisterBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(RegisterBean.class);
+
     private static final long serialVersionUID = 1L;
 
     @EJB
     private UsersFacadeLocal usersFacade;
 
     @EJB
-    private RolesFacadeLocal rolesFacade;
+    private RoleRegistry roleRegistry;
+
+    @EJB
+    private PasswordHasher passwordHasher;
 
     // Form fields
     private String fullName;
@@ -62,15 +70,14 @@ public class RegisterBean implements Serializable {
                 return null;
             }
             String emailLower = email.trim().toLowerCase();
-            Users existing = usersFacade.findByEmail(emailLower);
-            if (existing != null) {
+            if (usersFacade.emailExists(emailLower)) {
                 addError("This email is already registered.");
                 return null;
             }
 
-            // STEP 3: Get Role
-            Roles role = rolesFacade.find(7);
-            if (role == null) {
+            // STEP 3: Get Role ID (from the registry, no query per signup)
+            Integer roleId = roleRegistry.findId(RoleRegistry.CUSTOMER);
+            if (roleId == null) {
                 addError("System error: Role does not exist.");
                 return null;
             }
@@ -78,18 +85,24 @@ public class RegisterBean implements Serializable {
             Users user = new Users();
             user.setFullName(fullName.trim());
             user.setEmail(emailLower);
-            user.setPasswordHashed(password);
+            user.setPassword(passwordHasher.hash(password));
             user.setStatus(true);
             user.setCreatedAt(new Date());
-            user.setRoleID(role);
 
-            usersFacade.create(user);
+            usersFacade.createWithRole(user, roleId);
             addSuccess("Registration successful! Welcome, " + user.getFullName());
             clearForm();
             return "login?faces-redirect=true";
 
+        } catch (DuplicateEmailException e) {
+            // Email vừa được đăng ký ở node khác, bộ lọc của node này chưa biết
+            addError("This email is already registered.");
+            return null;
+        } catch (PasswordHasherBusyException e) {
+            addError(e.getMessage());
+            return null;
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in register", e);
             addError("An error occurred: " + e.getMessage());
             return null;
         }
@@ -127,7 +140,7 @@ public class RegisterBean implements Serializable {
     }
 
     public void setFullName(String fullName) {
-        System.out.println(">> setFullName: " + fullName);
+        logger.debug(">> setFullName: {}", fullName);
         this.fullName = fullName;
     }
 
@@ -136,7 +149,7 @@ public class RegisterBean implements Serializable {
     }
 
     public void setEmail(String email) {
-        System.out.println(">> setEmail: " + email);
+        logger.debug(">> setEmail: {}", email);
         this.email = email;
     }
 
@@ -6,11 +6,13 @@ import a23088.entity.Users;
 import a23088.mbean.ReviewsFacadeLocal;
 import a23088.mbean.ProductsFacadeLocal;
 import a23088.mbean.UsersFacadeLocal;
+import a23088.service.AppLogger;
 import jakarta.inject.Named;
 import jakarta.enterprise.context.SessionScoped;
 import jakarta.ejb.EJB;
 import jakarta.faces.application.FacesMessage;
 import jakarta.faces.context.FacesContext;
+import jakarta.inject.Inject;
 import java.io.Serializable;
 import java.util.Date;
 import java.util.List;
@@ -19,6 +21,8 @@ import java.util.List;
 @SessionScoped
 public class ReviewBean implements Serializable {
 
+    private static final AppLogger logger = AppLogger.getLogger(ReviewBean.class);
+
     @EJB
     private ReviewsFacadeLocal reviewsFacade;
     
@@ -27,6 +31,9 @@ public class ReviewBean implements Serializable {
     
     @EJB
     private UsersFacadeLocal usersFacade;
+    
+    @Inject
+    private LoginBean loginBean;
 
     private int rating = 5;
     private String comment = "";
@@ -95,7 +102,7 @@ public class ReviewBean implements Serializable {
             return "product-detail?id=" + productId + "&faces-redirect=true";
 
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in submitReview", e);
             FacesContext.getCurrentInstance().addMessage(null, 
                 new FacesMessage(FacesMessage.SEVERITY_ERROR, "Lỗi", 
                     "Có lỗi khi gửi đánh giá: " + e.getMessage()));
@@ -103,12 +110,9 @@ public class ReviewBean implements Serializable {
         }
     }
 
-    // Get current logged-in user (implement based on your login system)
+    // Get current logged-in user, loaded from DB only when writing a review
     private Users getCurrentUser() {
-        // This is a placeholder - you need to implement this based on your login system
-        // For now, return null to indicate no user is logged in
-        // You might get this from session or security context
-        return null;
+        return loginBean.loadCurrentUser();
     }
 
     // Get reviews for a specific product
@@ -116,7 +120,7 @@ public class ReviewBean implements Serializable {
         try {
             return reviewsFacade.findByProductID(productId);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.error("Error in getReviewsByProduct", e);
             return new java.util.ArrayList<>();
         }
     }
@@ -0,0 +1,69 @@
+package a23088.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Helpers shared by the servlets that send files: conditional GET on a
+ * strong ETag and a file body sent with FileChannel.transferTo instead of
+ * a byte[] copy loop.
+ * @author ADMIN
+ */
+final class StaticContent {
+
+    private StaticContent() {
+    }
+
+    /**
+     * Set the ETag and answer 304 if the client already has this version
+     * @param request request with the optional If-None-Match header
+     * @param response response
+     * @param etag strong entity tag, quoted
+     * @return true if 304 was sent and nothing else must be written
+     */
+    static boolean notModified(HttpServletRequest request, HttpServletResponse response, String etag) {
+        response.setHeader("ETag", etag);
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            // If-None-Match so sánh yếu: bỏ tiền tố W/
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Send a file as the response body
+     * @param file file to send
+     * @param contentType MIME type
+     * @param response response, headers other than type and length already set
+     * @throws IOException if reading or writing fails
+     */
+    static void send(Path file, String contentType, HttpServletResponse response) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setContentType(contentType != null ? contentType : "application/octet-stream");
+            response.setContentLengthLong(size);
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
@@ -6,8 +6,13 @@ package a23088.controller;
 
 import a23088.entity.Users;
 import a23088.entity.Roles;
+import a23088.mbean.KeysetPage;
+import a23088.mbean.UserRow;
 import a23088.mbean.UsersFacadeLocal;
 import a23088.mbean.RolesFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.DuplicateEmailException;
+import a23088.service.PasswordHasher;
 import a23088.service.UserService;
 import jakarta.inject.Named;
 import jakarta.enterprise.context.SessionScoped;
@@ -18,7 +23,6 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * UserController - CDI Managed Bean for comprehensive user management
@@ -30,7 +34,9 @@ import java.util.logging.Logger;
 public class UserController implements Serializable {
 
     private static final long serialVersionUID = 1L;
-    private static final Logger logger = Logger.getLogger(UserController.class.getName());
+    private static final AppLogger logger = AppLogger.getLogger(UserController.class);
+    private static final int PAGE_SIZE = 20;
+    private static final int SEARCH_LIMIT = 500;
 
     // Inject EJB services
     @Inject
@@ -41,9 +47,14 @@ public class UserController implements Serializable {
     
     @Inject
     private UserService userService;
+    
+    @Inject
+    private PasswordHasher passwordHasher;
 
     // User management fields
-    private List<Users> users;
+    private List<UserRow> users;
+    private KeysetPage<UserRow> usersPage; // null khi đang hiển thị kết quả tìm kiếm
+    private Integer pageRoleId;
     private Users selectedUser;
     private Users currentUser;
     
@@ -75,11 +86,11 @@ public class UserController implements Serializable {
      * Creates a new instance of UserController
      */
     public UserController() {
-        logger.info("=== UserController Constructor START ===");
+        logger.debug("=== UserController Constructor START ===");
         logger.info("UserController initialized");
         
         // Don't initialize data in constructor - wait for injection to complete
-        logger.info("=== UserController Constructor END ===");
+        logger.debug("=== UserController Constructor END ===");
     }
     
     /**
@@ -87,16 +98,16 @@ public class UserController implements Serializable {
      */
     @jakarta.annotation.PostConstruct
     public void init() {
-        logger.info("=== UserController @PostConstruct START ===");
+        logger.debug("=== UserController @PostConstruct START ===");
         logger.info("PostConstruct called - injection should be complete now");
         
         // Check injection status
-        logger.info("UsersFacade injected: " + (usersFacade != null));
-        logger.info("RolesFacade injected: " + (rolesFacade != null));
-        logger.info("UserService injected: " + (userService != null));
+        logger.info("UsersFacade injected: {}", (usersFacade != null));
+        logger.info("RolesFacade injected: {}", (rolesFacade != null));
+        logger.info("UserService injected: {}", (userService != null));
         
         initializeData();
-        logger.info("=== UserController @PostConstruct END ===");
+        logger.debug("=== UserController @PostConstruct END ===");
     }
     
     /**
@@ -109,51 +120,87 @@ public class UserController implements Serializable {
             loadUsers();
             loadRoles();
         } catch (Exception e) {
-            logger.severe("Error initializing UserController: " + e.getMessage());
+            logger.error("Error initializing UserController: {}", e.getMessage());
             addErrorMessage("Lỗi khởi tạo controller: " + e.getMessage());
         }
     }
 
     /**
-     * Load all users using UsersFacade.findAll()
+     * Load the first page of users as read-only rows using UsersFacade.findRowsPage()
      */
     public void loadUsers() {
         try {
-            logger.info("=== UserController.loadUsers() START ===");
+            logger.debug("=== UserController.loadUsers() START ===");
             
             if (usersFacade == null) {
-                logger.severe("UsersFacadeLocal is null - injection failed");
+                logger.error("UsersFacadeLocal is null - injection failed");
                 addErrorMessage("Lỗi khởi tạo dịch vụ quản lý người dùng.");
                 return;
             }
             
-            logger.info("UsersFacade injected successfully, calling findAll()...");
+            logger.info("UsersFacade injected successfully, calling findRowsPage()...");
             
-            // Sử dụng hàm findAll() đã có sẵn trong UsersFacadeLocal
-            users = usersFacade.findAll();
+            // Chỉ lấy các cột hiển thị trên bảng, từng trang theo userID
+            showPage(null, null);
             
             if (users == null) {
-                logger.warning("usersFacade.findAll() returned null - creating empty list");
+                logger.warn("usersFacade.findRowsPage() returned null - creating empty list");
                 users = new ArrayList<>();
             } else {
-                logger.info("Successfully retrieved " + users.size() + " users from database");
+                logger.info("Successfully retrieved {} users from database", users.size());
                 
                 // Log first few users for debugging
                 if (!users.isEmpty()) {
-                    logger.info("First user: " + users.get(0).getFullName() + " (" + users.get(0).getEmail() + ")");
+                    logger.info("First user: {} ({})", users.get(0).getFullName(), users.get(0).getEmail());
                 }
             }
             
-            logger.info("=== UserController.loadUsers() END ===");
+            logger.debug("=== UserController.loadUsers() END ===");
             
         } catch (Exception e) {
-            logger.severe("Error loading users: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error loading users: {}", e.getMessage(), e);
             addErrorMessage("Có lỗi xảy ra khi tải danh sách người dùng: " + e.getMessage());
             users = new ArrayList<>();
         }
     }
     
+    /**
+     * Load one page of users
+     * @param cursor page cursor, null for the first page
+     * @param roleId role filter, null for all roles
+     */
+    private void showPage(String cursor, Integer roleId) {
+        usersPage = usersFacade.findRowsPage(cursor, PAGE_SIZE, roleId);
+        pageRoleId = roleId;
+        users = usersPage.getItems();
+    }
+    
+    /**
+     * Show the next page of users
+     */
+    public void nextPage() {
+        if (hasNextPage()) {
+            showPage(usersPage.getNextCursor(), pageRoleId);
+        }
+    }
+    
+    /**
+     * Show the previous page of users
+     */
+    public void previousPage() {
+        if (hasPreviousPage()) {
+            showPage(usersPage.getPreviousCursor(), pageRoleId);
+        }
+    }
+    
+    public boolean hasNextPage() {
+        return usersPage != null && usersPage.hasNext();
+    }
+    
+    public boolean hasPreviousPage() {
+        return usersPage != null && usersPage.hasPrevious();
+    }
+    
     /**
      * Load all roles using RolesFacade
      */
@@ -162,22 +209,21 @@ public class UserController implements Serializable {
             logger.info("Loading roles...");
             
             if (rolesFacade == null) {
-                logger.severe("RolesFacadeLocal is null - injection failed");
+                logger.error("RolesFacadeLocal is null - injection failed");
                 return;
             }
             
             availableRoles = rolesFacade.findAll();
             
             if (availableRoles == null) {
-                logger.warning("rolesFacade.findAll() returned null");
+                logger.warn("rolesFacade.findAll() returned null");
                 availableRoles = new ArrayList<>();
             }
             
-            logger.info("Loaded " + availableRoles.size() + " roles successfully");
+            logger.info("Loaded {} roles successfully", availableRoles.size());
             
         } catch (Exception e) {
-            logger.severe("Error loading roles: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error loading roles: {}", e.getMessage(), e);
             availableRoles = new ArrayList<>();
         }
     }
@@ -188,7 +234,7 @@ public class UserController implements Serializable {
      */
     public String createUser() {
         try {
-            logger.info("Creating new user: " + email);
+            logger.info("Creating new user: {}", email);
 
             // Validate input
             if (!validateUserInput()) {
@@ -206,7 +252,7 @@ public class UserController implements Serializable {
              Users newUser = new Users();
              newUser.setFullName(fullName.trim());
              newUser.setEmail(email.trim().toLowerCase());
-             newUser.setPassword(hashPassword(password));
+             newUser.setPassword(passwordHasher.hash(password));
              newUser.setStatus(true); // Always set to active
              newUser.setCreatedAt(new Date());
 
@@ -221,14 +267,18 @@ public class UserController implements Serializable {
             // Sử dụng hàm create() đã có sẵn trong UsersFacadeLocal
             usersFacade.create(newUser);
             
-            logger.info("User created successfully: " + newUser.getFullName());
+            logger.info("User created successfully: {}", newUser.getFullName());
             addSuccessMessage("Tạo người dùng thành công!");
             clearForm();
             loadUsers();
             return null;
 
+        } catch (DuplicateEmailException e) {
+            // UQ_Users_Email chặn email trùng mà bước kiểm tra trước chưa thấy
+            addErrorMessage("Email này đã được sử dụng.");
+            return null;
         } catch (Exception e) {
-            logger.severe("Error creating user: " + e.getMessage());
+            logger.error("Error creating user: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi tạo người dùng.");
             return null;
         }
@@ -240,14 +290,14 @@ public class UserController implements Serializable {
      */
     public String updateUser() {
         try {
-            logger.info("=== UserController.updateUser() START ===");
+            logger.debug("=== UserController.updateUser() START ===");
             
             if (selectedUser == null) {
                 addErrorMessage("Vui lòng chọn người dùng để cập nhật.");
                 return null;
             }
 
-            logger.info("Updating user: " + selectedUser.getEmail());
+            logger.info("Updating user: {}", selectedUser.getEmail());
 
             // Validate input
             if (!validateUserInputForUpdate()) {
@@ -273,8 +323,8 @@ public class UserController implements Serializable {
                     addErrorMessage("Mật khẩu phải có ít nhất 6 ký tự");
                     return null;
                 }
-                selectedUser.setPassword(hashPassword(password));
-                logger.info("Password updated for user: " + selectedUser.getEmail());
+                selectedUser.setPassword(passwordHasher.hash(password));
+                logger.info("Password updated for user: {}", selectedUser.getEmail());
             }
 
              // Update role if changed
@@ -282,26 +332,29 @@ public class UserController implements Serializable {
                  Roles role = rolesFacade.find(roleId);
                  if (role != null) {
                      selectedUser.setRoleID(role);
-                     logger.info("Role updated to: " + role.getRoleName());
+                     logger.info("Role updated to: {}", role.getRoleName());
                  }
              }
 
             // Sử dụng hàm edit() đã có sẵn trong UsersFacadeLocal
             usersFacade.edit(selectedUser);
             
-            logger.info("User updated successfully: " + selectedUser.getFullName());
+            logger.info("User updated successfully: {}", selectedUser.getFullName());
             addSuccessMessage("Cập nhật người dùng '" + selectedUser.getFullName() + "' thành công!");
             
             // Clear form and reload data
             clearForm();
             loadUsers();
             
-            logger.info("=== UserController.updateUser() END ===");
+            logger.debug("=== UserController.updateUser() END ===");
             return null;
 
+        } catch (DuplicateEmailException e) {
+            // UQ_Users_Email chặn email trùng mà bước kiểm tra trước chưa thấy
+            addErrorMessage("Email này đã được sử dụng bởi người dùng khác.");
+            return null;
         } catch (Exception e) {
-            logger.severe("Error updating user: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error updating user: {}", e.getMessage(), e);
             addErrorMessage("Có lỗi xảy ra khi cập nhật người dùng: " + e.getMessage());
             return null;
         }
@@ -313,7 +366,7 @@ public class UserController implements Serializable {
      */
     public String deleteUser() {
         try {
-            logger.info("=== UserController.deleteUser() START ===");
+            logger.debug("=== UserController.deleteUser() START ===");
             
             if (selectedUser == null) {
                 addErrorMessage("Vui lòng chọn người dùng để xóa.");
@@ -323,7 +376,7 @@ public class UserController implements Serializable {
             String userEmail = selectedUser.getEmail();
             String userName = selectedUser.getFullName();
             
-            logger.info("Deleting user: " + userEmail);
+            logger.info("Deleting user: {}", userEmail);
 
             // Sử dụng các collection đã có sẵn trong Users entity
             if (selectedUser.getOrdersCollection() != null && !selectedUser.getOrdersCollection().isEmpty()) {
@@ -334,19 +387,18 @@ public class UserController implements Serializable {
             // Sử dụng hàm remove() đã có sẵn trong UsersFacadeLocal
             usersFacade.remove(selectedUser);
             
-            logger.info("User deleted successfully: " + userEmail);
+            logger.info("User deleted successfully: {}", userEmail);
             addSuccessMessage("Xóa người dùng '" + userName + "' thành công!");
             
             // Clear form and reload data
             clearForm();
             loadUsers();
             
-            logger.info("=== UserController.deleteUser() END ===");
+            logger.debug("=== UserController.deleteUser() END ===");
             return null;
 
         } catch (Exception e) {
-            logger.severe("Error deleting user: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error deleting user: {}", e.getMessage(), e);
             addErrorMessage("Có lỗi xảy ra khi xóa người dùng: " + e.getMessage());
             return null;
         }
@@ -354,13 +406,14 @@ public class UserController implements Serializable {
 
     /**
      * Delete user by ID (for direct deletion from UI) using UsersFacade.remove()
-     * @param user user to delete
+     * @param row table row of the user to delete
      * @return navigation outcome
      */
-    public String deleteUserDirect(Users user) {
+    public String deleteUserDirect(UserRow row) {
         try {
-            logger.info("=== UserController.deleteUserDirect() START ===");
+            logger.debug("=== UserController.deleteUserDirect() START ===");
             
+            Users user = row != null ? usersFacade.find(row.getUserID()) : null;
             if (user == null) {
                 addErrorMessage("Người dùng không tồn tại.");
                 return null;
@@ -369,7 +422,7 @@ public class UserController implements Serializable {
             String userEmail = user.getEmail();
             String userName = user.getFullName();
             
-            logger.info("Direct deleting user: " + userEmail);
+            logger.info("Direct deleting user: {}", userEmail);
 
             // Sử dụng các collection đã có sẵn trong Users entity
             if (user.getOrdersCollection() != null && !user.getOrdersCollection().isEmpty()) {
@@ -380,18 +433,17 @@ public class UserController implements Serializable {
             // Sử dụng hàm remove() đã có sẵn trong UsersFacadeLocal
             usersFacade.remove(user);
             
-            logger.info("User deleted successfully: " + userEmail);
+            logger.info("User deleted successfully: {}", userEmail);
             addSuccessMessage("Xóa người dùng '" + userName + "' thành công!");
             
             // Reload data
             loadUsers();
             
-            logger.info("=== UserController.deleteUserDirect() END ===");
+            logger.debug("=== UserController.deleteUserDirect() END ===");
             return null;
 
         } catch (Exception e) {
-            logger.severe("Error deleting user directly: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error deleting user directly: {}", e.getMessage(), e);
             addErrorMessage("Có lỗi xảy ra khi xóa người dùng: " + e.getMessage());
             return null;
         }
@@ -408,13 +460,18 @@ public class UserController implements Serializable {
                 return null;
             }
 
-            logger.info("Searching users with keyword: " + searchKeyword);
+            logger.info("Searching users with keyword: {}", searchKeyword);
 
-            // Search using UserService
-            users = userService.searchUsers(searchKeyword.trim());
+            // Tìm theo tên hoặc email, chỉ lấy các cột hiển thị
+            // Lấy thêm một dòng để biết kết quả có bị cắt bớt hay không
+            users = usersFacade.findRows(searchKeyword.trim(), null, SEARCH_LIMIT + 1);
+            usersPage = null;
             
             if (users.isEmpty()) {
                 addInfoMessage("Không tìm thấy người dùng nào với từ khóa: " + searchKeyword);
+            } else if (users.size() > SEARCH_LIMIT) {
+                users = new ArrayList<>(users.subList(0, SEARCH_LIMIT));
+                addInfoMessage("Chỉ hiển thị " + SEARCH_LIMIT + " người dùng khớp nhất, hãy nhập từ khóa cụ thể hơn.");
             } else {
                 addSuccessMessage("Tìm thấy " + users.size() + " người dùng.");
             }
@@ -422,14 +479,14 @@ public class UserController implements Serializable {
             return null;
 
         } catch (Exception e) {
-            logger.severe("Error searching users: " + e.getMessage());
+            logger.error("Error searching users: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi tìm kiếm người dùng.");
             return null;
         }
     }
 
     /**
-     * Filter users by role using UsersFacade.findByRole()
+     * Filter users by role using UsersFacade.findRowsPage()
      * @return navigation outcome
      */
     public String filterUsersByRole() {
@@ -439,10 +496,9 @@ public class UserController implements Serializable {
                 return null;
             }
 
-            logger.info("Filtering users by role ID: " + filterRoleId);
+            logger.info("Filtering users by role ID: {}", filterRoleId);
 
-            // Sử dụng hàm findByRole() đã có sẵn trong UsersFacadeLocal
-            users = usersFacade.findByRole(filterRoleId);
+            showPage(null, filterRoleId);
             
             if (users == null || users.isEmpty()) {
                 addInfoMessage("Không tìm thấy người dùng nào với vai trò này.");
@@ -454,7 +510,7 @@ public class UserController implements Serializable {
             return null;
 
         } catch (Exception e) {
-            logger.severe("Error filtering users by role: " + e.getMessage());
+            logger.error("Error filtering users by role: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi lọc người dùng theo vai trò.");
             return null;
         }
@@ -466,8 +522,8 @@ public class UserController implements Serializable {
      */
     public void selectUserById(Integer userId) {
         try {
-            logger.info("=== UserController.selectUserById() START ===");
-            logger.info("Selecting user by ID: " + userId);
+            logger.debug("=== UserController.selectUserById() START ===");
+            logger.info("Selecting user by ID: {}", userId);
             
             if (userId == null) {
                 addErrorMessage("ID người dùng không hợp lệ.");
@@ -492,13 +548,13 @@ public class UserController implements Serializable {
             this.editMode = true;
             this.showCreateForm = true; // Hiện form chỉnh sửa
             
-            logger.info("Selected user for editing: " + user.getEmail() + " (ID: " + user.getUserID() + ")");
+            logger.info("Selected user for editing: {} (ID: {})", user.getEmail(), user.getUserID());
             addSuccessMessage("Đã chọn người dùng '" + user.getFullName() + "' để chỉnh sửa");
             
-            logger.info("=== UserController.selectUserById() END ===");
+            logger.debug("=== UserController.selectUserById() END ===");
             
         } catch (Exception e) {
-            logger.severe("Error selecting user by ID: " + e.getMessage());
+            logger.error("Error selecting user by ID: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi chọn người dùng: " + e.getMessage());
         }
     }
@@ -511,7 +567,7 @@ public class UserController implements Serializable {
      * Test method to check if button click works
      */
     public void testButtonClick() {
-        logger.info("=== TEST BUTTON CLICK ===");
+        logger.debug("=== TEST BUTTON CLICK ===");
         addSuccessMessage("Nút Sửa đã được bấm!");
     }
     
@@ -519,19 +575,19 @@ public class UserController implements Serializable {
      * Force refresh form data for debugging
      */
     public void refreshFormData() {
-        logger.info("=== REFRESH FORM DATA ===");
-        logger.info("Current fullName: " + fullName);
-        logger.info("Current email: " + email);
-        logger.info("Current roleId: " + roleId);
+        logger.debug("=== REFRESH FORM DATA ===");
+        logger.info("Current fullName: {}", fullName);
+        logger.info("Current email: {}", email);
+        logger.info("Current roleId: {}", roleId);
    
-        logger.info("Current userToEdit: " + (userToEdit != null ? userToEdit.getFullName() : "null"));
+        logger.info("Current userToEdit: {}", (userToEdit != null ? userToEdit.getFullName() : "null"));
     }
     
     /**
      * Test update method
      */
     public void testUpdate() {
-        logger.info("=== TEST UPDATE METHOD ===");
+        logger.debug("=== TEST UPDATE METHOD ===");
         addSuccessMessage("Test update method called!");
     }
     
@@ -540,9 +596,9 @@ public class UserController implements Serializable {
      */
     public void testParam() {
         try {
-            logger.info("=== TEST PARAM ===");
+            logger.debug("=== TEST PARAM ===");
             String testUserIdParam = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("testUserId");
-            logger.info("testUserId from request: " + testUserIdParam);
+            logger.info("testUserId from request: {}", testUserIdParam);
             
             if (testUserIdParam != null) {
                 addSuccessMessage("Parameter received: " + testUserIdParam);
@@ -550,7 +606,7 @@ public class UserController implements Serializable {
                 addErrorMessage("No parameter received");
             }
         } catch (Exception e) {
-            logger.severe("Error in testParam: " + e.getMessage());
+            logger.error("Error in testParam: {}", e.getMessage());
             addErrorMessage("Error: " + e.getMessage());
         }
     }
@@ -560,7 +616,7 @@ public class UserController implements Serializable {
      */
     public void testUpdateWithChange() {
         try {
-            logger.info("=== TEST UPDATE WITH CHANGE ===");
+            logger.debug("=== TEST UPDATE WITH CHANGE ===");
             
             if (editingUserId != null) {
                 Users user = usersFacade.find(editingUserId);
@@ -575,7 +631,7 @@ public class UserController implements Serializable {
                     // Reload to verify
                     Users updatedUser = usersFacade.find(editingUserId);
                     if (updatedUser != null) {
-                        logger.info("Test update successful - Original: " + originalName + ", Updated: " + updatedUser.getFullName());
+                        logger.info("Test update successful - Original: {}, Updated: {}", originalName, updatedUser.getFullName());
                         addSuccessMessage("Test update successful! Name changed from '" + originalName + "' to '" + updatedUser.getFullName() + "'");
                         loadUsers(); // Refresh the list
                     } else {
@@ -588,7 +644,7 @@ public class UserController implements Serializable {
                 addErrorMessage("No editing user ID for test");
             }
         } catch (Exception e) {
-            logger.severe("Error in testUpdateWithChange: " + e.getMessage());
+            logger.error("Error in testUpdateWithChange: {}", e.getMessage());
             addErrorMessage("Test update error: " + e.getMessage());
         }
     }
@@ -598,8 +654,8 @@ public class UserController implements Serializable {
      */
     public void populateFormFromCurrentUser() {
         try {
-            logger.info("=== POPULATE FORM FROM CURRENT USER ===");
-            logger.info("editingUserId: " + editingUserId);
+            logger.debug("=== POPULATE FORM FROM CURRENT USER ===");
+            logger.info("editingUserId: {}", editingUserId);
             
             if (editingUserId != null) {
                 Users user = usersFacade.find(editingUserId);
@@ -609,7 +665,7 @@ public class UserController implements Serializable {
                     this.roleId = user.getRoleID() != null ? user.getRoleID().getRoleID() : null;
                     this.password = "";
                     
-                    logger.info("Form populated from current user: " + user.getFullName());
+                    logger.info("Form populated from current user: {}", user.getFullName());
                     addSuccessMessage("Đã load dữ liệu từ người dùng hiện tại: " + user.getFullName());
                 } else {
                     addErrorMessage("Không tìm thấy người dùng với ID: " + editingUserId);
@@ -618,7 +674,7 @@ public class UserController implements Serializable {
                 addErrorMessage("Không có ID người dùng để load");
             }
         } catch (Exception e) {
-            logger.severe("Error populating form: " + e.getMessage());
+            logger.error("Error populating form: {}", e.getMessage());
             addErrorMessage("Lỗi khi load dữ liệu: " + e.getMessage());
         }
     }
@@ -628,20 +684,20 @@ public class UserController implements Serializable {
      */
     public void forceLoadUser() {
         try {
-            logger.info("=== FORCE LOAD USER ===");
-            logger.info("editingUserId: " + editingUserId);
+            logger.debug("=== FORCE LOAD USER ===");
+            logger.info("editingUserId: {}", editingUserId);
             
             // Try to get from request parameters
             String editingUserIdParam = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("editingUserId");
-            logger.info("editingUserId from request: " + editingUserIdParam);
+            logger.info("editingUserId from request: {}", editingUserIdParam);
             
             Integer userIdToLoad = editingUserId;
             if (userIdToLoad == null && editingUserIdParam != null) {
                 try {
                     userIdToLoad = Integer.parseInt(editingUserIdParam);
-                    logger.info("Using editingUserId from request: " + userIdToLoad);
+                    logger.info("Using editingUserId from request: {}", userIdToLoad);
                 } catch (NumberFormatException e) {
-                    logger.warning("Invalid editingUserId from request: " + editingUserIdParam);
+                    logger.warn("Invalid editingUserId from request: {}", editingUserIdParam);
                 }
             }
             
@@ -655,18 +711,18 @@ public class UserController implements Serializable {
                     this.email = user.getEmail();
                     this.roleId = user.getRoleID() != null ? user.getRoleID().getRoleID() : null;
                     
-                    logger.info("User loaded successfully: " + user.getFullName());
+                    logger.info("User loaded successfully: {}", user.getFullName());
                     addSuccessMessage("Đã load lại dữ liệu người dùng: " + user.getFullName());
                 } else {
-                    logger.warning("User not found with ID: " + userIdToLoad);
+                    logger.warn("User not found with ID: {}", userIdToLoad);
                     addErrorMessage("Không tìm thấy người dùng với ID: " + userIdToLoad);
                 }
             } else {
-                logger.warning("No user ID available to load");
+                logger.warn("No user ID available to load");
                 addErrorMessage("Không có ID người dùng để load");
             }
         } catch (Exception e) {
-            logger.severe("Error force loading user: " + e.getMessage());
+            logger.error("Error force loading user: {}", e.getMessage());
             addErrorMessage("Lỗi khi load người dùng: " + e.getMessage());
         }
     }
@@ -677,16 +733,16 @@ public class UserController implements Serializable {
      */
     public void openEditModal(Integer userId) {
         try {
-            logger.info("=== UserController.openEditModal() START ===");
-            logger.info("Opening edit modal for user ID: " + userId);
-            logger.info("User ID type: " + (userId != null ? userId.getClass().getSimpleName() : "null"));
+            logger.debug("=== UserController.openEditModal() START ===");
+            logger.info("Opening edit modal for user ID: {}", userId);
+            logger.info("User ID type: {}", (userId != null ? userId.getClass().getSimpleName() : "null"));
             
             // Try to get editingUserId from request parameters as backup
             String editingUserIdParam = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("editingUserId");
-            logger.info("editingUserId from request: " + editingUserIdParam);
+            logger.info("editingUserId from request: {}", editingUserIdParam);
             
             if (userId == null) {
-                logger.severe("User ID is null!");
+                logger.error("User ID is null!");
                 addErrorMessage("ID người dùng không hợp lệ.");
                 return;
             }
@@ -714,17 +770,17 @@ public class UserController implements Serializable {
             this.showEditModal = true;
             this.editMode = true;
             
-            logger.info("Form populated - FullName: " + this.fullName + ", Email: " + this.email + ", RoleId: " + this.roleId);
+            logger.info("Form populated - FullName: {}, Email: {}, RoleId: {}", this.fullName, this.email, this.roleId);
             
             // Force FacesContext to update
             FacesContext.getCurrentInstance().getPartialViewContext().getRenderIds().add("editUserModal");
             FacesContext.getCurrentInstance().getPartialViewContext().getRenderIds().add("editUserModalForm");
             
-            logger.info("Edit modal opened for user: " + user.getFullName());
-            logger.info("=== UserController.openEditModal() END ===");
+            logger.info("Edit modal opened for user: {}", user.getFullName());
+            logger.debug("=== UserController.openEditModal() END ===");
             
         } catch (Exception e) {
-            logger.severe("Error opening edit modal: " + e.getMessage());
+            logger.error("Error opening edit modal: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi mở modal chỉnh sửa: " + e.getMessage());
         }
     }
@@ -748,8 +804,8 @@ public class UserController implements Serializable {
      */
     public String navigateToEditPage(Integer userId) {
         try {
-            logger.info("=== UserController.navigateToEditPage() START ===");
-            logger.info("Navigating to edit page for user ID: " + userId);
+            logger.debug("=== UserController.navigateToEditPage() START ===");
+            logger.info("Navigating to edit page for user ID: {}", userId);
             
             if (userId == null) {
                 addErrorMessage("ID người dùng không hợp lệ.");
@@ -776,13 +832,13 @@ public class UserController implements Serializable {
             // Set edit mode
             this.editMode = true;
             
-            logger.info("Navigating to edit page for user: " + user.getFullName());
-            logger.info("=== UserController.navigateToEditPage() END ===");
+            logger.info("Navigating to edit page for user: {}", user.getFullName());
+            logger.debug("=== UserController.navigateToEditPage() END ===");
             
             return "edit-user";
             
         } catch (Exception e) {
-            logger.severe("Error navigating to edit page: " + e.getMessage());
+            logger.error("Error navigating to edit page: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi mở trang chỉnh sửa: " + e.getMessage());
             return null;
         }
@@ -793,7 +849,7 @@ public class UserController implements Serializable {
      */
     public String updateUserFromEditPage() {
         try {
-            logger.info("=== UserController.updateUserFromEditPage() START ===");
+            logger.debug("=== UserController.updateUserFromEditPage() START ===");
             
             if (userToEdit == null) {
                 addErrorMessage("Không có người dùng để cập nhật.");
@@ -819,7 +875,7 @@ public class UserController implements Serializable {
             
             // Update password only if provided
             if (password != null && !password.trim().isEmpty()) {
-                String hashedPassword = hashPassword(password);
+                String hashedPassword = passwordHasher.hash(password);
                 userToEdit.setPassword(hashedPassword);
             }
             
@@ -831,13 +887,17 @@ public class UserController implements Serializable {
             
             addSuccessMessage("Cập nhật người dùng '" + userToEdit.getFullName() + "' thành công!");
             
-            logger.info("User updated successfully: " + userToEdit.getFullName());
-            logger.info("=== UserController.updateUserFromEditPage() END ===");
+            logger.info("User updated successfully: {}", userToEdit.getFullName());
+            logger.debug("=== UserController.updateUserFromEditPage() END ===");
             
             return "user-management";
             
+        } catch (DuplicateEmailException e) {
+            // UQ_Users_Email chặn email trùng mà bước kiểm tra trước chưa thấy
+            addErrorMessage("Email này đã được sử dụng bởi người dùng khác.");
+            return null;
         } catch (Exception e) {
-            logger.severe("Error updating user from edit page: " + e.getMessage());
+            logger.error("Error updating user from edit page: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi cập nhật người dùng: " + e.getMessage());
             return null;
         }
@@ -865,14 +925,14 @@ public class UserController implements Serializable {
      */
     public void updateUserFromModal() {
         try {
-            logger.info("=== UserController.updateUserFromModal() START ===");
+            logger.debug("=== UserController.updateUserFromModal() START ===");
             
             // Get user ID from request parameter
             String userIdParam = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("editingUserId");
-            logger.info("editingUserId from request: " + userIdParam);
+            logger.info("editingUserId from request: {}", userIdParam);
             
             if (userIdParam == null) {
-                logger.severe("No user ID provided!");
+                logger.error("No user ID provided!");
                 addErrorMessage("Không có ID người dùng để cập nhật.");
                 return;
             }
@@ -881,9 +941,9 @@ public class UserController implements Serializable {
             Integer userId;
             try {
                 userId = Integer.parseInt(userIdParam);
-                logger.info("Parsed user ID: " + userId);
+                logger.info("Parsed user ID: {}", userId);
             } catch (NumberFormatException e) {
-                logger.severe("Invalid user ID: " + userIdParam);
+                logger.error("Invalid user ID: {}", userIdParam);
                 addErrorMessage("ID người dùng không hợp lệ.");
                 return;
             }
@@ -891,12 +951,12 @@ public class UserController implements Serializable {
             // Load user from database
             Users userToUpdate = usersFacade.find(userId);
             if (userToUpdate == null) {
-                logger.severe("User not found with ID: " + userId);
+                logger.error("User not found with ID: {}", userId);
                 addErrorMessage("Không tìm thấy người dùng với ID: " + userId);
                 return;
             }
             
-            logger.info("Loaded user from database: " + userToUpdate.getFullName() + " (ID: " + userToUpdate.getUserID() + ")");
+            logger.info("Loaded user from database: {} (ID: {})", userToUpdate.getFullName(), userToUpdate.getUserID());
             
             // Get form data from request parameters (user input)
             String formFullName = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("editUserModalForm:editFullName");
@@ -904,7 +964,7 @@ public class UserController implements Serializable {
             String formRoleId = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("editUserModalForm:editRole");
             String formPassword = FacesContext.getCurrentInstance().getExternalContext().getRequestParameterMap().get("editUserModalForm:editPassword");
             
-            logger.info("Form data from request - FullName: " + formFullName + ", Email: " + formEmail + ", RoleId: " + formRoleId);
+            logger.info("Form data from request - FullName: {}, Email: {}, RoleId: {}", formFullName, formEmail, formRoleId);
             
             // Use form data if available, otherwise use loaded user data
             if (formFullName != null && !formFullName.trim().isEmpty()) {
@@ -919,12 +979,12 @@ public class UserController implements Serializable {
                 this.email = userToUpdate.getEmail();
                 this.roleId = userToUpdate.getRoleID() != null ? userToUpdate.getRoleID().getRoleID() : null;
                 this.password = ""; // Clear password for security
-                logger.info("Form data populated from loaded user - FullName: " + this.fullName + ", Email: " + this.email + ", RoleId: " + this.roleId);
+                logger.info("Form data populated from loaded user - FullName: {}, Email: {}, RoleId: {}", this.fullName, this.email, this.roleId);
             }
             
             // Validate input using the populated data
             logger.info("Validating input...");
-            logger.info("Validation data - fullName: " + this.fullName + ", email: " + this.email + ", roleId: " + this.roleId);
+            logger.info("Validation data - fullName: {}, email: {}, roleId: {}", this.fullName, this.email, this.roleId);
             
             // Simple validation
             if (this.fullName == null || this.fullName.trim().isEmpty()) {
@@ -952,30 +1012,30 @@ public class UserController implements Serializable {
             }
             
             // Log original data before update
-            logger.info("BEFORE UPDATE - Name: " + userToUpdate.getFullName() + ", Email: " + userToUpdate.getEmail() + ", Role: " + (userToUpdate.getRoleID() != null ? userToUpdate.getRoleID().getRoleName() : "null"));
+            logger.info("BEFORE UPDATE - Name: {}, Email: {}, Role: {}", userToUpdate.getFullName(), userToUpdate.getEmail(), (userToUpdate.getRoleID() != null ? userToUpdate.getRoleID().getRoleName() : "null"));
             
              // Update user data
              logger.info("Updating user data...");
              userToUpdate.setFullName(fullName.trim());
              userToUpdate.setEmail(email.trim().toLowerCase());
-             logger.info("AFTER UPDATE - Name: " + userToUpdate.getFullName() + ", Email: " + userToUpdate.getEmail());
+             logger.info("AFTER UPDATE - Name: {}, Email: {}", userToUpdate.getFullName(), userToUpdate.getEmail());
             
             // Update role if changed
             if (roleId != null) {
-                logger.info("Updating role to ID: " + roleId);
+                logger.info("Updating role to ID: {}", roleId);
                 Roles newRole = rolesFacade.find(roleId);
                 if (newRole != null) {
                     userToUpdate.setRoleID(newRole);
-                    logger.info("Role updated to: " + newRole.getRoleName());
+                    logger.info("Role updated to: {}", newRole.getRoleName());
                 } else {
-                    logger.warning("Role not found for ID: " + roleId);
+                    logger.warn("Role not found for ID: {}", roleId);
                 }
             }
             
             // Update password only if provided
             if (password != null && !password.trim().isEmpty()) {
                 logger.info("Updating password...");
-                String hashedPassword = hashPassword(password);
+                String hashedPassword = passwordHasher.hash(password);
                 userToUpdate.setPassword(hashedPassword);
                 logger.info("Password updated");
             } else {
@@ -990,9 +1050,9 @@ public class UserController implements Serializable {
             // Verify data was saved by reloading from database
             Users savedUser = usersFacade.find(userToUpdate.getUserID());
             if (savedUser != null) {
-                logger.info("VERIFICATION - Saved user data - Name: " + savedUser.getFullName() + ", Email: " + savedUser.getEmail() + ", Role: " + (savedUser.getRoleID() != null ? savedUser.getRoleID().getRoleName() : "null"));
+                logger.info("VERIFICATION - Saved user data - Name: {}, Email: {}, Role: {}", savedUser.getFullName(), savedUser.getEmail(), (savedUser.getRoleID() != null ? savedUser.getRoleID().getRoleName() : "null"));
             } else {
-                logger.warning("Could not verify saved user data");
+                logger.warn("Could not verify saved user data");
             }
             
              // Refresh users list
@@ -1008,12 +1068,15 @@ public class UserController implements Serializable {
              
              addSuccessMessage("Cập nhật người dùng '" + userToUpdate.getFullName() + "' thành công!");
              
-             logger.info("User updated successfully: " + userToUpdate.getFullName());
+             logger.info("User updated successfully: {}", userToUpdate.getFullName());
              logger.info("Modal closed after successful update");
-             logger.info("=== UserController.updateUserFromModal() END ===");
+             logger.debug("=== UserController.updateUserFromModal() END ===");
             
+        } catch (DuplicateEmailException e) {
+            // UQ_Users_Email chặn email trùng mà bước kiểm tra trước chưa thấy
+            addErrorMessage("Email này đã được sử dụng bởi người dùng khác.");
         } catch (Exception e) {
-            logger.severe("Error updating user from modal: " + e.getMessage());
+            logger.error("Error updating user from modal: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi cập nhật người dùng: " + e.getMessage());
         }
     }
@@ -1024,7 +1087,7 @@ public class UserController implements Serializable {
      */
     public void selectUser(Users user) {
         try {
-            logger.info("=== UserController.selectUser() START ===");
+            logger.debug("=== UserController.selectUser() START ===");
             
             if (user == null) {
                 addErrorMessage("Người dùng không tồn tại.");
@@ -1041,13 +1104,13 @@ public class UserController implements Serializable {
             this.editMode = true;
             this.showCreateForm = true; // Hiện form chỉnh sửa
             
-            logger.info("Selected user for editing: " + user.getEmail() + " (ID: " + user.getUserID() + ")");
+            logger.info("Selected user for editing: {} (ID: {})", user.getEmail(), user.getUserID());
             addSuccessMessage("Đã chọn người dùng '" + user.getFullName() + "' để chỉnh sửa");
             
-            logger.info("=== UserController.selectUser() END ===");
+            logger.debug("=== UserController.selectUser() END ===");
             
         } catch (Exception e) {
-            logger.severe("Error selecting user: " + e.getMessage());
+            logger.error("Error selecting user: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi chọn người dùng: " + e.getMessage());
         }
     }
@@ -1069,7 +1132,7 @@ public class UserController implements Serializable {
     public void refreshSelectedUser() {
         try {
             if (selectedUser != null && selectedUser.getUserID() != null) {
-                logger.info("Refreshing selected user data from database: " + selectedUser.getUserID());
+                logger.info("Refreshing selected user data from database: {}", selectedUser.getUserID());
                 
                 // Sử dụng hàm find() đã có sẵn để lấy dữ liệu mới nhất từ database
                 Users refreshedUser = usersFacade.find(selectedUser.getUserID());
@@ -1091,7 +1154,7 @@ public class UserController implements Serializable {
                 addErrorMessage("Không có người dùng nào được chọn");
             }
         } catch (Exception e) {
-            logger.severe("Error refreshing selected user: " + e.getMessage());
+            logger.error("Error refreshing selected user: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi làm mới dữ liệu người dùng: " + e.getMessage());
         }
     }
@@ -1117,7 +1180,7 @@ public class UserController implements Serializable {
             List<Users> result = usersFacade.findByRole(roleId);
             return result != null ? result : new ArrayList<>();
         } catch (Exception e) {
-            logger.severe("Error getting users by role: " + e.getMessage());
+            logger.error("Error getting users by role: {}", e.getMessage());
             return new ArrayList<>();
         }
     }
@@ -1131,7 +1194,7 @@ public class UserController implements Serializable {
         try {
             return userService.getUserCountByRole(roleId);
         } catch (Exception e) {
-            logger.severe("Error getting user count by role: " + e.getMessage());
+            logger.error("Error getting user count by role: {}", e.getMessage());
             return 0;
         }
     }
@@ -1145,7 +1208,7 @@ public class UserController implements Serializable {
         try {
             return userService.getRecentUsers(days);
         } catch (Exception e) {
-            logger.severe("Error getting recent users: " + e.getMessage());
+            logger.error("Error getting recent users: {}", e.getMessage());
             return new ArrayList<>();
         }
     }
@@ -1156,11 +1219,11 @@ public class UserController implements Serializable {
      */
     public String testDatabaseConnection() {
         try {
-            logger.info("=== Testing Database Connection ===");
+            logger.debug("=== Testing Database Connection ===");
             
             // Test 1: Check if UsersFacade is injected
             if (usersFacade == null) {
-                logger.severe("UsersFacade is null - CDI injection failed");
+                logger.error("UsersFacade is null - CDI injection failed");
                 addErrorMessage("Lỗi: UsersFacade không được inject");
                 return null;
             }
@@ -1168,7 +1231,7 @@ public class UserController implements Serializable {
             
             // Test 2: Check if RolesFacade is injected
             if (rolesFacade == null) {
-                logger.severe("RolesFacade is null - CDI injection failed");
+                logger.error("RolesFacade is null - CDI injection failed");
                 addErrorMessage("Lỗi: RolesFacade không được inject");
                 return null;
             }
@@ -1177,20 +1240,20 @@ public class UserController implements Serializable {
             // Test 3: Try to get roles from database using rolesFacade.findAll()
             List<Roles> roles = rolesFacade.findAll();
             if (roles == null || roles.isEmpty()) {
-                logger.warning("No roles found in database - creating sample roles");
+                logger.warn("No roles found in database - creating sample roles");
                 createSampleRoles();
                 roles = rolesFacade.findAll();
             }
-            logger.info("✓ Found " + roles.size() + " roles in database");
+            logger.info("✓ Found {} roles in database", roles.size());
             
             // Test 4: Try to get users from database using usersFacade.findAll()
             List<Users> users = usersFacade.findAll();
             if (users == null || users.isEmpty()) {
-                logger.warning("No users found in database - creating sample users");
+                logger.warn("No users found in database - creating sample users");
                 createSampleUsers();
                 users = usersFacade.findAll();
             }
-            logger.info("✓ Found " + users.size() + " users in database");
+            logger.info("✓ Found {} users in database", users.size());
             
             // Reload data
             loadUsers();
@@ -1201,8 +1264,7 @@ public class UserController implements Serializable {
             return null;
             
         } catch (Exception e) {
-            logger.severe("Database connection test failed: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Database connection test failed: {}", e.getMessage(), e);
             addErrorMessage("Lỗi kết nối database: " + e.getMessage());
             return null;
         }
@@ -1228,7 +1290,7 @@ public class UserController implements Serializable {
             logger.info("Created Customer role");
             
         } catch (Exception e) {
-            logger.severe("Error creating sample roles: " + e.getMessage());
+            logger.error("Error creating sample roles: {}", e.getMessage());
         }
     }
     
@@ -1240,7 +1302,7 @@ public class UserController implements Serializable {
             // Get roles first using rolesFacade.findAll()
             List<Roles> roles = rolesFacade.findAll();
             if (roles.isEmpty()) {
-                logger.warning("No roles available to create users");
+                logger.warn("No roles available to create users");
                 return;
             }
             
@@ -1258,28 +1320,28 @@ public class UserController implements Serializable {
             Users admin = new Users();
             admin.setFullName("Administrator");
             admin.setEmail("admin@example.com");
-            admin.setPassword(hashPassword("admin123"));
+            admin.setPassword(passwordHasher.hash("admin123"));
             admin.setStatus(true);
             admin.setCreatedAt(new Date());
             admin.setRoleID(adminRole);
             // Sử dụng hàm create() đã có sẵn trong UsersFacadeLocal
             usersFacade.create(admin);
-            logger.info("Created admin user: " + admin.getEmail());
+            logger.info("Created admin user: {}", admin.getEmail());
             
             // Create customer user using Users entity constructor
             Users customer = new Users();
             customer.setFullName("John Doe");
             customer.setEmail("customer@example.com");
-            customer.setPassword(hashPassword("customer123"));
+            customer.setPassword(passwordHasher.hash("customer123"));
             customer.setStatus(true);
             customer.setCreatedAt(new Date());
             customer.setRoleID(customerRole);
             // Sử dụng hàm create() đã có sẵn trong UsersFacadeLocal
             usersFacade.create(customer);
-            logger.info("Created customer user: " + customer.getEmail());
+            logger.info("Created customer user: {}", customer.getEmail());
             
         } catch (Exception e) {
-            logger.severe("Error creating sample users: " + e.getMessage());
+            logger.error("Error creating sample users: {}", e.getMessage());
         }
     }
 
@@ -1331,24 +1393,24 @@ public class UserController implements Serializable {
     private boolean validateUserInputForUpdate() {
         boolean isValid = true;
         
-        logger.info("=== VALIDATION START ===");
-        logger.info("fullName: " + fullName);
-        logger.info("email: " + email);
-        logger.info("password: " + (password != null ? "[PROVIDED]" : "null"));
-        logger.info("roleId: " + roleId);
+        logger.debug("=== VALIDATION START ===");
+        logger.info("fullName: {}", fullName);
+        logger.info("email: {}", email);
+        logger.info("password: {}", (password != null ? "[PROVIDED]" : "null"));
+        logger.info("roleId: {}", roleId);
 
         if (fullName == null || fullName.trim().isEmpty()) {
-            logger.warning("Full name validation failed");
+            logger.warn("Full name validation failed");
             addErrorMessage("Vui lòng nhập họ và tên");
             isValid = false;
         }
 
         if (email == null || email.trim().isEmpty()) {
-            logger.warning("Email validation failed - empty");
+            logger.warn("Email validation failed - empty");
             addErrorMessage("Vui lòng nhập email");
             isValid = false;
         } else if (!isValidEmail(email.trim())) {
-            logger.warning("Email validation failed - invalid format");
+            logger.warn("Email validation failed - invalid format");
             addErrorMessage("Email không hợp lệ");
             isValid = false;
         }
@@ -1356,26 +1418,26 @@ public class UserController implements Serializable {
         // Password is optional for update
         if (password != null && !password.trim().isEmpty()) {
             if (password.length() < 6) {
-                logger.warning("Password validation failed - too short");
+                logger.warn("Password validation failed - too short");
                 addErrorMessage("Mật khẩu phải có ít nhất 6 ký tự");
                 isValid = false;
             }
             
             if (confirmPassword != null && !confirmPassword.equals(password)) {
-                logger.warning("Password confirmation validation failed");
+                logger.warn("Password confirmation validation failed");
                 addErrorMessage("Mật khẩu xác nhận không khớp");
                 isValid = false;
             }
         }
 
         if (roleId == null) {
-            logger.warning("Role ID validation failed - null");
+            logger.warn("Role ID validation failed - null");
             addErrorMessage("Vui lòng chọn vai trò");
             isValid = false;
         }
 
-        logger.info("Validation result: " + isValid);
-        logger.info("=== VALIDATION END ===");
+        logger.info("Validation result: {}", isValid);
+        logger.debug("=== VALIDATION END ===");
         return isValid;
     }
 
@@ -1389,32 +1451,6 @@ public class UserController implements Serializable {
         return email.matches(emailRegex);
     }
 
-    /**
-     * Hash password using SHA-256
-     * @param password plain text password
-     * @return hashed password
-     */
-    private String hashPassword(String password) {
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
-        } catch (java.security.NoSuchAlgorithmException e) {
-            logger.severe("Error hashing password: " + e.getMessage());
-            return password;
-        }
-    }
-
     /**
      * Clear form fields
      */
@@ -1458,14 +1494,14 @@ public class UserController implements Serializable {
     }
 
     // Getters and Setters
-    public List<Users> getUsers() {
+    public List<UserRow> getUsers() {
         if (users == null) {
             users = new ArrayList<>();
         }
         return users;
     }
 
-    public void setUsers(List<Users> users) {
+    public void setUsers(List<UserRow> users) {
         this.users = users;
     }
 
@@ -1619,7 +1655,7 @@ public class UserController implements Serializable {
      */
     public void viewUserDetails(Users user) {
         try {
-            logger.info("Viewing user details: " + user.getEmail());
+            logger.info("Viewing user details: {}", user.getEmail());
             
             // Set selected user for viewing
             this.selectedUser = user;
@@ -1628,7 +1664,7 @@ public class UserController implements Serializable {
             addSuccessMessage("Đang xem thông tin người dùng: " + user.getFullName());
             
         } catch (Exception e) {
-            logger.severe("Error viewing user details: " + e.getMessage());
+            logger.error("Error viewing user details: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi xem thông tin người dùng: " + e.getMessage());
         }
     }
@@ -1646,7 +1682,7 @@ public class UserController implements Serializable {
             // Sử dụng collection đã có sẵn trong Users entity
             return user.getOrdersCollection().size();
         } catch (Exception e) {
-            logger.severe("Error getting user orders count: " + e.getMessage());
+            logger.error("Error getting user orders count: {}", e.getMessage());
             return 0;
         }
     }
@@ -1664,7 +1700,7 @@ public class UserController implements Serializable {
             // Sử dụng collection đã có sẵn trong Users entity
             return user.getReviewsCollection().size();
         } catch (Exception e) {
-            logger.severe("Error getting user reviews count: " + e.getMessage());
+            logger.error("Error getting user reviews count: {}", e.getMessage());
             return 0;
         }
     }
@@ -1680,7 +1716,7 @@ public class UserController implements Serializable {
             // Sử dụng collection đã có sẵn trong Users entity
             return getUserOrdersCount(user) == 0;
         } catch (Exception e) {
-            logger.severe("Error checking if user can be deleted: " + e.getMessage());
+            logger.error("Error checking if user can be deleted: {}", e.getMessage());
             return false;
         }
     }
@@ -6,7 +6,11 @@ package a23088.controller;
 
 import a23088.entity.Users;
 import a23088.entity.Roles;
+import a23088.mbean.FetchPlan;
 import a23088.mbean.UsersFacadeLocal;
+import a23088.service.AppLogger;
+import a23088.service.DuplicateEmailException;
+import a23088.service.PasswordHasher;
 import a23088.service.UserService;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.faces.application.FacesMessage;
@@ -17,7 +21,6 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.logging.Logger;
 
 /**
  * UserManagementBean - ManagedBean for user management operations
@@ -29,13 +32,17 @@ import java.util.logging.Logger;
 public class UserManagementBean implements Serializable {
 
     private static final long serialVersionUID = 1L;
-    private static final Logger logger = Logger.getLogger(UserManagementBean.class.getName());
+    private static final AppLogger logger = AppLogger.getLogger(UserManagementBean.class);
+    private static final int SEARCH_LIMIT = 500;
 
     @Inject
     private UserService userService;
     
     @Inject
     private UsersFacadeLocal usersFacade;
+    
+    @Inject
+    private PasswordHasher passwordHasher;
 
     // Form fields for user creation
     private String fullName;
@@ -57,7 +64,7 @@ public class UserManagementBean implements Serializable {
         try {
             loadUsers();
         } catch (Exception e) {
-            logger.warning("Failed to load users in constructor: " + e.getMessage());
+            logger.warn("Failed to load users in constructor: {}", e.getMessage());
         }
     }
 
@@ -67,7 +74,7 @@ public class UserManagementBean implements Serializable {
      */
     public String createUser() {
         try {
-            logger.info("Creating new user: " + email);
+            logger.info("Creating new user: {}", email);
 
             // Validate input
             if (!validateUserInput()) {
@@ -84,7 +91,7 @@ public class UserManagementBean implements Serializable {
             Users newUser = new Users();
             newUser.setFullName(fullName.trim());
             newUser.setEmail(email.trim().toLowerCase());
-            newUser.setPassword(password);
+            newUser.setPassword(passwordHasher.hash(password));
             newUser.setStatus(true);
             newUser.setCreatedAt(new Date());
 
@@ -100,7 +107,7 @@ public class UserManagementBean implements Serializable {
             Users savedUser = userService.createUser(newUser);
             
             if (savedUser != null) {
-                logger.info("User created successfully: " + savedUser.getFullName());
+                logger.info("User created successfully: {}", savedUser.getFullName());
                 addSuccessMessage("Tạo người dùng thành công!");
                 clearForm();
                 loadUsers();
@@ -111,7 +118,7 @@ public class UserManagementBean implements Serializable {
             }
 
         } catch (Exception e) {
-            logger.severe("Error creating user: " + e.getMessage());
+            logger.error("Error creating user: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi tạo người dùng.");
             return null;
         }
@@ -127,7 +134,7 @@ public class UserManagementBean implements Serializable {
                 return;
             }
 
-            logger.info("Editing user: " + selectedUser.getEmail());
+            logger.info("Editing user: {}", selectedUser.getEmail());
 
             // Validate input
             if (fullName == null || fullName.trim().isEmpty()) {
@@ -153,7 +160,7 @@ public class UserManagementBean implements Serializable {
                     addErrorMessage("Mật khẩu phải có ít nhất 6 ký tự");
                     return;
                 }
-                selectedUser.setPassword(hashPassword(password));
+                selectedUser.setPassword(passwordHasher.hash(password));
             }
 
             // Update role if changed
@@ -167,13 +174,13 @@ public class UserManagementBean implements Serializable {
             // Save using UsersFacade
             usersFacade.edit(selectedUser);
             
-            logger.info("User edited successfully: " + selectedUser.getFullName());
+            logger.info("User edited successfully: {}", selectedUser.getFullName());
             addSuccessMessage("Chỉnh sửa người dùng thành công!");
             clearForm();
             loadUsers();
 
         } catch (Exception e) {
-            logger.severe("Error editing user: " + e.getMessage());
+            logger.error("Error editing user: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi chỉnh sửa người dùng.");
         }
     }
@@ -185,14 +192,14 @@ public class UserManagementBean implements Serializable {
                 return null;
             }
 
-            logger.info("Updating user: " + selectedUser.getEmail());
+            logger.info("Updating user: {}", selectedUser.getEmail());
 
             // Update user information
             selectedUser.setFullName(fullName.trim());
             selectedUser.setEmail(email.trim().toLowerCase());
             
             if (password != null && !password.isEmpty()) {
-                selectedUser.setPassword(hashPassword(password));
+                selectedUser.setPassword(passwordHasher.hash(password));
             }
 
             // Update role if changed
@@ -206,14 +213,18 @@ public class UserManagementBean implements Serializable {
             // Save using UsersFacade
             usersFacade.edit(selectedUser);
             
-            logger.info("User updated successfully: " + selectedUser.getFullName());
+            logger.info("User updated successfully: {}", selectedUser.getFullName());
             addSuccessMessage("Cập nhật người dùng thành công!");
             clearForm();
             loadUsers();
             return null;
 
+        } catch (DuplicateEmailException e) {
+            // UQ_Users_Email chặn email trùng mà bước kiểm tra trước chưa thấy
+            addErrorMessage("Email này đã được sử dụng bởi người dùng khác.");
+            return null;
         } catch (Exception e) {
-            logger.severe("Error updating user: " + e.getMessage());
+            logger.error("Error updating user: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi cập nhật người dùng.");
             return null;
         }
@@ -230,19 +241,19 @@ public class UserManagementBean implements Serializable {
                 return null;
             }
 
-            logger.info("Deleting user: " + selectedUser.getEmail());
+            logger.info("Deleting user: {}", selectedUser.getEmail());
 
             // Delete using UsersFacade
             usersFacade.remove(selectedUser);
             
-            logger.info("User deleted successfully: " + selectedUser.getEmail());
+            logger.info("User deleted successfully: {}", selectedUser.getEmail());
             addSuccessMessage("Xóa người dùng thành công!");
             clearForm();
             loadUsers();
             return null;
 
         } catch (Exception e) {
-            logger.severe("Error deleting user: " + e.getMessage());
+            logger.error("Error deleting user: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi xóa người dùng.");
             return null;
         }
@@ -259,13 +270,16 @@ public class UserManagementBean implements Serializable {
                 return null;
             }
 
-            logger.info("Searching users with keyword: " + searchKeyword);
+            logger.info("Searching users with keyword: {}", searchKeyword);
 
             // Search using UserService
-            users = userService.searchUsers(searchKeyword.trim());
+            users = userService.searchUsers(searchKeyword.trim(), SEARCH_LIMIT + 1);
             
             if (users.isEmpty()) {
                 addInfoMessage("Không tìm thấy người dùng nào với từ khóa: " + searchKeyword);
+            } else if (users.size() > SEARCH_LIMIT) {
+                users = new ArrayList<>(users.subList(0, SEARCH_LIMIT));
+                addInfoMessage("Chỉ hiển thị " + SEARCH_LIMIT + " người dùng khớp nhất, hãy nhập từ khóa cụ thể hơn.");
             } else {
                 addSuccessMessage("Tìm thấy " + users.size() + " người dùng.");
             }
@@ -273,7 +287,7 @@ public class UserManagementBean implements Serializable {
             return null;
 
         } catch (Exception e) {
-            logger.severe("Error searching users: " + e.getMessage());
+            logger.error("Error searching users: {}", e.getMessage());
             addErrorMessage("Có lỗi xảy ra khi tìm kiếm người dùng.");
             return null;
         }
@@ -284,27 +298,26 @@ public class UserManagementBean implements Serializable {
      */
     public void loadUsers() {
         try {
-            logger.info("=== UserManagementBean.loadUsers() called ===");
+            logger.debug("=== UserManagementBean.loadUsers() called ===");
             
             if (usersFacade == null) {
-                logger.severe("UsersFacadeLocal is null - injection failed");
+                logger.error("UsersFacadeLocal is null - injection failed");
                 addErrorMessage("Lỗi khởi tạo dịch vụ quản lý người dùng.");
                 return;
             }
             
             logger.info("Calling usersFacade.findAll()");
-            users = usersFacade.findAll();
+            users = usersFacade.findAll(FetchPlan.SUMMARY);
             
             if (users == null) {
-                logger.warning("usersFacade.findAll() returned null");
+                logger.warn("usersFacade.findAll() returned null");
                 users = new ArrayList<>();
             }
             
-            logger.info("Loaded " + users.size() + " users successfully");
+            logger.info("Loaded {} users successfully", users.size());
             
         } catch (Exception e) {
-            logger.severe("Error loading users: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error loading users: {}", e.getMessage(), e);
             addErrorMessage("Có lỗi xảy ra khi tải danh sách người dùng: " + e.getMessage());
             users = new ArrayList<>(); // Initialize empty list to prevent null pointer
         }
@@ -320,7 +333,7 @@ public class UserManagementBean implements Serializable {
         this.email = user.getEmail();
         this.roleName = user.getRoleID().getRoleName();
         this.password = null; // Don't show password
-        logger.info("Selected user for editing: " + user.getEmail());
+        logger.info("Selected user for editing: {}", user.getEmail());
     }
 
     /**
@@ -332,7 +345,7 @@ public class UserManagementBean implements Serializable {
         try {
             return usersFacade.findByRole(roleId);
         } catch (Exception e) {
-            logger.severe("Error getting users by role: " + e.getMessage());
+            logger.error("Error getting users by role: {}", e.getMessage());
             return null;
         }
     }
@@ -378,32 +391,6 @@ public class UserManagementBean implements Serializable {
         return email.matches(emailRegex);
     }
 
-    /**
-     * Hash password using SHA-256
-     * @param password plain text password
-     * @return hashed password
-     */
-    private String hashPassword(String password) {
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes());
-            StringBuilder hexString = new StringBuilder();
-            
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            
-            return hexString.toString();
-        } catch (java.security.NoSuchAlgorithmException e) {
-            logger.severe("Error hashing password: " + e.getMessage());
-            return password;
-        }
-    }
-
     /**
      * Clear form fields
      */
@@ -552,7 +539,7 @@ public class UserManagementBean implements Serializable {
                     roles.add(customerRole);
                 }
             } catch (Exception e) {
-                logger.warning("Error loading roles: " + e.getMessage());
+                logger.warn("Error loading roles: {}", e.getMessage());
                 // Fallback to default roles
                 Roles adminRole = new Roles();
                 adminRole.setRoleID(1);
@@ -570,7 +557,7 @@ public class UserManagementBean implements Serializable {
     
     // Methods for admin/users.xhtml
     public String createNewUser() {
-        logger.info("Creating new user: " + newEmail);
+        logger.info("Creating new user: {}", newEmail);
         addSuccessMessage("Tạo người dùng thành công!");
         clearNewUserForm();
         return null;
@@ -597,13 +584,13 @@ public class UserManagementBean implements Serializable {
     }
     
     public String toggleUserStatus(Users user) {
-        logger.info("Toggling status for user: " + user.getEmail());
+        logger.info("Toggling status for user: {}", user.getEmail());
         addSuccessMessage("Thay đổi trạng thái người dùng thành công!");
         return null;
     }
     
     public String deleteUser(Users user) {
-        logger.info("Deleting user: " + user.getEmail());
+        logger.info("Deleting user: {}", user.getEmail());
         addSuccessMessage("Xóa người dùng thành công!");
         return null;
     }